@@ -0,0 +1,69 @@
+package nl.escience.alignment;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A pairwise aligner of two sequences. An aligner keeps the matrixes of the
+ * alignment it is working on, so it must not be used by two threads at once;
+ * ParallelSequenceAlignment gives every one of its tasks an aligner of its own.
+ */
+public interface Aligner {
+
+    /**
+     * Aligns the two input sequences.
+     *
+     * @param s1 The String containing the first sequence
+     * @param s2 The String containing the second sequence
+     * @return The score and the ending positions of the best alignment
+     */
+    Alignment align(String s1, String s2);
+
+    /**
+     * Aligns the two input sequences and traces the alignment back, so the
+     * result does not depend on the aligner any more.
+     *
+     * @param s1 The String containing the first sequence
+     * @param s2 The String containing the second sequence
+     * @return The best alignment with its beginning positions, cigar and edit distance
+     */
+    Alignment align_traced(String s1, String s2);
+
+    /**
+     * Aligns two sequences given as slices of byte arrays, one character per
+     * byte, and writes the traced back alignment into result. Aligners that
+     * keep buffers of their own override it so that nothing is allocated
+     * per pair; this one goes through align_traced().
+     *
+     * @param read The bytes of the first sequence
+     * @param read_offset The first byte of the first sequence
+     * @param read_length The length of the first sequence
+     * @param ref The bytes of the second sequence
+     * @param ref_offset The first byte of the second sequence
+     * @param ref_length The length of the second sequence
+     * @param result Receives the alignment
+     * @return result
+     */
+    default AlignmentResult align(byte[] read, int read_offset, int read_length, byte[] ref, int ref_offset, int ref_length,
+                                  AlignmentResult result) {
+        result.set(align_traced(new String(read, read_offset, read_length, StandardCharsets.ISO_8859_1),
+                new String(ref, ref_offset, ref_length, StandardCharsets.ISO_8859_1)));
+        return result;
+    }
+
+    /**
+     * Aligns two sequences given as the remaining bytes of two buffers, as
+     * align(byte[], int, int, byte[], int, int, AlignmentResult), without
+     * moving their positions.
+     *
+     * @param read The first sequence, from the position to the limit
+     * @param ref The second sequence, from the position to the limit
+     * @param result Receives the alignment
+     * @return result
+     */
+    default AlignmentResult align(ByteBuffer read, ByteBuffer ref, AlignmentResult result) {
+        result.set(align_traced(Workspace.load(new StringBuilder(), read).toString(),
+                Workspace.load(new StringBuilder(), ref).toString()));
+        return result;
+    }
+}
@@ -11,10 +11,11 @@ public class Alignment {
     /**
      * score1	the best alignment score
      */
-    public final short score;
+    public final int score;
     /**
-     * sub-optimal alignment score
+     * sub-optimal alignment score; -1 when it is not available
      */
+    public final int score2;
     /**
      * 0-based best alignment beginning position on reference;	ref_begin1 = -1 when the best alignment beginning position is not available
      */
@@ -33,34 +34,145 @@ public class Alignment {
      */
     public final int read_end;
     /**
-     * 0-based sub-optimal alignment ending position on read
+     * true when the extension was stopped early (Z-drop)
      */
+    public final boolean truncated;
     /**
-     * best alignment cigar; stored the same as that in BAM format
+     * edit distance of the aligned part (the NM tag of SAM): the mismatches,
+     * inserted and deleted characters; -1 when the alignment was not traced back
      */
-    //public final String cigar;
+    public final int nm;
+    /**
+     * fraction of the columns of the aligned part that are matches; NaN when
+     * the alignment was not traced back
+     */
+    public final double identity;
+    /**
+     * best alignment cigar; stored the same as that in BAM format, null when
+     * the alignment was not traced back
+     */
+    private final int cigar[];
 
     //public final String alignment;
 
     public Alignment(
-            short score,
+            int score,
             int ref_begin,
             int ref_end,
             int	read_begin,
             int read_end
             /*String cigar,
             String alignment*/) {
+        this(score, ref_begin, ref_end, read_begin, read_end, false);
+    }
+
+    public Alignment(
+            int score,
+            int ref_begin,
+            int ref_end,
+            int	read_begin,
+            int read_end,
+            boolean truncated) {
+        this(score, -1, ref_begin, ref_end, read_begin, read_end, truncated, null, -1, Double.NaN);
+    }
+
+    /**
+     * Initializes a traced back alignment. It keeps a copy of the cigar, so
+     * the aligner can go on with the next pair.
+     *
+     * @param score The best alignment score
+     * @param score2 The sub-optimal alignment score, -1 if not available
+     * @param ref_begin The 0-based beginning position on reference
+     * @param ref_end The ending position on reference
+     * @param read_begin The 0-based beginning position on read
+     * @param read_end The ending position on read
+     * @param truncated Whether the extension was stopped early
+     * @param cigar The cigar of the alignment, null if not traced back
+     * @param nm The edit distance of the aligned part, -1 if not available
+     * @param identity The fraction of matches of the aligned part, NaN if not available
+     */
+    public Alignment(
+            int score,
+            int score2,
+            int ref_begin,
+            int ref_end,
+            int read_begin,
+            int read_end,
+            boolean truncated,
+            Cigar cigar,
+            int nm,
+            double identity) {
         this.score = score;
+        this.score2 = score2;
         this.ref_begin = ref_begin;
         this.ref_end = ref_end;
         this.read_begin = read_begin;
         this.read_end = read_end;
-        //this.cigar = cigar;
+        this.truncated = truncated;
+        this.cigar = cigar == null ? null : cigar.to_packed();
+        this.nm = nm;
+        this.identity = identity;
         //this.alignment = alignment;
     }
+
+    /**
+     * Initializes a traced back alignment. Its ending positions, the number
+     * of differences and the identity of its aligned part are taken from
+     * the cigar; the ending positions are exclusive, as those of align().
+     *
+     * @param read The first sequence
+     * @param ref The second sequence
+     */
+    static Alignment traced(int score, int score2, int ref_begin, int read_begin, boolean truncated, Cigar cigar,
+                            String read, String ref) {
+        int columns = cigar.get_columns(), nm = cigar.get_edit_distance(read, read_begin, ref, ref_begin);
+        return new Alignment(score, score2, ref_begin, ref_begin + cigar.get_ref_length(), read_begin,
+                read_begin + cigar.get_read_length(), truncated, cigar, nm,
+                columns == 0 ? Double.NaN : (double)(columns - nm) / columns);
+    }
+
+    /**
+     * @return The number of operations of the cigar, 0 if not traced back
+     */
+    public int get_cigar_size() {
+        return cigar == null ? 0 : cigar.length;
+    }
+
+    /**
+     * @param k The index of an operation of the cigar
+     * @return The operation, packed as in BAM: its length in the upper 28
+     *         bits and its index in "MIDNSHP=X" in the lower 4 bits
+     */
+    public int get_cigar_op(int k) {
+        if (cigar == null || k < 0 || k >= cigar.length)
+            throw new IndexOutOfBoundsException("CIGAR operation " + k + " of " + get_cigar_size());
+        return cigar[k];
+    }
+
+    /**
+     * @return A copy of the cigar packed as in BAM, null if not traced back
+     */
+    public int[] get_packed_cigar() {
+        return cigar == null ? null : cigar.clone();
+    }
+
+    /**
+     * @return The SAM cigar string, null if not traced back
+     */
+    public String get_cigar() {
+        if (cigar == null)
+            return null;
+        return Cigar.append(new StringBuilder(4 * cigar.length), cigar, cigar.length).toString();
+    }
+
     @Override
     public String toString() {
-            return String.format("score=%d,ref_begin=%d,ref_end=%d,read_begin=%d,read_end=%d",
-                score, ref_begin, ref_end, read_begin, read_end);
+        // the flag is only printed when Z-drop set it
+        String stop = truncated ? ",truncated=true" : "";
+        if (cigar == null)
+            return String.format("score=%d,ref_begin=%d,ref_end=%d,read_begin=%d,read_end=%d%s",
+                score, ref_begin, ref_end, read_begin, read_end, stop);
+        return String.format("score=%d,score2=%d,ref_begin=%d,ref_end=%d,read_begin=%d,read_end=%d%s,cigar=%s,NM=%d,identity=%.4f",
+            score, score2, ref_begin, ref_end, read_begin, read_end, stop, get_cigar(), nm, identity);
     }
 }
\ No newline at end of file
@@ -0,0 +1,199 @@
+package nl.escience.alignment;
+
+/**
+ * The alignments of a batch of pairs, packed as ssw_align_batch writes
+ * them: FIELDS ints per pair, the score, ref_begin, ref_end, read_begin,
+ * read_end, score2 and the length of the cigar of the pair. The cigars,
+ * when they were asked for, are packed one after the other. Nothing is
+ * decoded until a pair is asked for, so the pairs a caller does not look
+ * at cost nothing.
+ */
+public final class AlignmentBatch {
+
+    /**
+     * The number of ints per pair, SSW_BATCH_FIELDS in ssw.h
+     */
+    static final int FIELDS = 7;
+
+    private final int[] packed;
+    private final int count;
+    private final int[] cigars;
+    private final int[] cigar_starts;
+
+    /**
+     * @param packed The packed alignments
+     * @param count The number of pairs
+     */
+    AlignmentBatch(int[] packed, int count) {
+        this(packed, count, null, null);
+    }
+
+    /**
+     * @param packed The packed alignments
+     * @param count The number of pairs
+     * @param cigars The operations of the cigars, packed as in BAM; null if none were asked for
+     * @param cigar_starts The first operation of the cigar of each pair in cigars, and the number of operations
+     */
+    AlignmentBatch(int[] packed, int count, int[] cigars, int[] cigar_starts) {
+        this.packed = packed;
+        this.count = count;
+        this.cigars = cigars;
+        this.cigar_starts = cigar_starts;
+    }
+
+    /**
+     * @return The number of pairs
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @param k The index of a pair
+     * @return The best alignment score of the pair
+     */
+    public int get_score(int k) {
+        return field(k, 0);
+    }
+
+    /**
+     * @param k The index of a pair
+     * @return The 0-based beginning position on reference; -1 when not available
+     */
+    public int get_ref_begin(int k) {
+        return field(k, 1);
+    }
+
+    /**
+     * @param k The index of a pair
+     * @return The ending position on reference
+     */
+    public int get_ref_end(int k) {
+        return field(k, 2);
+    }
+
+    /**
+     * @param k The index of a pair
+     * @return The 0-based beginning position on read; -1 when not available
+     */
+    public int get_read_begin(int k) {
+        return field(k, 3);
+    }
+
+    /**
+     * @param k The index of a pair
+     * @return The ending position on read
+     */
+    public int get_read_end(int k) {
+        return field(k, 4);
+    }
+
+    /**
+     * @param k The index of a pair
+     * @return The sub-optimal alignment score of the pair; -1 when not available
+     */
+    public int get_score2(int k) {
+        return field(k, 5);
+    }
+
+    /**
+     * Decodes the alignment of a pair, with its cigar when it was made.
+     *
+     * @param k The index of a pair
+     * @param result Where the alignment is written
+     * @return result
+     */
+    public AlignmentResult get(int k, AlignmentResult result) {
+        int op;
+        result.set(get_score(k), get_ref_end(k), get_read_end(k));
+        result.score2 = get_score2(k);
+        result.ref_begin = get_ref_begin(k);
+        result.read_begin = get_read_begin(k);
+        if (cigars == null || cigar_starts[k] == cigar_starts[k + 1])
+            return result;
+        for (op = cigar_starts[k]; op < cigar_starts[k + 1]; ++op)
+            result.cigar.push_packed(cigars[op]);
+        result.count_cigar();
+        return result;
+    }
+
+    /**
+     * @param k The index of a pair
+     * @return The alignment of the pair
+     */
+    public Alignment get(int k) {
+        return get(k, new AlignmentResult()).to_alignment();
+    }
+
+    /**
+     * Packs the alignment of a pair.
+     *
+     * @param packed The packed alignments
+     * @param k The index of the pair
+     * @param alignment The alignment of the pair
+     */
+    static void pack(int[] packed, int k, Alignment alignment) {
+        packed[k * FIELDS] = alignment.score;
+        packed[k * FIELDS + 1] = alignment.ref_begin;
+        packed[k * FIELDS + 2] = alignment.ref_end;
+        packed[k * FIELDS + 3] = alignment.read_begin;
+        packed[k * FIELDS + 4] = alignment.read_end;
+        packed[k * FIELDS + 5] = alignment.score2;
+        packed[k * FIELDS + 6] = 0;
+    }
+
+    /**
+     * @param packed The packed alignments
+     * @param k The index of a pair
+     * @return The number of operations of the cigar of the pair
+     */
+    static int cigar_length(int[] packed, int k) {
+        return packed[k * FIELDS + 6];
+    }
+
+    /**
+     * The room ssw_align_batch needs for the cigar of a pair, SSW_BATCH_CIGAR
+     * in ssw.h: every operation but D uses a character of the read, and no
+     * two D are adjacent.
+     *
+     * @param read_length The length of the read of the pair
+     * @param ref_length The length of the reference of the pair
+     * @return The largest number of operations of the cigar
+     */
+    static long cigar_room(int read_length, int ref_length) {
+        return Math.min((long)read_length + ref_length, 2L * read_length + 1);
+    }
+
+    /**
+     * Checks the offsets of a packed batch.
+     *
+     * @param reads The bytes of the reads
+     * @param read_offsets The offsets of the reads
+     * @param refs The bytes of the references
+     * @param ref_offsets The offsets of the references
+     * @return The number of pairs
+     * @throws IllegalArgumentException if the offsets differ in number, go down or leave their sequences
+     */
+    static int check_offsets(byte[] reads, int[] read_offsets, byte[] refs, int[] ref_offsets) {
+        if (read_offsets.length == 0 || ref_offsets.length != read_offsets.length)
+            throw new IllegalArgumentException("The offsets of reads and references differ in number");
+        check_offsets(read_offsets, reads.length);
+        check_offsets(ref_offsets, refs.length);
+        return read_offsets.length - 1;
+    }
+
+    /**
+     * @throws IllegalArgumentException unless the offsets go up within a sequence of a length
+     */
+    private static void check_offsets(int[] offsets, int length) {
+        for (int k = 0; k < offsets.length; ++k)
+            if (offsets[k] < (k == 0 ? 0 : offsets[k - 1]) || offsets[k] > length)
+                throw new IllegalArgumentException("Offset " + k + " is out of order or out of range: " + offsets[k]);
+    }
+
+    private int field(int k, int field) {
+        if (k < 0 || k >= count)
+            throw new IndexOutOfBoundsException("Pair " + k + " of " + count);
+        return packed[k * FIELDS + field];
+    }
+}
@@ -0,0 +1,229 @@
+package nl.escience.alignment;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+/**
+ * Aligns the pairs of sequences of two FASTA files in three stages connected
+ * by bounded queues:
+ *   a parser on a virtual thread, which reads the records of both files,
+ *   the aligners on one platform thread per core, each with an aligner of its own,
+ *   a writer on a virtual thread, which puts the results back in the order of the records.
+ * At most WINDOW records are between the parser and the writer at any time,
+ * so a slow output blocks the parser instead of filling the memory.
+ *
+ * The files hold a header line before every sequence, as Example expects.
+ *
+ * @param <A> The type of the aligners
+ */
+public class AlignmentPipeline<A extends Aligner> {
+
+    private final Supplier<A> factory;
+    private final BiFunction<A, Alignment, String> format;
+    private final int WORKERS;
+    private final int WINDOW;
+
+    /**
+     * A record of both files, with its result once aligned
+     */
+    private static final class Record {
+        final long index;
+        final String name;
+        final String seq1;
+        final String seq2;
+        String result;
+
+        Record(long index, String name, String seq1, String seq2) {
+            this.index = index;
+            this.name = name;
+            this.seq1 = seq1;
+            this.seq2 = seq2;
+        }
+    }
+
+    /**
+     * Marks the end of the records on a queue
+     */
+    private static final Record END = new Record(-1, null, null, null);
+
+    /**
+     * Initializes the pipeline with one aligner per core.
+     *
+     * @param factory Creates the aligner of a worker thread
+     * @param format Gives the output line of an alignment, from the aligner
+     *               that has just computed it
+     */
+    public AlignmentPipeline(Supplier<A> factory, BiFunction<A, Alignment, String> format) {
+        this(factory, format, Runtime.getRuntime().availableProcessors(), 1024);
+    }
+
+    /**
+     * Initializes the pipeline.
+     *
+     * @param factory Creates the aligner of a worker thread
+     * @param format Gives the output line of an alignment, from the aligner
+     *               that has just computed it
+     * @param workers The number of aligner threads
+     * @param window The largest number of records read but not written yet
+     */
+    public AlignmentPipeline(Supplier<A> factory, BiFunction<A, Alignment, String> format, int workers, int window) {
+        if (workers < 1 || window < 1)
+            throw new IllegalArgumentException("The pipeline needs at least one worker and one record in flight");
+        this.factory = factory;
+        this.format = format;
+        WORKERS = workers;
+        WINDOW = window;
+    }
+
+    /**
+     * Aligns every pair of records of two FASTA files and writes, for each
+     * of them, a ">name1|name2" line and the output line of the alignment.
+     *
+     * @param reader1 The file of the first sequences
+     * @param reader2 The file of the second sequences
+     * @param out Where the results are written, in the order of the records
+     * @throws IOException If a file cannot be read or written, or is not
+     *                     formatted correctly
+     */
+    public void run(BufferedReader reader1, BufferedReader reader2, Writer out) throws IOException {
+        BlockingQueue<Record> input = new ArrayBlockingQueue<>(WINDOW + WORKERS);
+        BlockingQueue<Record> output = new ArrayBlockingQueue<>(WINDOW + WORKERS);
+        Semaphore in_flight = new Semaphore(WINDOW);
+        ExecutorService io = Executors.newVirtualThreadPerTaskExecutor();
+        ExecutorService compute = Executors.newFixedThreadPool(WORKERS);
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        try {
+            try {
+                io.execute(stage(() -> parse(reader1, reader2, input, in_flight), error, io, compute));
+                for (int i = 0; i < WORKERS; ++i)
+                    compute.execute(stage(() -> align(input, output), error, io, compute));
+                io.execute(stage(() -> write(output, out, in_flight), error, io, compute));
+            } catch (RejectedExecutionException e) {
+                // a stage has failed before the others were started
+            }
+            io.shutdown();
+            compute.shutdown();
+            while (!io.awaitTermination(1, TimeUnit.SECONDS) || !compute.awaitTermination(1, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            io.shutdownNow();
+            compute.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while aligning", e);
+        }
+        Throwable e = error.get();
+        if (e instanceof IOException)
+            throw (IOException)e;
+        if (e instanceof RuntimeException)
+            throw (RuntimeException)e;
+        if (e instanceof Error)
+            throw (Error)e;
+        if (e != null)
+            throw new IllegalStateException(e);
+    }
+
+    /**
+     * Runs a stage; the first stage to fail stops all the others.
+     */
+    private static Runnable stage(Callable<Void> body, AtomicReference<Throwable> error, ExecutorService io, ExecutorService compute) {
+        return () -> {
+            try {
+                body.call();
+            } catch (InterruptedException e) {
+                // stopped by a failing stage
+            } catch (Throwable e) {
+                if (error.compareAndSet(null, e)) {
+                    io.shutdownNow();
+                    compute.shutdownNow();
+                }
+            }
+        };
+    }
+
+    /**
+     * Reads the records of both files, then an end mark for every worker.
+     * Blank lines are skipped in each file on its own, so they do not have
+     * to be at the same places in both.
+     */
+    private Void parse(BufferedReader reader1, BufferedReader reader2, BlockingQueue<Record> input, Semaphore in_flight)
+            throws IOException, InterruptedException {
+        String seq1, seq2, seq1_no = null, seq2_no = null;
+        long index = 0;
+        while ((seq1 = next_line(reader1)) != null && (seq2 = next_line(reader2)) != null) {
+            if (seq1.charAt(0) == '>' || seq2.charAt(0) == '>') {
+                if (seq1.charAt(0) != '>' || seq2.charAt(0) != '>')
+                    throw new IOException("Input files not formatted correctly");
+                seq1_no = seq1.substring(1);
+                seq2_no = seq2.substring(1);
+                continue;
+            }
+            in_flight.acquire();
+            input.put(new Record(index++, seq1_no + "|" + seq2_no, seq1.toUpperCase(), seq2.toUpperCase()));
+        }
+        for (int i = 0; i < WORKERS; ++i)
+            input.put(END);
+        return null;
+    }
+
+    /**
+     * @return The next line of a file that is not empty, null at its end
+     */
+    private static String next_line(BufferedReader reader) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null && line.isEmpty());
+        return line;
+    }
+
+    /**
+     * Aligns records until the end mark, which is passed on to the writer.
+     */
+    private Void align(BlockingQueue<Record> input, BlockingQueue<Record> output) throws InterruptedException {
+        A aligner = factory.get();
+        Record record;
+        while ((record = input.take()) != END) {
+            record.result = format.apply(aligner, aligner.align(record.seq1, record.seq2));
+            output.put(record);
+        }
+        output.put(END);
+        return null;
+    }
+
+    /**
+     * Writes the results in the order of the records, holding back those
+     * that are done before the ones preceding them.
+     */
+    private Void write(BlockingQueue<Record> output, Writer out, Semaphore in_flight) throws IOException, InterruptedException {
+        Map<Long, Record> pending = new HashMap<>();
+        long next = 0;
+        int ended = 0;
+        Record record;
+        while (ended < WORKERS) {
+            record = output.take();
+            if (record == END) {
+                ++ended;
+                continue;
+            }
+            pending.put(record.index, record);
+            while ((record = pending.remove(next)) != null) {
+                out.write(">" + record.name + "\n" + record.result + "\n");
+                in_flight.release();
+                ++next;
+            }
+        }
+        out.flush();
+        return null;
+    }
+}
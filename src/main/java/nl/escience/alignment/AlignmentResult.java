@@ -0,0 +1,148 @@
+package nl.escience.alignment;
+
+/**
+ * A reusable alignment, the mutable counterpart of Alignment. The aligners
+ * overwrite it at every call, together with its cigar, so a caller aligning
+ * many pairs keeps one AlignmentResult per thread and no memory is
+ * allocated per pair once its cigar has grown to the longest one seen.
+ * Use to_alignment() to keep a result.
+ */
+public final class AlignmentResult {
+    /**
+     * the best alignment score
+     */
+    public int score;
+    /**
+     * sub-optimal alignment score; -1 when it is not available
+     */
+    public int score2;
+    /**
+     * 0-based best alignment beginning position on reference; -1 when not available
+     */
+    public int ref_begin;
+    /**
+     * best alignment ending position on reference
+     */
+    public int ref_end;
+    /**
+     * 0-based best alignment beginning position on read; -1 when not available
+     */
+    public int read_begin;
+    /**
+     * best alignment ending position on read
+     */
+    public int read_end;
+    /**
+     * true when the extension was stopped early (Z-drop)
+     */
+    public boolean truncated;
+    /**
+     * edit distance of the aligned part; -1 when the alignment was not traced back
+     */
+    public int nm;
+    /**
+     * fraction of the columns of the aligned part that are matches; NaN when
+     * the alignment was not traced back
+     */
+    public double identity;
+    /**
+     * best alignment cigar; empty when the alignment was not traced back
+     */
+    public final Cigar cigar;
+
+    public AlignmentResult() {
+        cigar = new Cigar();
+        clear();
+    }
+
+    /**
+     * Resets the result to an alignment with no positions and no cigar.
+     */
+    public void clear() {
+        score = 0;
+        score2 = ref_begin = ref_end = read_begin = read_end = nm = -1;
+        truncated = false;
+        identity = Double.NaN;
+        cigar.clear();
+    }
+
+    /**
+     * Sets the result to an alignment that was not traced back.
+     *
+     * @param score The best alignment score
+     * @param ref_end The ending position on reference
+     * @param read_end The ending position on read
+     */
+    void set(int score, int ref_end, int read_end) {
+        clear();
+        this.score = score;
+        this.ref_end = ref_end;
+        this.read_end = read_end;
+    }
+
+    /**
+     * Sets the result to a traced back alignment, as Alignment.traced().
+     * The cigar is copied, so the aligner can go on with the next pair.
+     *
+     * @param read The first sequence
+     * @param ref The second sequence
+     */
+    void set_traced(int score, int score2, int ref_begin, int read_begin, boolean truncated, Cigar cigar,
+                    CharSequence read, CharSequence ref) {
+        int columns = cigar.get_columns();
+        this.score = score;
+        this.score2 = score2;
+        this.ref_begin = ref_begin;
+        this.ref_end = ref_begin + cigar.get_ref_length();
+        this.read_begin = read_begin;
+        this.read_end = read_begin + cigar.get_read_length();
+        this.truncated = truncated;
+        this.nm = cigar.get_edit_distance(read, read_begin, ref, ref_begin);
+        this.identity = columns == 0 ? Double.NaN : (double)(columns - nm) / columns;
+        this.cigar.copy_from(cigar);
+    }
+
+    /**
+     * Sets the edit distance and the identity from the cigar, which tells
+     * matches and mismatches apart, as the cigars of libssw do.
+     */
+    void count_cigar() {
+        int columns = cigar.get_columns();
+        nm = cigar.size() == 0 ? -1 : cigar.get_edit_distance();
+        identity = columns == 0 ? Double.NaN : (double)(columns - nm) / columns;
+    }
+
+    /**
+     * Sets the result to an alignment.
+     *
+     * @param alignment The alignment
+     */
+    public void set(Alignment alignment) {
+        int k;
+        score = alignment.score;
+        score2 = alignment.score2;
+        ref_begin = alignment.ref_begin;
+        ref_end = alignment.ref_end;
+        read_begin = alignment.read_begin;
+        read_end = alignment.read_end;
+        truncated = alignment.truncated;
+        nm = alignment.nm;
+        identity = alignment.identity;
+        cigar.clear();
+        for (k = 0; k < alignment.get_cigar_size(); ++k)
+            cigar.push_packed(alignment.get_cigar_op(k));
+    }
+
+    /**
+     * @return An alignment holding a copy of the result
+     */
+    public Alignment to_alignment() {
+        return new Alignment(score, score2, ref_begin, ref_end, read_begin, read_end, truncated,
+                cigar.size() == 0 ? null : cigar, nm, identity);
+    }
+
+    @Override
+    public String toString() {
+        return to_alignment().toString();
+    }
+}
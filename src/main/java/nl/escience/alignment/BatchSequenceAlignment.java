@@ -0,0 +1,421 @@
+package nl.escience.alignment;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Inter-sequence batch alignment: every vector lane aligns a different
+ * read/reference pair, so short pairs keep all lanes busy without the
+ * overhead of the striped layout.
+ *
+ * Pairs are sorted by length and aligned in groups of as many pairs as there
+ * are lanes. Each pair gets the same result as LocalSequenceAlignment.align().
+ *
+ * Groups are aligned in 8-bit lanes when their scores are known to stay in
+ * range, and repeated in 16-bit and then 32-bit lanes when the scores
+ * saturate. The narrow kernels keep a profile of the references against
+ * each symbol of the reads, and blend the rows of the symbols a row of
+ * reads uses, so their cost does not depend on the size of the matrix.
+ */
+public class BatchSequenceAlignment {
+
+    /**
+     * Vector species picked at runtime, for each score width; one pair per lane
+     */
+    public static final VectorSpecies<Byte> BYTE_SPECIES = ByteVector.SPECIES_PREFERRED;
+    public static final VectorSpecies<Short> SHORT_SPECIES = ShortVector.SPECIES_PREFERRED;
+    public static final VectorSpecies<Integer> INT_SPECIES = IntVector.SPECIES_PREFERRED;
+
+    private BatchSequenceAlignment() {
+    }
+
+    /**
+     * Aligns each read against the reference at the same index.
+     *
+     * @param reads numeric read sequences
+     * @param refs numeric reference sequences
+     * @param flattenedMatch the substitution matrix; needs to be corresponding to the sequences
+     * @param n the square root of the number of elements in flattenedMatch
+     * @param gapOpen the absolute value of gap open penalty.
+     * @param gapExtend the absolute value of gap extension penalty.
+     * @return the alignments, in the order of the input pairs
+     */
+    public static Alignment[] align(byte[][] reads, byte[][] refs, byte[] flattenedMatch, int n, int gapOpen, int gapExtend) {
+        if (reads.length != refs.length)
+            throw new IllegalArgumentException("Number of reads and references should be equal");
+        int i, count, min_score = 0, max_score = 0;
+        int[] matrix = new int[n * n];
+        for (i = 0; i < matrix.length; i++) {
+            matrix[i] = flattenedMatch[i];
+            min_score = Math.min(min_score, matrix[i]);
+            max_score = Math.max(max_score, matrix[i]);
+        }
+        // Length buckets: pairs of similar size are aligned in the same group
+        Integer[] order = new Integer[reads.length];
+        for (i = 0; i < order.length; i++)
+            order[i] = i;
+        java.util.Arrays.sort(order, (a, b) -> reads[a].length != reads[b].length ?
+                Integer.compare(reads[a].length, reads[b].length) : Integer.compare(refs[a].length, refs[b].length));
+        Alignment[] results = new Alignment[reads.length];
+        // Scores only grow with the length of the reads, so a width that
+        // saturated once is not tried again
+        boolean try_byte = true;
+        boolean try_short = true;
+        for (i = 0; i < order.length; i += count) {
+            count = Math.min(BYTE_SPECIES.length(), order.length - i);
+            if (try_byte && lowest(order, i, count, reads, refs, min_score) - gapOpen - gapExtend > Byte.MIN_VALUE) {
+                if (align_byte(order, i, count, reads, refs, matrix, n, gapOpen, gapExtend,
+                        Byte.MAX_VALUE - max_score, results))
+                    continue;
+                try_byte = false;
+            }
+            count = Math.min(SHORT_SPECIES.length(), order.length - i);
+            if (try_short && lowest(order, i, count, reads, refs, min_score) - gapOpen - gapExtend > Short.MIN_VALUE) {
+                if (align_short(order, i, count, reads, refs, matrix, n, gapOpen, gapExtend,
+                        Short.MAX_VALUE - max_score, results))
+                    continue;
+                try_short = false;
+            }
+            count = Math.min(INT_SPECIES.length(), order.length - i);
+            align_int(order, i, count, reads, refs, matrix, n, gapOpen, gapExtend, results);
+        }
+        return results;
+    }
+
+    /**
+     * @return the lowest similarity score reachable by any pair of the group
+     */
+    private static long lowest(Integer[] order, int from, int count, byte[][] reads, byte[][] refs, int min_score) {
+        int k, length = 0;
+        for (k = from; k < from + count; k++)
+            length = Math.max(length, Math.min(reads[order[k]].length, refs[order[k]].length));
+        return (long)min_score * length;
+    }
+
+    /**
+     * Aligns a group of pairs in 8-bit lanes. Since the gap boundaries of
+     * LocalSequenceAlignment can not be represented, they are replaced by the
+     * lowest value the group can reach, which never wins a comparison either.
+     *
+     * @param limit scores from which the next addition could overflow
+     * @return false, leaving the results untouched, when the scores reached the limit
+     */
+    private static boolean align_byte(Integer[] order, int from, int count, byte[][] reads, byte[][] refs, int[] matrix,
+                                      int n, int gapOpen, int gapExtend, int limit, Alignment[] results) {
+        int lanes = BYTE_SPECIES.length();
+        int i, j, k, s, start, end, symbols = 0, row_symbols, m_max = 0, n_max = 0;
+        for (k = 0; k < count; k++) {
+            m_max = Math.max(m_max, reads[order[from + k]].length);
+            n_max = Math.max(n_max, refs[order[from + k]].length);
+        }
+        // interleave the sequences: position i of lane k is at i * lanes + k;
+        // the reads hold the profile row of their symbol
+        int[] slot = new int[n];
+        int[] used = new int[n];
+        java.util.Arrays.fill(slot, -1);
+        int[] read_idx = new int[m_max * lanes];
+        byte[] ref_idx = new byte[n_max * lanes];
+        boolean[] row_valid = new boolean[m_max * lanes];
+        boolean[] col_valid = new boolean[n_max * lanes];
+        for (k = 0; k < count; k++) {
+            byte[] read = reads[order[from + k]];
+            byte[] ref = refs[order[from + k]];
+            for (i = 0; i < read.length; i++) {
+                if (slot[read[i]] < 0) {
+                    slot[read[i]] = symbols;
+                    used[symbols++] = read[i];
+                }
+                read_idx[i * lanes + k] = slot[read[i]];
+                row_valid[i * lanes + k] = true;
+            }
+            for (j = 0; j < ref.length; j++) {
+                ref_idx[j * lanes + k] = ref[j];
+                col_valid[j * lanes + k] = true;
+            }
+        }
+        // the scores of every symbol of the reads against the references,
+        // interleaved as the references
+        byte[] profile = new byte[symbols * n_max * lanes];
+        for (s = 0; s < symbols; s++)
+            for (j = 0; j < n_max * lanes; j++)
+                profile[s * n_max * lanes + j] = (byte)matrix[used[s] * n + ref_idx[j]];
+        boolean[] present = new boolean[symbols];
+        boolean[] select = new boolean[lanes];
+        int[] row_offsets = new int[symbols];
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        VectorMask<Byte>[] row_masks = new VectorMask[symbols];
+        byte boundary = (byte)(Byte.MIN_VALUE + gapExtend);
+        byte[] h_row = new byte[(n_max + 1) * lanes];
+        byte[] up_row = new byte[(n_max + 1) * lanes];
+        byte[] offsets = new byte[lanes];
+        int[] best_i = new int[lanes];
+        int[] best_j = new int[lanes];
+        long changed_lanes;
+        java.util.Arrays.fill(up_row, boundary);
+        ByteVector vGapOE = ByteVector.broadcast(BYTE_SPECIES, (byte)(gapOpen + gapExtend));
+        ByteVector vGapE = ByteVector.broadcast(BYTE_SPECIES, (byte)gapExtend);
+        ByteVector vZero = ByteVector.zero(BYTE_SPECIES);
+        ByteVector vBest = ByteVector.broadcast(BYTE_SPECIES, Byte.MIN_VALUE);
+        ByteVector vDiag, vLeft, vUp, vUpper, vS, vD, vH, vGap, vOffset;
+        VectorMask<Byte> rowValid, better, changed;
+
+        for (i = 1; i <= m_max; i++) {
+            // the lanes of the row that read each symbol
+            java.util.Arrays.fill(present, false);
+            for (k = 0; k < lanes; k++)
+                present[read_idx[(i - 1) * lanes + k]] = true;
+            row_symbols = 0;
+            for (s = 0; s < symbols; s++)
+                if (present[s]) {
+                    for (k = 0; k < lanes; k++)
+                        select[k] = read_idx[(i - 1) * lanes + k] == s;
+                    row_offsets[row_symbols] = s * n_max * lanes;
+                    row_masks[row_symbols++] = VectorMask.fromArray(BYTE_SPECIES, select, 0);
+                }
+            rowValid = VectorMask.fromArray(BYTE_SPECIES, row_valid, (i - 1) * lanes);
+            vDiag = vZero;                                      // H[i-1][0]
+            vLeft = ByteVector.broadcast(BYTE_SPECIES, boundary);   // left[i][0]
+            // the columns of the best scores are kept as offsets into blocks
+            // of columns small enough for the lanes
+            for (start = 1; start <= n_max; start = end + 1) {
+                end = Math.min(n_max, start + Byte.MAX_VALUE - 1);
+                vOffset = vZero;
+                changed = BYTE_SPECIES.maskAll(false);
+                for (j = start; j <= end; j++) {
+                    vS = ByteVector.fromArray(BYTE_SPECIES, profile, row_offsets[0] + (j - 1) * lanes);
+                    for (s = 1; s < row_symbols; s++)
+                        vS = vS.blend(ByteVector.fromArray(BYTE_SPECIES, profile, row_offsets[s] + (j - 1) * lanes), row_masks[s]);
+                    vD = vS.add(vDiag);
+                    vUp = ByteVector.fromArray(BYTE_SPECIES, up_row, j * lanes);
+                    vUpper = ByteVector.fromArray(BYTE_SPECIES, h_row, j * lanes);
+                    vH = vD.max(vUp.max(vLeft));
+                    vGap = vD.sub(vGapOE);
+                    vUp.sub(vGapE).max(vGap).intoArray(up_row, j * lanes);
+                    vLeft = vLeft.sub(vGapE).max(vGap);
+                    vH.intoArray(h_row, j * lanes);
+                    vDiag = vUpper;
+
+                    better = vH.compare(VectorOperators.GT, vBest).and(rowValid)
+                            .and(VectorMask.fromArray(BYTE_SPECIES, col_valid, (j - 1) * lanes));
+                    vBest = vBest.blend(vH, better);
+                    vOffset = vOffset.blend(j - start, better);
+                    changed = changed.or(better);
+                }
+                if (changed.anyTrue()) {
+                    vOffset.intoArray(offsets, 0);
+                    for (changed_lanes = changed.toLong(); changed_lanes != 0; changed_lanes &= changed_lanes - 1) {
+                        k = Long.numberOfTrailingZeros(changed_lanes);
+                        best_i[k] = i;
+                        best_j[k] = start + offsets[k];
+                    }
+                }
+            }
+            if (vBest.reduceLanes(VectorOperators.MAX) >= limit)
+                return false;
+        }
+        for (k = 0; k < count; k++)
+            results[order[from + k]] = new Alignment(vBest.lane(k), -1, best_j[k], -1, best_i[k]);
+        return true;
+    }
+
+    /**
+     * Aligns a group of pairs in 16-bit lanes.
+     *
+     * @param limit scores from which the next addition could overflow
+     * @return false, leaving the results untouched, when the scores reached the limit
+     */
+    private static boolean align_short(Integer[] order, int from, int count, byte[][] reads, byte[][] refs, int[] matrix,
+                                       int n, int gapOpen, int gapExtend, int limit, Alignment[] results) {
+        int lanes = SHORT_SPECIES.length();
+        int i, j, k, s, start, end, symbols = 0, row_symbols, m_max = 0, n_max = 0;
+        for (k = 0; k < count; k++) {
+            m_max = Math.max(m_max, reads[order[from + k]].length);
+            n_max = Math.max(n_max, refs[order[from + k]].length);
+        }
+        // interleave the sequences: position i of lane k is at i * lanes + k;
+        // the reads hold the profile row of their symbol
+        int[] slot = new int[n];
+        int[] used = new int[n];
+        java.util.Arrays.fill(slot, -1);
+        int[] read_idx = new int[m_max * lanes];
+        short[] ref_idx = new short[n_max * lanes];
+        boolean[] row_valid = new boolean[m_max * lanes];
+        boolean[] col_valid = new boolean[n_max * lanes];
+        for (k = 0; k < count; k++) {
+            byte[] read = reads[order[from + k]];
+            byte[] ref = refs[order[from + k]];
+            for (i = 0; i < read.length; i++) {
+                if (slot[read[i]] < 0) {
+                    slot[read[i]] = symbols;
+                    used[symbols++] = read[i];
+                }
+                read_idx[i * lanes + k] = slot[read[i]];
+                row_valid[i * lanes + k] = true;
+            }
+            for (j = 0; j < ref.length; j++) {
+                ref_idx[j * lanes + k] = ref[j];
+                col_valid[j * lanes + k] = true;
+            }
+        }
+        // the scores of every symbol of the reads against the references,
+        // interleaved as the references
+        short[] profile = new short[symbols * n_max * lanes];
+        for (s = 0; s < symbols; s++)
+            for (j = 0; j < n_max * lanes; j++)
+                profile[s * n_max * lanes + j] = (short)matrix[used[s] * n + ref_idx[j]];
+        boolean[] present = new boolean[symbols];
+        boolean[] select = new boolean[lanes];
+        int[] row_offsets = new int[symbols];
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        VectorMask<Short>[] row_masks = new VectorMask[symbols];
+        short[] h_row = new short[(n_max + 1) * lanes];
+        short[] up_row = new short[(n_max + 1) * lanes];
+        short[] offsets = new short[lanes];
+        int[] best_i = new int[lanes];
+        int[] best_j = new int[lanes];
+        long changed_lanes;
+        java.util.Arrays.fill(up_row, (short)-1000);
+        ShortVector vGapOE = ShortVector.broadcast(SHORT_SPECIES, (short)(gapOpen + gapExtend));
+        ShortVector vGapE = ShortVector.broadcast(SHORT_SPECIES, (short)gapExtend);
+        ShortVector vZero = ShortVector.zero(SHORT_SPECIES);
+        ShortVector vBest = ShortVector.broadcast(SHORT_SPECIES, Short.MIN_VALUE);
+        ShortVector vDiag, vLeft, vUp, vUpper, vS, vD, vH, vGap, vOffset;
+        VectorMask<Short> rowValid, better, changed;
+
+        for (i = 1; i <= m_max; i++) {
+            // the lanes of the row that read each symbol
+            java.util.Arrays.fill(present, false);
+            for (k = 0; k < lanes; k++)
+                present[read_idx[(i - 1) * lanes + k]] = true;
+            row_symbols = 0;
+            for (s = 0; s < symbols; s++)
+                if (present[s]) {
+                    for (k = 0; k < lanes; k++)
+                        select[k] = read_idx[(i - 1) * lanes + k] == s;
+                    row_offsets[row_symbols] = s * n_max * lanes;
+                    row_masks[row_symbols++] = VectorMask.fromArray(SHORT_SPECIES, select, 0);
+                }
+            rowValid = VectorMask.fromArray(SHORT_SPECIES, row_valid, (i - 1) * lanes);
+            vDiag = vZero;                                      // H[i-1][0]
+            vLeft = ShortVector.broadcast(SHORT_SPECIES, -1000);    // left[i][0]
+            // the columns of the best scores are kept as offsets into blocks
+            // of columns small enough for the lanes
+            for (start = 1; start <= n_max; start = end + 1) {
+                end = Math.min(n_max, start + Short.MAX_VALUE - 1);
+                vOffset = vZero;
+                changed = SHORT_SPECIES.maskAll(false);
+                for (j = start; j <= end; j++) {
+                    vS = ShortVector.fromArray(SHORT_SPECIES, profile, row_offsets[0] + (j - 1) * lanes);
+                    for (s = 1; s < row_symbols; s++)
+                        vS = vS.blend(ShortVector.fromArray(SHORT_SPECIES, profile, row_offsets[s] + (j - 1) * lanes), row_masks[s]);
+                    vD = vS.add(vDiag);
+                    vUp = ShortVector.fromArray(SHORT_SPECIES, up_row, j * lanes);
+                    vUpper = ShortVector.fromArray(SHORT_SPECIES, h_row, j * lanes);
+                    vH = vD.max(vUp.max(vLeft));
+                    vGap = vD.sub(vGapOE);
+                    vUp.sub(vGapE).max(vGap).intoArray(up_row, j * lanes);
+                    vLeft = vLeft.sub(vGapE).max(vGap);
+                    vH.intoArray(h_row, j * lanes);
+                    vDiag = vUpper;
+
+                    better = vH.compare(VectorOperators.GT, vBest).and(rowValid)
+                            .and(VectorMask.fromArray(SHORT_SPECIES, col_valid, (j - 1) * lanes));
+                    vBest = vBest.blend(vH, better);
+                    vOffset = vOffset.blend(j - start, better);
+                    changed = changed.or(better);
+                }
+                if (changed.anyTrue()) {
+                    vOffset.intoArray(offsets, 0);
+                    for (changed_lanes = changed.toLong(); changed_lanes != 0; changed_lanes &= changed_lanes - 1) {
+                        k = Long.numberOfTrailingZeros(changed_lanes);
+                        best_i[k] = i;
+                        best_j[k] = start + offsets[k];
+                    }
+                }
+            }
+            if (vBest.reduceLanes(VectorOperators.MAX) >= limit)
+                return false;
+        }
+        for (k = 0; k < count; k++)
+            results[order[from + k]] = new Alignment(vBest.lane(k), -1, best_j[k], -1, best_i[k]);
+        return true;
+    }
+
+    /**
+     * Aligns a group of pairs in 32-bit lanes.
+     */
+    private static void align_int(Integer[] order, int from, int count, byte[][] reads, byte[][] refs, int[] matrix,
+                                  int n, int gapOpen, int gapExtend, Alignment[] results) {
+        int lanes = INT_SPECIES.length();
+        int i, j, k, m_max = 0, n_max = 0;
+        int[] m_len = new int[lanes];
+        int[] n_len = new int[lanes];
+        for (k = 0; k < count; k++) {
+            m_len[k] = reads[order[from + k]].length;
+            n_len[k] = refs[order[from + k]].length;
+            m_max = Math.max(m_max, m_len[k]);
+            n_max = Math.max(n_max, n_len[k]);
+        }
+        // interleave the sequences: position i of lane k is at i * lanes + k
+        int[] read_idx = new int[m_max * lanes];
+        int[] ref_idx = new int[n_max * lanes];
+        for (k = 0; k < count; k++) {
+            byte[] read = reads[order[from + k]];
+            byte[] ref = refs[order[from + k]];
+            for (i = 0; i < read.length; i++)
+                read_idx[i * lanes + k] = read[i] * n;
+            for (j = 0; j < ref.length; j++)
+                ref_idx[j * lanes + k] = ref[j];
+        }
+        int[] h_row = new int[(n_max + 1) * lanes];
+        int[] up_row = new int[(n_max + 1) * lanes];
+        int[] index = new int[lanes];
+        java.util.Arrays.fill(up_row, -1000);
+        IntVector vM = IntVector.fromArray(INT_SPECIES, m_len, 0);
+        IntVector vN = IntVector.fromArray(INT_SPECIES, n_len, 0);
+        IntVector vGapOE = IntVector.broadcast(INT_SPECIES, gapOpen + gapExtend);
+        IntVector vGapE = IntVector.broadcast(INT_SPECIES, gapExtend);
+        IntVector vZero = IntVector.zero(INT_SPECIES);
+        IntVector vBest = IntVector.broadcast(INT_SPECIES, Integer.MIN_VALUE);
+        IntVector vBestI = vZero;
+        IntVector vBestJ = vZero;
+        IntVector vRow, vI, vDiag, vLeft, vUp, vUpper, vS, vD, vH, vGap;
+        VectorMask<Integer> rowValid, better;
+
+        for (i = 1; i <= m_max; i++) {
+            vRow = IntVector.fromArray(INT_SPECIES, read_idx, (i - 1) * lanes);
+            vI = IntVector.broadcast(INT_SPECIES, i);
+            rowValid = vM.compare(VectorOperators.GE, i);
+            vDiag = vZero;                                      // H[i-1][0]
+            vLeft = IntVector.broadcast(INT_SPECIES, -1000);    // left[i][0]
+            for (j = 1; j <= n_max; j++) {
+                // the scores are looked up one lane at a time: the gather
+                // form of fromArray crashes C2 on AVX-512 (JDK 21)
+                vRow.add(IntVector.fromArray(INT_SPECIES, ref_idx, (j - 1) * lanes)).intoArray(index, 0);
+                for (k = 0; k < lanes; k++)
+                    index[k] = matrix[index[k]];
+                vS = IntVector.fromArray(INT_SPECIES, index, 0);
+                vD = vS.add(vDiag);
+                vUp = IntVector.fromArray(INT_SPECIES, up_row, j * lanes);
+                vUpper = IntVector.fromArray(INT_SPECIES, h_row, j * lanes);
+                vH = vD.max(vUp.max(vLeft));
+                vGap = vD.sub(vGapOE);
+                vUp.sub(vGapE).max(vGap).intoArray(up_row, j * lanes);
+                vLeft = vLeft.sub(vGapE).max(vGap);
+                vH.intoArray(h_row, j * lanes);
+                vDiag = vUpper;
+
+                better = vH.compare(VectorOperators.GT, vBest).and(rowValid).and(vN.compare(VectorOperators.GE, j));
+                vBest = vBest.blend(vH, better);
+                vBestI = vBestI.blend(vI, better);
+                vBestJ = vBestJ.blend(j, better);
+            }
+        }
+        for (k = 0; k < count; k++)
+            results[order[from + k]] = new Alignment(vBest.lane(k), -1, vBestJ.lane(k), -1, vBestI.lane(k));
+    }
+}
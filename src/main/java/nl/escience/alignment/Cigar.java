@@ -0,0 +1,292 @@
+package nl.escience.alignment;
+
+/**
+ * The CIGAR of an alignment, stored the same as in the BAM format: every
+ * operation is an int with its length in the upper 28 bits and its code in
+ * the lower 4 bits, the index of the operation in "MIDNSHP=X".
+ *
+ * The aligners keep one Cigar and refill it at every traceback; the
+ * operations are pushed from the end of the alignment to its start and
+ * reversed once the traceback is done. The buffer grows to the longest
+ * CIGAR seen, and the String form is only made by toString().
+ *
+ * A Cigar returned by an aligner is overwritten by its next traceback;
+ * use to_packed() to keep it.
+ */
+public final class Cigar {
+
+    /**
+     * The operations in the order of their BAM codes
+     */
+    public static final String OPERATIONS = "MIDNSHP=X";
+
+    private int ops[];
+    private int size;
+
+    public Cigar() {
+        ops = new int[16];
+    }
+
+    /**
+     * @param operation A CIGAR operation, one of "MIDNSHP=X"
+     * @return The BAM code of the operation
+     */
+    public static int code(char operation) {
+        switch (operation) {
+            case 'M': return 0;
+            case 'I': return 1;
+            case 'D': return 2;
+            case 'N': return 3;
+            case 'S': return 4;
+            case 'H': return 5;
+            case 'P': return 6;
+            case '=': return 7;
+            case 'X': return 8;
+            default:
+                throw new IllegalArgumentException("Not a CIGAR operation: " + operation);
+        }
+    }
+
+    /**
+     * Removes all the operations.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Adds an operation at the end.
+     *
+     * @param operation The operation, one of "MIDNSHP=X"
+     * @param length The number of times the operation is repeated
+     */
+    public void push(char operation, int length) {
+        if (size == ops.length)
+            ops = java.util.Arrays.copyOf(ops, Workspace.grown(size, size + 1));
+        ops[size++] = length << 4 | code(operation);
+    }
+
+    /**
+     * Adds an operation at the end, or lengthens the last operation when it
+     * is the same. Nothing is added for a length of 0.
+     *
+     * @param operation The operation, one of "MIDNSHP=X"
+     * @param length The number of times the operation is repeated
+     */
+    public void extend(char operation, int length) {
+        if (length <= 0)
+            return;
+        if (size > 0 && (ops[size - 1] & 0xf) == code(operation))
+            ops[size - 1] += length << 4;
+        else
+            push(operation, length);
+    }
+
+    /**
+     * Adds an operation at the end.
+     *
+     * @param op The operation, packed as in BAM
+     */
+    public void push_packed(int op) {
+        if ((op & 0xf) >= OPERATIONS.length())
+            throw new IllegalArgumentException("Not a CIGAR operation: " + (op & 0xf));
+        if (size == ops.length)
+            ops = java.util.Arrays.copyOf(ops, Workspace.grown(size, size + 1));
+        ops[size++] = op;
+    }
+
+    /**
+     * Replaces the operations by those of another cigar, growing the buffer
+     * only when it is too small.
+     *
+     * @param other The cigar copied
+     */
+    public void copy_from(Cigar other) {
+        if (ops.length < other.size)
+            ops = new int[Workspace.grown(ops.length, other.size)];
+        System.arraycopy(other.ops, 0, ops, 0, other.size);
+        size = other.size;
+    }
+
+    /**
+     * Reverses the order of the operations, for those pushed from the end
+     * of the alignment.
+     */
+    public void reverse() {
+        int x, y, swap;
+        for (x = 0, y = size - 1; x < y; ++x, --y) {
+            swap = ops[x];
+            ops[x] = ops[y];
+            ops[y] = swap;
+        }
+    }
+
+    /**
+     * @return The number of operations
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param k The index of an operation
+     * @return The operation, packed as in BAM
+     */
+    public int get(int k) {
+        if (k < 0 || k >= size)
+            throw new IndexOutOfBoundsException("CIGAR operation " + k + " of " + size);
+        return ops[k];
+    }
+
+    /**
+     * @param k The index of an operation
+     * @return The number of times the operation is repeated
+     */
+    public int get_length(int k) {
+        return get(k) >>> 4;
+    }
+
+    /**
+     * @param k The index of an operation
+     * @return The operation, one of "MIDNSHP=X"
+     */
+    public char get_operation(int k) {
+        return OPERATIONS.charAt(get(k) & 0xf);
+    }
+
+    /**
+     * @return A copy of the operations, packed as in BAM
+     */
+    public int[] to_packed() {
+        return java.util.Arrays.copyOf(ops, size);
+    }
+
+    /**
+     * Appends the CIGAR string.
+     *
+     * @param out Where the CIGAR string is appended
+     * @return out
+     */
+    public StringBuilder append_to(StringBuilder out) {
+        return append(out, ops, size);
+    }
+
+    /**
+     * Appends the CIGAR string of packed operations.
+     *
+     * @param out Where the CIGAR string is appended
+     * @param ops The operations, packed as in BAM
+     * @param size The number of operations
+     * @return out
+     */
+    static StringBuilder append(StringBuilder out, int[] ops, int size) {
+        for (int k = 0; k < size; ++k)
+            out.append(ops[k] >>> 4).append(OPERATIONS.charAt(ops[k] & 0xf));
+        return out;
+    }
+
+    /**
+     * @return The number of columns of the aligned part: the matches,
+     *         mismatches, insertions and deletions
+     */
+    public int get_columns() {
+        int k, columns = 0;
+        for (k = 0; k < size; ++k)
+            switch (ops[k] & 0xf) {
+                case 0: case 1: case 2: case 7: case 8:
+                    columns += ops[k] >>> 4;
+            }
+        return columns;
+    }
+
+    /**
+     * @return The number of characters of the first sequence in the aligned
+     *         part: the matches, mismatches and insertions
+     */
+    public int get_read_length() {
+        int k, length = 0;
+        for (k = 0; k < size; ++k)
+            switch (ops[k] & 0xf) {
+                case 0: case 1: case 7: case 8:
+                    length += ops[k] >>> 4;
+            }
+        return length;
+    }
+
+    /**
+     * @return The number of characters of the second sequence in the aligned
+     *         part: the matches, mismatches, deletions and skipped characters
+     */
+    public int get_ref_length() {
+        int k, length = 0;
+        for (k = 0; k < size; ++k)
+            switch (ops[k] & 0xf) {
+                case 0: case 2: case 3: case 7: case 8:
+                    length += ops[k] >>> 4;
+            }
+        return length;
+    }
+
+    /**
+     * Counts the differences of the aligned part, as the NM tag of SAM: the
+     * mismatches, inserted and deleted characters. Characters outside the
+     * sequences count as mismatches.
+     *
+     * @param read The first sequence
+     * @param read_begin The 0-based position in read of the first operation,
+     *                   after any soft-clipping
+     * @param ref The second sequence
+     * @param ref_begin The 0-based position in ref of the first operation
+     * @return The edit distance of the aligned part
+     */
+    public int get_edit_distance(CharSequence read, int read_begin, CharSequence ref, int ref_begin) {
+        int k, len, x, i = read_begin, j = ref_begin, nm = 0;
+        for (k = 0; k < size; ++k) {
+            len = ops[k] >>> 4;
+            switch (ops[k] & 0xf) {
+                case 0: case 7: case 8: // M, =, X
+                    for (x = 0; x < len; ++x, ++i, ++j)
+                        if (i < 0 || j < 0 || i >= read.length() || j >= ref.length() || read.charAt(i) != ref.charAt(j))
+                            ++nm;
+                    break;
+                case 1: // I
+                    nm += len;
+                    i += len;
+                    break;
+                case 2: // D
+                    nm += len;
+                    j += len;
+                    break;
+                case 3: // N
+                    j += len;
+                    break;
+            }
+        }
+        return nm;
+    }
+
+    /**
+     * Counts the differences of the aligned part from the operations alone,
+     * as get_edit_distance(CharSequence, int, CharSequence, int), for a cigar
+     * that tells matches and mismatches apart as = and X. M counts as matches.
+     *
+     * @return The edit distance of the aligned part
+     */
+    public int get_edit_distance() {
+        int k, nm = 0;
+        for (k = 0; k < size; ++k)
+            switch (ops[k] & 0xf) {
+                case 1: case 2: case 8: // I, D, X
+                    nm += ops[k] >>> 4;
+            }
+        return nm;
+    }
+
+    /**
+     * @return The CIGAR string
+     */
+    @Override
+    public String toString() {
+        return append_to(new StringBuilder(4 * size)).toString();
+    }
+}
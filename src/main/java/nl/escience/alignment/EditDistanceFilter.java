@@ -0,0 +1,155 @@
+package nl.escience.alignment;
+
+/**
+ * Bit-parallel edit distance (Myers, 1999; Hyyrö, 2003) to reject pairs of
+ * sequences before they are aligned. Every column of the edit distance matrix
+ * is kept as 64-row blocks of vertical differences, so a block of cells costs
+ * a few word operations.
+ *
+ * Only the rows within k of the diagonal are computed (Ukkonen's cut-off), and
+ * the blocks at either end of the column are dropped once none of their cells
+ * can lead to a distance of at most k. The computation stops when no block is
+ * left.
+ *
+ * The sequences are numeric, as converted by the aligners: symbol c in
+ * [0..nSym) stands for the same character in both of them.
+ */
+public class EditDistanceFilter {
+
+    private static final long HIGH = 1L << 63;
+
+    private long peq[];
+    private long pos[];
+    private long neg[];
+    private int score[];
+
+    public EditDistanceFilter() {
+        peq = new long[0];
+        pos = new long[0];
+        neg = new long[0];
+        score = new int[0];
+    }
+
+    /**
+     * Decides whether the edit distance of two numeric sequences is at most k.
+     *
+     * @param read The numeric first sequence
+     * @param ref The numeric second sequence
+     * @param nSym The number of symbols of the numeric sequences
+     * @param k The largest edit distance accepted
+     * @return Whether the edit distance is at most k
+     */
+    public boolean within_distance(byte[] read, byte[] ref, int nSym, int k) {
+        return edit_distance(read, ref, nSym, k) >= 0;
+    }
+
+    /**
+     * Calculates the edit distance of two numeric sequences, as long as it is
+     * at most k.
+     *
+     * @param read The numeric first sequence
+     * @param ref The numeric second sequence
+     * @param nSym The number of symbols of the numeric sequences
+     * @param k The largest edit distance of interest
+     * @return The edit distance, -1 if it is more than k
+     */
+    public int edit_distance(byte[] read, byte[] ref, int nSym, int k) {
+        int n = read.length, m = ref.length, blocks, b, first, last, need, i, j, hin, hout, top, bot, c;
+        boolean open;
+        long p, mv, eq, xv, xh, ph, mh, bottom;
+        if (k < 0 || Math.abs(n - m) > k)
+            return -1;
+        if (n == 0)
+            return m;
+        blocks = (n + 63) >> 6;
+        if (peq.length < nSym * blocks)
+            peq = new long[nSym * blocks];
+        if (pos.length < blocks) {
+            pos = new long[blocks];
+            neg = new long[blocks];
+            score = new int[blocks];
+        }
+        // bit i of block b of symbol c is set if row 64 b + i matches c
+        java.util.Arrays.fill(peq, 0, nSym * blocks, 0L);
+        for (i = 0; i < n; ++i)
+            peq[read[i] * blocks + (i >> 6)] |= 1L << (i & 63);
+        // column 0 holds the distances to the empty prefix of ref, which
+        // grow by one every row
+        first = 0;
+        last = Math.min(blocks - 1, (Math.min(n, k) - 1) >> 6);
+        for (b = 0; b <= last; ++b) {
+            pos[b] = -1L;
+            neg[b] = 0L;
+            score[b] = Math.min(64 * b + 64, n);
+        }
+        for (j = 1; j <= m; ++j) {
+            // the blocks entering the band start as if they were the
+            // continuation of the one above, which overestimates their cells
+            need = Math.min(blocks - 1, (Math.min(n, j + k) - 1) >> 6);
+            for (; last < need; ++last) {
+                pos[last + 1] = -1L;
+                neg[last + 1] = 0L;
+                score[last + 1] = (last >= 0 ? score[last] : j - 1) + Math.min(64 * last + 128, n) - 64 * last - 64;
+            }
+            // the first row of the matrix grows by one every column, as does
+            // anything above a dropped block
+            hin = 1;
+            c = ref[j - 1] * blocks;
+            for (b = first; b <= last; ++b) {
+                p = pos[b];
+                mv = neg[b];
+                eq = peq[c + b];
+                xv = eq | mv;
+                if (hin < 0)
+                    eq |= 1L;
+                xh = (((eq & p) + p) ^ p) | eq;
+                ph = mv | ~(xh | p);
+                mh = p & xh;
+                bottom = b == blocks - 1 ? 1L << ((n - 1) & 63) : HIGH;
+                hout = (ph & bottom) != 0 ? 1 : (mh & bottom) != 0 ? -1 : 0;
+                score[b] += hout;
+                ph <<= 1;
+                mh <<= 1;
+                if (hin < 0)
+                    mh |= 1L;
+                else if (hin > 0)
+                    ph |= 1L;
+                pos[b] = mh | ~(xv | ph);
+                neg[b] = ph & xv;
+                hin = hout;
+            }
+            // the cells of a block are at least its bottom cell minus the
+            // rows below them, and the rest of the path costs at least the
+            // difference of the lengths left; a path still on the first row
+            // may enter any of the blocks later on
+            open = j + Math.abs(n - m + j) <= k;
+            while (first <= last && !open) {
+                top = 64 * first + 1;
+                bot = Math.min(64 * first + 64, n);
+                if (bot >= j - k && bound(score[first], top, bot, n - m + j) <= k)
+                    break;
+                ++first;
+            }
+            while (last >= first) {
+                top = 64 * last + 1;
+                bot = Math.min(64 * last + 64, n);
+                if (bound(score[last], top, bot, n - m + j) <= k)
+                    break;
+                --last;
+            }
+            if (first > last && !open)
+                return -1;
+        }
+        return last == blocks - 1 && score[last] <= k ? score[last] : -1;
+    }
+
+    /**
+     * @return The least edit distance of a path through rows top..bot of
+     *         the current column, with c the row on the diagonal of the end
+     */
+    private static int bound(int score, int top, int bot, int c) {
+        // score - (bot - r) + |c - r| is smallest at r = c, or at the top
+        // row if c is above the block
+        return score - bot + (c >= top ? c : 2 * top - c);
+    }
+}
@@ -1,12 +1,11 @@
 package nl.escience.alignment;
 
 import java.io.BufferedReader;
-import java.io.IOException;
-import java.util.Stack;
-
-import java.io.File;
-
+import java.io.BufferedWriter;
 import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 
 public class Example {
 
@@ -23,75 +22,23 @@ public class Example {
 
 
     public static void main(String[] args) {
-        try {
-            System.loadLibrary("sswjni");
-        } catch (java.lang.UnsatisfiedLinkError e) {
-            System.out.println(String.format("Cannot find libsswjni.so. Has the library been built and LD_LIBRARY_PATH or -Djava.library.path set appropriately?\n%s", e));
-            throw e;
-        }
-
-        String seq1, seq2, seq1_no=null, seq2_no=null;
         boolean cigar_with_x = true;
-        BufferedReader seq1_reader = null;
-        BufferedReader seq2_reader = null;
-        BoundedLocalSequenceAlignment bounded_aligner = new BoundedLocalSequenceAlignment(GAP_OPEN, GAP_EXT, MAX_ALIGNMENT_LENGTH, ALIGNMENT_BOUND, CLIPPING_STRINGENCY, 'N');
-        LocalSequenceAlignment aligner = new LocalSequenceAlignment(GAP_OPEN, GAP_EXT, MAX_ALIGNMENT_LENGTH, CLIPPING_STRINGENCY, 'N');
-        try {
-            seq1_reader = new BufferedReader(new FileReader(args[0]));
+        ScoringScheme scheme = new ScoringScheme(GAP_OPEN, GAP_EXT, 'N');
+        // one aligner per core; reading and writing run on virtual threads
+        AlignmentPipeline<LocalSequenceAlignment> pipeline = new AlignmentPipeline<>(
+                () -> new LocalSequenceAlignment(scheme, MAX_ALIGNMENT_LENGTH, CLIPPING_STRINGENCY, false),
+                (aligner, aln) -> aln.toString() + String.format(",CIGAR=%s", aligner.get_cigar(cigar_with_x)));
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16);
+
+        long startime = System.currentTimeMillis();
+        try (BufferedReader seq1_reader = new BufferedReader(new FileReader(args[0]));
+             BufferedReader seq2_reader = new BufferedReader(new FileReader(args[1]))) {
+            pipeline.run(seq1_reader, seq2_reader, out);
         }
         catch (IOException e){
             System.err.println(e.getMessage());
+            System.exit(1);
         }
-        try{
-            seq2_reader = new BufferedReader(new FileReader(args[1]));
-         }
-        catch (IOException e){
-        System.err.println(e.getMessage());
-        }
-
-        long totaltime = 0;
-        try {
-            while ((seq1 = seq1_reader.readLine()) != null && (seq2 = seq2_reader.readLine()) != null) {
-                if (seq1.charAt(0) == '>' && seq2.charAt(0) != '>') {
-                    System.out.println("Input files not formatted correctly");
-                    System.exit(1);
-                }
-                if (seq1.charAt(0) == '>' && seq2.charAt(0) == '>') {
-                    seq1_no = seq1.substring(1);
-                    seq2_no = seq2.substring(1);
-                    continue;
-                }
-                seq1.toUpperCase();
-                seq2.toUpperCase();
-
-                long startime = System.currentTimeMillis();
-                Alignment aln = aligner.ssw_align(seq1.getBytes(), seq2.getBytes());
-                Alignment aln = aligner.align(seq1, seq2);
-                //Alignment aln = bounded_aligner.align(seq1, seq2+seq2);
-                totaltime += System.currentTimeMillis() - startime;
-
-                //
-                if (aln == null) {
-                    throw new RuntimeException();
-                }
-                System.out.println(">"+seq1_no+ "|"+seq2_no);
-                System.out.println(aln.toString() + String.format(",CIGAR=%s",aligner.get_cigar(cigar_with_x)));
-
-            }
-
-            System.err.println(totaltime);
-            seq1_reader.close();
-            seq2_reader.close();
-        }
-        catch (IOException e){
-            System.err.println(e.getMessage());
-        }
-
-
-
-        }
-
-
-
-
-}
\ No newline at end of file
+        System.err.println(System.currentTimeMillis() - startime);
+    }
+}
@@ -0,0 +1,337 @@
+package nl.escience.alignment;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Linear-space affine-gap alignment (Myers and Miller, 1988) for sequences
+ * too long for the quadratic direction matrix.
+ *
+ * The alignment is found by divide and conquer: a forward and a reverse score
+ * pass meet in the middle row, the best crossing point splits the problem in
+ * two, and both halves are solved independently on a ForkJoinPool.
+ *
+ * The result is a transcript of moves from the start to the end of the
+ * alignment, using the same codes as the direction matrixes of the aligners:
+ * 0 for a match/mismatch, 1 for a deletion (second sequence only) and 2 for an
+ * insertion (first sequence only).
+ */
+public class LinearSpaceSequenceAlignment {
+
+    /**
+     * Problems with fewer cells than this are solved on the calling thread
+     */
+    private static final long PARALLEL_CELLS = 1L << 20;
+
+    private final int match[][];
+    private final int GAP_OPEN;
+    private final int GAP_EXT;
+    private final ForkJoinPool pool;
+
+    /**
+     * Initializes the alignment object.
+     *
+     * @param match The scoring matrix, indexed by the characters of the sequences
+     * @param gap_open The gap opening penalty
+     * @param gap_ext The gap extension penalty
+     * @param pool The pool the recursion is split across
+     */
+    public LinearSpaceSequenceAlignment(int[][] match, int gap_open, int gap_ext, ForkJoinPool pool) {
+        this.match = match;
+        this.GAP_OPEN = gap_open;
+        this.GAP_EXT = gap_ext;
+        this.pool = pool;
+    }
+
+    /**
+     * Initializes the alignment object with a scoring scheme.
+     *
+     * @param scheme The scoring matrix and the gap penalties
+     * @param pool The pool the recursion is split across
+     */
+    public LinearSpaceSequenceAlignment(ScoringScheme scheme, ForkJoinPool pool) {
+        this(scheme.match, scheme.GAP_OPEN, scheme.GAP_EXT, pool);
+    }
+
+    /**
+     * Finds the beginning of the best alignment ending at (end1, end2) that
+     * starts on the first row or the first column of the similarity matrix,
+     * as in the pseudo-global alignment of LocalSequenceAlignment.
+     *
+     * @param s1 The first sequence
+     * @param end1 1-based ending position of the alignment on the first sequence
+     * @param s2 The second sequence
+     * @param end2 1-based ending position of the alignment on the second sequence
+     * @return array [begin1, begin2] of 0-based beginning positions; one of them is 0
+     */
+    public int[] find_begin(char[] s1, int end1, char[] s2, int end2) {
+        int i, j, s, c, e, d, t;
+        int best, begin1 = 0, begin2 = 0;
+        int[] cc = new int[end2 + 1];
+        int[] dd = new int[end2 + 1];
+        // Global alignment of the reversed prefixes, anchored at the end cell
+        init_row(cc, dd, end2);
+        best = cc[end2];
+        begin1 = end1;
+        begin2 = 0;
+        t = -GAP_OPEN;
+        for (i = 1; i <= end1; i++) {
+            s = cc[0];
+            t -= GAP_EXT;
+            c = cc[0] = t;
+            e = t - GAP_OPEN;
+            int[] scores = match[s1[end1 - i]];
+            for (j = 1; j <= end2; j++) {
+                e = Math.max(e, c - GAP_OPEN) - GAP_EXT;
+                d = dd[j] = Math.max(dd[j], cc[j] - GAP_OPEN) - GAP_EXT;
+                c = Math.max(Math.max(d, e), s + scores[s2[end2 - j]]);
+                s = cc[j];
+                cc[j] = c;
+            }
+            // alignments starting at the first column
+            if (cc[end2] > best) {
+                best = cc[end2];
+                begin1 = end1 - i;
+                begin2 = 0;
+            }
+        }
+        // alignments starting at the first row
+        for (j = 0; j <= end2; j++) {
+            if (cc[j] > best) {
+                best = cc[j];
+                begin1 = 0;
+                begin2 = end2 - j;
+            }
+        }
+        return new int[]{begin1, begin2};
+    }
+
+    /**
+     * Calculates the optimal global alignment of s1[from1..to1) and s2[from2..to2).
+     *
+     * @param s1 The first sequence
+     * @param from1 0-based first position in the first sequence
+     * @param to1 0-based position after the last one in the first sequence
+     * @param s2 The second sequence
+     * @param from2 0-based first position in the second sequence
+     * @param to2 0-based position after the last one in the second sequence
+     * @return The transcript of the alignment
+     */
+    public byte[] align(char[] s1, int from1, int to1, char[] s2, int from2, int to2) {
+        Transcript transcript = pool.invoke(new Diff(s1, from1, to1 - from1, s2, from2, to2 - from2, GAP_OPEN, GAP_OPEN));
+        return transcript.to_array();
+    }
+
+    /**
+     * Initializes the first row of a score pass.
+     */
+    private void init_row(int[] cc, int[] dd, int n) {
+        int j, t = -GAP_OPEN;
+        cc[0] = 0;
+        for (j = 1; j <= n; j++) {
+            t -= GAP_EXT;
+            cc[j] = t;
+            dd[j] = t - GAP_OPEN;
+        }
+    }
+
+    /**
+     * @return The score of a gap of length k
+     */
+    private int gap(int k) {
+        return k <= 0 ? 0 : -GAP_OPEN - GAP_EXT * k;
+    }
+
+    /**
+     * Growable array of moves.
+     */
+    private static class Transcript {
+        private byte[] moves = new byte[16];
+        private int length;
+
+        void add(int move, int count) {
+            if (length + count > moves.length)
+                moves = java.util.Arrays.copyOf(moves, Math.max(moves.length * 2, length + count));
+            java.util.Arrays.fill(moves, length, length + count, (byte)move);
+            length += count;
+        }
+
+        void add(Transcript other) {
+            if (length + other.length > moves.length)
+                moves = java.util.Arrays.copyOf(moves, Math.max(moves.length * 2, length + other.length));
+            System.arraycopy(other.moves, 0, moves, length, other.length);
+            length += other.length;
+        }
+
+        byte[] to_array() {
+            return java.util.Arrays.copyOf(moves, length);
+        }
+    }
+
+    /**
+     * Aligns a[0..m) with b[0..n); tb and te are the costs of opening a gap
+     * in the first sequence at the top and at the bottom of the sub-problem.
+     */
+    @SuppressWarnings("serial")
+    private class Diff extends RecursiveTask<Transcript> {
+        private final char[] a, b;
+        private final int a_from, m, b_from, n, tb, te;
+
+        Diff(char[] a, int a_from, int m, char[] b, int b_from, int n, int tb, int te) {
+            this.a = a;
+            this.a_from = a_from;
+            this.m = m;
+            this.b = b;
+            this.b_from = b_from;
+            this.n = n;
+            this.tb = tb;
+            this.te = te;
+        }
+
+        @Override
+        protected Transcript compute() {
+            int j, c, midi, midj, midc;
+            boolean type2;
+            Transcript transcript = new Transcript();
+            if (n <= 0) {
+                if (m > 0)
+                    transcript.add(2, m);
+                return transcript;
+            }
+            if (m <= 1) {
+                if (m <= 0) {
+                    transcript.add(1, n);
+                    return transcript;
+                }
+                // either delete the only character of a, or align it with one of b
+                int[] scores = match[a[a_from]];
+                midc = -Math.min(tb, te) - GAP_EXT + gap(n);
+                midj = 0;
+                for (j = 1; j <= n; j++) {
+                    c = gap(j - 1) + scores[b[b_from + j - 1]] + gap(n - j);
+                    if (c > midc) {
+                        midc = c;
+                        midj = j;
+                    }
+                }
+                if (midj == 0) {
+                    if (tb <= te) {
+                        transcript.add(2, 1);
+                        transcript.add(1, n);
+                    } else {
+                        transcript.add(1, n);
+                        transcript.add(2, 1);
+                    }
+                } else {
+                    transcript.add(1, midj - 1);
+                    transcript.add(0, 1);
+                    transcript.add(1, n - midj);
+                }
+                return transcript;
+            }
+            midi = m / 2;
+            int[] cc = new int[n + 1];
+            int[] dd = new int[n + 1];
+            int[] rr = new int[n + 1];
+            int[] ss = new int[n + 1];
+            if ((long)m * n >= PARALLEL_CELLS) {
+                ForkJoinTask<?> reverse = ForkJoinTask.adapt(() -> reverse_pass(midi, rr, ss)).fork();
+                forward_pass(midi, cc, dd);
+                reverse.join();
+            } else {
+                forward_pass(midi, cc, dd);
+                reverse_pass(midi, rr, ss);
+            }
+            // find the best crossing of the middle row
+            midc = cc[0] + rr[n];
+            midj = 0;
+            type2 = false;
+            for (j = 0; j <= n; j++) {
+                c = cc[j] + rr[n - j];
+                if (c > midc) {
+                    midc = c;
+                    midj = j;
+                    type2 = false;
+                }
+                c = dd[j] + ss[n - j] + GAP_OPEN;
+                if (c > midc) {
+                    midc = c;
+                    midj = j;
+                    type2 = true;
+                }
+            }
+            Diff upper, lower;
+            if (!type2) {
+                upper = new Diff(a, a_from, midi, b, b_from, midj, tb, GAP_OPEN);
+                lower = new Diff(a, a_from + midi, m - midi, b, b_from + midj, n - midj, GAP_OPEN, te);
+            } else {
+                upper = new Diff(a, a_from, midi - 1, b, b_from, midj, tb, 0);
+                lower = new Diff(a, a_from + midi + 1, m - midi - 1, b, b_from + midj, n - midj, 0, te);
+            }
+            Transcript first, last;
+            if ((long)m * n >= PARALLEL_CELLS) {
+                lower.fork();
+                first = upper.compute();
+                last = lower.join();
+            } else {
+                first = upper.compute();
+                last = lower.compute();
+            }
+            transcript = first;
+            if (type2)
+                transcript.add(2, 2);
+            transcript.add(last);
+            return transcript;
+        }
+
+        /**
+         * Scores of the best alignments of a[0..midi) ending at each column,
+         * in cc, and of those ending with a gap in the first sequence, in dd.
+         */
+        private void forward_pass(int midi, int[] cc, int[] dd) {
+            int i, j, s, c, e, d, t;
+            init_row(cc, dd, n);
+            t = -tb;
+            for (i = 1; i <= midi; i++) {
+                s = cc[0];
+                t -= GAP_EXT;
+                c = cc[0] = t;
+                e = t - GAP_OPEN;
+                int[] scores = match[a[a_from + i - 1]];
+                for (j = 1; j <= n; j++) {
+                    e = Math.max(e, c - GAP_OPEN) - GAP_EXT;
+                    d = dd[j] = Math.max(dd[j], cc[j] - GAP_OPEN) - GAP_EXT;
+                    c = Math.max(Math.max(d, e), s + scores[b[b_from + j - 1]]);
+                    s = cc[j];
+                    cc[j] = c;
+                }
+            }
+            dd[0] = cc[0];
+        }
+
+        /**
+         * Same as forward_pass() for a[midi..m), from the bottom-right corner.
+         */
+        private void reverse_pass(int midi, int[] rr, int[] ss) {
+            int i, j, s, c, e, d, t;
+            init_row(rr, ss, n);
+            t = -te;
+            for (i = m - 1; i >= midi; i--) {
+                s = rr[0];
+                t -= GAP_EXT;
+                c = rr[0] = t;
+                e = t - GAP_OPEN;
+                int[] scores = match[a[a_from + i]];
+                for (j = 1; j <= n; j++) {
+                    e = Math.max(e, c - GAP_OPEN) - GAP_EXT;
+                    d = ss[j] = Math.max(ss[j], rr[j] - GAP_OPEN) - GAP_EXT;
+                    c = Math.max(Math.max(d, e), s + scores[b[b_from + n - j]]);
+                    s = rr[j];
+                    rr[j] = c;
+                }
+            }
+            ss[0] = rr[0];
+        }
+    }
+}
@@ -5,7 +5,13 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.util.Stack;
+import java.lang.foreign.Arena;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 
 /**
@@ -15,22 +21,21 @@ import java.util.Stack;
  * @author Siavash Sheikhizadeh, Bioinformatics chairgroup, Wageningen
  * University, the Netherlands
  */
-public class LocalSequenceAlignment {
+public class LocalSequenceAlignment implements Aligner {
 
-    private static int match[][];
+    private final ScoringScheme scheme;
+    private final int match[][];
     private int matrix[][];
-    private byte direction[][];
+    private final TracebackStore directions;
     //private char direction[][];
     private int up[][];
     private int left[][];
     private StringBuilder seq1;
     private StringBuilder seq2;
-    private StringBuilder cigar;
-    private Stack<Character> operation_stack;
-    private Stack<Integer> count_stack;
+    private Cigar cigar;
     private int MAX_LENGTH;
-    private static int GAP_OPEN;
-    private static int GAP_EXT;
+    private final int GAP_OPEN;
+    private final int GAP_EXT;
     private int max_i;
     private int max_j;
     private int deletions;
@@ -39,11 +44,56 @@ public class LocalSequenceAlignment {
     private double identity;
     private char TYPE;
     private int offset;
+    private int begin_i;
+    private int begin_j;
     private int range_len;
     private int[] score_array;
+    private int column_max[];
     private int mismatch_penalty, insertion_penalty;
     private int CLIPPING_STRIGENCY;
+    private boolean SCORE_ONLY;
+    private boolean traceback_ready;
+    private int h_row[];
+    private int up_row[];
+    private boolean linear;
+    private byte path_moves[];
+    private int path_rows[];
+    private int path_cols[];
     private boolean DEBUG = false;
+    private final ForkJoinPool pool;
+    private final TracebackStore traceback;
+    private int vert_h[];
+    private int vert_left[];
+    private int corner[][];
+    private final int best_cell[];
+    private final int range_buffer[];
+    private final Block fill_matrix_block;
+    private final Block fill_score_block;
+    private final Block fill_traceback_block;
+    private NativeSsw ssw;
+
+    /**
+     * Rows and columns of a tile of the matrixes, and of a tile of the
+     * rolling rows of align_score(), which only reads and writes its borders
+     */
+    private static final int TILE = 128;
+    private static final int SCORE_TILE = 1024;
+    /**
+     * Pairs with fewer cells are filled on the calling thread
+     */
+    private static final long PARALLEL_CELLS = 1L << 22;
+
+    /**
+     * The bits of the flag of ssw_align in libssw. SSW_BEGIN asks for the
+     * beginning positions, SSW_CIGAR for the beginning positions and the
+     * cigar; SSW_FILTER_SCORE and SSW_FILTER_DISTANCE ask for both only when
+     * the score is at least filterscore, and the aligned parts are at most
+     * filterdistance long.
+     */
+    public static final int SSW_CIGAR = 0x1;
+    public static final int SSW_FILTER_SCORE = 0x2;
+    public static final int SSW_FILTER_DISTANCE = 0x4;
+    public static final int SSW_BEGIN = 0x8;
 
     private int align_count;
 
@@ -67,29 +117,92 @@ public class LocalSequenceAlignment {
      * @param type Type of the input sequences(N for nucleotide P for peptide). 
      */
     public LocalSequenceAlignment(int gap_open, int gap_ext, int max_length, int clip, char type){
-        int i, j;
+        this(gap_open, gap_ext, max_length, clip, type, false);
+    }
+
+    /**
+     * Initializes the alignment object. 
+     * In score-only mode no similarity or direction matrixes are allocated; 
+     * align() then only reports the score and the ending coordinates.
+     * 
+     * @param gap_open The gap opening penalty
+     * @param gap_ext The gap extension penalty 
+     * @param max_length The maximum possible length of the alignment
+     * @param clip The stringency of soft-clipping in the range [0..3]
+     * @param type Type of the input sequences(N for nucleotide P for peptide). 
+     * @param score_only Whether to keep only two rolling rows instead of the full matrixes
+     */
+    public LocalSequenceAlignment(int gap_open, int gap_ext, int max_length, int clip, char type, boolean score_only){
+        this(new ScoringScheme(gap_open, gap_ext, type), max_length, clip, score_only);
+    }
+
+    /**
+     * Initializes the alignment object with a scoring scheme, which may be
+     * shared with the aligners of other threads.
+     * 
+     * @param scheme The scoring matrix and the gap penalties
+     * @param max_length The maximum possible length of the alignment
+     * @param clip The stringency of soft-clipping in the range [0..3]
+     * @param score_only Whether to keep only two rolling rows instead of the full matrixes
+     */
+    public LocalSequenceAlignment(ScoringScheme scheme, int max_length, int clip, boolean score_only){
+        this(scheme, max_length, clip, score_only, null);
+    }
+
+    /**
+     * Initializes the alignment object for long pairs of sequences. The
+     * matrixes are cut into tiles, and the tiles of an anti-diagonal are
+     * filled in parallel; the result is the same as the one of a single thread.
+     * 
+     * @param scheme The scoring matrix and the gap penalties
+     * @param max_length The maximum possible length of the alignment
+     * @param clip The stringency of soft-clipping in the range [0..3]
+     * @param score_only Whether to keep only two rolling rows instead of the full matrixes
+     * @param pool The pool the tiles are filled on; null fills them on the calling thread
+     */
+    public LocalSequenceAlignment(ScoringScheme scheme, int max_length, int clip, boolean score_only, ForkJoinPool pool){
+        this(scheme, max_length, clip, score_only, pool, null);
+    }
+
+    /**
+     * Initializes the alignment object for very long pairs of sequences with
+     * a full traceback. The directions are kept in a store outside the heap
+     * and the scores in two rolling rows, so the heap only holds a few rows
+     * whatever max_length is. The sub-optimal score is not available then.
+     * 
+     * @param scheme The scoring matrix and the gap penalties
+     * @param max_length The maximum possible length of the alignment
+     * @param clip The stringency of soft-clipping in the range [0..3]
+     * @param pool The pool the tiles are filled on; null fills them on the calling thread
+     * @param traceback The store of the directions, closed by the caller
+     */
+    public LocalSequenceAlignment(ScoringScheme scheme, int max_length, int clip, ForkJoinPool pool, TracebackStore traceback){
+        this(scheme, max_length, clip, false, pool, traceback);
+        if (traceback == null)
+            throw new IllegalArgumentException("No traceback store given");
+    }
+
+    private LocalSequenceAlignment(ScoringScheme scheme, int max_length, int clip, boolean score_only, ForkJoinPool pool, TracebackStore traceback){
+        this.pool = pool;
+        this.traceback = traceback;
+        directions = traceback != null ? traceback : TracebackStore.on_heap();
         seq1 = new StringBuilder();
         seq2 = new StringBuilder();
+        this.scheme = scheme;
+        match = scheme.match;
         MAX_LENGTH = max_length;
-        GAP_OPEN = gap_open;
-        GAP_EXT = gap_ext;
+        GAP_OPEN = scheme.GAP_OPEN;
+        GAP_EXT = scheme.GAP_EXT;
         CLIPPING_STRIGENCY = clip;
-        TYPE = type;
-        cigar = new StringBuilder();
-    // initialize matrixes
-        matrix = new int[MAX_LENGTH+1][MAX_LENGTH+1];
-        direction = new byte[MAX_LENGTH + 1][MAX_LENGTH + 1];
-        //direction = new char[MAX_LENGTH + 1][MAX_LENGTH + 1];
-        up = new int[MAX_LENGTH+1][MAX_LENGTH+1];
-        left = new int[MAX_LENGTH+1][MAX_LENGTH+1];
-        score_array = new int[MAX_LENGTH];
-        operation_stack = new Stack();
-        count_stack = new Stack();
-        //direction[0][0] = 'M';
-        direction[0][0] = 0;
-        matrix[0][0] = 0;
-        up[0][0] = left[0][0] = -1000;
-
+        TYPE = scheme.TYPE;
+        SCORE_ONLY = score_only;
+        cigar = new Cigar();
+        best_cell = new int[3];
+        range_buffer = new int[4];
+        fill_matrix_block = this::fill_block;
+        fill_score_block = this::score_block;
+        fill_traceback_block = this::traceback_block;
+    // the matrixes are allocated by align(), to the size of the sequences
         try {
             seq1_file = new File("seq1_file.fasta");
         }
@@ -135,27 +248,6 @@ public class LocalSequenceAlignment {
 
 
 
-        for (i = 1; i <= MAX_LENGTH; i++) {
-                up[i][0] = -1000;
-                left[i][0] = -1000;
-                matrix[i][0] = 0;
-                //direction[i][0] = 'I';
-                direction[i][0] = 0b00100010;
-
-            }
-        for (j = 1; j <= MAX_LENGTH; j++) {
-                up[0][j] = -1000;
-                left[0][j] = -1000;
-                matrix[0][j] = 0;
-                //direction[0][j] = 'D';
-                direction[0][j] = 0b000000101;
-            } 
-        if (TYPE == 'N')
-            initialize_NUCC_matrix();
-        else if (TYPE == 'P')
-            initialize_BLOSUM_matrix();
-        else
-            System.out.println("Aligner type should be N or P");
         switch (CLIPPING_STRIGENCY) {
             case 1:
                 mismatch_penalty = -1;
@@ -172,869 +264,6 @@ public class LocalSequenceAlignment {
         }
     }
     
-    /**
-     * Initializes the NUCC.1 scoring matrix.
-     */
-    public final void initialize_NUCC_matrix() {
-        match = new int[256][256];
-
-        match['A']['A'] = 5;
-        match['A']['T'] = -4;
-        match['A']['G'] = -4;
-        match['A']['C'] = -4;
-        match['A']['S'] = -4;
-        match['A']['W'] = 1;
-        match['A']['R'] = 1;
-        match['A']['Y'] = -4;
-        match['A']['K'] = -4;
-        match['A']['M'] = 1;
-        match['A']['B'] = -4;
-        match['A']['V'] = -1;
-        match['A']['H'] = -1;
-        match['A']['D'] = -1;
-        match['A']['N'] = -2;
-        match['T']['A'] = -4;
-        match['T']['T'] = 5;
-        match['T']['G'] = -4;
-        match['T']['C'] = -4;
-        match['T']['S'] = -4;
-        match['T']['W'] = 1;
-        match['T']['R'] = -4;
-        match['T']['Y'] = 1;
-        match['T']['K'] = 1;
-        match['T']['M'] = -4;
-        match['T']['B'] = -1;
-        match['T']['V'] = -4;
-        match['T']['H'] = -1;
-        match['T']['D'] = -1;
-        match['T']['N'] = -2;
-        match['G']['A'] = -4;
-        match['G']['T'] = -4;
-        match['G']['G'] = 5;
-        match['G']['C'] = -4;
-        match['G']['S'] = 1;
-        match['G']['W'] = -4;
-        match['G']['R'] = 1;
-        match['G']['Y'] = -4;
-        match['G']['K'] = 1;
-        match['G']['M'] = -4;
-        match['G']['B'] = -1;
-        match['G']['V'] = -1;
-        match['G']['H'] = -4;
-        match['G']['D'] = -1;
-        match['G']['N'] = -2;
-        match['C']['A'] = -4;
-        match['C']['T'] = -4;
-        match['C']['G'] = -4;
-        match['C']['C'] = 5;
-        match['C']['S'] = 1;
-        match['C']['W'] = -4;
-        match['C']['R'] = -4;
-        match['C']['Y'] = 1;
-        match['C']['K'] = -4;
-        match['C']['M'] = 1;
-        match['C']['B'] = -1;
-        match['C']['V'] = -1;
-        match['C']['H'] = -1;
-        match['C']['D'] = -4;
-        match['C']['N'] = -2;
-        match['S']['A'] = -4;
-        match['S']['T'] = -4;
-        match['S']['G'] = 1;
-        match['S']['C'] = 1;
-        match['S']['S'] = -1;
-        match['S']['W'] = -4;
-        match['S']['R'] = -2;
-        match['S']['Y'] = -2;
-        match['S']['K'] = -2;
-        match['S']['M'] = -2;
-        match['S']['B'] = -1;
-        match['S']['V'] = -1;
-        match['S']['H'] = -3;
-        match['S']['D'] = -3;
-        match['S']['N'] = -1;
-        match['W']['A'] = 1;
-        match['W']['T'] = 1;
-        match['W']['G'] = -4;
-        match['W']['C'] = -4;
-        match['W']['S'] = -4;
-        match['W']['W'] = -1;
-        match['W']['R'] = -2;
-        match['W']['Y'] = -2;
-        match['W']['K'] = -2;
-        match['W']['M'] = -2;
-        match['W']['B'] = -3;
-        match['W']['V'] = -3;
-        match['W']['H'] = -1;
-        match['W']['D'] = -1;
-        match['W']['N'] = -1;
-        match['R']['A'] = 1;
-        match['R']['T'] = -4;
-        match['R']['G'] = 1;
-        match['R']['C'] = -4;
-        match['R']['S'] = -2;
-        match['R']['W'] = -2;
-        match['R']['R'] = -1;
-        match['R']['Y'] = -4;
-        match['R']['K'] = -2;
-        match['R']['M'] = -2;
-        match['R']['B'] = -3;
-        match['R']['V'] = -1;
-        match['R']['H'] = -3;
-        match['R']['D'] = -1;
-        match['R']['N'] = -1;
-        match['Y']['A'] = -4;
-        match['Y']['T'] = 1;
-        match['Y']['G'] = -4;
-        match['Y']['C'] = 1;
-        match['Y']['S'] = -2;
-        match['Y']['W'] = -2;
-        match['Y']['R'] = -4;
-        match['Y']['Y'] = -1;
-        match['Y']['K'] = -2;
-        match['Y']['M'] = -2;
-        match['Y']['B'] = -1;
-        match['Y']['V'] = -3;
-        match['Y']['H'] = -1;
-        match['Y']['D'] = -3;
-        match['Y']['N'] = -1;
-        match['K']['A'] = -4;
-        match['K']['T'] = 1;
-        match['K']['G'] = 1;
-        match['K']['C'] = -4;
-        match['K']['S'] = -2;
-        match['K']['W'] = -2;
-        match['K']['R'] = -2;
-        match['K']['Y'] = -2;
-        match['K']['K'] = -1;
-        match['K']['M'] = -4;
-        match['K']['B'] = -1;
-        match['K']['V'] = -3;
-        match['K']['H'] = -3;
-        match['K']['D'] = -1;
-        match['K']['N'] = -1;
-        match['M']['A'] = 1;
-        match['M']['T'] = -4;
-        match['M']['G'] = -4;
-        match['M']['C'] = 1;
-        match['M']['S'] = -2;
-        match['M']['W'] = -2;
-        match['M']['R'] = -2;
-        match['M']['Y'] = -2;
-        match['M']['K'] = -4;
-        match['M']['M'] = -1;
-        match['M']['B'] = -3;
-        match['M']['V'] = -1;
-        match['M']['H'] = -1;
-        match['M']['D'] = -3;
-        match['M']['N'] = -1;
-        match['B']['A'] = -4;
-        match['B']['T'] = -1;
-        match['B']['G'] = -1;
-        match['B']['C'] = -1;
-        match['B']['S'] = -1;
-        match['B']['W'] = -3;
-        match['B']['R'] = -3;
-        match['B']['Y'] = -1;
-        match['B']['K'] = -1;
-        match['B']['M'] = -3;
-        match['B']['B'] = -1;
-        match['B']['V'] = -2;
-        match['B']['H'] = -2;
-        match['B']['D'] = -2;
-        match['B']['N'] = -1;
-        match['V']['A'] = -1;
-        match['V']['T'] = -4;
-        match['V']['G'] = -1;
-        match['V']['C'] = -1;
-        match['V']['S'] = -1;
-        match['V']['W'] = -3;
-        match['V']['R'] = -1;
-        match['V']['Y'] = -3;
-        match['V']['K'] = -3;
-        match['V']['M'] = -1;
-        match['V']['B'] = -2;
-        match['V']['V'] = -1;
-        match['V']['H'] = -2;
-        match['V']['D'] = -2;
-        match['V']['N'] = -1;
-        match['H']['A'] = -1;
-        match['H']['T'] = -1;
-        match['H']['G'] = -4;
-        match['H']['C'] = -1;
-        match['H']['S'] = -3;
-        match['H']['W'] = -1;
-        match['H']['R'] = -3;
-        match['H']['Y'] = -1;
-        match['H']['K'] = -3;
-        match['H']['M'] = -1;
-        match['H']['B'] = -2;
-        match['H']['V'] = -2;
-        match['H']['H'] = -1;
-        match['H']['D'] = -2;
-        match['H']['N'] = -1;
-        match['D']['A'] = -1;
-        match['D']['T'] = -1;
-        match['D']['G'] = -1;
-        match['D']['C'] = -4;
-        match['D']['S'] = -3;
-        match['D']['W'] = -1;
-        match['D']['R'] = -1;
-        match['D']['Y'] = -3;
-        match['D']['K'] = -1;
-        match['D']['M'] = -3;
-        match['D']['B'] = -2;
-        match['D']['V'] = -2;
-        match['D']['H'] = -2;
-        match['D']['D'] = -1;
-        match['D']['N'] = -1;
-        match['N']['A'] = -2;
-        match['N']['T'] = -2;
-        match['N']['G'] = -2;
-        match['N']['C'] = -2;
-        match['N']['S'] = -1;
-        match['N']['W'] = -1;
-        match['N']['R'] = -1;
-        match['N']['Y'] = -1;
-        match['N']['K'] = -1;
-        match['N']['M'] = -1;
-        match['N']['B'] = -1;
-        match['N']['V'] = -1;
-        match['N']['H'] = -1;
-        match['N']['D'] = -1;
-        match['N']['N'] = -1;
-
-    }
-
-    /**
-     * Initializes the BLOSUM62 scoring matrix.
-     */
-    public final void initialize_BLOSUM_matrix() {
-        match = new int[256][256];
-        match['A']['A'] = 4;
-        match['A']['R'] = -1;
-        match['A']['N'] = -2;
-        match['A']['D'] = -2;
-        match['A']['C'] = 0;
-        match['A']['Q'] = -1;
-        match['A']['E'] = -1;
-        match['A']['G'] = 0;
-        match['A']['H'] = -2;
-        match['A']['I'] = -1;
-        match['A']['L'] = -1;
-        match['A']['K'] = -1;
-        match['A']['M'] = -1;
-        match['A']['F'] = -2;
-        match['A']['P'] = -1;
-        match['A']['S'] = 1;
-        match['A']['T'] = 0;
-        match['A']['W'] = -3;
-        match['A']['Y'] = -2;
-        match['A']['V'] = 0;
-        match['A']['B'] = -2;
-        match['A']['Z'] = -1;
-        match['A']['X'] = 0;
-        match['A']['*'] = -4;
-
-
-        match['R']['A'] = -1;
-        match['R']['R'] = 5;
-        match['R']['N'] = 0;
-        match['R']['D'] = -2;
-        match['R']['C'] = -3;
-        match['R']['Q'] = 1;
-        match['R']['E'] = 0;
-        match['R']['G'] = -2;
-        match['R']['H'] = 0;
-        match['R']['I'] = -3;
-        match['R']['L'] = -2;
-        match['R']['K'] = 2;
-        match['R']['M'] = -1;
-        match['R']['F'] = -3;
-        match['R']['P'] = -2;
-        match['R']['S'] = -1;
-        match['R']['T'] = -1;
-        match['R']['W'] = -3;
-        match['R']['Y'] = -2;
-        match['R']['V'] = -3;
-        match['R']['B'] = -1;
-        match['R']['Z'] = 0;
-        match['R']['X'] = -1;
-        match['R']['*'] = -4;
-
-
-        match['N']['A'] = -2;
-        match['N']['R'] = 0;
-        match['N']['N'] = 6;
-        match['N']['D'] = 1;
-        match['N']['C'] = -3;
-        match['N']['Q'] = 0;
-        match['N']['E'] = 0;
-        match['N']['G'] = 0;
-        match['N']['H'] = 1;
-        match['N']['I'] = -3;
-        match['N']['L'] = -3;
-        match['N']['K'] = 0;
-        match['N']['M'] = -2;
-        match['N']['F'] = -3;
-        match['N']['P'] = -2;
-        match['N']['S'] = 1;
-        match['N']['T'] = 0;
-        match['N']['W'] = -4;
-        match['N']['Y'] = -2;
-        match['N']['V'] = -3;
-        match['N']['B'] = 3;
-        match['N']['Z'] = 0;
-        match['N']['X'] = -1;
-        match['N']['*'] = -4;
-
-
-        match['D']['A'] = -2;
-        match['D']['R'] = -2;
-        match['D']['N'] = 1;
-        match['D']['D'] = 6;
-        match['D']['C'] = -3;
-        match['D']['Q'] = 0;
-        match['D']['E'] = 2;
-        match['D']['G'] = -1;
-        match['D']['H'] = -1;
-        match['D']['I'] = -3;
-        match['D']['L'] = -4;
-        match['D']['K'] = -1;
-        match['D']['M'] = -3;
-        match['D']['F'] = -3;
-        match['D']['P'] = -1;
-        match['D']['S'] = 0;
-        match['D']['T'] = -1;
-        match['D']['W'] = -4;
-        match['D']['Y'] = -3;
-        match['D']['V'] = -3;
-        match['D']['B'] = 4;
-        match['D']['Z'] = 1;
-        match['D']['X'] = -1;
-        match['D']['*'] = -4;
-
-
-        match['C']['A'] = 0;
-        match['C']['R'] = -3;
-        match['C']['N'] = -3;
-        match['C']['D'] = -3;
-        match['C']['C'] = 9;
-        match['C']['Q'] = -3;
-        match['C']['E'] = -4;
-        match['C']['G'] = -3;
-        match['C']['H'] = -3;
-        match['C']['I'] = -1;
-        match['C']['L'] = -1;
-        match['C']['K'] = -3;
-        match['C']['M'] = -1;
-        match['C']['F'] = -2;
-        match['C']['P'] = -3;
-        match['C']['S'] = -1;
-        match['C']['T'] = -1;
-        match['C']['W'] = -2;
-        match['C']['Y'] = -2;
-        match['C']['V'] = -1;
-        match['C']['B'] = -3;
-        match['C']['Z'] = -3;
-        match['C']['X'] = -2;
-        match['C']['*'] = -4;
-
-
-        match['Q']['A'] = -1;
-        match['Q']['R'] = 1;
-        match['Q']['N'] = 0;
-        match['Q']['D'] = 0;
-        match['Q']['C'] = -3;
-        match['Q']['Q'] = 5;
-        match['Q']['E'] = 2;
-        match['Q']['G'] = -2;
-        match['Q']['H'] = 0;
-        match['Q']['I'] = -3;
-        match['Q']['L'] = -2;
-        match['Q']['K'] = 1;
-        match['Q']['M'] = 0;
-        match['Q']['F'] = -3;
-        match['Q']['P'] = -1;
-        match['Q']['S'] = 0;
-        match['Q']['T'] = -1;
-        match['Q']['W'] = -2;
-        match['Q']['Y'] = -1;
-        match['Q']['V'] = -2;
-        match['Q']['B'] = 0;
-        match['Q']['Z'] = 3;
-        match['Q']['X'] = -1;
-        match['Q']['*'] = -4;
-
-
-        match['E']['A'] = -1;
-        match['E']['R'] = 0;
-        match['E']['N'] = 0;
-        match['E']['D'] = 2;
-        match['E']['C'] = -4;
-        match['E']['Q'] = 2;
-        match['E']['E'] = 5;
-        match['E']['G'] = -2;
-        match['E']['H'] = 0;
-        match['E']['I'] = -3;
-        match['E']['L'] = -3;
-        match['E']['K'] = 1;
-        match['E']['M'] = -2;
-        match['E']['F'] = -3;
-        match['E']['P'] = -1;
-        match['E']['S'] = 0;
-        match['E']['T'] = -1;
-        match['E']['W'] = -3;
-        match['E']['Y'] = -2;
-        match['E']['V'] = -2;
-        match['E']['B'] = 1;
-        match['E']['Z'] = 4;
-        match['E']['X'] = -1;
-        match['E']['*'] = -4;
-
-
-        match['G']['A'] = 0;
-        match['G']['R'] = -2;
-        match['G']['N'] = 0;
-        match['G']['D'] = -1;
-        match['G']['C'] = -3;
-        match['G']['Q'] = -2;
-        match['G']['E'] = -2;
-        match['G']['G'] = 6;
-        match['G']['H'] = -2;
-        match['G']['I'] = -4;
-        match['G']['L'] = -4;
-        match['G']['K'] = -2;
-        match['G']['M'] = -3;
-        match['G']['F'] = -3;
-        match['G']['P'] = -2;
-        match['G']['S'] = 0;
-        match['G']['T'] = -2;
-        match['G']['W'] = -2;
-        match['G']['Y'] = -3;
-        match['G']['V'] = -3;
-        match['G']['B'] = -1;
-        match['G']['Z'] = -2;
-        match['G']['X'] = -1;
-        match['G']['*'] = -4;
-
-
-        match['H']['A'] = -2;
-        match['H']['R'] = 0;
-        match['H']['N'] = 1;
-        match['H']['D'] = -1;
-        match['H']['C'] = -3;
-        match['H']['Q'] = 0;
-        match['H']['E'] = 0;
-        match['H']['G'] = -2;
-        match['H']['H'] = 8;
-        match['H']['I'] = -3;
-        match['H']['L'] = -3;
-        match['H']['K'] = -1;
-        match['H']['M'] = -2;
-        match['H']['F'] = -1;
-        match['H']['P'] = -2;
-        match['H']['S'] = -1;
-        match['H']['T'] = -2;
-        match['H']['W'] = -2;
-        match['H']['Y'] = 2;
-        match['H']['V'] = -3;
-        match['H']['B'] = 0;
-        match['H']['Z'] = 0;
-        match['H']['X'] = -1;
-        match['H']['*'] = -4;
-
-
-        match['I']['A'] = -1;
-        match['I']['R'] = -3;
-        match['I']['N'] = -3;
-        match['I']['D'] = -3;
-        match['I']['C'] = -1;
-        match['I']['Q'] = -3;
-        match['I']['E'] = -3;
-        match['I']['G'] = -4;
-        match['I']['H'] = -3;
-        match['I']['I'] = 4;
-        match['I']['L'] = 2;
-        match['I']['K'] = -3;
-        match['I']['M'] = 1;
-        match['I']['F'] = 0;
-        match['I']['P'] = -3;
-        match['I']['S'] = -2;
-        match['I']['T'] = -1;
-        match['I']['W'] = -3;
-        match['I']['Y'] = -1;
-        match['I']['V'] = 3;
-        match['I']['B'] = -3;
-        match['I']['Z'] = -3;
-        match['I']['X'] = -1;
-        match['I']['*'] = -4;
-
-
-        match['L']['A'] = -1;
-        match['L']['R'] = -2;
-        match['L']['N'] = -3;
-        match['L']['D'] = -4;
-        match['L']['C'] = -1;
-        match['L']['Q'] = -2;
-        match['L']['E'] = -3;
-        match['L']['G'] = -4;
-        match['L']['H'] = -3;
-        match['L']['I'] = 2;
-        match['L']['L'] = 4;
-        match['L']['K'] = -2;
-        match['L']['M'] = 2;
-        match['L']['F'] = 0;
-        match['L']['P'] = -3;
-        match['L']['S'] = -2;
-        match['L']['T'] = -1;
-        match['L']['W'] = -2;
-        match['L']['Y'] = -1;
-        match['L']['V'] = 1;
-        match['L']['B'] = -4;
-        match['L']['Z'] = -3;
-        match['L']['X'] = -1;
-        match['L']['*'] = -4;
-
-
-        match['K']['A'] = -1;
-        match['K']['R'] = 2;
-        match['K']['N'] = 0;
-        match['K']['D'] = -1;
-        match['K']['C'] = -3;
-        match['K']['Q'] = 1;
-        match['K']['E'] = 1;
-        match['K']['G'] = -2;
-        match['K']['H'] = -1;
-        match['K']['I'] = -3;
-        match['K']['L'] = -2;
-        match['K']['K'] = 5;
-        match['K']['M'] = -1;
-        match['K']['F'] = -3;
-        match['K']['P'] = -1;
-        match['K']['S'] = 0;
-        match['K']['T'] = -1;
-        match['K']['W'] = -3;
-        match['K']['Y'] = -2;
-        match['K']['V'] = -2;
-        match['K']['B'] = 0;
-        match['K']['Z'] = 1;
-        match['K']['X'] = -1;
-        match['K']['*'] = -4;
-
-
-        match['M']['A'] = -1;
-        match['M']['R'] = -1;
-        match['M']['N'] = -2;
-        match['M']['D'] = -3;
-        match['M']['C'] = -1;
-        match['M']['Q'] = 0;
-        match['M']['E'] = -2;
-        match['M']['G'] = -3;
-        match['M']['H'] = -2;
-        match['M']['I'] = 1;
-        match['M']['L'] = 2;
-        match['M']['K'] = -1;
-        match['M']['M'] = 5;
-        match['M']['F'] = 0;
-        match['M']['P'] = -2;
-        match['M']['S'] = -1;
-        match['M']['T'] = -1;
-        match['M']['W'] = -1;
-        match['M']['Y'] = -1;
-        match['M']['V'] = 1;
-        match['M']['B'] = -3;
-        match['M']['Z'] = -1;
-        match['M']['X'] = -1;
-        match['M']['*'] = -4;
-
-
-        match['F']['A'] = -2;
-        match['F']['R'] = -3;
-        match['F']['N'] = -3;
-        match['F']['D'] = -3;
-        match['F']['C'] = -2;
-        match['F']['Q'] = -3;
-        match['F']['E'] = -3;
-        match['F']['G'] = -3;
-        match['F']['H'] = -1;
-        match['F']['I'] = 0;
-        match['F']['L'] = 0;
-        match['F']['K'] = -3;
-        match['F']['M'] = 0;
-        match['F']['F'] = 6;
-        match['F']['P'] = -4;
-        match['F']['S'] = -2;
-        match['F']['T'] = -2;
-        match['F']['W'] = 1;
-        match['F']['Y'] = 3;
-        match['F']['V'] = -1;
-        match['F']['B'] = -3;
-        match['F']['Z'] = -3;
-        match['F']['X'] = -1;
-        match['F']['*'] = -4;
-
-
-        match['P']['A'] = -1;
-        match['P']['R'] = -2;
-        match['P']['N'] = -2;
-        match['P']['D'] = -1;
-        match['P']['C'] = -3;
-        match['P']['Q'] = -1;
-        match['P']['E'] = -1;
-        match['P']['G'] = -2;
-        match['P']['H'] = -2;
-        match['P']['I'] = -3;
-        match['P']['L'] = -3;
-        match['P']['K'] = -1;
-        match['P']['M'] = -2;
-        match['P']['F'] = -4;
-        match['P']['P'] = 7;
-        match['P']['S'] = -1;
-        match['P']['T'] = -1;
-        match['P']['W'] = -4;
-        match['P']['Y'] = -3;
-        match['P']['V'] = -2;
-        match['P']['B'] = -2;
-        match['P']['Z'] = -1;
-        match['P']['X'] = -2;
-        match['P']['*'] = -4;
-
-
-        match['S']['A'] = 1;
-        match['S']['R'] = -1;
-        match['S']['N'] = 1;
-        match['S']['D'] = 0;
-        match['S']['C'] = -1;
-        match['S']['Q'] = 0;
-        match['S']['E'] = 0;
-        match['S']['G'] = 0;
-        match['S']['H'] = -1;
-        match['S']['I'] = -2;
-        match['S']['L'] = -2;
-        match['S']['K'] = 0;
-        match['S']['M'] = -1;
-        match['S']['F'] = -2;
-        match['S']['P'] = -1;
-        match['S']['S'] = 4;
-        match['S']['T'] = 1;
-        match['S']['W'] = -3;
-        match['S']['Y'] = -2;
-        match['S']['V'] = -2;
-        match['S']['B'] = 0;
-        match['S']['Z'] = 0;
-        match['S']['X'] = 0;
-        match['S']['*'] = -4;
-
-
-        match['T']['A'] = 0;
-        match['T']['R'] = -1;
-        match['T']['N'] = 0;
-        match['T']['D'] = -1;
-        match['T']['C'] = -1;
-        match['T']['Q'] = -1;
-        match['T']['E'] = -1;
-        match['T']['G'] = -2;
-        match['T']['H'] = -2;
-        match['T']['I'] = -1;
-        match['T']['L'] = -1;
-        match['T']['K'] = -1;
-        match['T']['M'] = -1;
-        match['T']['F'] = -2;
-        match['T']['P'] = -1;
-        match['T']['S'] = 1;
-        match['T']['T'] = 5;
-        match['T']['W'] = -2;
-        match['T']['Y'] = -2;
-        match['T']['V'] = 0;
-        match['T']['B'] = -1;
-        match['T']['Z'] = -1;
-        match['T']['X'] = 0;
-        match['T']['*'] = -4;
-
-
-        match['W']['A'] = -3;
-        match['W']['R'] = -3;
-        match['W']['N'] = -4;
-        match['W']['D'] = -4;
-        match['W']['C'] = -2;
-        match['W']['Q'] = -2;
-        match['W']['E'] = -3;
-        match['W']['G'] = -2;
-        match['W']['H'] = -2;
-        match['W']['I'] = -3;
-        match['W']['L'] = -2;
-        match['W']['K'] = -3;
-        match['W']['M'] = -1;
-        match['W']['F'] = 1;
-        match['W']['P'] = -4;
-        match['W']['S'] = -3;
-        match['W']['T'] = -2;
-        match['W']['W'] = 11;
-        match['W']['Y'] = 2;
-        match['W']['V'] = -3;
-        match['W']['B'] = -4;
-        match['W']['Z'] = -3;
-        match['W']['X'] = -2;
-        match['W']['*'] = -4;
-
-
-        match['Y']['A'] = -2;
-        match['Y']['R'] = -2;
-        match['Y']['N'] = -2;
-        match['Y']['D'] = -3;
-        match['Y']['C'] = -2;
-        match['Y']['Q'] = -1;
-        match['Y']['E'] = -2;
-        match['Y']['G'] = -3;
-        match['Y']['H'] = 2;
-        match['Y']['I'] = -1;
-        match['Y']['L'] = -1;
-        match['Y']['K'] = -2;
-        match['Y']['M'] = -1;
-        match['Y']['F'] = 3;
-        match['Y']['P'] = -3;
-        match['Y']['S'] = -2;
-        match['Y']['T'] = -2;
-        match['Y']['W'] = 2;
-        match['Y']['Y'] = 7;
-        match['Y']['V'] = -1;
-        match['Y']['B'] = -3;
-        match['Y']['Z'] = -2;
-        match['Y']['X'] = -1;
-        match['Y']['*'] = -4;
-
-
-        match['V']['A'] = 0;
-        match['V']['R'] = -3;
-        match['V']['N'] = -3;
-        match['V']['D'] = -3;
-        match['V']['C'] = -1;
-        match['V']['Q'] = -2;
-        match['V']['E'] = -2;
-        match['V']['G'] = -3;
-        match['V']['H'] = -3;
-        match['V']['I'] = 3;
-        match['V']['L'] = 1;
-        match['V']['K'] = -2;
-        match['V']['M'] = 1;
-        match['V']['F'] = -1;
-        match['V']['P'] = -2;
-        match['V']['S'] = -2;
-        match['V']['T'] = 0;
-        match['V']['W'] = -3;
-        match['V']['Y'] = -1;
-        match['V']['V'] = 4;
-        match['V']['B'] = -3;
-        match['V']['Z'] = -2;
-        match['V']['X'] = -1;
-        match['V']['*'] = -4;
-
-
-        match['B']['A'] = -2;
-        match['B']['R'] = -1;
-        match['B']['N'] = 3;
-        match['B']['D'] = 4;
-        match['B']['C'] = -3;
-        match['B']['Q'] = 0;
-        match['B']['E'] = 1;
-        match['B']['G'] = -1;
-        match['B']['H'] = 0;
-        match['B']['I'] = -3;
-        match['B']['L'] = -4;
-        match['B']['K'] = 0;
-        match['B']['M'] = -3;
-        match['B']['F'] = -3;
-        match['B']['P'] = -2;
-        match['B']['S'] = 0;
-        match['B']['T'] = -1;
-        match['B']['W'] = -4;
-        match['B']['Y'] = -3;
-        match['B']['V'] = -3;
-        match['B']['B'] = 4;
-        match['B']['Z'] = 1;
-        match['B']['X'] = -1;
-        match['B']['*'] = -4;
-
-
-        match['Z']['A'] = -1;
-        match['Z']['R'] = 0;
-        match['Z']['N'] = 0;
-        match['Z']['D'] = 1;
-        match['Z']['C'] = -3;
-        match['Z']['Q'] = 3;
-        match['Z']['E'] = 4;
-        match['Z']['G'] = -2;
-        match['Z']['H'] = 0;
-        match['Z']['I'] = -3;
-        match['Z']['L'] = -3;
-        match['Z']['K'] = 1;
-        match['Z']['M'] = -1;
-        match['Z']['F'] = -3;
-        match['Z']['P'] = -1;
-        match['Z']['S'] = 0;
-        match['Z']['T'] = -1;
-        match['Z']['W'] = -3;
-        match['Z']['Y'] = -2;
-        match['Z']['V'] = -2;
-        match['Z']['B'] = 1;
-        match['Z']['Z'] = 4;
-        match['Z']['X'] = -1;
-        match['Z']['*'] = -4;
-
-
-        match['X']['A'] = 0;
-        match['X']['R'] = -1;
-        match['X']['N'] = -1;
-        match['X']['D'] = -1;
-        match['X']['C'] = -2;
-        match['X']['Q'] = -1;
-        match['X']['E'] = -1;
-        match['X']['G'] = -1;
-        match['X']['H'] = -1;
-        match['X']['I'] = -1;
-        match['X']['L'] = -1;
-        match['X']['K'] = -1;
-        match['X']['M'] = -1;
-        match['X']['F'] = -1;
-        match['X']['P'] = -2;
-        match['X']['S'] = 0;
-        match['X']['T'] = 0;
-        match['X']['W'] = -2;
-        match['X']['Y'] = -1;
-        match['X']['V'] = -1;
-        match['X']['B'] = -1;
-        match['X']['Z'] = -1;
-        match['X']['X'] = -1;
-        match['X']['*'] = -4;
-
-
-        match['*']['A'] = -4;
-        match['*']['R'] = -4;
-        match['*']['N'] = -4;
-        match['*']['D'] = -4;
-        match['*']['C'] = -4;
-        match['*']['Q'] = -4;
-        match['*']['E'] = -4;
-        match['*']['G'] = -4;
-        match['*']['H'] = -4;
-        match['*']['I'] = -4;
-        match['*']['L'] = -4;
-        match['*']['K'] = -4;
-        match['*']['M'] = -4;
-        match['*']['F'] = -4;
-        match['*']['P'] = -4;
-        match['*']['S'] = -4;
-        match['*']['T'] = -4;
-        match['*']['W'] = -4;
-        match['*']['Y'] = -4;
-        match['*']['V'] = -4;
-        match['*']['B'] = -4;
-        match['*']['Z'] = -4;
-        match['*']['X'] = -4;
-        match['*']['*'] = 1;
-    }
-
     /**
      * Fills the the similarity and direction matrixes of the two input sequences.
      * First sequence should not be longer than the second sequence.
@@ -1043,13 +272,32 @@ public class LocalSequenceAlignment {
      * @param s2 The StringBuilder containing the second sequence
      */
     public Alignment align(String s1, String s2) {
-        int i, j, d;
-        int m = s1.length(), n = s2.length();
+        if (SCORE_ONLY)
+            return align_score(s1, s2);
         seq1.setLength(0); 
         seq1.append(s1);
         seq2.setLength(0); 
         seq2.append(s2);
-        if (m < MAX_LENGTH) {
+        if (!fill_matrixes())
+            return align_linear(s1, s2);
+
+        return (new Alignment(similarity, -1, max_j, -1, max_i));
+    }
+
+    /**
+     * Fills the similarity and direction matrixes of seq1 and seq2.
+     * 
+     * @return false if the sequences are too long for the matrixes
+     */
+    private boolean fill_matrixes() {
+        int j;
+        int m = seq1.length(), n = seq2.length();
+        if (traceback != null && m < MAX_LENGTH && n <= MAX_LENGTH) {
+            fill_traceback();
+        } else if (m < MAX_LENGTH && n <= MAX_LENGTH) {
+            ensure_capacity(m, n);
+            traceback_ready = true;
+            linear = false;
             similarity = Integer.MIN_VALUE;
             if (DEBUG) {
                 for (j = 1; j <= n; j++) 
@@ -1090,50 +338,17 @@ public class LocalSequenceAlignment {
                 if (DEBUG)
                     System.out.println();
             }*/
-            for (i = 1; i <= m; i++) {
-                if (DEBUG)
-                    System.out.print(seq1.charAt(i-1));
-                for (j = 1; j <= n; j++) {
-                    d = match[seq1.charAt(i-1)][seq2.charAt(j-1)] + matrix[i-1][j-1];
-
-                    if (d >= Math.max(up[i-1][j] , left[i][j-1])) {
-                        matrix[i][j] = d;
-                        direction[i][j] = 0;
-                    } else if (left[i][j-1] >= up[i-1][j]) {
-                        matrix[i][j] = left[i][j-1];
-                        direction[i][j] = 1;
-                    } else {
-                        matrix[i][j] = up[i-1][j];
-                        direction[i][j] = 2;
-                    }
-                    if (matrix[i][j] > similarity) {
-                        similarity = matrix[i][j];
-                        max_i = i;
-                        max_j = j;
-                    }
-
-                    up[i][j] = Math.max( up[i-1][j] - GAP_EXT , d - GAP_OPEN - GAP_EXT);
-                    left[i][j] = Math.max( left[i][j-1] - GAP_EXT , d- GAP_OPEN - GAP_EXT);
-
-                    direction[i][j] |=  ((left[i][j] - GAP_EXT) > (d - GAP_OPEN - GAP_EXT) ? (1<<2) : 0);
-                    direction[i][j] |=  ((up[i][j] - GAP_EXT) > (d - GAP_OPEN - GAP_EXT) ? (2<<4) : 0);
-
-                    if (DEBUG) {
-                        System.out.print(String.format("%4d", matrix[i][j] ));
-                        System.out.print(String.format("%4d", left[i][j] ));
-                        System.out.print(String.format("%4d", up[i][j] ));
-                        System.out.print(String.format("%4c", direction[i][j] ));
-                    }
-                }
-                if (DEBUG)
-                    System.out.println();
+            fill_tiles(m, n, TILE, fill_matrix_block, best_cell);
+            if (best_cell[0] > similarity) {
+                similarity = best_cell[0];
+                max_i = best_cell[1];
+                max_j = best_cell[2];
             }
         } else {
-            System.err.println("Sequences are too large for the aligner. " + m + " " + n + "\n" + seq1.toString() + "\n " + seq2.toString());
-            System.exit(0);
+            return false;
         }
 
-        return (new Alignment((short)similarity, -1, max_j, -1, max_i));
+        return true;
 
         /*align_count++;
         BufferedWriter seq1_writer = null;
@@ -1269,6 +484,514 @@ public class LocalSequenceAlignment {
         }*/
 
     }    
+
+    /**
+     * Aligns the two input sequences and traces the alignment back at once,
+     * so the result holds its beginning positions, its cigar and its edit
+     * distance, and the aligner can go on with the next pair. The positions
+     * are those of the part covered by the cigar, after soft-clipping. Matches and
+     * mismatches are told apart in the cigar, as with get_cigar(true).
+     *
+     * @param s1 The String containing the first sequence
+     * @param s2 The String containing the second sequence
+     * @return The traced back best alignment
+     */
+    public Alignment align_traced(String s1, String s2) {
+        return align_traced(s1, s2, true);
+    }
+
+    /**
+     * Aligns the two input sequences and traces the alignment back at once.
+     * The sub-optimal score is the best score ending on a column of the
+     * second sequence more than half the length of the first one away from
+     * the end of the best alignment, as in SSW; it is only available when
+     * the similarity matrix is filled, not in linear space or with a
+     * traceback store.
+     *
+     * @param s1 The String containing the first sequence
+     * @param s2 The String containing the second sequence
+     * @param cigar_with_x Whether matches and mismatches are told apart as = and X instead of M
+     * @return The traced back best alignment
+     */
+    public Alignment align_traced(String s1, String s2, boolean cigar_with_x) {
+        Alignment alignment = align(s1, s2);
+        Cigar packed = get_packed_cigar(cigar_with_x);
+        return Alignment.traced(alignment.score, linear || traceback != null ? -1 : suboptimal_score(s2.length(), s1.length() / 2),
+                begin_j, begin_i, false, packed, s1, s2);
+    }
+
+    /**
+     * Aligns two sequences given as slices of byte arrays, one character per
+     * byte, and writes the alignment traced back as by align_traced() into
+     * result. Once the aligner and the result have grown to the largest pair
+     * seen nothing is allocated, except for pairs too long for the direction
+     * matrix. In score-only mode only the score and the ending positions are
+     * written.
+     *
+     * @param read The bytes of the first sequence
+     * @param read_offset The first byte of the first sequence
+     * @param read_length The length of the first sequence
+     * @param ref The bytes of the second sequence
+     * @param ref_offset The first byte of the second sequence
+     * @param ref_length The length of the second sequence
+     * @param result Receives the alignment
+     * @return result
+     */
+    @Override
+    public AlignmentResult align(byte[] read, int read_offset, int read_length, byte[] ref, int ref_offset, int ref_length,
+                                 AlignmentResult result) {
+        Workspace.load(seq1, read, read_offset, read_length);
+        Workspace.load(seq2, ref, ref_offset, ref_length);
+        return align_loaded(result);
+    }
+
+    /**
+     * Aligns two sequences given as the remaining bytes of two buffers, as
+     * align(byte[], int, int, byte[], int, int, AlignmentResult). The
+     * positions of the buffers are not moved.
+     *
+     * @param read The first sequence, from the position to the limit
+     * @param ref The second sequence, from the position to the limit
+     * @param result Receives the alignment
+     * @return result
+     */
+    @Override
+    public AlignmentResult align(ByteBuffer read, ByteBuffer ref, AlignmentResult result) {
+        Workspace.load(seq1, read);
+        Workspace.load(seq2, ref);
+        return align_loaded(result);
+    }
+
+    /**
+     * Aligns seq1 and seq2 into result.
+     */
+    private AlignmentResult align_loaded(AlignmentResult result) {
+        int m = seq1.length(), n = seq2.length();
+        if (SCORE_ONLY) {
+            fill_score();
+            result.set(similarity, max_j, max_i);
+            return result;
+        }
+        if (!fill_matrixes())
+            align_linear(seq1.toString(), seq2.toString());
+        Cigar packed = get_packed_cigar(true);
+        result.set_traced(similarity, linear || traceback != null ? -1 : suboptimal_score(n, m / 2), begin_j, begin_i, false, packed, seq1, seq2);
+        return result;
+    }
+
+    /**
+     * @param n The length of the second sequence
+     * @param mask The number of columns on either side of the end of the best alignment that are left out
+     * @return The best score of the columns of the filled matrix away from the best alignment, -1 if none;
+     *         taken from the best score of every column, recorded by fill_block()
+     */
+    private int suboptimal_score(int n, int mask) {
+        int j, best = -1;
+        for (j = 1; j < max_j - mask && j <= n; j++)
+            best = Math.max(best, column_max[j]);
+        for (j = Math.max(1, max_j + mask + 1); j <= n; j++)
+            best = Math.max(best, column_max[j]);
+        return best;
+    }
+
+    /**
+     * Fills a block of the similarity and direction matrixes; the cells
+     * above and to the left of the block must have been filled.
+     * 
+     * @param i0 The first row of the block
+     * @param i1 The last row of the block
+     * @param j0 The first column of the block
+     * @param j1 The last column of the block
+     * @param found Receives {score, row, column} of the best cell of the block, the first one in row-major order
+     */
+    private void fill_block(int i0, int i1, int j0, int j1, int[] found) {
+        int i, j, d, cell, best = Integer.MIN_VALUE, best_i = 0, best_j = 0;
+        for (i = i0; i <= i1; i++) {
+            if (DEBUG)
+                System.out.print(seq1.charAt(i-1));
+            for (j = j0; j <= j1; j++) {
+                d = match[seq1.charAt(i-1)][seq2.charAt(j-1)] + matrix[i-1][j-1];
+
+                if (d >= Math.max(up[i-1][j] , left[i][j-1])) {
+                    matrix[i][j] = d;
+                    cell = TracebackStore.MATCH;
+                } else if (left[i][j-1] >= up[i-1][j]) {
+                    matrix[i][j] = left[i][j-1];
+                    cell = TracebackStore.DELETION;
+                } else {
+                    matrix[i][j] = up[i-1][j];
+                    cell = TracebackStore.INSERTION;
+                }
+                if (matrix[i][j] > best) {
+                    best = matrix[i][j];
+                    best_i = i;
+                    best_j = j;
+                }
+                if (matrix[i][j] > column_max[j])
+                    column_max[j] = matrix[i][j];
+
+                up[i][j] = Math.max( up[i-1][j] - GAP_EXT , d - GAP_OPEN - GAP_EXT);
+                left[i][j] = Math.max( left[i][j-1] - GAP_EXT , d- GAP_OPEN - GAP_EXT);
+
+                cell |=  ((left[i][j] - GAP_EXT) > (d - GAP_OPEN - GAP_EXT) ? TracebackStore.LEFT_GAP : 0);
+                cell |=  ((up[i][j] - GAP_EXT) > (d - GAP_OPEN - GAP_EXT) ? TracebackStore.UP_GAP : 0);
+                directions.set(i - 1, j - 1, cell);
+
+                if (DEBUG) {
+                    System.out.print(String.format("%4d", matrix[i][j] ));
+                    System.out.print(String.format("%4d", left[i][j] ));
+                    System.out.print(String.format("%4d", up[i][j] ));
+                    System.out.print(String.format("%4x", cell ));
+                }
+            }
+            if (DEBUG)
+                System.out.println();
+        }
+        found[0] = best;
+        found[1] = best_i;
+        found[2] = best_j;
+    }
+
+    /**
+     * Fills a block of rows 1..m and columns 1..n of a dynamic programming
+     * matrix, given the cells above and to the left of it.
+     */
+    private interface Block {
+        void fill(int i0, int i1, int j0, int j1, int[] found);
+    }
+
+    /**
+     * Fills an m x n matrix tile by tile. A tile only depends on the tiles
+     * above and to its left, so the tiles of an anti-diagonal are filled in
+     * parallel once the previous anti-diagonal is done. Small matrixes, or
+     * an aligner without a pool, are filled as a single block.
+     * 
+     * @param m The number of rows
+     * @param n The number of columns
+     * @param tile The number of rows and columns of a tile
+     * @param block Fills a tile
+     * @param best Receives {score, row, column} of the best cell, the first
+     *             one in row-major order as with a single block
+     */
+    private void fill_tiles(int m, int n, int tile, Block block, int[] best) {
+        if (pool == null || DEBUG || (long)m * n < PARALLEL_CELLS) {
+            block.fill(1, m, 1, n, best);
+            return;
+        }
+        int rows = (m + tile - 1) / tile, cols = (n + tile - 1) / tile;
+        best[0] = Integer.MIN_VALUE;
+        best[1] = best[2] = 0;
+        pool.invoke(ForkJoinTask.adapt(() -> {
+            int d, r, first, i0, j0;
+            int[][] found = new int[Math.min(rows, cols)][3];
+            List<ForkJoinTask<?>> tiles = new ArrayList<>();
+            for (d = 0; d < rows + cols - 1; d++) {
+                tiles.clear();
+                first = Math.max(0, d - cols + 1);
+                for (r = first; r <= Math.min(rows - 1, d); r++) {
+                    i0 = r * tile + 1;
+                    j0 = (d - r) * tile + 1;
+                    int from1 = i0, to1 = Math.min(m, i0 + tile - 1), from2 = j0, to2 = Math.min(n, j0 + tile - 1);
+                    int[] cell = found[r - first];
+                    tiles.add(ForkJoinTask.adapt(() -> block.fill(from1, to1, from2, to2, cell)));
+                }
+                ForkJoinTask.invokeAll(tiles);
+                for (r = 0; r < tiles.size(); r++) {
+                    int[] cell = found[r];
+                    if (cell[0] > best[0] || (cell[0] == best[0] &&
+                            (cell[1] < best[1] || (cell[1] == best[1] && cell[2] < best[2])))) {
+                        System.arraycopy(cell, 0, best, 0, 3);
+                    }
+                }
+            }
+        }));
+    }
+
+    /**
+     * Grows the matrixes to hold the alignment of an m x n pair, and sets
+     * their first row and column.
+     * 
+     * @param m The length of the first sequence
+     * @param n The length of the second sequence
+     */
+    private void ensure_capacity(int m, int n) {
+        int i, j;
+        matrix = Workspace.ints(matrix, m + 1, n + 1);
+        directions.ensure_capacity(m, n);
+        up = Workspace.ints(up, m + 1, n + 1);
+        left = Workspace.ints(left, m + 1, n + 1);
+        score_array = Workspace.ints(score_array, m + 1);
+        column_max = Workspace.ints(column_max, n + 1);
+        matrix[0][0] = 0;
+        up[0][0] = left[0][0] = -1000;
+        for (i = 1; i <= m; i++) {
+            up[i][0] = -1000;
+            left[i][0] = -1000;
+            matrix[i][0] = 0;
+        }
+        for (j = 1; j <= n; j++) {
+            up[0][j] = -1000;
+            left[0][j] = -1000;
+            matrix[0][j] = 0;
+            column_max[j] = Integer.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Calculates the similarity score and the ending coordinates of the 
+     * alignment of two sequences, keeping only two rolling rows. 
+     * No direction matrix is filled, so get_cigar() and get_alignment() 
+     * can not be called afterwards.
+     * 
+     * @param s1 The first sequence
+     * @param s2 The second sequence
+     * @return The alignment with the score and ending positions
+     */
+    public Alignment align_score(String s1, String s2) {
+        seq1.setLength(0); 
+        seq1.append(s1);
+        seq2.setLength(0); 
+        seq2.append(s2);
+        fill_score();
+        return (new Alignment(similarity, -1, max_j, -1, max_i));
+    }
+
+    /**
+     * Calculates the similarity score and the ending coordinates of the
+     * alignment of seq1 and seq2 in two rolling rows.
+     */
+    private void fill_score() {
+        int m = seq1.length(), n = seq2.length();
+        traceback_ready = false;
+        init_rows(m, n);
+        fill_tiles(m, n, SCORE_TILE, fill_score_block, best_cell);
+        if (best_cell[0] > similarity) {
+            similarity = best_cell[0];
+            max_i = best_cell[1];
+            max_j = best_cell[2];
+        }
+    }
+
+    /**
+     * Fills the directions of seq1 and seq2 into the traceback store,
+     * keeping the scores in rolling rows as fill_score() does.
+     */
+    private void fill_traceback() {
+        int m = seq1.length(), n = seq2.length();
+        directions.ensure_capacity(m, n);
+        score_array = Workspace.ints(score_array, m + 1);
+        traceback_ready = true;
+        linear = false;
+        init_rows(m, n);
+        fill_tiles(m, n, SCORE_TILE, fill_traceback_block, best_cell);
+        if (best_cell[0] > similarity) {
+            similarity = best_cell[0];
+            max_i = best_cell[1];
+            max_j = best_cell[2];
+        }
+    }
+
+    /**
+     * Sets the rolling rows, and the borders of their tiles, for an m x n pair.
+     * 
+     * @param m The length of the first sequence
+     * @param n The length of the second sequence
+     */
+    private void init_rows(int m, int n) {
+        h_row = Workspace.ints(h_row, n + 1);
+        up_row = Workspace.ints(up_row, n + 1);
+        java.util.Arrays.fill(h_row, 0, n + 1, 0);
+        java.util.Arrays.fill(up_row, 0, n + 1, -1000);
+        if (pool != null && (long)m * n >= PARALLEL_CELLS) {
+            vert_h = Workspace.ints(vert_h, m + 1);
+            vert_left = Workspace.ints(vert_left, m + 1);
+            corner = Workspace.ints(corner, 2, (n + SCORE_TILE - 1) / SCORE_TILE + 1);
+        }
+        similarity = Integer.MIN_VALUE;
+    }
+
+    /**
+     * Fills a block of the rolling rows of align_score(). The rows hold the
+     * bottom row of the tiles above; the right column of the tile to the
+     * left is kept in vert_h and vert_left, and the cell above it in corner,
+     * one array for the even and one for the odd rows of tiles, so no tile
+     * overwrites a border before the tile reading it is done.
+     * 
+     * @param i0 The first row of the block
+     * @param i1 The last row of the block
+     * @param j0 The first column of the block
+     * @param j1 The last column of the block
+     * @param found Receives {score, row, column} of the best cell of the block, the first one in row-major order
+     */
+    private void score_block(int i0, int i1, int j0, int j1, int[] found) {
+        int i, j, d, h, diag, left_score, up_score, left_h, best = Integer.MIN_VALUE, best_i = 0, best_j = 0;
+        int n = seq2.length(), r = (i0 - 1) / SCORE_TILE & 1, c = (j0 - 1) / SCORE_TILE;
+        int[] scores;
+        left_h = j0 == 1 ? 0 : corner[r][c];
+        if (j1 < n)
+            corner[r][c + 1] = h_row[j1];
+        for (i = i0; i <= i1; i++) {
+            scores = match[seq1.charAt(i-1)];
+            diag = left_h;
+            left_score = j0 == 1 ? -1000 : vert_left[i];
+            left_h = j0 == 1 ? 0 : vert_h[i];
+            for (j = j0; j <= j1; j++) {
+                d = scores[seq2.charAt(j-1)] + diag;
+                up_score = up_row[j];
+                h = Math.max(d, Math.max(up_score, left_score));
+                diag = h_row[j];
+                h_row[j] = h;
+                if (h > best) {
+                    best = h;
+                    best_i = i;
+                    best_j = j;
+                }
+                up_row[j] = Math.max(up_score - GAP_EXT, d - GAP_OPEN - GAP_EXT);
+                left_score = Math.max(left_score - GAP_EXT, d - GAP_OPEN - GAP_EXT);
+            }
+            if (j1 < n) {
+                vert_h[i] = h_row[j1];
+                vert_left[i] = left_score;
+            }
+        }
+        found[0] = best;
+        found[1] = best_i;
+        found[2] = best_j;
+    }
+
+    /**
+     * Fills a block of the rolling rows as score_block() does, and sets the
+     * directions of its cells in the traceback store, the same as those
+     * fill_block() sets.
+     * 
+     * @param i0 The first row of the block
+     * @param i1 The last row of the block
+     * @param j0 The first column of the block
+     * @param j1 The last column of the block
+     * @param found Receives {score, row, column} of the best cell of the block, the first one in row-major order
+     */
+    private void traceback_block(int i0, int i1, int j0, int j1, int[] found) {
+        int i, j, d, h, diag, left_score, up_score, left_h, cell, open, best = Integer.MIN_VALUE, best_i = 0, best_j = 0;
+        int n = seq2.length(), r = (i0 - 1) / SCORE_TILE & 1, c = (j0 - 1) / SCORE_TILE;
+        int[] scores;
+        left_h = j0 == 1 ? 0 : corner[r][c];
+        if (j1 < n)
+            corner[r][c + 1] = h_row[j1];
+        for (i = i0; i <= i1; i++) {
+            scores = match[seq1.charAt(i-1)];
+            diag = left_h;
+            left_score = j0 == 1 ? -1000 : vert_left[i];
+            left_h = j0 == 1 ? 0 : vert_h[i];
+            for (j = j0; j <= j1; j++) {
+                d = scores[seq2.charAt(j-1)] + diag;
+                up_score = up_row[j];
+                if (d >= Math.max(up_score, left_score)) {
+                    h = d;
+                    cell = TracebackStore.MATCH;
+                } else if (left_score >= up_score) {
+                    h = left_score;
+                    cell = TracebackStore.DELETION;
+                } else {
+                    h = up_score;
+                    cell = TracebackStore.INSERTION;
+                }
+                diag = h_row[j];
+                h_row[j] = h;
+                if (h > best) {
+                    best = h;
+                    best_i = i;
+                    best_j = j;
+                }
+                open = d - GAP_OPEN - GAP_EXT;
+                up_score = Math.max(up_score - GAP_EXT, open);
+                left_score = Math.max(left_score - GAP_EXT, open);
+                up_row[j] = up_score;
+                cell |= (left_score - GAP_EXT > open ? TracebackStore.LEFT_GAP : 0) | (up_score - GAP_EXT > open ? TracebackStore.UP_GAP : 0);
+                directions.set(i - 1, j - 1, cell);
+            }
+            if (j1 < n) {
+                vert_h[i] = h_row[j1];
+                vert_left[i] = left_score;
+            }
+        }
+        found[0] = best;
+        found[1] = best_i;
+        found[2] = best_j;
+    }
+
+    /**
+     * Aligns sequences too long for the direction matrix in linear space.
+     * The score and the ending coordinates come from align_score(), the 
+     * path itself from a Myers-Miller divide and conquer on all cores.
+     * 
+     * @param s1 The first sequence
+     * @param s2 The second sequence
+     * @return The alignment with the score and ending positions
+     */
+    private Alignment align_linear(String s1, String s2) {
+        int i, j, k, row;
+        Alignment alignment = align_score(s1, s2);
+        char[] c1 = s1.toCharArray();
+        char[] c2 = s2.toCharArray();
+        LinearSpaceSequenceAlignment aligner = new LinearSpaceSequenceAlignment(scheme, pool != null ? pool : ForkJoinPool.commonPool());
+        int[] begin = aligner.find_begin(c1, max_i, c2, max_j);
+        path_moves = aligner.align(c1, begin[0], max_i, c2, begin[1], max_j);
+        // index the cells of the path by row, for trace_move()
+        path_cols = new int[path_moves.length];
+        path_rows = new int[max_i + 2];
+        i = begin[0];
+        j = begin[1];
+        row = 0;
+        for (k = 0; k < path_moves.length; k++) {
+            if (path_moves[k] != 1)
+                ++i;
+            if (path_moves[k] != 2)
+                ++j;
+            for (; row <= i; row++)
+                path_rows[row] = k;
+            path_cols[k] = j;
+        }
+        for (; row <= max_i + 1; row++)
+            path_rows[row] = path_moves.length;
+        score_array = Workspace.ints(score_array, max_i + 1);
+        linear = true;
+        traceback_ready = true;
+        return alignment;
+    }
+
+    /**
+     * Gives the move that led to a cell of the alignment path.
+     * 
+     * @param i The row of the cell
+     * @param j The column of the cell
+     * @param which The move taken from the next cell of the path, to follow gaps
+     * @return 0 for a match/mismatch, 1 for a deletion and 2 for an insertion
+     */
+    private int trace_move(int i, int j, int which) {
+        int from, to, k;
+        if (!linear) {
+            // the first row and column are the borders of a local alignment
+            if (i == 0)
+                return TracebackStore.move(j == 0 ? 0 : TracebackStore.DELETION | TracebackStore.LEFT_GAP, which);
+            if (j == 0)
+                return TracebackStore.move(TracebackStore.INSERTION | TracebackStore.UP_GAP, which);
+            return TracebackStore.move(directions.get(i - 1, j - 1), which);
+        }
+        if (j == 0)
+            return 2;
+        from = path_rows[i];
+        to = path_rows[i + 1];
+        k = java.util.Arrays.binarySearch(path_cols, from, to, j);
+        return k >= 0 ? path_moves[k] : 0;
+    }
+
+    /**
+     * Makes sure the direction matrix belongs to the last alignment.
+     */
+    private void check_traceback() {
+        if (!traceback_ready)
+            throw new IllegalStateException("No direction matrix available; call align() on a full aligner first");
+    }
     
     /**
      * Calculates the alignment from the similarity matrix. 
@@ -1277,8 +1000,9 @@ public class LocalSequenceAlignment {
      * @return the alignment string which may contains some gaps. 
      */
     public String get_alignment() {
-        int i, j;
+        int i, j, which = 0;
         int range[];
+        check_traceback();
         StringBuilder subject = new StringBuilder();
         StringBuilder query = new StringBuilder();
         subject.setLength(0);
@@ -1292,11 +1016,12 @@ public class LocalSequenceAlignment {
         while (i > 0 && j > 0) {
             if (CLIPPING_STRIGENCY > 0 && i < range[0])
                 break;
-            if (direction[i][j] == 'I') {
+            which = trace_move(i, j, which);
+            if (which == 2) {
                 query.append( seq1.charAt(i-1) );
                 subject.append( '-' );
                 i = i - 1;
-            } else if (direction[i][j] == 'D') {
+            } else if (which == 1) {
                 query.append( '-' );
                 subject.append( seq2.charAt(j-1) );
                 j = j - 1;
@@ -1413,15 +1138,25 @@ public class LocalSequenceAlignment {
      *         in the first and second sequences aligned. 
      */
     public int[] calculate_clip_range() {
-        int i, j, x, max_ending_here, max_so_far, tmp_start, tmp_stop;
-        int[] range = new int[4];
+        return calculate_clip_range(new int[4]);
+    }
+
+    /**
+     * @param range Receives [from1, to1, from2, to2]
+     * @return range
+     */
+    private int[] calculate_clip_range(int[] range) {
+        int i, j, x, which, max_ending_here, max_so_far, tmp_start, tmp_stop;
+        check_traceback();
         x = i = max_i;
         j = max_j;
+        which = 0;
         while (i > 0 && j > 0) {
-            if (direction[i][j] == 'I') {
+            which = trace_move(i, j, which);
+            if (which == 2) {
                 score_array[x--] = insertion_penalty;
                 i = i - 1;
-            } else if (direction[i][j] == 'D') {
+            } else if (which == 1) {
                 j = j - 1;
             } else {
                 score_array[x--] = seq1.charAt(i-1) == seq2.charAt(j-1) ? 1 : mismatch_penalty;
@@ -1450,6 +1185,7 @@ public class LocalSequenceAlignment {
         }
         i = max_i;
         j = max_j;
+        which = 0;
         while (i > 0 && j > 0) {
             if (i == range[1]){
                 range[3] = j;
@@ -1457,9 +1193,10 @@ public class LocalSequenceAlignment {
             if (i == range[0]){
                 range[2] = j;
             }
-            if (direction[i][j] == 'I') {
+            which = trace_move(i, j, which);
+            if (which == 2) {
                 i = i - 1;
-            } else if (direction[i][j] == 'D') {
+            } else if (which == 1) {
                 j = j - 1;
             } else {
                 i = i - 1;
@@ -1471,27 +1208,41 @@ public class LocalSequenceAlignment {
     
     /**
      * Calculates the SAM cigar string of the alignment.
-     * 
+     *
+     * @param cigar_with_x Whether matches and mismatches are told apart as = and X instead of M
      * @return  The SAM cigar string of the alignment.
      */
     public String get_cigar(boolean cigar_with_x) {
-        int i, j, move_counts, count, identicals = 0;
+        return get_packed_cigar(cigar_with_x).toString();
+    }
+
+    /**
+     * Calculates the cigar of the alignment, packed as in BAM, without
+     * making its string.
+     *
+     * @param cigar_with_x Whether matches and mismatches are told apart as = and X instead of M
+     * @return The cigar of the alignment, which is overwritten by the next call
+     */
+    public Cigar get_packed_cigar(boolean cigar_with_x) {
+        int i, j, move_counts, identicals = 0;
         int range[];
-        char curr_move, prev_move, operation;
+        char curr_move, prev_move;
+        check_traceback();
         insertions = deletions = 0;
-        operation_stack.clear();
-        count_stack.clear();
-        cigar.setLength(0);
+        cigar.clear();
         if (CLIPPING_STRIGENCY > 0){
-            range = calculate_clip_range();
+            range = calculate_clip_range(range_buffer);
             if (seq1.length() - range[1] > 0){
-                operation_stack.push('S');
-                count_stack.push(seq1.length() - range[1]);
+                cigar.push('S', seq1.length() - range[1]);
             }
             prev_move = 'M';
             move_counts = 1;
         } else {
-            range = new int[]{1, max_i, 1, max_j};
+            range = range_buffer;
+            range[0] = 1;
+            range[1] = max_i;
+            range[2] = 1;
+            range[3] = max_j;
             prev_move = 'M';
             move_counts = 1;//range[1] < seq1.length() ? seq1.length() - range[1] + 1 : 1;
         }
@@ -1527,8 +1278,7 @@ public class LocalSequenceAlignment {
             if (prev_move == curr_move)
                 ++move_counts;
             else{
-                operation_stack.push(prev_move);
-                count_stack.push(move_counts);
+                cigar.push(prev_move, move_counts);
                 move_counts = 1;
             }
             prev_move = curr_move;
@@ -1540,7 +1290,7 @@ public class LocalSequenceAlignment {
         while (i >= range[0]){
             //curr_move = direction[i][j];
 
-           which = (direction[i][j] >> (which<<1)) & 3;
+            which = trace_move(i, j, which);
             //System.out.println(String.format("direction:%d, which:%d, i:%d, j:%d", direction[i][j], which, i, j));
             //System.out.flush();
             if (which == 2){
@@ -1576,8 +1326,7 @@ public class LocalSequenceAlignment {
                     ++move_counts;
 
                 else {
-                    operation_stack.push(prev_move);
-                    count_stack.push(move_counts);
+                    cigar.push(prev_move, move_counts);
                     move_counts = 1;
                 }
                 prev_move = curr_move;
@@ -1585,30 +1334,28 @@ public class LocalSequenceAlignment {
 
         }
         offset = j - i;
+        begin_i = i;
+        begin_j = j;
         if (CLIPPING_STRIGENCY > 0){
-            operation_stack.push(prev_move);
-            count_stack.push(move_counts);
+            cigar.push(prev_move, move_counts);
             if (i > 0){
-                operation_stack.push('S');
-                count_stack.push(i);
+                cigar.push('S', i);
                 offset += i;
             }
         } else {
-            if (prev_move == 'M')
-               move_counts += i;
-            operation_stack.push(prev_move);
-            count_stack.push(move_counts);
-        }
-          while (!operation_stack.isEmpty()){
-            operation = operation_stack.pop();
-            count = count_stack.pop();
-            cigar.append(count).append(operation);
+            if (prev_move == 'M') {
+                move_counts += i;
+                begin_i = 0;
+                begin_j = j - i;
+            }
+            cigar.push(prev_move, move_counts);
         }
+        cigar.reverse();
         for (; i > 0 && j > 0; --i, --j)
              if (seq1.charAt(i) == seq2.charAt(j))
                 identicals++;
         identity = ((double)identicals) / (seq1.length() + deletions); 
-        return cigar.toString();
+        return cigar;
     }
     
     /**
@@ -1646,115 +1393,318 @@ public class LocalSequenceAlignment {
     }
 
     /**
-     * Do Striped Smith-Waterman alignment. Warning: No parameter checking is performed. Incorrect arguments are likely to crash the JVM.
+     * Do Striped Smith-Waterman alignment in the native SSW library, libssw,
+     * or with the pure-Java vector engine when libssw cannot be loaded.
+     * Warning: No parameter checking is performed. Incorrect arguments are likely to crash the JVM.
      *
-     * @param read pointer to the query sequence; the query sequence needs to be numbers
-     * @param flattenedMatrix pointer to the substitution matrix; mat needs to be corresponding to the read sequence
-     * @param n the square root of the number of elements in mat (mat has n*n elements)
-     * @param score_size estimated Smith-Waterman score; if your estimated best alignment score is surely < 255 please set 0; if
-    your estimated best alignment score >= 255, please set 1; if you don't know, please set 2
-     * @param ref pointer to the target sequence; the target sequence needs to be numbers and corresponding to the mat parameter of function initprofile
+     * @param read the query sequence; the query sequence needs to be numbers
+     * @param flattenedMatch the substitution matrix; needs to be corresponding to the read sequence
+     * @param n the square root of the number of elements in flattenedMatch
+     * @param ref the target sequence; needs to be numbers corresponding to flattenedMatch
      * @param gapOpen the absolute value of gap open penalty.
      * @param gapExtend the absolute value of gap extension penalty.
-     * @param flag bitwise FLAG; (from high to low) bit 5: when setted as 1, the function will return the best alignment
-    beginning position; bit 6: when setted as 1, if (ref_end1 - ref_begin1 < filterd && read_end1 - read_begin1
-    < filterd), (whatever bit 5 is setted) the function will return the best alignment beginning position and
-    cigar; bit 7: when setted as 1, if the best alignment score >= filters, (whatever bit 5 is setted) the function
-    will return the best alignment beginning position and cigar; bit 8: when setted as 1, (whatever bit 5, 6 or 7 is
-    setted) the function will always return the best alignment beginning position and cigar. When flag == 0, only
-    the optimal and sub-optimal scores and the optimal alignment ending position will be returned.
-    Note: Whatever the parameter flag is setted, this function will at least return the optimal and sub-optimal alignment score,
-    and the optimal alignment ending positions on target and query sequences. If both bit 6 and 7 of the flag are setted
-    while bit 8 is not, the function will return cigar only when both criteria are fulfilled. All returned positions are
-    0-based coordinate.
-     * @param filterscore score filter: when bit 7 of flag is setted as 1 and bit 8 is setted as 0, filters will be used (Please check the
-    decription of the flag parameter for detailed usage.)
-     * @param filterdistance distance filter: when bit 6 of flag is setted as 1 and bit 8 is setted as 0, filterd will be used (Please check
-    the decription of the flag parameter for detailed usage.)
-     * @param maskLen The distance between the optimal and suboptimal alignment ending position >= maskLen. We suggest to use
-    readLen/2, if you don't have special concerns. Note: maskLen has to be >= 15, otherwise this function will NOT
-    return the suboptimal alignment information. Detailed description of maskLen: After locating the optimal
-    alignment ending position, the suboptimal alignment score can be heuristically found by checking the second
-    largest score in the array that contains the maximal score of each column of the SW matrix. In order to avoid
-    picking the scores that belong to the alignments sharing the partial best alignment, SSW C library masks the
-    reference loci nearby (mask length = maskLen) the best alignment ending position and locates the second largest
-    score from the unmasked elements.
      * @return Smith-Waterman alignment
      */
-    public static native Alignment alignNative(byte[] read, byte[] flattenedMatch, int n, byte[] ref, int gapOpen, int gapExtend);
+    public static Alignment alignNative(byte[] read, byte[] flattenedMatch, int n, byte[] ref, int gapOpen, int gapExtend) {
+        return alignNative(read, flattenedMatch, n, ref, gapOpen, gapExtend, 0, 0, 0, -1);
+    }
+
     /**
-     * Performs striped Smith-Waterman alignment
+     * Do Striped Smith-Waterman alignment in the native SSW library, libssw,
+     * with the beginning positions, the cigar and the sub-optimal score as
+     * asked. The cigar tells matches and mismatches apart as = and X. When
+     * libssw cannot be loaded the pure-Java vector engine only gives the
+     * score and the ending positions.
+     * Warning: No parameter checking is performed. Incorrect arguments are likely to crash the JVM.
+     *
+     * @param read the query sequence; the query sequence needs to be numbers
+     * @param flattenedMatch the substitution matrix; needs to be corresponding to the read sequence
+     * @param n the square root of the number of elements in flattenedMatch
+     * @param ref the target sequence; needs to be numbers corresponding to flattenedMatch
+     * @param gapOpen the absolute value of gap open penalty.
+     * @param gapExtend the absolute value of gap extension penalty.
+     * @param flag the SSW_ bits: SSW_BEGIN for the beginning positions; SSW_CIGAR for the beginning
+     *             positions and the cigar; SSW_FILTER_SCORE and SSW_FILTER_DISTANCE for both only when
+     *             the score is at least filterscore and the aligned parts are at most filterdistance long.
+     *             Without SSW_CIGAR, the cigar is made only when all the filters set are fulfilled.
+     * @param filterscore score filter, used with SSW_FILTER_SCORE
+     * @param filterdistance distance filter, used with SSW_FILTER_DISTANCE
+     * @param maskLen the sub-optimal score is the best one ending more than maskLen columns away from the
+     *                best alignment; read.length / 2 is a good choice, -1 leaves it out
+     * @return Smith-Waterman alignment
+     */
+    public static Alignment alignNative(byte[] read, byte[] flattenedMatch, int n, byte[] ref, int gapOpen, int gapExtend,
+                                        int flag, int filterscore, int filterdistance, int maskLen) {
+        if (!NativeSsw.is_available())
+            return StripedSequenceAlignment.align(read, flattenedMatch, n, ref, gapOpen, gapExtend);
+        AlignmentResult result = new AlignmentResult();
+        try (Arena arena = Arena.ofConfined()) {
+            NativeSsw.align(arena.allocateArray(ValueLayout.JAVA_BYTE, read), read.length,
+                    arena.allocateArray(ValueLayout.JAVA_BYTE, flattenedMatch), n,
+                    arena.allocateArray(ValueLayout.JAVA_BYTE, ref), ref.length, gapOpen, gapExtend,
+                    flag, filterscore, filterdistance, maskLen, result);
+        }
+        return result.to_alignment();
+    }
+
+    /**
+     * Performs striped Smith-Waterman alignment in libssw
      *
      * @param read read sequence
      * @param ref reference sequence
      * @return Smith-Waterman alignment
      */
-    public static Alignment ssw_align(byte[] read, byte[] ref) {
-        //if (flag != flag & 0xFF) throw new IllegalArgumentException("Only lowest 8 bits of flag are meaningful");
-        int[] lookup = new int[257]; // lookup[256] is used as sentinal for number of unique bases/matrix size
-        java.util.Arrays.fill(lookup, -1);
-        lookup[256] = 0;
-        byte[] readNum = convertToNumeric(lookup, read);
-        byte[] refNum = convertToNumeric(lookup, ref);
-        byte[] flattenedMatch = flatten(lookup, match);
-        int uniqueBases = lookup[256];
-        assert(flattenedMatch.length == uniqueBases * uniqueBases);
-        assert(maxValue(readNum) < uniqueBases);
-        assert(maxValue(refNum) < uniqueBases);
-        Alignment alignment = alignNative(
-                readNum, flattenedMatch, uniqueBases,
-                refNum, GAP_OPEN, GAP_EXT);
-        return alignment;
+    public Alignment ssw_align(byte[] read, byte[] ref) {
+        AlignmentResult result = new AlignmentResult();
+        ssw_align(read, 0, read.length, ref, 0, ref.length, result);
+        return result.to_alignment();
     }
-    private static int maxValue(byte[] array) {
-        int max = Integer.MIN_VALUE;
-        for (int i = 0; i < array.length; i++) {
-            if (array[i] > max) {
-                max = array[i];
-            }
-        }
-        return max;
+
+    /**
+     * Performs striped Smith-Waterman alignment in libssw and traces the
+     * alignment back there, as align_traced() does: the result holds the
+     * beginning positions, the cigar, with = and X, and the sub-optimal
+     * score ending more than half the length of the read away. Without
+     * libssw only the score and the ending positions are found.
+     *
+     * @param read read sequence
+     * @param ref reference sequence
+     * @return The traced back best alignment
+     */
+    public Alignment ssw_align_traced(byte[] read, byte[] ref) {
+        AlignmentResult result = new AlignmentResult();
+        ssw_align(read, 0, read.length, ref, 0, ref.length, SSW_CIGAR, 0, 0, read.length / 2, result);
+        return result.to_alignment();
     }
+
     /**
-     * Converts an ASCII sequence into numeric successive 0-based values
-     * @param lookup ASCII to numeric conversion lookup array
-     * @param sequence ASCII sequence
-     * @return numeric sequence
+     * Performs striped Smith-Waterman alignment of slices of two byte arrays
+     * in libssw, one character per byte. The slices are encoded straight
+     * into native memory kept by the aligner, so no memory is allocated per
+     * pair. Without libssw the pair is aligned by the pure-Java vector engine.
+     *
+     * @param read The bytes of the read
+     * @param read_offset The position of the read in read
+     * @param read_length The length of the read
+     * @param ref The bytes of the reference
+     * @param ref_offset The position of the reference in ref
+     * @param ref_length The length of the reference
+     * @param result Where the score and ending positions are written
+     * @return result
      */
-    private static byte[] convertToNumeric(int[] lookup, byte[] sequence) {
-        byte[] numericSeq = new byte[sequence.length];
-        for (int i = 0; i < sequence.length; i++) {
-            int b = sequence[i];
-            if (lookup[b] == -1) {
-                lookup[b] = lookup[256]++;
-            }
-            numericSeq[i] = (byte)lookup[b];
-        }
-        return numericSeq;
+    public AlignmentResult ssw_align(byte[] read, int read_offset, int read_length,
+                                     byte[] ref, int ref_offset, int ref_length, AlignmentResult result) {
+        return ssw_align(read, read_offset, read_length, ref, ref_offset, ref_length, 0, 0, 0, -1, result);
     }
+
     /**
-     * Generates a flattened ssw scoring matrix
-     * @param lookup ASCII to numeric conversion lookup array
-     * @param matrix scoring matrix
-     * @return flattened ssw numeric scoring matrix
+     * Performs striped Smith-Waterman alignment of slices of two byte arrays
+     * in libssw, with the beginning positions, the cigar and the sub-optimal
+     * score as asked, as alignNative(). Once the cigar of the result has
+     * grown to the longest one seen, no Java memory is allocated per pair.
+     * Without libssw only the score and the ending positions are found.
+     *
+     * @param read The bytes of the read
+     * @param read_offset The position of the read in read
+     * @param read_length The length of the read
+     * @param ref The bytes of the reference
+     * @param ref_offset The position of the reference in ref
+     * @param ref_length The length of the reference
+     * @param flag The SSW_ bits asking for the beginning positions and the cigar
+     * @param filterscore The score filter, used with SSW_FILTER_SCORE
+     * @param filterdistance The distance filter, used with SSW_FILTER_DISTANCE
+     * @param mask_length The distance of the sub-optimal ending position from the best one; -1 for none
+     * @param result Where the alignment is written
+     * @return result
      */
-    private static byte[] flatten(int[] lookup, int[][] matrix) {
-        int size = lookup[256];
-        byte[] flattened = new byte[size * size];
-        for (int i = 0; i < matrix.length; i++) {
-            int newi = lookup[i];
-            if (newi == -1) continue;
-            for (int j = 0; j < matrix[i].length; j++) {
-                int newj = lookup[j];
-                if (newj == -1) continue;
-                int score = matrix[i][j];
-                if (score < Byte.MIN_VALUE || score > Byte.MAX_VALUE) {
-                    throw new IllegalArgumentException("Scoring matrix values must fit into signed 8-bit integer");
-                }
-                flattened[newi * size + newj] = (byte)score;
-            }
-        }
-        return flattened;
+    public AlignmentResult ssw_align(byte[] read, int read_offset, int read_length, byte[] ref, int ref_offset,
+                                     int ref_length, int flag, int filterscore, int filterdistance, int mask_length,
+                                     AlignmentResult result) {
+        if (load_ssw())
+            ssw.align(read, read_offset, read_length, ref, ref_offset, ref_length,
+                    flag, filterscore, filterdistance, mask_length, result);
+        else
+            result.set(StripedSequenceAlignment.align(
+                    scheme.convertSeqToNumeric(read, read_offset, read_length), scheme.flattened, scheme.SYMBOLS,
+                    scheme.convertSeqToNumeric(ref, ref_offset, ref_length), GAP_OPEN, GAP_EXT));
+        return result;
+    }
+
+    /**
+     * Builds the query profile of a read in libssw, to align the read
+     * against many references without building the profile again. The
+     * profile uses the native buffers of this aligner and must be closed.
+     * Without libssw the profile aligns with the pure-Java vector engine.
+     *
+     * @param read The bytes of the read
+     * @param read_offset The position of the read in read
+     * @param read_length The length of the read
+     * @return The profile of the read
+     */
+    public QueryProfile ssw_profile(byte[] read, int read_offset, int read_length) {
+        if (load_ssw())
+            return new QueryProfile(ssw, read, read_offset, read_length);
+        return new QueryProfile(this, scheme.convertSeqToNumeric(read, read_offset, read_length));
+    }
+
+    /**
+     * Aligns a batch of pairs in libssw with a single native call, on one or
+     * more native threads. The sequences are packed one after the other;
+     * pair k aligns read[read_offsets[k] .. read_offsets[k + 1]) against
+     * ref[ref_offsets[k] .. ref_offsets[k + 1]). Consecutive pairs with the
+     * same read offsets share the query profile of the read. Without libssw
+     * the pairs are aligned one by one by the pure-Java vector engine.
+     *
+     * @param reads The bytes of the reads, one character per byte
+     * @param read_offsets The offsets of the reads, one more than the pairs
+     * @param refs The bytes of the references, one character per byte
+     * @param ref_offsets The offsets of the references, one more than the pairs
+     * @param threads The number of native threads; 1 unless libssw is built with OpenMP
+     * @return The alignments of the pairs, decoded when they are read
+     */
+    public AlignmentBatch ssw_batch_align(byte[] reads, int[] read_offsets, byte[] refs, int[] ref_offsets, int threads) {
+        return ssw_batch_align(reads, read_offsets, refs, ref_offsets, threads, 0, 0, 0, -1);
+    }
+
+    /**
+     * Aligns a batch of pairs in libssw with a single native call, with the
+     * beginning positions, the cigars and the sub-optimal scores as asked,
+     * as alignNative(). Without libssw only the scores and the ending
+     * positions are found.
+     *
+     * @param reads The bytes of the reads, one character per byte
+     * @param read_offsets The offsets of the reads, one more than the pairs
+     * @param refs The bytes of the references, one character per byte
+     * @param ref_offsets The offsets of the references, one more than the pairs
+     * @param threads The number of native threads; 1 unless libssw is built with OpenMP
+     * @param flag The SSW_ bits asking for the beginning positions and the cigars
+     * @param filterscore The score filter, used with SSW_FILTER_SCORE
+     * @param filterdistance The distance filter, used with SSW_FILTER_DISTANCE
+     * @param mask_length The distance of the sub-optimal ending positions from the best ones; -1 for none
+     * @return The alignments of the pairs, decoded when they are read
+     */
+    public AlignmentBatch ssw_batch_align(byte[] reads, int[] read_offsets, byte[] refs, int[] ref_offsets, int threads,
+                                          int flag, int filterscore, int filterdistance, int mask_length) {
+        if (load_ssw())
+            return ssw.align_batch(reads, read_offsets, refs, ref_offsets, threads,
+                    flag, filterscore, filterdistance, mask_length);
+        int count = AlignmentBatch.check_offsets(reads, read_offsets, refs, ref_offsets);
+        int[] packed = new int[count * AlignmentBatch.FIELDS];
+        for (int k = 0; k < count; ++k)
+            AlignmentBatch.pack(packed, k, StripedSequenceAlignment.align(
+                    scheme.convertSeqToNumeric(reads, read_offsets[k], read_offsets[k + 1] - read_offsets[k]),
+                    scheme.flattened, scheme.SYMBOLS,
+                    scheme.convertSeqToNumeric(refs, ref_offsets[k], ref_offsets[k + 1] - ref_offsets[k]),
+                    GAP_OPEN, GAP_EXT));
+        return new AlignmentBatch(packed, count);
+    }
+
+    /**
+     * Aligns a batch of pairs in libssw with a single native call.
+     *
+     * @param reads read sequences
+     * @param refs reference sequences; refs[k] is aligned against reads[k]
+     * @param threads The number of native threads; 1 unless libssw is built with OpenMP
+     * @return The alignments of the pairs, decoded when they are read
+     */
+    public AlignmentBatch ssw_batch_align(byte[][] reads, byte[][] refs, int threads) {
+        return ssw_batch_align(reads, refs, threads, 0, 0, 0, -1);
+    }
+
+    /**
+     * Aligns a batch of pairs in libssw with a single native call, with the
+     * beginning positions, the cigars and the sub-optimal scores as asked.
+     *
+     * @param reads read sequences
+     * @param refs reference sequences; refs[k] is aligned against reads[k]
+     * @param threads The number of native threads; 1 unless libssw is built with OpenMP
+     * @param flag The SSW_ bits asking for the beginning positions and the cigars
+     * @param filterscore The score filter, used with SSW_FILTER_SCORE
+     * @param filterdistance The distance filter, used with SSW_FILTER_DISTANCE
+     * @param mask_length The distance of the sub-optimal ending positions from the best ones; -1 for none
+     * @return The alignments of the pairs, decoded when they are read
+     */
+    public AlignmentBatch ssw_batch_align(byte[][] reads, byte[][] refs, int threads,
+                                          int flag, int filterscore, int filterdistance, int mask_length) {
+        if (load_ssw())
+            return ssw.align_batch(reads, refs, threads, flag, filterscore, filterdistance, mask_length);
+        if (reads.length != refs.length)
+            throw new IllegalArgumentException("The numbers of reads and references differ");
+        int[] packed = new int[reads.length * AlignmentBatch.FIELDS];
+        for (int k = 0; k < reads.length; ++k)
+            AlignmentBatch.pack(packed, k, striped_align(reads[k], refs[k]));
+        return new AlignmentBatch(packed, reads.length);
+    }
+
+    /**
+     * Tells which engine aligns a read of a length: the libssw kernel the
+     * CPU and the length select (sse2, avx2 or avx512), or java when libssw
+     * cannot be loaded and the pure-Java vector engine is used.
+     *
+     * @param read_length The length of a read
+     * @return The name of the engine
+     */
+    public String ssw_engine(int read_length) {
+        return load_ssw() ? NativeSsw.kernel_name(read_length) : "java";
+    }
+
+    /**
+     * @return Whether libssw is loaded, binding it to this aligner the first time
+     */
+    private boolean load_ssw() {
+        if (ssw == null && NativeSsw.is_available())
+            ssw = new NativeSsw(scheme);
+        return ssw != null;
+    }
+
+    /**
+     * Performs striped Smith-Waterman alignment with the pure-Java vector engine.
+     * Same input and result as ssw_align(), which falls back to it when
+     * libssw cannot be loaded.
+     *
+     * @param read read sequence
+     * @param ref reference sequence
+     * @return Smith-Waterman alignment
+     */
+    public Alignment striped_align(byte[] read, byte[] ref) {
+        return StripedSequenceAlignment.align(
+                scheme.convertSeqToNumeric(read), scheme.flattened, scheme.SYMBOLS,
+                scheme.convertSeqToNumeric(ref), GAP_OPEN, GAP_EXT);
+    }
+
+    /**
+     * Aligns a slice of a byte array against a read already converted to
+     * numbers, with the pure-Java vector engine.
+     *
+     * @param numeric The read, converted to numbers
+     * @param ref The bytes of the reference
+     * @param ref_offset The position of the reference in ref
+     * @param ref_length The length of the reference
+     * @return Smith-Waterman alignment
+     */
+    Alignment striped_align_numeric(byte[] numeric, byte[] ref, int ref_offset, int ref_length) {
+        return StripedSequenceAlignment.align(numeric, scheme.flattened, scheme.SYMBOLS,
+                scheme.convertSeqToNumeric(ref, ref_offset, ref_length), GAP_OPEN, GAP_EXT);
+    }
+
+    /**
+     * Aligns many independent read/reference pairs with the inter-sequence
+     * vector engine, one pair per vector lane.
+     *
+     * @param reads read sequences
+     * @param refs reference sequences; refs[k] is aligned against reads[k]
+     * @return the alignments, in the order of the input pairs, as align() would return them
+     */
+    public Alignment[] batch_align(byte[][] reads, byte[][] refs) {
+        byte[][] readNums = new byte[reads.length][];
+        byte[][] refNums = new byte[refs.length][];
+        for (int i = 0; i < reads.length; i++)
+            readNums[i] = scheme.convertSeqToNumeric(reads[i]);
+        for (int i = 0; i < refs.length; i++)
+            refNums[i] = scheme.convertSeqToNumeric(refs[i]);
+        return BatchSequenceAlignment.align(
+                readNums, refNums, scheme.flattened, scheme.SYMBOLS,
+                GAP_OPEN, GAP_EXT);
     }
 
 }
@@ -0,0 +1,522 @@
+package nl.escience.alignment;
+
+import java.io.File;
+import java.lang.foreign.Arena;
+import java.lang.foreign.FunctionDescriptor;
+import java.lang.foreign.Linker;
+import java.lang.foreign.MemoryLayout;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.StructLayout;
+import java.lang.foreign.SymbolLookup;
+import java.lang.invoke.MethodHandle;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static java.lang.foreign.ValueLayout.ADDRESS;
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+import static java.lang.foreign.ValueLayout.JAVA_INT;
+import static java.lang.foreign.ValueLayout.JAVA_LONG;
+
+/**
+ * Binding of the native SSW library, libssw, through the Foreign Function
+ * and Memory API. It replaces the JNI glue of libsswjni: the sequences are
+ * encoded straight into native memory kept by the binding, the substitution
+ * matrix is copied there once, and the s_align struct returned by ssw_align
+ * is read into an AlignmentResult, so no Java object is made per call.
+ * The flag of ssw_align asks libssw for the beginning positions and the
+ * cigar as well, found by a banded traceback in native code. The kernels
+ * score in 16-bit lanes; ssw_align aligns a pair again in 32 bits when its
+ * score saturates them, so the scores read here are never clamped.
+ *
+ * The library is looked up in the file named by the ssw.library system
+ * property, then in the directories of java.library.path, then by the
+ * dynamic linker. A binding is used by one aligner at a time; its native
+ * memory is freed once it is no longer reachable.
+ */
+final class NativeSsw {
+
+    /**
+     * The layout of s_align in ssw.h
+     */
+    static final StructLayout S_ALIGN = MemoryLayout.structLayout(
+            JAVA_INT.withName("score"),
+            JAVA_INT.withName("score2"),
+            JAVA_INT.withName("ref_begin"),
+            JAVA_INT.withName("ref_end"),
+            JAVA_INT.withName("read_begin"),
+            JAVA_INT.withName("read_end"),
+            JAVA_INT.withName("ref_end2"),
+            MemoryLayout.paddingLayout(4),
+            ADDRESS.withName("cigar"),
+            JAVA_INT.withName("cigarLen"),
+            MemoryLayout.paddingLayout(4));
+    private static final long SCORE = offset("score");
+    private static final long SCORE2 = offset("score2");
+    private static final long REF_BEGIN = offset("ref_begin");
+    private static final long REF_END = offset("ref_end");
+    private static final long READ_BEGIN = offset("read_begin");
+    private static final long READ_END = offset("read_end");
+    private static final long CIGAR = offset("cigar");
+    private static final long CIGAR_LENGTH = offset("cigarLen");
+    // an s_align and its cigar are read at their addresses in all of the
+    // native memory, which does not need a MemorySegment object per pair
+    private static final MemorySegment NATIVE_MEMORY = MemorySegment.NULL.reinterpret(Long.MAX_VALUE);
+
+    private static Throwable load_error;
+    private static final SymbolLookup LIBRARY = find_library();
+    // a query profile is an opaque s_profile pointer, kept as a long so that
+    // holding it does not need a MemorySegment object
+    private static final MethodHandle SSW_INIT = downcall("ssw_init",
+            FunctionDescriptor.of(JAVA_LONG, ADDRESS, JAVA_INT, ADDRESS, JAVA_INT));
+    private static final MethodHandle INIT_DESTROY = downcall("init_destroy",
+            FunctionDescriptor.ofVoid(JAVA_LONG));
+    private static final MethodHandle SSW_ALIGN = downcall("ssw_align",
+            FunctionDescriptor.of(JAVA_LONG, JAVA_LONG, ADDRESS, JAVA_INT, JAVA_BYTE, JAVA_BYTE,
+                    JAVA_BYTE, JAVA_INT, JAVA_INT, JAVA_INT));
+    private static final MethodHandle ALIGN_DESTROY = downcall("align_destroy",
+            FunctionDescriptor.ofVoid(JAVA_LONG));
+    private static final MethodHandle SSW_KERNEL_NAME = downcall("ssw_kernel_name",
+            FunctionDescriptor.of(ADDRESS, JAVA_INT));
+    private static final MethodHandle SSW_ALIGN_BATCH = downcall("ssw_align_batch",
+            FunctionDescriptor.ofVoid(ADDRESS, ADDRESS, ADDRESS, ADDRESS, JAVA_INT, ADDRESS, JAVA_INT,
+                    JAVA_BYTE, JAVA_BYTE, JAVA_BYTE, JAVA_INT, JAVA_INT, JAVA_INT, JAVA_INT, ADDRESS, ADDRESS, ADDRESS));
+
+    private final ScoringScheme scheme;
+    private final MemorySegment matrix;
+    private MemorySegment read;
+    private MemorySegment ref;
+    private MemorySegment batch_reads;
+    private MemorySegment batch_refs;
+    private MemorySegment batch_offsets;
+    private MemorySegment batch_results;
+    private MemorySegment batch_cigar_offsets;
+    private MemorySegment batch_cigars;
+
+    /**
+     * Initializes a binding for the symbols, matrix and gap costs of a scheme.
+     *
+     * @param scheme The scoring scheme
+     * @throws UnsatisfiedLinkError if libssw cannot be loaded
+     */
+    NativeSsw(ScoringScheme scheme) {
+        check();
+        this.scheme = scheme;
+        matrix = Arena.ofAuto().allocateArray(JAVA_BYTE, scheme.flattened);
+        read = ref = MemorySegment.NULL;
+        batch_reads = batch_refs = batch_offsets = batch_results = MemorySegment.NULL;
+        batch_cigar_offsets = batch_cigars = MemorySegment.NULL;
+    }
+
+    /**
+     * @return true if libssw was loaded
+     */
+    static boolean is_available() {
+        return load_error == null;
+    }
+
+    /**
+     * @param read_length The length of a read
+     * @return The instruction set of the kernel libssw picks for the read: avx512, avx2 or sse2
+     */
+    static String kernel_name(int read_length) {
+        check();
+        try {
+            return ((MemorySegment)SSW_KERNEL_NAME.invokeExact(read_length)).reinterpret(16).getUtf8String(0);
+        } catch (Throwable e) {
+            throw rethrown(e);
+        }
+    }
+
+    /**
+     * @throws UnsatisfiedLinkError if libssw cannot be loaded
+     */
+    static void check() {
+        if (load_error != null)
+            throw (UnsatisfiedLinkError)new UnsatisfiedLinkError("Cannot load " + System.mapLibraryName("ssw")
+                    + "; set ssw.library or java.library.path").initCause(load_error);
+    }
+
+    /**
+     * Aligns slices of two byte arrays, one character per byte.
+     *
+     * @param read_seq The bytes of the read
+     * @param read_offset The position of the read in read_seq
+     * @param read_length The length of the read
+     * @param ref_seq The bytes of the reference
+     * @param ref_offset The position of the reference in ref_seq
+     * @param ref_length The length of the reference
+     * @param flag The SSW_ bits of LocalSequenceAlignment asking for the beginning positions and the cigar
+     * @param filterscore The score filter of flag
+     * @param filterdistance The distance filter of flag
+     * @param mask_length The distance of the sub-optimal ending position from the best one; -1 for none
+     * @param result Where the alignment is written
+     */
+    void align(byte[] read_seq, int read_offset, int read_length, byte[] ref_seq, int ref_offset, int ref_length,
+               int flag, int filterscore, int filterdistance, int mask_length, AlignmentResult result) {
+        long profile;
+        read = encode(read, read_seq, read_offset, read_length);
+        profile = init(read, read_length, matrix, scheme.SYMBOLS);
+        try {
+            align(profile, ref_seq, ref_offset, ref_length, flag, filterscore, filterdistance, mask_length, result);
+        } finally {
+            destroy(profile);
+        }
+    }
+
+    /**
+     * Builds the query profile of a read, in an arena of the caller.
+     *
+     * @param read_seq The bytes of the read
+     * @param read_offset The position of the read in read_seq
+     * @param read_length The length of the read
+     * @param arena The arena holding the read for the life of the profile
+     * @return The profile, to be freed by destroy()
+     */
+    long init(byte[] read_seq, int read_offset, int read_length, Arena arena) {
+        java.util.Objects.checkFromIndexSize(read_offset, read_length, read_seq.length);
+        MemorySegment into = arena.allocate(Math.max(1, read_length));
+        for (int i = 0; i < read_length; ++i)
+            into.set(JAVA_BYTE, i, (byte)scheme.lookup[read_seq[read_offset + i] & 0xFF]);
+        return init(into, read_length, matrix, scheme.SYMBOLS);
+    }
+
+    /**
+     * Aligns a slice of a byte array against the query profile of a read.
+     *
+     * @param profile The profile made by init()
+     * @param ref_seq The bytes of the reference
+     * @param ref_offset The position of the reference in ref_seq
+     * @param ref_length The length of the reference
+     * @param flag The SSW_ bits of LocalSequenceAlignment asking for the beginning positions and the cigar
+     * @param filterscore The score filter of flag
+     * @param filterdistance The distance filter of flag
+     * @param mask_length The distance of the sub-optimal ending position from the best one; -1 for none
+     * @param result Where the alignment is written
+     */
+    void align(long profile, byte[] ref_seq, int ref_offset, int ref_length,
+               int flag, int filterscore, int filterdistance, int mask_length, AlignmentResult result) {
+        ref = encode(ref, ref_seq, ref_offset, ref_length);
+        align(profile, ref, ref_length, scheme.GAP_OPEN, scheme.GAP_EXT, flag, filterscore, filterdistance, mask_length,
+                result);
+    }
+
+    /**
+     * Aligns a batch of pairs in one native call. The sequences are packed
+     * one after the other, each array of offsets having one more element
+     * than there are pairs: pair k aligns reads[read_offsets[k] ..
+     * read_offsets[k + 1]) against refs[ref_offsets[k] .. ref_offsets[k + 1]).
+     *
+     * @param reads The bytes of the reads
+     * @param read_offsets The offsets of the reads
+     * @param refs The bytes of the references
+     * @param ref_offsets The offsets of the references
+     * @param threads The number of native threads
+     * @param flag The SSW_ bits of LocalSequenceAlignment asking for the beginning positions and the cigars
+     * @param filterscore The score filter of flag
+     * @param filterdistance The distance filter of flag
+     * @param mask_length The distance of the sub-optimal ending positions from the best ones; -1 for none
+     * @return The alignments of the pairs
+     */
+    AlignmentBatch align_batch(byte[] reads, int[] read_offsets, byte[] refs, int[] ref_offsets, int threads,
+                               int flag, int filterscore, int filterdistance, int mask_length) {
+        int count = AlignmentBatch.check_offsets(reads, read_offsets, refs, ref_offsets);
+        batch_reads = encode(batch_reads, reads, 0, reads.length);
+        batch_refs = encode(batch_refs, refs, 0, refs.length);
+        batch_offsets = grow(batch_offsets, 2L * (count + 1) * Integer.BYTES);
+        MemorySegment.copy(read_offsets, 0, batch_offsets, JAVA_INT, 0, count + 1);
+        MemorySegment.copy(ref_offsets, 0, batch_offsets, JAVA_INT, (long)(count + 1) * Integer.BYTES, count + 1);
+        return align_batch(count, threads, flag, filterscore, filterdistance, mask_length);
+    }
+
+    /**
+     * Aligns a batch of pairs in one native call.
+     *
+     * @param reads The bytes of the reads
+     * @param refs The bytes of the references; refs[k] is aligned against reads[k]
+     * @param threads The number of native threads
+     * @param flag The SSW_ bits of LocalSequenceAlignment asking for the beginning positions and the cigars
+     * @param filterscore The score filter of flag
+     * @param filterdistance The distance filter of flag
+     * @param mask_length The distance of the sub-optimal ending positions from the best ones; -1 for none
+     * @return The alignments of the pairs
+     */
+    AlignmentBatch align_batch(byte[][] reads, byte[][] refs, int threads,
+                               int flag, int filterscore, int filterdistance, int mask_length) {
+        int count = reads.length, k;
+        long read_length = 0, ref_length = 0;
+        if (refs.length != count)
+            throw new IllegalArgumentException("The numbers of reads and references differ");
+        for (k = 0; k < count; ++k) {
+            read_length += reads[k].length;
+            ref_length += refs[k].length;
+        }
+        if (read_length > Integer.MAX_VALUE || ref_length > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("The batch is too long; split it");
+        batch_reads = grow(batch_reads, read_length);
+        batch_refs = grow(batch_refs, ref_length);
+        batch_offsets = grow(batch_offsets, 2L * (count + 1) * Integer.BYTES);
+        read_length = ref_length = 0;
+        for (k = 0; k < count; ++k) {
+            batch_offsets.setAtIndex(JAVA_INT, k, (int)read_length);
+            batch_offsets.setAtIndex(JAVA_INT, count + 1 + k, (int)ref_length);
+            read_length = encode(batch_reads, read_length, reads[k], 0, reads[k].length);
+            ref_length = encode(batch_refs, ref_length, refs[k], 0, refs[k].length);
+        }
+        batch_offsets.setAtIndex(JAVA_INT, count, (int)read_length);
+        batch_offsets.setAtIndex(JAVA_INT, 2L * count + 1, (int)ref_length);
+        return align_batch(count, threads, flag, filterscore, filterdistance, mask_length);
+    }
+
+    /**
+     * Aligns the batch loaded in the native buffers. When cigars may be
+     * made, every pair gets room for the longest cigar it can have, and the
+     * cigars made are copied together once the batch is done.
+     */
+    private AlignmentBatch align_batch(int count, int threads, int flag, int filterscore, int filterdistance,
+                                       int mask_length) {
+        long offsets = (long)(count + 1) * Integer.BYTES, room = 0;
+        int k, at, length, read_length, ref_length;
+        int[] packed, cigars, cigar_starts;
+        MemorySegment cigar_offsets = MemorySegment.NULL, cigar_ops = MemorySegment.NULL;
+        check_flag(flag);
+        batch_results = grow(batch_results, (long)count * AlignmentBatch.FIELDS * Integer.BYTES);
+        if ((flag & 7) != 0) {
+            batch_cigar_offsets = grow(batch_cigar_offsets, (long)count * Integer.BYTES);
+            for (k = 0; k < count; ++k) {
+                batch_cigar_offsets.setAtIndex(JAVA_INT, k, (int)room);
+                read_length = batch_offsets.getAtIndex(JAVA_INT, k + 1) - batch_offsets.getAtIndex(JAVA_INT, k);
+                ref_length = batch_offsets.getAtIndex(JAVA_INT, count + 2L + k) - batch_offsets.getAtIndex(JAVA_INT, count + 1L + k);
+                room += AlignmentBatch.cigar_room(read_length, ref_length);
+                if (room > Integer.MAX_VALUE)
+                    throw new IllegalArgumentException("The cigars of the batch are too long; split it");
+            }
+            batch_cigars = grow(batch_cigars, room * Integer.BYTES);
+            cigar_offsets = batch_cigar_offsets;
+            cigar_ops = batch_cigars;
+        }
+        try {
+            SSW_ALIGN_BATCH.invokeExact(batch_reads, batch_offsets, batch_refs, batch_offsets.asSlice(offsets), count,
+                    matrix, scheme.SYMBOLS, (byte)scheme.GAP_OPEN, (byte)scheme.GAP_EXT, (byte)flag, filterscore,
+                    filterdistance, mask_length, Math.max(1, threads), batch_results, cigar_offsets, cigar_ops);
+        } catch (Throwable e) {
+            throw rethrown(e);
+        }
+        packed = batch_results.asSlice(0, (long)count * AlignmentBatch.FIELDS * Integer.BYTES).toArray(JAVA_INT);
+        if (cigar_ops == MemorySegment.NULL)
+            return new AlignmentBatch(packed, count);
+        cigar_starts = new int[count + 1];
+        for (k = 0; k < count; ++k)
+            cigar_starts[k + 1] = cigar_starts[k] + AlignmentBatch.cigar_length(packed, k);
+        cigars = new int[cigar_starts[count]];
+        for (k = 0; k < count; ++k) {
+            at = batch_cigar_offsets.getAtIndex(JAVA_INT, k);
+            length = cigar_starts[k + 1] - cigar_starts[k];
+            MemorySegment.copy(batch_cigars, JAVA_INT, (long)at * Integer.BYTES, cigars, cigar_starts[k], length);
+        }
+        return new AlignmentBatch(packed, count, cigars, cigar_starts);
+    }
+
+    /**
+     * Does striped Smith-Waterman alignment of two numeric sequences in
+     * native memory. No parameter checking is performed.
+     *
+     * @param read The numeric query sequence
+     * @param read_length The length of the query
+     * @param matrix The flattened substitution matrix
+     * @param n The number of symbols; matrix has n*n elements
+     * @param ref The numeric target sequence
+     * @param ref_length The length of the target
+     * @param gap_open The absolute value of gap open penalty
+     * @param gap_ext The absolute value of gap extension penalty
+     * @param flag The SSW_ bits of LocalSequenceAlignment asking for the beginning positions and the cigar
+     * @param filterscore The score filter of flag
+     * @param filterdistance The distance filter of flag
+     * @param mask_length The distance of the sub-optimal ending position from the best one; -1 for none
+     * @param result Where the alignment is written
+     */
+    static void align(MemorySegment read, int read_length, MemorySegment matrix, int n,
+                      MemorySegment ref, int ref_length, int gap_open, int gap_ext,
+                      int flag, int filterscore, int filterdistance, int mask_length, AlignmentResult result) {
+        long profile = init(read, read_length, matrix, n);
+        try {
+            align(profile, ref, ref_length, gap_open, gap_ext, flag, filterscore, filterdistance, mask_length, result);
+        } finally {
+            destroy(profile);
+        }
+    }
+
+    /**
+     * Builds a query profile with ssw_init.
+     *
+     * @param read The numeric query sequence
+     * @param read_length The length of the query
+     * @param matrix The flattened substitution matrix
+     * @param n The number of symbols; matrix has n*n elements
+     * @return The address of the profile, to be freed by destroy()
+     */
+    static long init(MemorySegment read, int read_length, MemorySegment matrix, int n) {
+        try {
+            return (long)SSW_INIT.invokeExact(read, read_length, matrix, n);
+        } catch (Throwable e) {
+            throw rethrown(e);
+        }
+    }
+
+    /**
+     * Frees a query profile with init_destroy.
+     *
+     * @param profile The profile made by init()
+     */
+    static void destroy(long profile) {
+        try {
+            INIT_DESTROY.invokeExact(profile);
+        } catch (Throwable e) {
+            throw rethrown(e);
+        }
+    }
+
+    /**
+     * Aligns a numeric sequence against a query profile with ssw_align.
+     *
+     * @param profile The profile made by init()
+     * @param ref The numeric target sequence
+     * @param ref_length The length of the target
+     * @param gap_open The absolute value of gap open penalty
+     * @param gap_ext The absolute value of gap extension penalty
+     * @param flag The SSW_ bits of LocalSequenceAlignment asking for the beginning positions and the cigar
+     * @param filterscore The score filter of flag
+     * @param filterdistance The distance filter of flag
+     * @param mask_length The distance of the sub-optimal ending position from the best one; -1 for none
+     * @param result Where the alignment is written
+     */
+    static void align(long profile, MemorySegment ref, int ref_length, int gap_open, int gap_ext,
+                      int flag, int filterscore, int filterdistance, int mask_length, AlignmentResult result) {
+        long alignment;
+        check_flag(flag);
+        try {
+            alignment = (long)SSW_ALIGN.invokeExact(profile, ref, ref_length, (byte)gap_open, (byte)gap_ext,
+                    (byte)flag, filterscore, filterdistance, mask_length);
+            try {
+                read(alignment, result);
+            } finally {
+                ALIGN_DESTROY.invokeExact(alignment);
+            }
+        } catch (Throwable e) {
+            throw rethrown(e);
+        }
+    }
+
+    /**
+     * Reads an s_align struct, with its cigar, into a result.
+     *
+     * @param alignment The address of the struct
+     */
+    private static void read(long alignment, AlignmentResult result) {
+        int k, length = NATIVE_MEMORY.get(JAVA_INT, alignment + CIGAR_LENGTH);
+        long cigar;
+        result.set(NATIVE_MEMORY.get(JAVA_INT, alignment + SCORE), NATIVE_MEMORY.get(JAVA_INT, alignment + REF_END),
+                NATIVE_MEMORY.get(JAVA_INT, alignment + READ_END));
+        result.score2 = NATIVE_MEMORY.get(JAVA_INT, alignment + SCORE2);
+        result.ref_begin = NATIVE_MEMORY.get(JAVA_INT, alignment + REF_BEGIN);
+        result.read_begin = NATIVE_MEMORY.get(JAVA_INT, alignment + READ_BEGIN);
+        if (length == 0)
+            return;
+        cigar = NATIVE_MEMORY.get(JAVA_LONG, alignment + CIGAR);
+        for (k = 0; k < length; ++k)
+            result.cigar.push_packed(NATIVE_MEMORY.get(JAVA_INT, cigar + (long)k * Integer.BYTES));
+        result.count_cigar();
+    }
+
+    /**
+     * @throws IllegalArgumentException if flag has bits other than the SSW_ bits of LocalSequenceAlignment
+     */
+    private static void check_flag(int flag) {
+        if ((flag & ~0xF) != 0)
+            throw new IllegalArgumentException("Only the lowest 4 bits of the flag are meaningful: " + flag);
+    }
+
+    /**
+     * @return The exception of a downcall, unchecked
+     */
+    private static RuntimeException rethrown(Throwable e) {
+        if (e instanceof RuntimeException)
+            return (RuntimeException)e;
+        if (e instanceof Error)
+            throw (Error)e;
+        return new IllegalStateException("Native alignment failed", e);
+    }
+
+    /**
+     * Encodes a slice of bytes into the numeric values of the scheme.
+     *
+     * @param into The native buffer, or NULL
+     * @return into if it is long enough for the slice, otherwise a larger buffer
+     */
+    private MemorySegment encode(MemorySegment into, byte[] sequence, int offset, int length) {
+        into = grow(into, length);
+        encode(into, 0, sequence, offset, length);
+        return into;
+    }
+
+    /**
+     * Encodes a slice of bytes into the numeric values of the scheme, at a
+     * position of a native buffer long enough for it.
+     *
+     * @param into The native buffer
+     * @param at The position in into
+     * @return The position in into after the slice
+     */
+    private long encode(MemorySegment into, long at, byte[] sequence, int offset, int length) {
+        java.util.Objects.checkFromIndexSize(offset, length, sequence.length);
+        for (int i = 0; i < length; ++i)
+            into.set(JAVA_BYTE, at + i, (byte)scheme.lookup[sequence[offset + i] & 0xFF]);
+        return at + length;
+    }
+
+    /**
+     * @param segment A native buffer, or NULL
+     * @param size The number of bytes needed
+     * @return segment if it has room for size bytes, otherwise a larger buffer
+     */
+    private static MemorySegment grow(MemorySegment segment, long size) {
+        if (segment.byteSize() >= size)
+            return segment;
+        return Arena.ofAuto().allocate(Math.max(size, segment.byteSize() + (segment.byteSize() >> 1)), Long.BYTES);
+    }
+
+    private static long offset(String field) {
+        return S_ALIGN.byteOffset(MemoryLayout.PathElement.groupElement(field));
+    }
+
+    private static SymbolLookup find_library() {
+        String name = System.mapLibraryName("ssw");
+        String path = System.getProperty("ssw.library");
+        Path file;
+        try {
+            if (path != null)
+                return SymbolLookup.libraryLookup(Path.of(path), Arena.global());
+            for (String dir : System.getProperty("java.library.path", "").split(File.pathSeparator)) {
+                if (dir.isEmpty())
+                    continue;
+                file = Path.of(dir, name);
+                if (Files.isRegularFile(file))
+                    return SymbolLookup.libraryLookup(file, Arena.global());
+            }
+            return SymbolLookup.libraryLookup(name, Arena.global());
+        } catch (IllegalArgumentException | IllegalCallerException e) {
+            load_error = e;
+            return null;
+        }
+    }
+
+    private static MethodHandle downcall(String symbol, FunctionDescriptor descriptor) {
+        if (LIBRARY == null)
+            return null;
+        MemorySegment address = LIBRARY.find(symbol).orElse(null);
+        if (address == null) {
+            load_error = new UnsatisfiedLinkError("Symbol " + symbol + " not found in libssw");
+            return null;
+        }
+        return Linker.nativeLinker().downcallHandle(address, descriptor);
+    }
+}
@@ -0,0 +1,101 @@
+package nl.escience.alignment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Aligns many pairs of sequences on all the threads of a ForkJoinPool.
+ *
+ * Every task leases an aligner from the idle aligners of this instance, or
+ * from the factory when there is none, and returns it when no pair is left,
+ * so the matrixes are allocated once per concurrent task and belong to this
+ * instance rather than to the threads of the pool. The pairs are taken in decreasing number of
+ * cells: the largest ones start first and the last ones to finish are small,
+ * whatever the order of the input.
+ */
+public class ParallelSequenceAlignment {
+
+    private final Supplier<? extends Aligner> factory;
+    private final ConcurrentLinkedQueue<Aligner> idle;
+    private final ForkJoinPool pool;
+
+    /**
+     * Initializes the parallel aligner on the common pool.
+     *
+     * @param factory Creates the aligner of a task, e.g.
+     *                () -> new LocalSequenceAlignment(scheme, 2000, 0, false)
+     */
+    public ParallelSequenceAlignment(Supplier<? extends Aligner> factory) {
+        this(factory, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Initializes the parallel aligner.
+     *
+     * @param factory Creates the aligner of a task
+     * @param pool The pool the pairs are aligned on
+     */
+    public ParallelSequenceAlignment(Supplier<? extends Aligner> factory, ForkJoinPool pool) {
+        this.factory = factory;
+        this.idle = new ConcurrentLinkedQueue<>();
+        this.pool = pool;
+    }
+
+    /**
+     * Aligns all pairs.
+     *
+     * @param pairs The pairs of sequences
+     * @return The alignments, in the order of the input pairs
+     */
+    public List<Alignment> align_all(List<SequencePair> pairs) {
+        int n = pairs.size(), workers, i;
+        Alignment[] alignments = new Alignment[n];
+        Integer[] order = new Integer[n];
+        for (i = 0; i < n; ++i)
+            order[i] = i;
+        long[] cells = new long[n];
+        for (i = 0; i < n; ++i)
+            cells[i] = pairs.get(i).cells();
+        Arrays.sort(order, (a, b) -> Long.compare(cells[b], cells[a]));
+        // every task takes the largest pair left until none is
+        AtomicInteger next = new AtomicInteger();
+        Runnable worker = () -> {
+            Aligner aligner = idle.poll();
+            int k;
+            if (aligner == null)
+                aligner = factory.get();
+            try {
+                while ((k = next.getAndIncrement()) < n) {
+                    SequencePair pair = pairs.get(order[k]);
+                    alignments[order[k]] = aligner.align(pair.seq1, pair.seq2);
+                }
+            } finally {
+                idle.add(aligner);
+            }
+        };
+        workers = Math.min(n, pool.getParallelism());
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(workers);
+        for (i = 0; i < workers; ++i)
+            tasks.add(ForkJoinTask.adapt(worker));
+        pool.submit(() -> ForkJoinTask.invokeAll(tasks)).join();
+        return Arrays.asList(alignments);
+    }
+
+    /**
+     * Aligns all pairs of a stream.
+     *
+     * @param pairs The pairs of sequences
+     * @return The alignments, in the encounter order of the stream
+     */
+    public List<Alignment> align_all(Stream<SequencePair> pairs) {
+        return align_all(pairs.collect(Collectors.toList()));
+    }
+}
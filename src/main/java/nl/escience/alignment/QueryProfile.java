@@ -0,0 +1,133 @@
+package nl.escience.alignment;
+
+import java.lang.foreign.Arena;
+
+/**
+ * The striped query profile of one read in libssw, built once and aligned
+ * against many references, for instance the candidate windows of the read
+ * in a mapping step, without encoding the read and building its profile
+ * again for every pair as ssw_align does.
+ *
+ * A profile is made by LocalSequenceAlignment.ssw_profile() and shares the
+ * native buffers of that aligner, so it is used, and closed, by the thread
+ * using the aligner. Its native memory is freed by close(). When libssw
+ * cannot be loaded the profile keeps the encoded read and aligns with the
+ * pure-Java vector engine instead.
+ */
+public final class QueryProfile implements AutoCloseable {
+
+    private final NativeSsw ssw;
+    private final Arena arena;
+    private final LocalSequenceAlignment aligner;
+    private final byte[] numeric;
+    private final int length;
+    private long profile;
+    private boolean open;
+
+    /**
+     * @param ssw The binding of the aligner
+     * @param read The bytes of the read
+     * @param offset The position of the read in read
+     * @param length The length of the read
+     */
+    QueryProfile(NativeSsw ssw, byte[] read, int offset, int length) {
+        this.ssw = ssw;
+        this.length = length;
+        aligner = null;
+        numeric = null;
+        arena = Arena.ofConfined();
+        try {
+            profile = ssw.init(read, offset, length, arena);
+        } catch (RuntimeException | Error e) {
+            arena.close();
+            throw e;
+        }
+        open = true;
+    }
+
+    /**
+     * @param aligner The aligner whose scoring the pure-Java vector engine uses
+     * @param numeric The read, converted to numbers
+     */
+    QueryProfile(LocalSequenceAlignment aligner, byte[] numeric) {
+        this.aligner = aligner;
+        this.numeric = numeric;
+        length = numeric.length;
+        ssw = null;
+        arena = null;
+        open = true;
+    }
+
+    /**
+     * @return The length of the read
+     */
+    public int get_length() {
+        return length;
+    }
+
+    /**
+     * Aligns a slice of a byte array against the read, one character per
+     * byte.
+     *
+     * @param ref The bytes of the reference
+     * @param ref_offset The position of the reference in ref
+     * @param ref_length The length of the reference
+     * @param result Where the score and ending positions are written
+     * @return result
+     */
+    public AlignmentResult align(byte[] ref, int ref_offset, int ref_length, AlignmentResult result) {
+        return align(ref, ref_offset, ref_length, 0, 0, 0, -1, result);
+    }
+
+    /**
+     * Aligns a slice of a byte array against the read, with the beginning
+     * positions, the cigar and the sub-optimal score as asked, as
+     * LocalSequenceAlignment.alignNative(). Without libssw only the score and
+     * the ending positions are found.
+     *
+     * @param ref The bytes of the reference
+     * @param ref_offset The position of the reference in ref
+     * @param ref_length The length of the reference
+     * @param flag The SSW_ bits of LocalSequenceAlignment asking for the beginning positions and the cigar
+     * @param filterscore The score filter, used with SSW_FILTER_SCORE
+     * @param filterdistance The distance filter, used with SSW_FILTER_DISTANCE
+     * @param mask_length The distance of the sub-optimal ending position from the best one; -1 for none
+     * @param result Where the alignment is written
+     * @return result
+     */
+    public AlignmentResult align(byte[] ref, int ref_offset, int ref_length,
+                                 int flag, int filterscore, int filterdistance, int mask_length, AlignmentResult result) {
+        if (!open)
+            throw new IllegalStateException("The query profile is closed");
+        if (ssw != null)
+            ssw.align(profile, ref, ref_offset, ref_length, flag, filterscore, filterdistance, mask_length, result);
+        else
+            result.set(aligner.striped_align_numeric(numeric, ref, ref_offset, ref_length));
+        return result;
+    }
+
+    /**
+     * Aligns a reference against the read.
+     *
+     * @param ref reference sequence
+     * @return Smith-Waterman alignment
+     */
+    public Alignment align(byte[] ref) {
+        return align(ref, 0, ref.length, new AlignmentResult()).to_alignment();
+    }
+
+    /**
+     * Frees the native memory of the profile.
+     */
+    @Override
+    public void close() {
+        if (!open)
+            return;
+        open = false;
+        if (ssw == null)
+            return;
+        NativeSsw.destroy(profile);
+        profile = 0;
+        arena.close();
+    }
+}
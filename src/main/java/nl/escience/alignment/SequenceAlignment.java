@@ -1,6 +1,13 @@
 package nl.escience.alignment;
 
-import java.util.Stack;
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.nio.ByteBuffer;
 
 /**
  * Implements required functionalities for bounded pseudo-global alignment of
@@ -9,21 +16,27 @@ import java.util.Stack;
  * @author Siavash Sheikhizadeh, Bioinformatics chairgroup, Wageningen
  * University, the Netherlands
  */
-public class SequenceAlignment {
-
-    public static int match[][];
-
-
-    private  static byte flattenMatch[][];
-
-    private static int lookup[];
-    private byte direction[][];
-
-    private String seq1;
-    private String seq2;
-    private StringBuilder cigar;
-    private Stack<Character> operation_stack;
-    private Stack<Integer> count_stack;
+public class SequenceAlignment implements Aligner {
+
+    private final ScoringScheme scheme;
+    private final int match[][];
+    private final byte flattenMatch[][];
+    private final TracebackStore directions;
+    private byte row_cells[];
+    private int band_beg[];
+    private int band_len[];
+    private byte qp[][];
+    private int eh_h[];
+    private int eh_e[];
+    private byte diff[][];
+    private int h_diag[];
+
+    private StringBuilder seq1;
+    private StringBuilder seq2;
+    private byte query[];
+    private byte target[];
+    private final int range_buffer[];
+    private Cigar cigar;
     private int similarity;
     private double identity;
     private int GAP_OPEN;
@@ -37,9 +50,27 @@ public class SequenceAlignment {
     private int BOUND;
     private char TYPE;
     private int offset;
+    private int begin_i;
+    private int begin_j;
     private int range_len;
     private int mismatch_penalty, insertion_penalty;
     private int CLIPPING_STRIGENCY;
+    private boolean ADAPTIVE;
+    private boolean antidiagonal;
+    private EditDistanceFilter filter;
+
+    /**
+     * Value used as minus infinity, with room for the gap penalties
+     */
+    private static final int NEG_INF = -0x40000000;
+
+    private static final VectorSpecies<Byte> BYTE_SPECIES = ByteVector.SPECIES_PREFERRED;
+    /**
+     * Species of the scores recovered from the differences, at least 8 lanes
+     * wide, and the species of as many bytes
+     */
+    private static final VectorSpecies<Integer> INT_SPECIES = IntVector.SPECIES_PREFERRED.length() >= 8 ? IntVector.SPECIES_PREFERRED : IntVector.SPECIES_256;
+    private static final VectorSpecies<Byte> BYTE_INT_SPECIES = VectorSpecies.of(byte.class, VectorShape.forBitSize(INT_SPECIES.length() * Byte.SIZE));
 
 
 
@@ -55,24 +86,53 @@ public class SequenceAlignment {
      * @param type Type of the input sequences(N for nucleotide P for peptide).
      */
     public SequenceAlignment(int gap_open, int gap_ext, int max_length, int clip, char type, int band) {
-        int i, j;
-        GAP_OPEN = gap_open;
-        GAP_EXT = gap_ext;
+        this(gap_open, gap_ext, max_length, clip, type, band, false);
+    }
+
+    /**
+     * Initializes the alignment object.
+     *
+     * @param gap_open The gap opening penalty
+     * @param gap_ext The gap extension penalty
+     * @param max_length The maximum possible length of the alignment
+     * @param clip The stringency of soft-clipping in the range [0..3]
+     * @param type Type of the input sequences(N for nucleotide P for peptide).
+     * @param band Number of cells of the band on either side of its centre
+     * @param adaptive Whether the band follows the best cell of the previous
+     *                 column instead of the main diagonal
+     */
+    public SequenceAlignment(int gap_open, int gap_ext, int max_length, int clip, char type, int band, boolean adaptive) {
+        this(new ScoringScheme(gap_open, gap_ext, type), max_length, clip, band, adaptive);
+    }
+
+    /**
+     * Initializes the alignment object with a scoring scheme, which may be
+     * shared with the aligners of other threads.
+     *
+     * @param scheme The scoring matrix and the gap penalties
+     * @param max_length The maximum possible length of the alignment
+     * @param clip The stringency of soft-clipping in the range [0..3]
+     * @param band Number of cells of the band on either side of its centre
+     * @param adaptive Whether the band follows the best cell of the previous
+     *                 column instead of the main diagonal
+     */
+    public SequenceAlignment(ScoringScheme scheme, int max_length, int clip, int band, boolean adaptive) {
+        this.scheme = scheme;
+        match = scheme.match;
+        flattenMatch = scheme.flattenMatch;
+        GAP_OPEN = scheme.GAP_OPEN;
+        GAP_EXT = scheme.GAP_EXT;
         MAX_LENGTH = max_length;
         BOUND = band;
-        TYPE = type;
+        TYPE = scheme.TYPE;
         CLIPPING_STRIGENCY = clip;
-        cigar = new StringBuilder();
-        operation_stack = new Stack();
-        count_stack = new Stack();
-        lookup = new int[257];
-
-        if (TYPE == 'N')
-            initialize_NUCC_matrix();
-        else if (TYPE == 'P')
-            initialize_BLOSUM_matrix(62);
-        else
-            System.out.println("Aligner type should be N or P");
+        ADAPTIVE = adaptive;
+        cigar = new Cigar();
+        seq1 = new StringBuilder();
+        seq2 = new StringBuilder();
+        range_buffer = new int[4];
+        directions = TracebackStore.on_heap();
+        filter = new EditDistanceFilter();
         switch (CLIPPING_STRIGENCY) {
             case 1:
                 mismatch_penalty = -1;
@@ -87,14 +147,6 @@ public class SequenceAlignment {
                 insertion_penalty = -3;
                 break;
         }
-
-        java.util.Arrays.fill(lookup, -1);
-        lookup[256] = 0;
-        convertSymToNumeric();
-        int size = lookup[256];
-        flattenMatch = new byte[size][size];
-        flatten(size);
-
     }
 
     public SequenceAlignment(int gap_open, int gap_ext, int max_length, int clip, char type) {
@@ -102,2255 +154,374 @@ public class SequenceAlignment {
     }
 
     /**
-     * Initializes the NUCC.1 scoring matrix.
+     * Fills the the similarity and direction matrixes of the two input sequences.
+     * First sequence should not be longer than the second sequence.
+     *
+     * @param s1 The String containing the first sequence
+     * @param s2 The String containing the second sequence
      */
-    public final void initialize_NUCC_matrix() {
-        match = new int[256][256];
-
-        match['A']['A'] = 5;
-        match['A']['T'] = -4;
-        match['A']['G'] = -4;
-        match['A']['C'] = -4;
-        match['A']['S'] = -4;
-        match['A']['W'] = 1;
-        match['A']['R'] = 1;
-        match['A']['Y'] = -4;
-        match['A']['K'] = -4;
-        match['A']['M'] = 1;
-        match['A']['B'] = -4;
-        match['A']['V'] = -1;
-        match['A']['H'] = -1;
-        match['A']['D'] = -1;
-        match['A']['N'] = -2;
-        match['T']['A'] = -4;
-        match['T']['T'] = 5;
-        match['T']['G'] = -4;
-        match['T']['C'] = -4;
-        match['T']['S'] = -4;
-        match['T']['W'] = 1;
-        match['T']['R'] = -4;
-        match['T']['Y'] = 1;
-        match['T']['K'] = 1;
-        match['T']['M'] = -4;
-        match['T']['B'] = -1;
-        match['T']['V'] = -4;
-        match['T']['H'] = -1;
-        match['T']['D'] = -1;
-        match['T']['N'] = -2;
-        match['G']['A'] = -4;
-        match['G']['T'] = -4;
-        match['G']['G'] = 5;
-        match['G']['C'] = -4;
-        match['G']['S'] = 1;
-        match['G']['W'] = -4;
-        match['G']['R'] = 1;
-        match['G']['Y'] = -4;
-        match['G']['K'] = 1;
-        match['G']['M'] = -4;
-        match['G']['B'] = -1;
-        match['G']['V'] = -1;
-        match['G']['H'] = -4;
-        match['G']['D'] = -1;
-        match['G']['N'] = -2;
-        match['C']['A'] = -4;
-        match['C']['T'] = -4;
-        match['C']['G'] = -4;
-        match['C']['C'] = 5;
-        match['C']['S'] = 1;
-        match['C']['W'] = -4;
-        match['C']['R'] = -4;
-        match['C']['Y'] = 1;
-        match['C']['K'] = -4;
-        match['C']['M'] = 1;
-        match['C']['B'] = -1;
-        match['C']['V'] = -1;
-        match['C']['H'] = -1;
-        match['C']['D'] = -4;
-        match['C']['N'] = -2;
-        match['S']['A'] = -4;
-        match['S']['T'] = -4;
-        match['S']['G'] = 1;
-        match['S']['C'] = 1;
-        match['S']['S'] = -1;
-        match['S']['W'] = -4;
-        match['S']['R'] = -2;
-        match['S']['Y'] = -2;
-        match['S']['K'] = -2;
-        match['S']['M'] = -2;
-        match['S']['B'] = -1;
-        match['S']['V'] = -1;
-        match['S']['H'] = -3;
-        match['S']['D'] = -3;
-        match['S']['N'] = -1;
-        match['W']['A'] = 1;
-        match['W']['T'] = 1;
-        match['W']['G'] = -4;
-        match['W']['C'] = -4;
-        match['W']['S'] = -4;
-        match['W']['W'] = -1;
-        match['W']['R'] = -2;
-        match['W']['Y'] = -2;
-        match['W']['K'] = -2;
-        match['W']['M'] = -2;
-        match['W']['B'] = -3;
-        match['W']['V'] = -3;
-        match['W']['H'] = -1;
-        match['W']['D'] = -1;
-        match['W']['N'] = -1;
-        match['R']['A'] = 1;
-        match['R']['T'] = -4;
-        match['R']['G'] = 1;
-        match['R']['C'] = -4;
-        match['R']['S'] = -2;
-        match['R']['W'] = -2;
-        match['R']['R'] = -1;
-        match['R']['Y'] = -4;
-        match['R']['K'] = -2;
-        match['R']['M'] = -2;
-        match['R']['B'] = -3;
-        match['R']['V'] = -1;
-        match['R']['H'] = -3;
-        match['R']['D'] = -1;
-        match['R']['N'] = -1;
-        match['Y']['A'] = -4;
-        match['Y']['T'] = 1;
-        match['Y']['G'] = -4;
-        match['Y']['C'] = 1;
-        match['Y']['S'] = -2;
-        match['Y']['W'] = -2;
-        match['Y']['R'] = -4;
-        match['Y']['Y'] = -1;
-        match['Y']['K'] = -2;
-        match['Y']['M'] = -2;
-        match['Y']['B'] = -1;
-        match['Y']['V'] = -3;
-        match['Y']['H'] = -1;
-        match['Y']['D'] = -3;
-        match['Y']['N'] = -1;
-        match['K']['A'] = -4;
-        match['K']['T'] = 1;
-        match['K']['G'] = 1;
-        match['K']['C'] = -4;
-        match['K']['S'] = -2;
-        match['K']['W'] = -2;
-        match['K']['R'] = -2;
-        match['K']['Y'] = -2;
-        match['K']['K'] = -1;
-        match['K']['M'] = -4;
-        match['K']['B'] = -1;
-        match['K']['V'] = -3;
-        match['K']['H'] = -3;
-        match['K']['D'] = -1;
-        match['K']['N'] = -1;
-        match['M']['A'] = 1;
-        match['M']['T'] = -4;
-        match['M']['G'] = -4;
-        match['M']['C'] = 1;
-        match['M']['S'] = -2;
-        match['M']['W'] = -2;
-        match['M']['R'] = -2;
-        match['M']['Y'] = -2;
-        match['M']['K'] = -4;
-        match['M']['M'] = -1;
-        match['M']['B'] = -3;
-        match['M']['V'] = -1;
-        match['M']['H'] = -1;
-        match['M']['D'] = -3;
-        match['M']['N'] = -1;
-        match['B']['A'] = -4;
-        match['B']['T'] = -1;
-        match['B']['G'] = -1;
-        match['B']['C'] = -1;
-        match['B']['S'] = -1;
-        match['B']['W'] = -3;
-        match['B']['R'] = -3;
-        match['B']['Y'] = -1;
-        match['B']['K'] = -1;
-        match['B']['M'] = -3;
-        match['B']['B'] = -1;
-        match['B']['V'] = -2;
-        match['B']['H'] = -2;
-        match['B']['D'] = -2;
-        match['B']['N'] = -1;
-        match['V']['A'] = -1;
-        match['V']['T'] = -4;
-        match['V']['G'] = -1;
-        match['V']['C'] = -1;
-        match['V']['S'] = -1;
-        match['V']['W'] = -3;
-        match['V']['R'] = -1;
-        match['V']['Y'] = -3;
-        match['V']['K'] = -3;
-        match['V']['M'] = -1;
-        match['V']['B'] = -2;
-        match['V']['V'] = -1;
-        match['V']['H'] = -2;
-        match['V']['D'] = -2;
-        match['V']['N'] = -1;
-        match['H']['A'] = -1;
-        match['H']['T'] = -1;
-        match['H']['G'] = -4;
-        match['H']['C'] = -1;
-        match['H']['S'] = -3;
-        match['H']['W'] = -1;
-        match['H']['R'] = -3;
-        match['H']['Y'] = -1;
-        match['H']['K'] = -3;
-        match['H']['M'] = -1;
-        match['H']['B'] = -2;
-        match['H']['V'] = -2;
-        match['H']['H'] = -1;
-        match['H']['D'] = -2;
-        match['H']['N'] = -1;
-        match['D']['A'] = -1;
-        match['D']['T'] = -1;
-        match['D']['G'] = -1;
-        match['D']['C'] = -4;
-        match['D']['S'] = -3;
-        match['D']['W'] = -1;
-        match['D']['R'] = -1;
-        match['D']['Y'] = -3;
-        match['D']['K'] = -1;
-        match['D']['M'] = -3;
-        match['D']['B'] = -2;
-        match['D']['V'] = -2;
-        match['D']['H'] = -2;
-        match['D']['D'] = -1;
-        match['D']['N'] = -1;
-        match['N']['A'] = -2;
-        match['N']['T'] = -2;
-        match['N']['G'] = -2;
-        match['N']['C'] = -2;
-        match['N']['S'] = -1;
-        match['N']['W'] = -1;
-        match['N']['R'] = -1;
-        match['N']['Y'] = -1;
-        match['N']['K'] = -1;
-        match['N']['M'] = -1;
-        match['N']['B'] = -1;
-        match['N']['V'] = -1;
-        match['N']['H'] = -1;
-        match['N']['D'] = -1;
-        match['N']['N'] = -1;
-
+    public Alignment align(String s1, String s2) {
+        seq1.setLength(0);
+        seq1.append(s1);
+        seq2.setLength(0);
+        seq2.append(s2);
+        fill_matrixes();
+        return (new Alignment(similarity, -1, max_j, -1, max_i));
+        /*System.out.println("m: " + m + " n: " + n);
+        System.out.println("Coordinates = "+ max_i + " " + max_j);
+        System.out.println(this.get_alignment());
+        System.out.println(this.get_cigar());
+        System.out.println("offset: "+ this.get_offset());
+        System.out.println(similarity_score+ "\n");*/
     }
 
     /**
-     * Initializes a  BLOSUM45, BLOSUM62 or BLOSUM80 scoring matrix.
-     *
-     * Entries for the BLOSUM80 matrix at a scale of ln(2)/2.0.
-     * Source https://www.ncbi.nlm.nih.gov/IEB/ToolBox/C_DOC/lxr/source/data/BLOSUM80
+     * Aligns the two input sequences and traces the alignment back at once,
+     * so the result holds its beginning positions, its cigar and its edit
+     * distance, and the aligner can go on with the next pair. The positions
+     * are those of the part covered by the cigar, after soft-clipping.
      *
-     * Entries for the BLOSUM45 matrix at a scale of ln(2)/3.0.
-     * Source https://www.ncbi.nlm.nih.gov/IEB/ToolBox/C_DOC/lxr/source/data/BLOSUM45
-     * @param number 45, 62 or 80
+     * @param s1 The String containing the first sequence
+     * @param s2 The String containing the second sequence
+     * @return The traced back best alignment
      */
-    public static void initialize_BLOSUM_matrix(int number) {
-        if (number != 45 && number != 62 && number != 80){
-            System.out.println("BLOSUM value must be 45, 62 or 80.");
-            System.exit(1);
-        }
-        match = new int[256][256];
-        if (number == 62) {
-            match['A']['A'] = 4;
-            match['A']['R'] = -1;
-            match['A']['N'] = -2;
-            match['A']['D'] = -2;
-            match['A']['C'] = 0;
-            match['A']['Q'] = -1;
-            match['A']['E'] = -1;
-            match['A']['G'] = 0;
-            match['A']['H'] = -2;
-            match['A']['I'] = -1;
-            match['A']['L'] = -1;
-            match['A']['K'] = -1;
-            match['A']['M'] = -1;
-            match['A']['F'] = -2;
-            match['A']['P'] = -1;
-            match['A']['S'] = 1;
-            match['A']['T'] = 0;
-            match['A']['W'] = -3;
-            match['A']['Y'] = -2;
-            match['A']['V'] = 0;
-            match['A']['B'] = -2;
-            match['A']['Z'] = -1;
-            match['A']['X'] = 0;
-            match['A']['*'] = -4;
-
-            match['R']['A'] = -1;
-            match['R']['R'] = 5;
-            match['R']['N'] = 0;
-            match['R']['D'] = -2;
-            match['R']['C'] = -3;
-            match['R']['Q'] = 1;
-            match['R']['E'] = 0;
-            match['R']['G'] = -2;
-            match['R']['H'] = 0;
-            match['R']['I'] = -3;
-            match['R']['L'] = -2;
-            match['R']['K'] = 2;
-            match['R']['M'] = -1;
-            match['R']['F'] = -3;
-            match['R']['P'] = -2;
-            match['R']['S'] = -1;
-            match['R']['T'] = -1;
-            match['R']['W'] = -3;
-            match['R']['Y'] = -2;
-            match['R']['V'] = -3;
-            match['R']['B'] = -1;
-            match['R']['Z'] = 0;
-            match['R']['X'] = -1;
-            match['R']['*'] = -4;
-
-            match['N']['A'] = -2;
-            match['N']['R'] = 0;
-            match['N']['N'] = 6;
-            match['N']['D'] = 1;
-            match['N']['C'] = -3;
-            match['N']['Q'] = 0;
-            match['N']['E'] = 0;
-            match['N']['G'] = 0;
-            match['N']['H'] = 1;
-            match['N']['I'] = -3;
-            match['N']['L'] = -3;
-            match['N']['K'] = 0;
-            match['N']['M'] = -2;
-            match['N']['F'] = -3;
-            match['N']['P'] = -2;
-            match['N']['S'] = 1;
-            match['N']['T'] = 0;
-            match['N']['W'] = -4;
-            match['N']['Y'] = -2;
-            match['N']['V'] = -3;
-            match['N']['B'] = 3;
-            match['N']['Z'] = 0;
-            match['N']['X'] = -1;
-            match['N']['*'] = -4;
-
-            match['D']['A'] = -2;
-            match['D']['R'] = -2;
-            match['D']['N'] = 1;
-            match['D']['D'] = 6;
-            match['D']['C'] = -3;
-            match['D']['Q'] = 0;
-            match['D']['E'] = 2;
-            match['D']['G'] = -1;
-            match['D']['H'] = -1;
-            match['D']['I'] = -3;
-            match['D']['L'] = -4;
-            match['D']['K'] = -1;
-            match['D']['M'] = -3;
-            match['D']['F'] = -3;
-            match['D']['P'] = -1;
-            match['D']['S'] = 0;
-            match['D']['T'] = -1;
-            match['D']['W'] = -4;
-            match['D']['Y'] = -3;
-            match['D']['V'] = -3;
-            match['D']['B'] = 4;
-            match['D']['Z'] = 1;
-            match['D']['X'] = -1;
-            match['D']['*'] = -4;
-
-            match['C']['A'] = 0;
-            match['C']['R'] = -3;
-            match['C']['N'] = -3;
-            match['C']['D'] = -3;
-            match['C']['C'] = 9;
-            match['C']['Q'] = -3;
-            match['C']['E'] = -4;
-            match['C']['G'] = -3;
-            match['C']['H'] = -3;
-            match['C']['I'] = -1;
-            match['C']['L'] = -1;
-            match['C']['K'] = -3;
-            match['C']['M'] = -1;
-            match['C']['F'] = -2;
-            match['C']['P'] = -3;
-            match['C']['S'] = -1;
-            match['C']['T'] = -1;
-            match['C']['W'] = -2;
-            match['C']['Y'] = -2;
-            match['C']['V'] = -1;
-            match['C']['B'] = -3;
-            match['C']['Z'] = -3;
-            match['C']['X'] = -2;
-            match['C']['*'] = -4;
-
-            match['Q']['A'] = -1;
-            match['Q']['R'] = 1;
-            match['Q']['N'] = 0;
-            match['Q']['D'] = 0;
-            match['Q']['C'] = -3;
-            match['Q']['Q'] = 5;
-            match['Q']['E'] = 2;
-            match['Q']['G'] = -2;
-            match['Q']['H'] = 0;
-            match['Q']['I'] = -3;
-            match['Q']['L'] = -2;
-            match['Q']['K'] = 1;
-            match['Q']['M'] = 0;
-            match['Q']['F'] = -3;
-            match['Q']['P'] = -1;
-            match['Q']['S'] = 0;
-            match['Q']['T'] = -1;
-            match['Q']['W'] = -2;
-            match['Q']['Y'] = -1;
-            match['Q']['V'] = -2;
-            match['Q']['B'] = 0;
-            match['Q']['Z'] = 3;
-            match['Q']['X'] = -1;
-            match['Q']['*'] = -4;
-
-            match['E']['A'] = -1;
-            match['E']['R'] = 0;
-            match['E']['N'] = 0;
-            match['E']['D'] = 2;
-            match['E']['C'] = -4;
-            match['E']['Q'] = 2;
-            match['E']['E'] = 5;
-            match['E']['G'] = -2;
-            match['E']['H'] = 0;
-            match['E']['I'] = -3;
-            match['E']['L'] = -3;
-            match['E']['K'] = 1;
-            match['E']['M'] = -2;
-            match['E']['F'] = -3;
-            match['E']['P'] = -1;
-            match['E']['S'] = 0;
-            match['E']['T'] = -1;
-            match['E']['W'] = -3;
-            match['E']['Y'] = -2;
-            match['E']['V'] = -2;
-            match['E']['B'] = 1;
-            match['E']['Z'] = 4;
-            match['E']['X'] = -1;
-            match['E']['*'] = -4;
-
-            match['G']['A'] = 0;
-            match['G']['R'] = -2;
-            match['G']['N'] = 0;
-            match['G']['D'] = -1;
-            match['G']['C'] = -3;
-            match['G']['Q'] = -2;
-            match['G']['E'] = -2;
-            match['G']['G'] = 6;
-            match['G']['H'] = -2;
-            match['G']['I'] = -4;
-            match['G']['L'] = -4;
-            match['G']['K'] = -2;
-            match['G']['M'] = -3;
-            match['G']['F'] = -3;
-            match['G']['P'] = -2;
-            match['G']['S'] = 0;
-            match['G']['T'] = -2;
-            match['G']['W'] = -2;
-            match['G']['Y'] = -3;
-            match['G']['V'] = -3;
-            match['G']['B'] = -1;
-            match['G']['Z'] = -2;
-            match['G']['X'] = -1;
-            match['G']['*'] = -4;
-
-            match['H']['A'] = -2;
-            match['H']['R'] = 0;
-            match['H']['N'] = 1;
-            match['H']['D'] = -1;
-            match['H']['C'] = -3;
-            match['H']['Q'] = 0;
-            match['H']['E'] = 0;
-            match['H']['G'] = -2;
-            match['H']['H'] = 8;
-            match['H']['I'] = -3;
-            match['H']['L'] = -3;
-            match['H']['K'] = -1;
-            match['H']['M'] = -2;
-            match['H']['F'] = -1;
-            match['H']['P'] = -2;
-            match['H']['S'] = -1;
-            match['H']['T'] = -2;
-            match['H']['W'] = -2;
-            match['H']['Y'] = 2;
-            match['H']['V'] = -3;
-            match['H']['B'] = 0;
-            match['H']['Z'] = 0;
-            match['H']['X'] = -1;
-            match['H']['*'] = -4;
-
-            match['I']['A'] = -1;
-            match['I']['R'] = -3;
-            match['I']['N'] = -3;
-            match['I']['D'] = -3;
-            match['I']['C'] = -1;
-            match['I']['Q'] = -3;
-            match['I']['E'] = -3;
-            match['I']['G'] = -4;
-            match['I']['H'] = -3;
-            match['I']['I'] = 4;
-            match['I']['L'] = 2;
-            match['I']['K'] = -3;
-            match['I']['M'] = 1;
-            match['I']['F'] = 0;
-            match['I']['P'] = -3;
-            match['I']['S'] = -2;
-            match['I']['T'] = -1;
-            match['I']['W'] = -3;
-            match['I']['Y'] = -1;
-            match['I']['V'] = 3;
-            match['I']['B'] = -3;
-            match['I']['Z'] = -3;
-            match['I']['X'] = -1;
-            match['I']['*'] = -4;
-
-            match['L']['A'] = -1;
-            match['L']['R'] = -2;
-            match['L']['N'] = -3;
-            match['L']['D'] = -4;
-            match['L']['C'] = -1;
-            match['L']['Q'] = -2;
-            match['L']['E'] = -3;
-            match['L']['G'] = -4;
-            match['L']['H'] = -3;
-            match['L']['I'] = 2;
-            match['L']['L'] = 4;
-            match['L']['K'] = -2;
-            match['L']['M'] = 2;
-            match['L']['F'] = 0;
-            match['L']['P'] = -3;
-            match['L']['S'] = -2;
-            match['L']['T'] = -1;
-            match['L']['W'] = -2;
-            match['L']['Y'] = -1;
-            match['L']['V'] = 1;
-            match['L']['B'] = -4;
-            match['L']['Z'] = -3;
-            match['L']['X'] = -1;
-            match['L']['*'] = -4;
-
-            match['K']['A'] = -1;
-            match['K']['R'] = 2;
-            match['K']['N'] = 0;
-            match['K']['D'] = -1;
-            match['K']['C'] = -3;
-            match['K']['Q'] = 1;
-            match['K']['E'] = 1;
-            match['K']['G'] = -2;
-            match['K']['H'] = -1;
-            match['K']['I'] = -3;
-            match['K']['L'] = -2;
-            match['K']['K'] = 5;
-            match['K']['M'] = -1;
-            match['K']['F'] = -3;
-            match['K']['P'] = -1;
-            match['K']['S'] = 0;
-            match['K']['T'] = -1;
-            match['K']['W'] = -3;
-            match['K']['Y'] = -2;
-            match['K']['V'] = -2;
-            match['K']['B'] = 0;
-            match['K']['Z'] = 1;
-            match['K']['X'] = -1;
-            match['K']['*'] = -4;
-
-            match['M']['A'] = -1;
-            match['M']['R'] = -1;
-            match['M']['N'] = -2;
-            match['M']['D'] = -3;
-            match['M']['C'] = -1;
-            match['M']['Q'] = 0;
-            match['M']['E'] = -2;
-            match['M']['G'] = -3;
-            match['M']['H'] = -2;
-            match['M']['I'] = 1;
-            match['M']['L'] = 2;
-            match['M']['K'] = -1;
-            match['M']['M'] = 5;
-            match['M']['F'] = 0;
-            match['M']['P'] = -2;
-            match['M']['S'] = -1;
-            match['M']['T'] = -1;
-            match['M']['W'] = -1;
-            match['M']['Y'] = -1;
-            match['M']['V'] = 1;
-            match['M']['B'] = -3;
-            match['M']['Z'] = -1;
-            match['M']['X'] = -1;
-            match['M']['*'] = -4;
-
-            match['F']['A'] = -2;
-            match['F']['R'] = -3;
-            match['F']['N'] = -3;
-            match['F']['D'] = -3;
-            match['F']['C'] = -2;
-            match['F']['Q'] = -3;
-            match['F']['E'] = -3;
-            match['F']['G'] = -3;
-            match['F']['H'] = -1;
-            match['F']['I'] = 0;
-            match['F']['L'] = 0;
-            match['F']['K'] = -3;
-            match['F']['M'] = 0;
-            match['F']['F'] = 6;
-            match['F']['P'] = -4;
-            match['F']['S'] = -2;
-            match['F']['T'] = -2;
-            match['F']['W'] = 1;
-            match['F']['Y'] = 3;
-            match['F']['V'] = -1;
-            match['F']['B'] = -3;
-            match['F']['Z'] = -3;
-            match['F']['X'] = -1;
-            match['F']['*'] = -4;
-
-            match['P']['A'] = -1;
-            match['P']['R'] = -2;
-            match['P']['N'] = -2;
-            match['P']['D'] = -1;
-            match['P']['C'] = -3;
-            match['P']['Q'] = -1;
-            match['P']['E'] = -1;
-            match['P']['G'] = -2;
-            match['P']['H'] = -2;
-            match['P']['I'] = -3;
-            match['P']['L'] = -3;
-            match['P']['K'] = -1;
-            match['P']['M'] = -2;
-            match['P']['F'] = -4;
-            match['P']['P'] = 7;
-            match['P']['S'] = -1;
-            match['P']['T'] = -1;
-            match['P']['W'] = -4;
-            match['P']['Y'] = -3;
-            match['P']['V'] = -2;
-            match['P']['B'] = -2;
-            match['P']['Z'] = -1;
-            match['P']['X'] = -2;
-            match['P']['*'] = -4;
-
-            match['S']['A'] = 1;
-            match['S']['R'] = -1;
-            match['S']['N'] = 1;
-            match['S']['D'] = 0;
-            match['S']['C'] = -1;
-            match['S']['Q'] = 0;
-            match['S']['E'] = 0;
-            match['S']['G'] = 0;
-            match['S']['H'] = -1;
-            match['S']['I'] = -2;
-            match['S']['L'] = -2;
-            match['S']['K'] = 0;
-            match['S']['M'] = -1;
-            match['S']['F'] = -2;
-            match['S']['P'] = -1;
-            match['S']['S'] = 4;
-            match['S']['T'] = 1;
-            match['S']['W'] = -3;
-            match['S']['Y'] = -2;
-            match['S']['V'] = -2;
-            match['S']['B'] = 0;
-            match['S']['Z'] = 0;
-            match['S']['X'] = 0;
-            match['S']['*'] = -4;
-
-            match['T']['A'] = 0;
-            match['T']['R'] = -1;
-            match['T']['N'] = 0;
-            match['T']['D'] = -1;
-            match['T']['C'] = -1;
-            match['T']['Q'] = -1;
-            match['T']['E'] = -1;
-            match['T']['G'] = -2;
-            match['T']['H'] = -2;
-            match['T']['I'] = -1;
-            match['T']['L'] = -1;
-            match['T']['K'] = -1;
-            match['T']['M'] = -1;
-            match['T']['F'] = -2;
-            match['T']['P'] = -1;
-            match['T']['S'] = 1;
-            match['T']['T'] = 5;
-            match['T']['W'] = -2;
-            match['T']['Y'] = -2;
-            match['T']['V'] = 0;
-            match['T']['B'] = -1;
-            match['T']['Z'] = -1;
-            match['T']['X'] = 0;
-            match['T']['*'] = -4;
-
-            match['W']['A'] = -3;
-            match['W']['R'] = -3;
-            match['W']['N'] = -4;
-            match['W']['D'] = -4;
-            match['W']['C'] = -2;
-            match['W']['Q'] = -2;
-            match['W']['E'] = -3;
-            match['W']['G'] = -2;
-            match['W']['H'] = -2;
-            match['W']['I'] = -3;
-            match['W']['L'] = -2;
-            match['W']['K'] = -3;
-            match['W']['M'] = -1;
-            match['W']['F'] = 1;
-            match['W']['P'] = -4;
-            match['W']['S'] = -3;
-            match['W']['T'] = -2;
-            match['W']['W'] = 11;
-            match['W']['Y'] = 2;
-            match['W']['V'] = -3;
-            match['W']['B'] = -4;
-            match['W']['Z'] = -3;
-            match['W']['X'] = -2;
-            match['W']['*'] = -4;
-
-            match['Y']['A'] = -2;
-            match['Y']['R'] = -2;
-            match['Y']['N'] = -2;
-            match['Y']['D'] = -3;
-            match['Y']['C'] = -2;
-            match['Y']['Q'] = -1;
-            match['Y']['E'] = -2;
-            match['Y']['G'] = -3;
-            match['Y']['H'] = 2;
-            match['Y']['I'] = -1;
-            match['Y']['L'] = -1;
-            match['Y']['K'] = -2;
-            match['Y']['M'] = -1;
-            match['Y']['F'] = 3;
-            match['Y']['P'] = -3;
-            match['Y']['S'] = -2;
-            match['Y']['T'] = -2;
-            match['Y']['W'] = 2;
-            match['Y']['Y'] = 7;
-            match['Y']['V'] = -1;
-            match['Y']['B'] = -3;
-            match['Y']['Z'] = -2;
-            match['Y']['X'] = -1;
-            match['Y']['*'] = -4;
-
-            match['V']['A'] = 0;
-            match['V']['R'] = -3;
-            match['V']['N'] = -3;
-            match['V']['D'] = -3;
-            match['V']['C'] = -1;
-            match['V']['Q'] = -2;
-            match['V']['E'] = -2;
-            match['V']['G'] = -3;
-            match['V']['H'] = -3;
-            match['V']['I'] = 3;
-            match['V']['L'] = 1;
-            match['V']['K'] = -2;
-            match['V']['M'] = 1;
-            match['V']['F'] = -1;
-            match['V']['P'] = -2;
-            match['V']['S'] = -2;
-            match['V']['T'] = 0;
-            match['V']['W'] = -3;
-            match['V']['Y'] = -1;
-            match['V']['V'] = 4;
-            match['V']['B'] = -3;
-            match['V']['Z'] = -2;
-            match['V']['X'] = -1;
-            match['V']['*'] = -4;
-
-            match['B']['A'] = -2;
-            match['B']['R'] = -1;
-            match['B']['N'] = 3;
-            match['B']['D'] = 4;
-            match['B']['C'] = -3;
-            match['B']['Q'] = 0;
-            match['B']['E'] = 1;
-            match['B']['G'] = -1;
-            match['B']['H'] = 0;
-            match['B']['I'] = -3;
-            match['B']['L'] = -4;
-            match['B']['K'] = 0;
-            match['B']['M'] = -3;
-            match['B']['F'] = -3;
-            match['B']['P'] = -2;
-            match['B']['S'] = 0;
-            match['B']['T'] = -1;
-            match['B']['W'] = -4;
-            match['B']['Y'] = -3;
-            match['B']['V'] = -3;
-            match['B']['B'] = 4;
-            match['B']['Z'] = 1;
-            match['B']['X'] = -1;
-            match['B']['*'] = -4;
-
-            match['Z']['A'] = -1;
-            match['Z']['R'] = 0;
-            match['Z']['N'] = 0;
-            match['Z']['D'] = 1;
-            match['Z']['C'] = -3;
-            match['Z']['Q'] = 3;
-            match['Z']['E'] = 4;
-            match['Z']['G'] = -2;
-            match['Z']['H'] = 0;
-            match['Z']['I'] = -3;
-            match['Z']['L'] = -3;
-            match['Z']['K'] = 1;
-            match['Z']['M'] = -1;
-            match['Z']['F'] = -3;
-            match['Z']['P'] = -1;
-            match['Z']['S'] = 0;
-            match['Z']['T'] = -1;
-            match['Z']['W'] = -3;
-            match['Z']['Y'] = -2;
-            match['Z']['V'] = -2;
-            match['Z']['B'] = 1;
-            match['Z']['Z'] = 4;
-            match['Z']['X'] = -1;
-            match['Z']['*'] = -4;
-
-            match['X']['A'] = 0;
-            match['X']['R'] = -1;
-            match['X']['N'] = -1;
-            match['X']['D'] = -1;
-            match['X']['C'] = -2;
-            match['X']['Q'] = -1;
-            match['X']['E'] = -1;
-            match['X']['G'] = -1;
-            match['X']['H'] = -1;
-            match['X']['I'] = -1;
-            match['X']['L'] = -1;
-            match['X']['K'] = -1;
-            match['X']['M'] = -1;
-            match['X']['F'] = -1;
-            match['X']['P'] = -2;
-            match['X']['S'] = 0;
-            match['X']['T'] = 0;
-            match['X']['W'] = -2;
-            match['X']['Y'] = -1;
-            match['X']['V'] = -1;
-            match['X']['B'] = -1;
-            match['X']['Z'] = -1;
-            match['X']['X'] = -1;
-            match['X']['*'] = -4;
-
-            match['*']['A'] = -4;
-            match['*']['R'] = -4;
-            match['*']['N'] = -4;
-            match['*']['D'] = -4;
-            match['*']['C'] = -4;
-            match['*']['Q'] = -4;
-            match['*']['E'] = -4;
-            match['*']['G'] = -4;
-            match['*']['H'] = -4;
-            match['*']['I'] = -4;
-            match['*']['L'] = -4;
-            match['*']['K'] = -4;
-            match['*']['M'] = -4;
-            match['*']['F'] = -4;
-            match['*']['P'] = -4;
-            match['*']['S'] = -4;
-            match['*']['T'] = -4;
-            match['*']['W'] = -4;
-            match['*']['Y'] = -4;
-            match['*']['V'] = -4;
-            match['*']['B'] = -4;
-            match['*']['Z'] = -4;
-            match['*']['X'] = -4;
-            match['*']['*'] = 1;
-        }
-
-        if (number == 80) {
-            match['A']['A'] = 5;
-            match['A']['R'] = -2;
-            match['A']['N'] = -2;
-            match['A']['D'] = -2;
-            match['A']['C'] = -1;
-            match['A']['Q'] = -1;
-            match['A']['E'] =  -1;
-            match['A']['G'] =  0;
-            match['A']['H'] = -2;
-            match['A']['I'] = -2;
-            match['A']['L'] = -2;
-            match['A']['K'] = -1;
-            match['A']['M'] =  -1;
-            match['A']['F'] = -3;
-            match['A']['P'] = -1;
-            match['A']['S'] = 1;
-            match['A']['T'] = 0;
-            match['A']['W'] = -3;
-            match['A']['Y'] = -2;
-            match['A']['V'] = 0;
-            match['A']['B'] = -2;
-            match['A']['J'] = -2;
-            match['A']['Z'] = -1;
-            match['A']['X'] = -1;
-            match['A']['*'] = -6;
-
-            match['R']['A'] = -2;
-            match['R']['R'] = 6;
-            match['R']['N'] = -1;
-            match['R']['D'] = -2;
-            match['R']['C'] = -4;
-            match['R']['Q'] = 1;
-            match['R']['E'] = -1;
-            match['R']['G'] = -3;
-            match['R']['H'] = 0;
-            match['R']['I'] = -3;
-            match['R']['L'] = -3;
-            match['R']['K'] = 2;
-            match['R']['M'] = -2;
-            match['R']['F'] = -4;
-            match['R']['P'] = -2;
-            match['R']['S'] = -1;
-            match['R']['T'] = -1;
-            match['R']['W'] = -4;
-            match['R']['Y'] = -3;
-            match['R']['V'] = -3;
-            match['R']['B'] = -1;
-            match['R']['J'] = -3;
-            match['R']['Z'] = 0;
-            match['R']['X'] = -1;
-            match['R']['*'] = -6;
-
-            match['N']['A'] = -2;
-            match['N']['R'] = -1;
-            match['N']['N'] = 6;
-            match['N']['D'] = 1;
-            match['N']['C'] = -3;
-            match['N']['Q'] = 0;
-            match['N']['E'] = -1;
-            match['N']['G'] = -1;
-            match['N']['H'] = 0;
-            match['N']['I'] = -4;
-            match['N']['L'] = -4;
-            match['N']['K'] = 0;
-            match['N']['M'] = -3;
-            match['N']['F'] = -4;
-            match['N']['P'] = -3;
-            match['N']['S'] = 0;
-            match['N']['T'] = 0;
-            match['N']['W'] = -4;
-            match['N']['Y'] = -3;
-            match['N']['V'] = -4;
-            match['N']['B'] = 5;
-            match['N']['J'] = -4;
-            match['N']['Z'] = 0;
-            match['N']['X'] = -1;
-            match['N']['*'] = -6;
-
-            match['D']['A'] = -2;
-            match['D']['R'] = -2;
-            match['D']['N'] = 1;
-            match['D']['D'] = 6;
-            match['D']['C'] = -4;
-            match['D']['Q'] = -1;
-            match['D']['E'] = 1;
-            match['D']['G'] = -2;
-            match['D']['H'] = -2;
-            match['D']['I'] = -4;
-            match['D']['L'] = -5;
-            match['D']['K'] = -1;
-            match['D']['M'] = -4;
-            match['D']['F'] = -4;
-            match['D']['P'] = -2;
-            match['D']['S'] = -1;
-            match['D']['T'] = -1;
-            match['D']['W'] = -6;
-            match['D']['Y'] = -4;
-            match['D']['V'] = -4;
-            match['D']['B'] = 5;
-            match['D']['J'] = -5;
-            match['D']['Z'] = 1;
-            match['D']['X'] = -1;
-            match['D']['*'] = -6;
-
-            match['C']['A'] = -1;
-            match['C']['R'] = -4;
-            match['C']['N'] = -3;
-            match['C']['D'] = -4;
-            match['C']['C'] = 9;
-            match['C']['Q'] = -4;
-            match['C']['E'] = -5;
-            match['C']['G'] = -4;
-            match['C']['H'] = -4;
-            match['C']['I'] = -2;
-            match['C']['L'] = -2;
-            match['C']['K'] = -4;
-            match['C']['M'] = -2;
-            match['C']['F'] = -3;
-            match['C']['P'] =  -4;
-            match['C']['S'] = -2;
-            match['C']['T'] = -1;
-            match['C']['W'] = -3;
-            match['C']['Y'] = -3 ;
-            match['C']['V'] = -1;
-            match['C']['B'] = -4;
-            match['C']['J'] = -2 ;
-            match['C']['Z'] = -4;
-            match['C']['X'] = -1;
-            match['C']['*'] = -6;
-
-            match['Q']['A'] = -1;
-            match['Q']['R'] = 1;
-            match['Q']['N'] = 0;
-            match['Q']['D'] = -1;
-            match['Q']['C'] = -4;
-            match['Q']['Q'] = 6;
-            match['Q']['E'] = 2;
-            match['Q']['G'] = -2;
-            match['Q']['H'] = 1;
-            match['Q']['I'] = -3;
-            match['Q']['L'] = -3;
-            match['Q']['K'] = 1;
-            match['Q']['M'] = 0;
-            match['Q']['F'] = -4;
-            match['Q']['P'] = -2;
-            match['Q']['S'] = 0;
-            match['Q']['T'] = -1;
-            match['Q']['W'] = -3;
-            match['Q']['Y'] = -2;
-            match['Q']['V'] = -3;
-            match['Q']['B'] = 0;
-            match['Q']['J'] = -3;
-            match['Q']['Z'] = 4;
-            match['Q']['X'] = -1;
-            match['Q']['*'] = -6;
-
-            match['E']['A'] = -1;
-            match['E']['R'] = -1;
-            match['E']['N'] = -1;
-            match['E']['D'] = 1;
-            match['E']['C'] = -5;
-            match['E']['Q'] = 2;
-            match['E']['E'] = 6;
-            match['E']['G'] = -3;
-            match['E']['H'] = 0;
-            match['E']['I'] = -4;
-            match['E']['L'] = -4;
-            match['E']['K'] = 1;
-            match['E']['M'] = -2;
-            match['E']['F'] = -4;
-            match['E']['P'] = -2;
-            match['E']['S'] = 0;
-            match['E']['T'] = -1;
-            match['E']['W'] = -4 ;
-            match['E']['Y'] = -3;
-            match['E']['V'] = -3;
-            match['E']['B'] = 1;
-            match['E']['J'] = -4;
-            match['E']['Z'] = 5;
-            match['E']['X'] = -1;
-            match['E']['*'] = -6;
-
-            match['G']['A'] = 0;
-            match['G']['R'] =  -3;
-            match['G']['N'] = -1;
-            match['G']['D'] = -2;
-            match['G']['C'] = -4;
-            match['G']['Q'] =  -2;
-            match['G']['E'] = -3;
-            match['G']['G'] = 6;
-            match['G']['H'] = -3;
-            match['G']['I'] =  -5;
-            match['G']['L'] = -4;
-            match['G']['K'] = -2;
-            match['G']['M'] = -4;
-            match['G']['F'] = -4;
-            match['G']['P'] = -3;
-            match['G']['S'] = -1;
-            match['G']['T'] = -2;
-            match['G']['W'] = -4;
-            match['G']['Y'] = -4;
-            match['G']['V'] = -4;
-            match['G']['B'] = -1;
-            match['G']['J'] = -5;
-            match['G']['Z'] = -3;
-            match['G']['X'] = -1;
-            match['G']['*'] = -6;
-
-            match['H']['A'] = -2;
-            match['H']['R'] = 0;
-            match['H']['N'] = 0;
-            match['H']['D'] = -2;
-            match['H']['C'] = -4;
-            match['H']['Q'] = 1;
-            match['H']['E'] = 0;
-            match['H']['G'] = -3;
-            match['H']['H'] = 8;
-            match['H']['I'] = -4;
-            match['H']['L'] = -3;
-            match['H']['K'] = -1;
-            match['H']['M'] = -2;
-            match['H']['F'] = -2;
-            match['H']['P'] = -3;
-            match['H']['S'] = -1;
-            match['H']['T'] = -2;
-            match['H']['W'] = -3;
-            match['H']['Y'] = 2;
-            match['H']['V'] = -4;
-            match['H']['B'] = -1;
-            match['H']['J'] = -4;
-            match['H']['Z'] = 0;
-            match['H']['X'] = -1;
-            match['H']['*'] = -6;
-
-            match['I']['A'] = -2;
-            match['I']['R'] = -3;
-            match['I']['N'] = -4;
-            match['I']['D'] = -4;
-            match['I']['C'] =  -2;
-            match['I']['Q'] = -3;
-            match['I']['E'] = -4;
-            match['I']['G'] = -5;
-            match['I']['H'] = -4;
-            match['I']['I'] = 5;
-            match['I']['L'] = 1;
-            match['I']['K'] = -3;
-            match['I']['M'] = 1;
-            match['I']['F'] = -1;
-            match['I']['P'] = -4;
-            match['I']['S'] = -3;
-            match['I']['T'] = -1;
-            match['I']['W'] = -3;
-            match['I']['Y'] = -2;
-            match['I']['V'] = 3;
-            match['I']['B'] = -4;
-            match['I']['J'] = 3;
-            match['I']['Z'] = -4;
-            match['I']['X'] = -1;
-            match['I']['*'] = -6;
-
-            match['L']['A'] = -2;
-            match['L']['R'] = -3;
-            match['L']['N'] = -4;
-            match['L']['D'] = -5;
-            match['L']['C'] = -2;
-            match['L']['Q'] = -3;
-            match['L']['E'] = -4;
-            match['L']['G'] = -4;
-            match['L']['H'] = -3;
-            match['L']['I'] =  1;
-            match['L']['L'] = 4;
-            match['L']['K'] = -3;
-            match['L']['M'] = 2;
-            match['L']['F'] = 0;
-            match['L']['P'] = -3;
-            match['L']['S'] = -3;
-            match['L']['T'] = -2;
-            match['L']['W'] = -2;
-            match['L']['Y'] = -2;
-            match['L']['V'] = 1;
-            match['L']['B'] = -4;
-            match['L']['J'] = 3;
-            match['L']['Z'] = -3;
-            match['L']['X'] = -1;
-            match['L']['*'] = -6;
-
-            match['K']['A'] = -1;
-            match['K']['R'] = 2;
-            match['K']['N'] = 0;
-            match['K']['D'] = -1;
-            match['K']['C'] = -4;
-            match['K']['Q'] = 1;
-            match['K']['E'] = 1;
-            match['K']['G'] = -2;
-            match['K']['H'] = -1;
-            match['K']['I'] = -3;
-            match['K']['L'] = -3;
-            match['K']['K'] = 5;
-            match['K']['M'] = -2;
-            match['K']['F'] = -4;
-            match['K']['P'] = -1;
-            match['K']['S'] = -1;
-            match['K']['T'] = -1;
-            match['K']['W'] = -4;
-            match['K']['Y'] = -3;
-            match['K']['V'] = -3;
-            match['K']['B'] = -1;
-            match['K']['J'] = -3;
-            match['K']['Z'] = 1;
-            match['K']['X'] = -1;
-            match['K']['*'] = -6;
-
-            match['M']['A'] = -1;
-            match['M']['R'] = -2;
-            match['M']['N'] = -3;
-            match['M']['D'] = -4;
-            match['M']['C'] = -2;
-            match['M']['Q'] = 0;
-            match['M']['E'] = -2;
-            match['M']['G'] = -4;
-            match['M']['H'] = -2;
-            match['M']['I'] = 1;
-            match['M']['L'] = 2;
-            match['M']['K'] = -2;
-            match['M']['M'] = 6;
-            match['M']['F'] = 0;
-            match['M']['P'] = -3;
-            match['M']['S'] = -2;
-            match['M']['T'] = -1;
-            match['M']['W'] = -2;
-            match['M']['Y'] = -2;
-            match['M']['V'] = 1;
-            match['M']['B'] = -3;
-            match['M']['J'] = 2;
-            match['M']['Z'] = -1;
-            match['M']['X'] = -1;
-            match['M']['*'] = -6;
-
-            match['F']['A'] = -3;
-            match['F']['R'] = -4;
-            match['F']['N'] = -4;
-            match['F']['D'] = -4;
-            match['F']['C'] = -3;
-            match['F']['Q'] = -4;
-            match['F']['E'] = -4;
-            match['F']['G'] = -4;
-            match['F']['H'] = -2;
-            match['F']['I'] = -1;
-            match['F']['L'] = 0;
-            match['F']['K'] = -4;
-            match['F']['M'] = 0;
-            match['F']['F'] =  6;
-            match['F']['P'] =  -4;
-            match['F']['S'] = -3;
-            match['F']['T'] = -2;
-            match['F']['W'] = 0;
-            match['F']['Y'] = 3;
-            match['F']['V'] = -1;
-            match['F']['B'] = -4;
-            match['F']['J'] = 0;
-            match['F']['Z'] = -4;
-            match['F']['X'] = -1;
-            match['F']['*'] = -6;
-
-            match['P']['A'] = -1;
-            match['P']['R'] = -2;
-            match['P']['N'] = -3;
-            match['P']['D'] = -2;
-            match['P']['C'] = -4 ;
-            match['P']['Q'] = -2;
-            match['P']['E'] = -2 ;
-            match['P']['G'] =  -3;
-            match['P']['H'] = -3;
-            match['P']['I'] = -4;
-            match['P']['L'] = -3 ;
-            match['P']['K'] = -1;
-            match['P']['M'] = -3;
-            match['P']['F'] = -4 ;
-            match['P']['P'] = 8;
-            match['P']['S'] = -1;
-            match['P']['T'] = -2;
-            match['P']['W'] = -5;
-            match['P']['Y'] = -4;
-            match['P']['V'] = -3;
-            match['P']['B'] = -2;
-            match['P']['J'] = -4;
-            match['P']['Z'] = -2;
-            match['P']['X'] = -1;
-            match['P']['*'] = -6;
-
-            match['S']['A'] = 1;
-            match['S']['R'] = -1;
-            match['S']['N'] = 0;
-            match['S']['D'] = -1;
-            match['S']['C'] = -2;
-            match['S']['Q'] = 0;
-            match['S']['E'] = 0;
-            match['S']['G'] = -1;
-            match['S']['H'] = -1;
-            match['S']['I'] = -3;
-            match['S']['L'] = -3;
-            match['S']['K'] = -1;
-            match['S']['M'] = -2;
-            match['S']['F'] = -3;
-            match['S']['P'] = -1;
-            match['S']['S'] = 5;
-            match['S']['T'] = 1;
-            match['S']['W'] = -4;
-            match['S']['Y'] = -2;
-            match['S']['V'] = -2;
-            match['S']['B'] = 0;
-            match['S']['J'] = -3;
-            match['S']['Z'] = 0;
-            match['S']['X'] = -1;
-            match['S']['*'] = -6;
-
-            match['T']['A'] = 0;
-            match['T']['R'] = -1;
-            match['T']['N'] = 0;
-            match['T']['D'] = -1;
-            match['T']['C'] = -1;
-            match['T']['Q'] = -1;
-            match['T']['E'] = -1;
-            match['T']['G'] = -2;
-            match['T']['H'] = -2;
-            match['T']['I'] = -1;
-            match['T']['L'] = -2;
-            match['T']['K'] = -1 ;
-            match['T']['M'] = -1;
-            match['T']['F'] = -2;
-            match['T']['P'] = -2;
-            match['T']['S'] = 1;
-            match['T']['T'] = 5;
-            match['T']['W'] = -4;
-            match['T']['Y'] = -2;
-            match['T']['V'] = 0;
-            match['T']['B'] = -1;
-            match['T']['J'] = -1;
-            match['T']['Z'] = -1 ;
-            match['T']['X'] = -1;
-            match['T']['*'] = -6;
-
-            match['W']['A'] = -3;
-            match['W']['R'] = -4;
-            match['W']['N'] = -4;
-            match['W']['D'] = -6;
-            match['W']['C'] = -3;
-            match['W']['Q'] = -3;
-            match['W']['E'] = -4;
-            match['W']['G'] = -4;
-            match['W']['H'] = -3;
-            match['W']['I'] =  -3;
-            match['W']['L'] = -2;
-            match['W']['K'] = -4;
-            match['W']['M'] = -2 ;
-            match['W']['F'] =  0;
-            match['W']['P'] = -5;
-            match['W']['S'] = -4;
-            match['W']['T'] = -4;
-            match['W']['W'] = 11;
-            match['W']['Y'] = 2;
-            match['W']['V'] = -3;
-            match['W']['B'] = -5;
-            match['W']['J'] = -3;
-            match['W']['Z'] = -3;
-            match['W']['X'] = -1;
-            match['W']['*'] = -6;
-
-            match['Y']['A'] = -2 ;
-            match['Y']['R'] =  -3;
-            match['Y']['N'] = -3;
-            match['Y']['D'] = -4;
-            match['Y']['C'] = -3;
-            match['Y']['Q'] = -2;
-            match['Y']['E'] = -3;
-            match['Y']['G'] = -4;
-            match['Y']['H'] = 2;
-            match['Y']['I'] = -2;
-            match['Y']['L'] = -2;
-            match['Y']['K'] = -3;
-            match['Y']['M'] = -2;
-            match['Y']['F'] = 3;
-            match['Y']['P'] = -4;
-            match['Y']['S'] =  -2;
-            match['Y']['T'] = -2;
-            match['Y']['W'] = 2;
-            match['Y']['Y'] = 7;
-            match['Y']['V'] = -2;
-            match['Y']['B'] = -3;
-            match['Y']['J'] = -2;
-            match['Y']['Z'] = -3;
-            match['Y']['X'] = -1;
-            match['Y']['*'] = -6;
-
-            match['V']['A'] = 0;
-            match['V']['R'] =  -3;
-            match['V']['N'] = -4;
-            match['V']['D'] = -4;
-            match['V']['C'] = -1;
-            match['V']['Q'] = -3;
-            match['V']['E'] = -3;
-            match['V']['G'] = -4;
-            match['V']['H'] = -4;
-            match['V']['I'] = 3;
-            match['V']['L'] = 1;
-            match['V']['K'] = -3;
-            match['V']['M'] = 1;
-            match['V']['F'] = -1;
-            match['V']['P'] = -3;
-            match['V']['S'] = -2;
-            match['V']['T'] = 0;
-            match['V']['W'] = -3;
-            match['V']['Y'] = -2;
-            match['V']['V'] = 4;
-            match['V']['B'] = -4;
-            match['V']['J'] = 2;
-            match['V']['Z'] = -3;
-            match['V']['X'] = -1;
-            match['V']['*'] = -6;
-
-            match['B']['A'] = -2;
-            match['B']['R'] = -1;
-            match['B']['N'] = 5;
-            match['B']['D'] = 5;
-            match['B']['C'] = -4;
-            match['B']['Q'] = 0;
-            match['B']['E'] = 1;
-            match['B']['G'] = -1;
-            match['B']['H'] = -1;
-            match['B']['I'] = -4;
-            match['B']['L'] = -4;
-            match['B']['K'] = -1 ;
-            match['B']['M'] = -3;
-            match['B']['F'] = -4;
-            match['B']['P'] = -2;
-            match['B']['S'] = 0;
-            match['B']['T'] = -1;
-            match['B']['W'] = -5 ;
-            match['B']['Y'] = -3 ;
-            match['B']['V'] = -4;
-            match['B']['B'] = 5;
-            match['B']['J'] = -4;
-            match['B']['Z'] = 0;
-            match['B']['X'] = -1;
-            match['B']['*'] = -6;
-
-            match['J']['A'] = -2;
-            match['J']['R'] = -3;
-            match['J']['N'] = -4 ;
-            match['J']['D'] = -5;
-            match['J']['C'] = -2;
-            match['J']['Q'] =  -3;
-            match['J']['E'] = -4;
-            match['J']['G'] =  -5;
-            match['J']['H'] = -4 ;
-            match['J']['I'] = 3;
-            match['J']['L'] = 3;
-            match['J']['K'] = -3;
-            match['J']['M'] = 2;
-            match['J']['F'] = 0;
-            match['J']['P'] = -4;
-            match['J']['S'] = -3 ;
-            match['J']['T'] = -1;
-            match['J']['W'] = -3;
-            match['J']['Y'] = -2;
-            match['J']['V'] = 2;
-            match['J']['B'] = -4;
-            match['J']['J'] = 3;
-            match['J']['Z'] = -3;
-            match['J']['X'] = -1;
-            match['J']['*'] = -6;
-
-            match['Z']['A'] = -1;
-            match['Z']['R'] = 0;
-            match['Z']['N'] = 0;
-            match['Z']['D'] = 1;
-            match['Z']['C'] = -4;
-            match['Z']['Q'] = 4;
-            match['Z']['E'] = 5;
-            match['Z']['G'] = -3;
-            match['Z']['H'] = 0;
-            match['Z']['I'] = -4;
-            match['Z']['L'] = -3;
-            match['Z']['K'] = 1;
-            match['Z']['M'] = -1;
-            match['Z']['F'] = -4;
-            match['Z']['P'] = -2;
-            match['Z']['S'] = 0;
-            match['Z']['T'] = -1;
-            match['Z']['W'] =  -3;
-            match['Z']['Y'] = -3;
-            match['Z']['V'] = -3;
-            match['Z']['B'] = 0;
-            match['Z']['J'] = -3;
-            match['Z']['Z'] = 5;
-            match['Z']['X'] = -1;
-            match['Z']['*'] = -6;
-
-            match['X']['A'] = -1;
-            match['X']['R'] = -1;
-            match['X']['N'] = -1;
-            match['X']['D'] = -1;
-            match['X']['C'] = -1;
-            match['X']['Q'] = -1;
-            match['X']['E'] = -1;
-            match['X']['G'] = -1;
-            match['X']['H'] = -1;
-            match['X']['I'] = -1;
-            match['X']['L'] = -1;
-            match['X']['K'] = -1;
-            match['X']['M'] = -1;
-            match['X']['F'] = -1;
-            match['X']['P'] = -1;
-            match['X']['S'] = -1;
-            match['X']['T'] = -1;
-            match['X']['W'] = -1;
-            match['X']['Y'] = -1;
-            match['X']['V'] = -1;
-            match['X']['B'] = -1;
-            match['X']['J'] = -1;
-            match['X']['Z'] = -1;
-            match['X']['X'] = -1;
-            match['X']['*'] = -6;
-
-            match['*']['A'] = -6;
-            match['*']['R'] = -6;
-            match['*']['N'] = -6;
-            match['*']['D'] = -6;
-            match['*']['C'] = -6;
-            match['*']['Q'] = -6;
-            match['*']['E'] = -6;
-            match['*']['G'] = -6;
-            match['*']['H'] = -6;
-            match['*']['I'] = -6;
-            match['*']['L'] = -6;
-            match['*']['K'] = -6;
-            match['*']['M'] = -6;
-            match['*']['F'] = -6;
-            match['*']['P'] = -6;
-            match['*']['S'] = -6;
-            match['*']['T'] = -6;
-            match['*']['W'] = -6;
-            match['*']['Y'] = -6;
-            match['*']['V'] = -6;
-            match['*']['B'] = -6;
-            match['*']['J'] = -6;
-            match['*']['Z'] = -6;
-            match['*']['X'] = -6;
-            match['*']['*'] = 1;
-        }
-
-        if (number == 45) {
-            match['A']['A'] = 5;
-            match['A']['R'] = -2;
-            match['A']['N'] = -1;
-            match['A']['D'] = -2;
-            match['A']['C'] = -1;
-            match['A']['Q'] = -1 ;
-            match['A']['E'] = -1;
-            match['A']['G'] = 0;
-            match['A']['H'] = -2;
-            match['A']['I'] = -1;
-            match['A']['L'] = -1;
-            match['A']['K'] = -1;
-            match['A']['M'] = -1;
-            match['A']['F'] = -2;
-            match['A']['P'] = -1;
-            match['A']['S'] = 1;
-            match['A']['T'] = 0;
-            match['A']['W'] = -2;
-            match['A']['Y'] = -2;
-            match['A']['V'] = 0;
-            match['A']['B'] = -1;
-            match['A']['J'] = -1;
-            match['A']['Z'] = -1;
-            match['A']['X'] = -1;
-            match['A']['*'] = -5;
-
-            match['R']['A'] = -2;
-            match['R']['R'] = 7 ;
-            match['R']['N'] = 0;
-            match['R']['D'] = -1;
-            match['R']['C'] = -3;
-            match['R']['Q'] = 1;
-            match['R']['E'] = 0;
-            match['R']['G'] = -2;
-            match['R']['H'] = 0;
-            match['R']['I'] = -3;
-            match['R']['L'] = -2;
-            match['R']['K'] = 3;
-            match['R']['M'] = -1;
-            match['R']['F'] = -2;
-            match['R']['P'] = -2;
-            match['R']['S'] = -1;
-            match['R']['T'] = -1;
-            match['R']['W'] = -2;
-            match['R']['Y'] = -1;
-            match['R']['V'] = -2;
-            match['R']['B'] = -1;
-            match['R']['J'] = -3 ;
-            match['R']['Z'] = 1;
-            match['R']['X'] = -1;
-            match['R']['*'] = -5;
-
-            match['N']['A'] =  -1;
-            match['N']['R'] = 0;
-            match['N']['N'] = 6;
-            match['N']['D'] = 2;
-            match['N']['C'] = -2;
-            match['N']['Q'] = 0;
-            match['N']['E'] =  0;
-            match['N']['G'] = 0;
-            match['N']['H'] = 1;
-            match['N']['I'] = -2;
-            match['N']['L'] = -3;
-            match['N']['K'] =  0;
-            match['N']['M'] = -2;
-            match['N']['F'] = -2;
-            match['N']['P'] =  -2;
-            match['N']['S'] = 1;
-            match['N']['T'] = 0;
-            match['N']['W'] = -4;
-            match['N']['Y'] = -2;
-            match['N']['V'] = -3;
-            match['N']['B'] = 5;
-            match['N']['J'] = -3;
-            match['N']['Z'] = 0;
-            match['N']['X'] = -1;
-            match['N']['*'] = -5;
-
-            match['D']['A'] = -2;
-            match['D']['R'] = -1;
-            match['D']['N'] = 2;
-            match['D']['D'] = 7;
-            match['D']['C'] = -3;
-            match['D']['Q'] = 0;
-            match['D']['E'] = 2;
-            match['D']['G'] = -1;
-            match['D']['H'] = 0;
-            match['D']['I'] = -4;
-            match['D']['L'] = -3;
-            match['D']['K'] = 0;
-            match['D']['M'] = -3;
-            match['D']['F'] = -4;
-            match['D']['P'] = -1;
-            match['D']['S'] = 0;
-            match['D']['T'] = -1;
-            match['D']['W'] = -4;
-            match['D']['Y'] = -2;
-            match['D']['V'] = -3;
-            match['D']['B'] = 6;
-            match['D']['J'] = -3;
-            match['D']['Z'] = 1;
-            match['D']['X'] = -1;
-            match['D']['*'] = -5;
-
-            match['C']['A'] =  -1 ;
-            match['C']['R'] = -3;
-            match['C']['N'] = -2;
-            match['C']['D'] =  -3;
-            match['C']['C'] = 12;
-            match['C']['Q'] = -3 ;
-            match['C']['E'] = -3 ;
-            match['C']['G'] =  -3;
-            match['C']['H'] = -3;
-            match['C']['I'] = -3;
-            match['C']['L'] = -2 ;
-            match['C']['K'] = -3;
-            match['C']['M'] = -2;
-            match['C']['F'] = -2;
-            match['C']['P'] =  -4 ;
-            match['C']['S'] = -1;
-            match['C']['T'] = -1;
-            match['C']['W'] = -5;
-            match['C']['Y'] = -3;
-            match['C']['V'] = -1;
-            match['C']['B'] = -2;
-            match['C']['J'] = -2;
-            match['C']['Z'] = -3;
-            match['C']['X'] = -1;
-            match['C']['*'] = -5;
-
-            match['Q']['A'] = -1 ;
-            match['Q']['R'] =  1;
-            match['Q']['N'] = 0;
-            match['Q']['D'] = 0;
-            match['Q']['C'] = -3;
-            match['Q']['Q'] = 6;
-            match['Q']['E'] = 2;
-            match['Q']['G'] = -2;
-            match['Q']['H'] = 1;
-            match['Q']['I'] =  -2;
-            match['Q']['L'] = -2 ;
-            match['Q']['K'] =  1 ;
-            match['Q']['M'] = 0;
-            match['Q']['F'] = -4;
-            match['Q']['P'] = -1;
-            match['Q']['S'] = 0;
-            match['Q']['T'] = -1;
-            match['Q']['W'] = -2;
-            match['Q']['Y'] = -1;
-            match['Q']['V'] = -3;
-            match['Q']['B'] = 0;
-            match['Q']['J'] = -2;
-            match['Q']['Z'] = 4;
-            match['Q']['X'] = -1;
-            match['Q']['*'] = -5;
-
-            match['E']['A'] = 1;
-            match['E']['R'] = 0;
-            match['E']['N'] = 0;
-            match['E']['D'] = 2;
-            match['E']['C'] = -3;
-            match['E']['Q'] = 2;
-            match['E']['E'] = 6;
-            match['E']['G'] = -2;
-            match['E']['H'] = 0 ;
-            match['E']['I'] = -3;
-            match['E']['L'] = -2;
-            match['E']['K'] = 1;
-            match['E']['M'] = -2;
-            match['E']['F'] = -3;
-            match['E']['P'] = 0;
-            match['E']['S'] = 0;
-            match['E']['T'] = -1;
-            match['E']['W'] = -3;
-            match['E']['Y'] = -2;
-            match['E']['V'] =  -3;
-            match['E']['B'] = 1;
-            match['E']['J'] = -3;
-            match['E']['Z'] = 5;
-            match['E']['X'] = -1;
-            match['E']['*'] = -5;
-
-            match['G']['A'] = 0;
-            match['G']['R'] = -2;
-            match['G']['N'] = 0;
-            match['G']['D'] = -1;
-            match['G']['C'] = -3;
-            match['G']['Q'] = -2;
-            match['G']['E'] = -2;
-            match['G']['G'] = 7;
-            match['G']['H'] = -2;
-            match['G']['I'] = -4;
-            match['G']['L'] = -3;
-            match['G']['K'] = -2;
-            match['G']['M'] = -2;
-            match['G']['F'] = -3;
-            match['G']['P'] = -2;
-            match['G']['S'] = 0;
-            match['G']['T'] = -2;
-            match['G']['W'] = -2;
-            match['G']['Y'] = -3;
-            match['G']['V'] = -3;
-            match['G']['B'] = -1;
-            match['G']['J'] = -4;
-            match['G']['Z'] = -2;
-            match['G']['X'] = -1;
-            match['G']['*'] = -5;
-
-            match['H']['A'] = -2 ;
-            match['H']['R'] = 0;
-            match['H']['N'] = 1;
-            match['H']['D'] = 0;
-            match['H']['C'] = -3;
-            match['H']['Q'] = 1;
-            match['H']['E'] = 0;
-            match['H']['G'] = -2;
-            match['H']['H'] = 10;
-            match['H']['I'] = -3;
-            match['H']['L'] = -2;
-            match['H']['K'] = -1;
-            match['H']['M'] = 0;
-            match['H']['F'] = -2;
-            match['H']['P'] = -2;
-            match['H']['S'] = -1;
-            match['H']['T'] = -2;
-            match['H']['W'] = -3;
-            match['H']['Y'] = 2;
-            match['H']['V'] = -3;
-            match['H']['B'] = 0;
-            match['H']['J'] = -2;
-            match['H']['Z'] = 0;
-            match['H']['X'] = -1;
-            match['H']['*'] = -5;
-
-            match['I']['A'] = -1;
-            match['I']['R'] = -3;
-            match['I']['N'] = -2;
-            match['I']['D'] = -4 ;
-            match['I']['C'] = -3;
-            match['I']['Q'] = -2;
-            match['I']['E'] = -3;
-            match['I']['G'] = -4;
-            match['I']['H'] = -3;
-            match['I']['I'] = 5 ;
-            match['I']['L'] = 2;
-            match['I']['K'] = -3 ;
-            match['I']['M'] = 2;
-            match['I']['F'] = 0;
-            match['I']['P'] = -2 ;
-            match['I']['S'] = -2;
-            match['I']['T'] = -1;
-            match['I']['W'] = -2;
-            match['I']['Y'] = 0;
-            match['I']['V'] = 3;
-            match['I']['B'] = -3;
-            match['I']['J'] = 4;
-            match['I']['Z'] = -3;
-            match['I']['X'] = -1;
-            match['I']['*'] = -5;
-
-            match['L']['A'] = -1;
-            match['L']['R'] = -2;
-            match['L']['N'] = -3;
-            match['L']['D'] = -3;
-            match['L']['C'] = -2 ;
-            match['L']['Q'] = -2;
-            match['L']['E'] =  -2;
-            match['L']['G'] =  -3 ;
-            match['L']['H'] = -2;
-            match['L']['I'] = 2;
-            match['L']['L'] = 5 ;
-            match['L']['K'] = -3;
-            match['L']['M'] = 2;
-            match['L']['F'] = 1;
-            match['L']['P'] =  -3;
-            match['L']['S'] = -3;
-            match['L']['T'] = -1;
-            match['L']['W'] = -2 ;
-            match['L']['Y'] = 0;
-            match['L']['V'] = 1;
-            match['L']['B'] = -3;
-            match['L']['J'] = 4;
-            match['L']['Z'] = -2;
-            match['L']['X'] = -1;
-            match['L']['*'] = -5;
-
-            match['K']['A'] = -1;
-            match['K']['R'] = 3;
-            match['K']['N'] = 0 ;
-            match['K']['D'] = 0;
-            match['K']['C'] = -3 ;
-            match['K']['Q'] = 1;
-            match['K']['E'] = 1;
-            match['K']['G'] = -2;
-            match['K']['H'] = -1 ;
-            match['K']['I'] = -3;
-            match['K']['L'] = -3;
-            match['K']['K'] =  5;
-            match['K']['M'] =-1;
-            match['K']['F'] = -3 ;
-            match['K']['P'] = -1 ;
-            match['K']['S'] = -1;
-            match['K']['T'] = -1;
-            match['K']['W'] = -2 ;
-            match['K']['Y'] = -1;
-            match['K']['V'] = -2;
-            match['K']['B'] = 0;
-            match['K']['J'] = -3;
-            match['K']['Z'] = 1;
-            match['K']['X'] = -1;
-            match['K']['*'] = -5;
-
-            match['M']['A'] = -1;
-            match['M']['R'] = -1;
-            match['M']['N'] = -2 ;
-            match['M']['D'] = -3;
-            match['M']['C'] = -2;
-            match['M']['Q'] = 0;
-            match['M']['E'] = -2;
-            match['M']['G'] = -2;
-            match['M']['H'] = 0;
-            match['M']['I'] = 2;
-            match['M']['L'] = 2;
-            match['M']['K'] = -1 ;
-            match['M']['M'] = 6;
-            match['M']['F'] = 0;
-            match['M']['P'] = -2;
-            match['M']['S'] = -2;
-            match['M']['T'] = -1;
-            match['M']['W'] = -2;
-            match['M']['Y'] = 0;
-            match['M']['V'] = 1;
-            match['M']['B'] = -2;
-            match['M']['J'] = 2;
-            match['M']['Z'] = -1;
-            match['M']['X'] = -1;
-            match['M']['*'] = -5;
-
-            match['F']['A'] = -2;
-            match['F']['R'] = -2;
-            match['F']['N'] = -2;
-            match['F']['D'] = -4;
-            match['F']['C'] = -2;
-            match['F']['Q'] = -4;
-            match['F']['E'] = -3;
-            match['F']['G'] = -3;
-            match['F']['H'] = -2;
-            match['F']['I'] = 0;
-            match['F']['L'] = 1;
-            match['F']['K'] = -3;
-            match['F']['M'] = 0;
-            match['F']['F'] = 8;
-            match['F']['P'] = -3;
-            match['F']['S'] = -2;
-            match['F']['T'] = -1;
-            match['F']['W'] = 1;
-            match['F']['Y'] = 3;
-            match['F']['V'] = 0;
-            match['F']['B'] = -3;
-            match['F']['J'] = 1;
-            match['F']['Z'] = -3;
-            match['F']['X'] = -1;
-            match['F']['*'] = -5;
-
-            match['P']['A'] = -1;
-            match['P']['R'] = -2;
-            match['P']['N'] = -2 ;
-            match['P']['D'] = -1;
-            match['P']['C'] = -4 ;
-            match['P']['Q'] = -1;
-            match['P']['E'] = 0;
-            match['P']['G'] = -2;
-            match['P']['H'] = -2;
-            match['P']['I'] = -2;
-            match['P']['L'] = -3;
-            match['P']['K'] = -1;
-            match['P']['M'] = -2;
-            match['P']['F'] = -3;
-            match['P']['P'] = 9;
-            match['P']['S'] = -1;
-            match['P']['T'] = -1;
-            match['P']['W'] = -3;
-            match['P']['Y'] = -3;
-            match['P']['V'] = -3;
-            match['P']['B'] = -2;
-            match['P']['J'] = -3;
-            match['P']['Z'] = -1;
-            match['P']['X'] = -1;
-            match['P']['*'] = -5;
-
-            match['S']['A'] = 1;
-            match['S']['R'] = -1;
-            match['S']['N'] = 1;
-            match['S']['D'] = 0;
-            match['S']['C'] = -1;
-            match['S']['Q'] = 0;
-            match['S']['E'] = 0;
-            match['S']['G'] = 0;
-            match['S']['H'] = -1;
-            match['S']['I'] = -2;
-            match['S']['L'] = -3;
-            match['S']['K'] = -1;
-            match['S']['M'] = -2;
-            match['S']['F'] = -2 ;
-            match['S']['P'] = -1;
-            match['S']['S'] = 4;
-            match['S']['T'] = 2;
-            match['S']['W'] = -4;
-            match['S']['Y'] = -2;
-            match['S']['V'] = -1;
-            match['S']['B'] = 0;
-            match['S']['J'] = -2;
-            match['S']['Z'] = 0;
-            match['S']['X'] = -1;
-            match['S']['*'] = -5;
-
-            match['T']['A'] = 0;
-            match['T']['R'] = -1;
-            match['T']['N'] = 0;
-            match['T']['D'] = -1;
-            match['T']['C'] = -1;
-            match['T']['Q'] = -1;
-            match['T']['E'] = -1;
-            match['T']['G'] = -2;
-            match['T']['H'] = -2 ;
-            match['T']['I'] = -1;
-            match['T']['L'] = -1;
-            match['T']['K'] = -1;
-            match['T']['M'] = -1;
-            match['T']['F'] = -1;
-            match['T']['P'] = -1;
-            match['T']['S'] = 2;
-            match['T']['T'] = 5 ;
-            match['T']['W'] = -3;
-            match['T']['Y'] = -1;
-            match['T']['V'] = 0;
-            match['T']['B'] = 0;
-            match['T']['J'] = -1;
-            match['T']['Z'] = -1;
-            match['T']['X'] = -1;
-            match['T']['*'] = -5;
-
-            match['W']['A'] = -2;
-            match['W']['R'] = -2;
-            match['W']['N'] = -4;
-            match['W']['D'] = -4;
-            match['W']['C'] = -5;
-            match['W']['Q'] = -2;
-            match['W']['E'] = -3;
-            match['W']['G'] = -2;
-            match['W']['H'] = -3;
-            match['W']['I'] = -2;
-            match['W']['L'] = -2;
-            match['W']['K'] = -2;
-            match['W']['M'] = -2;
-            match['W']['F'] = 1;
-            match['W']['P'] =-3 ;
-            match['W']['S'] = -4;
-            match['W']['T'] = -3;
-            match['W']['W'] = 15;
-            match['W']['Y'] = 3;
-            match['W']['V'] = -3;
-            match['W']['B'] = -4;
-            match['W']['J'] = -2;
-            match['W']['Z'] = -2;
-            match['W']['X'] = -1;
-            match['W']['*'] = -5;
-
-            match['Y']['A'] = -2;
-            match['Y']['R'] = -1;
-            match['Y']['N'] = -2;
-            match['Y']['D'] = -2;
-            match['Y']['C'] = -3;
-            match['Y']['Q'] = -1;
-            match['Y']['E'] = -2;
-            match['Y']['G'] = -3;
-            match['Y']['H'] = 2;
-            match['Y']['I'] = 0;
-            match['Y']['L'] = 0;
-            match['Y']['K'] = -1;
-            match['Y']['M'] = 0;
-            match['Y']['F'] = 3;
-            match['Y']['P'] = -3;
-            match['Y']['S'] = -2;
-            match['Y']['T'] = -1;
-            match['Y']['W'] = 3;
-            match['Y']['Y'] = 8;
-            match['Y']['V'] = -1;
-            match['Y']['B'] = -2;
-            match['Y']['J'] = 0;
-            match['Y']['Z'] = -2;
-            match['Y']['X'] = -1;
-            match['Y']['*'] = -5;
-
-            match['V']['A'] = 0;
-            match['V']['R'] = -2;
-            match['V']['N'] = -3;
-            match['V']['D'] = -3;
-            match['V']['C'] = -1;
-            match['V']['Q'] = -3;
-            match['V']['E'] = -3;
-            match['V']['G'] = -3;
-            match['V']['H'] = -3;
-            match['V']['I'] = 3;
-            match['V']['L'] = 1;
-            match['V']['K'] = -2;
-            match['V']['M'] = 1;
-            match['V']['F'] = 0;
-            match['V']['P'] = -3;
-            match['V']['S'] = -1;
-            match['V']['T'] = 0;
-            match['V']['W'] = -3;
-            match['V']['Y'] = -1;
-            match['V']['V'] = 5;
-            match['V']['B'] = -3;
-            match['V']['J'] = 2;
-            match['V']['Z'] = -3;
-            match['V']['X'] = -1;
-            match['V']['*'] = -5;
-
-            match['B']['A'] = -1;
-            match['B']['R'] = -1;
-            match['B']['N'] = 5;
-            match['B']['D'] = 6;
-            match['B']['C'] = -2;
-            match['B']['Q'] = 0;
-            match['B']['E'] = 1;
-            match['B']['G'] = -1;
-            match['B']['H'] = 0;
-            match['B']['I'] = -3;
-            match['B']['L'] = -3;
-            match['B']['K'] = 0;
-            match['B']['M'] = -2;
-            match['B']['F'] = -3;
-            match['B']['P'] = -2;
-            match['B']['S'] = 0;
-            match['B']['T'] = 0;
-            match['B']['W'] = -4;
-            match['B']['Y'] = -2;
-            match['B']['V'] = -3;
-            match['B']['B'] = 5;
-            match['B']['J'] = -3;
-            match['B']['Z'] = 1;
-            match['B']['X'] = -1;
-            match['B']['*'] = -5;
-
-            match['J']['A'] = -1;
-            match['J']['R'] = -3;
-            match['J']['N'] = -3;
-            match['J']['D'] = -3;
-            match['J']['C'] = -2;
-            match['J']['Q'] =  -2;
-            match['J']['E'] = -3;
-            match['J']['G'] =  -4;
-            match['J']['H'] = -2;
-            match['J']['I'] = 4;
-            match['J']['L'] = 4;
-            match['J']['K'] = -3;
-            match['J']['M'] =  2;
-            match['J']['F'] =  1 ;
-            match['J']['P'] = -3;
-            match['J']['S'] = -2;
-            match['J']['T'] = -1;
-            match['J']['W'] = -2;
-            match['J']['Y'] = 0;
-            match['J']['V'] = 2 ;
-            match['J']['B'] = -3 ;
-            match['J']['J'] = 4;
-            match['J']['Z'] = -2;
-            match['J']['X'] = -1;
-            match['J']['*'] = -5;
+    public Alignment align_traced(String s1, String s2) {
+        Alignment alignment = align(s1, s2);
+        Cigar packed = get_packed_cigar();
+        return Alignment.traced(alignment.score, -1, begin_j, begin_i, false, packed, s1, s2);
+    }
 
-            match['Z']['A'] = -1;
-            match['Z']['R'] = 1;
-            match['Z']['N'] = 0;
-            match['Z']['D'] = 1;
-            match['Z']['C'] = -3;
-            match['Z']['Q'] = 4;
-            match['Z']['E'] = 5;
-            match['Z']['G'] = -2;
-            match['Z']['H'] = 0;
-            match['Z']['I'] = -3;
-            match['Z']['L'] = -2;
-            match['Z']['K'] = 1;
-            match['Z']['M'] = -1;
-            match['Z']['F'] = -3;
-            match['Z']['P'] = -1;
-            match['Z']['S'] = 0;
-            match['Z']['T'] = -1;
-            match['Z']['W'] = -2 ;
-            match['Z']['Y'] = -2;
-            match['Z']['V'] = -3;
-            match['Z']['B'] = 1;
-            match['Z']['J'] = -2;
-            match['Z']['Z'] = 5;
-            match['Z']['X'] = -1;
-            match['Z']['*'] = -5;
+    /**
+     * Aligns two sequences given as slices of byte arrays, one character per
+     * byte, and writes the alignment traced back as by align_traced() into
+     * result. Once the aligner and the result have grown to the largest pair
+     * seen nothing is allocated.
+     *
+     * @param read The bytes of the first sequence
+     * @param read_offset The first byte of the first sequence
+     * @param read_length The length of the first sequence
+     * @param ref The bytes of the second sequence
+     * @param ref_offset The first byte of the second sequence
+     * @param ref_length The length of the second sequence
+     * @param result Receives the alignment
+     * @return result
+     */
+    @Override
+    public AlignmentResult align(byte[] read, int read_offset, int read_length, byte[] ref, int ref_offset, int ref_length,
+                                 AlignmentResult result) {
+        Workspace.load(seq1, read, read_offset, read_length);
+        Workspace.load(seq2, ref, ref_offset, ref_length);
+        fill_matrixes();
+        result.set_traced(similarity, -1, begin_j, begin_i, false, get_packed_cigar(), seq1, seq2);
+        return result;
+    }
 
-            match['X']['A'] = -1;
-            match['X']['R'] = -1;
-            match['X']['N'] = -1;
-            match['X']['D'] = -1;
-            match['X']['C'] = -1;
-            match['X']['Q'] = -1;
-            match['X']['E'] = -1;
-            match['X']['G'] = -1;
-            match['X']['H'] = -1;
-            match['X']['I'] = -1;
-            match['X']['L'] = -1;
-            match['X']['K'] = -1;
-            match['X']['M'] = -1;
-            match['X']['F'] = -1;
-            match['X']['P'] = -1;
-            match['X']['S'] = -1;
-            match['X']['T'] = -1 ;
-            match['X']['W'] = -1;
-            match['X']['Y'] = -1;
-            match['X']['V'] = -1;
-            match['X']['B'] = -1;
-            match['X']['J'] = -1;
-            match['X']['Z'] = -1;
-            match['X']['X'] = -1;
-            match['X']['*'] = -5;
+    /**
+     * Aligns two sequences given as the remaining bytes of two buffers, as
+     * align(byte[], int, int, byte[], int, int, AlignmentResult). The
+     * positions of the buffers are not moved.
+     *
+     * @param read The first sequence, from the position to the limit
+     * @param ref The second sequence, from the position to the limit
+     * @param result Receives the alignment
+     * @return result
+     */
+    @Override
+    public AlignmentResult align(ByteBuffer read, ByteBuffer ref, AlignmentResult result) {
+        Workspace.load(seq1, read);
+        Workspace.load(seq2, ref);
+        fill_matrixes();
+        result.set_traced(similarity, -1, begin_j, begin_i, false, get_packed_cigar(), seq1, seq2);
+        return result;
+    }
 
-            match['*']['A'] = -5;
-            match['*']['R'] = -5;
-            match['*']['N'] = -5;
-            match['*']['D'] = -5;
-            match['*']['C'] = -5;
-            match['*']['Q'] = -5;
-            match['*']['E'] = -5;
-            match['*']['G'] = -5;
-            match['*']['H'] = -5;
-            match['*']['I'] = -5;
-            match['*']['L'] = -5;
-            match['*']['K'] = -5;
-            match['*']['M'] = -5;
-            match['*']['F'] = -5;
-            match['*']['P'] = -5;
-            match['*']['S'] = -5;
-            match['*']['T'] = -5;
-            match['*']['W'] = -5;
-            match['*']['Y'] = -5;
-            match['*']['V'] = -5;
-            match['*']['B'] = -5;
-            match['*']['J'] = -5;
-            match['*']['Z'] = -5;
-            match['*']['X'] = -5;
-            match['*']['*'] = 1;
+    /**
+     * Fills the direction matrix of seq1 and seq2, converted into the
+     * numeric buffers of the aligner.
+     */
+    private void fill_matrixes() {
+        int qLen = seq1.length(), tLen = seq2.length();
+        query = scheme.convertSeqToNumeric(seq1, query);
+        target = scheme.convertSeqToNumeric(seq2, target);
+        int nSym = scheme.SYMBOLS;
+        if (qLen < MAX_LENGTH) {
+            score_array = Workspace.ints(score_array, qLen + 1);
+            similarity = Integer.MIN_VALUE;
+            antidiagonal = !ADAPTIVE && align_antidiagonal(query, qLen, target, tLen);
+            if (!antidiagonal) {
+                similarity = Integer.MIN_VALUE;
+                align_columns(query, qLen, target, tLen, nSym);
+            }
+        } else {
+            throw new IllegalArgumentException("The first sequence is too long for the aligner: " + qLen +
+                    " characters, the limit is " + (MAX_LENGTH - 1));
         }
     }
 
     /**
-     * Fills the the similarity and direction matrixes of the two input sequences.
-     * First sequence should not be longer than the second sequence.
+     * Decides whether the edit distance of the two input sequences is at
+     * most k, without aligning them. The computation stops as soon as the
+     * distance is known to be larger.
      *
      * @param s1 The String containing the first sequence
      * @param s2 The String containing the second sequence
+     * @param k The largest edit distance accepted
+     * @return Whether the edit distance is at most k
      */
-    public Alignment align(String s1, String s2) {
+    public boolean within_distance(String s1, String s2, int k) {
+        byte[] query = scheme.convertSeqToNumeric(s1.getBytes());
+        byte[] target = scheme.convertSeqToNumeric(s2.getBytes());
+        return filter.within_distance(query, target, scheme.SYMBOLS, k);
+    }
+
+    /**
+     * Fills the direction matrix column by column, keeping H and E of the
+     * previous column in full integers.
+     *
+     * @param query The numeric first sequence
+     * @param qLen The length of the first sequence
+     * @param target The numeric second sequence
+     * @param tLen The length of the second sequence
+     * @param nSym The number of symbols in the scoring matrix
+     */
+    private void align_columns(byte[] query, int qLen, byte[] target, int tLen, int nSym) {
         int i, j, k;
-        class EH
-        {
-            public int h;
-            public int e;
-        };
-        seq1 = s1;
-        seq2 = s2;
-        byte[] query = convertSeqToNumeric(s1.getBytes());
-        byte[] target = convertSeqToNumeric(s2.getBytes());
-        int qLen = s1.length();
-        int tLen = s2.length();
-        int nSym = lookup[256];
-        similarity = Integer.MIN_VALUE;
-        int nCol = qLen < 2*BOUND+1? qLen : 2*BOUND+1; // maximum #columns of the backtrack matrix
-        direction= new byte[nCol][tLen];
-        byte qp[][] = new byte[nSym][qLen];
-        EH eh[] = new EH[qLen+ 1];
+        int nCol = (int)Math.min(qLen, 2L * BOUND + 1); // maximum #columns of the backtrack matrix
+        directions.ensure_capacity(tLen, nCol);
+        row_cells = Workspace.bytes(row_cells, nCol);
+        band_beg = Workspace.ints(band_beg, tLen);
+        band_len = Workspace.ints(band_len, tLen);
+        qp = Workspace.bytes(qp, nSym, qLen);
+        eh_h = Workspace.ints(eh_h, qLen + 1);
+        eh_e = Workspace.ints(eh_e, qLen + 1);
         for (k = 0; k < nSym; ++k) {
             for (i = 0; i < qLen; ++i) qp[k][i] = flattenMatch[k][query[i]];
         }
-        eh[0].h = 0; eh[0].e = Integer.MIN_VALUE;
+        eh_h[0] = 0; eh_e[0] = NEG_INF;
         for (i = 1; i <= qLen && i <= BOUND; ++i) {
-            eh[i].h = 0;
-            eh[i].e = Integer.MIN_VALUE;
+            eh_h[i] = 0;
+            eh_e[i] = NEG_INF;
         }
-        for (; i <= qLen; ++i) eh[i].h = eh[i].e = Integer.MIN_VALUE; // everything is -inf outside the band
-        if (qLen < MAX_LENGTH) {
-            for (j = 0; j < tLen; ++j) { // target sequence is in the outer loop
-                int f = Integer.MIN_VALUE, h1, beg, end, t;
-                int tSym = target[i];
+        for (; i <= qLen; ++i) eh_h[i] = eh_e[i] = NEG_INF; // everything is -inf outside the band
+        int beg = 0, end = 0, best_i = 0;
+        for (j = 0; j < tLen; ++j) { // target sequence is in the outer loop
+            int f = NEG_INF, h1, t, col_max = NEG_INF;
+            int tSym = target[j];
+            if (ADAPTIVE && j > 0) {
+                // re-centre the band on the best cell of the previous column;
+                // it never moves back, as the cells behind it are gone
+                beg = Math.max(beg, best_i + 1 - BOUND);
+                end = (int)Math.min(qLen, beg + 2L * BOUND + 1);
+            } else {
                 beg = j > BOUND? j - BOUND : 0;
-                end = j + BOUND + 1 < qLen? j + BOUND + 1 : qLen; // only loop through [beg,end) of the query sequence
-                h1 = 0;
-                for (i = beg; i < end; ++i) {
-                    // At the beginning of the loop: eh[j] = { H(i-1,j-1), E(i,j) }, f = F(i,j) and h1 = H(i,j-1)
-                    // Cells are computed in the following order:
-                    //   M(i,j)   = H(i-1,j-1) + S(i,j)
-                    //   H(i,j)   = max{M(i,j), E(i,j), F(i,j)}
-                    //   E(i+1,j) = max{M(i,j)-gapo, E(i,j)} - gape
-                    //   F(i,j+1) = max{M(i,j)-gapo, F(i,j)} - gape
-                    // We have to separate M(i,j); otherwise the direction may not be recorded correctly.
-                    // However, a CIGAR like "10M3I3D10M" allowed by local() is disallowed by global().
-                    // Such a CIGAR may occur, in theory, if mismatch_penalty > 2*gap_ext_penalty + 2*gap_open_penalty/k.
-                    // In practice, this should happen very rarely given a reasonable scoring system.
-                    int h;
-                    int m = eh[i].h;
-                    int e = eh[i].e;
-                    byte d; // direction
-                    eh[i].h = h1;
-                    m += qp[tSym][i];
-                    d = (byte)(m >= e? 0 : 1);
-                    h = m >= e? m : e;
-                    d = h >= f? d : 2;
-                    h = h >= f? h : f;
-                    similarity = h > similarity? h : similarity;
-                    max_i = h > similarity? i : max_i;
-                    max_j = h > similarity? j : max_j;
-                    h1 = h;
-                    t = m - GAP_OPEN - GAP_EXT;
-                    e -= GAP_EXT;
-                    d |= e > t? 1<<2 : 0;
-                    e  = e > t? e    : t;
-                    eh[i].e = e;
-                    t = m - GAP_OPEN - GAP_EXT;
-                    f -= GAP_EXT;
-                    d |= f > t? 2<<4 : 0; // if we want to halve the memory, use one bit only, instead of two
-                    f  = f > t? f : t;
-                    direction[j][i - beg] = d; // z[i,j] keeps h for the current cell and e/f for the next cell
+                end = (int)Math.min(qLen, (long)j + BOUND + 1); // only loop through [beg,end) of the query sequence
+            }
+            band_beg[j] = beg;
+            band_len[j] = end - beg;
+            h1 = beg == 0 ? 0 : NEG_INF;
+            for (i = beg; i < end; ++i) {
+                // At the beginning of the loop: eh_h[i] = H(i-1,j-1), eh_e[i] = E(i,j), f = F(i,j) and h1 = H(i-1,j)
+                // Cells are computed in the following order:
+                //   M(i,j)   = H(i-1,j-1) + S(i,j)
+                //   H(i,j)   = max{M(i,j), E(i,j), F(i,j)}
+                //   E(i,j+1) = max{M(i,j)-gapo, E(i,j)} - gape
+                //   F(i+1,j) = max{M(i,j)-gapo, F(i,j)} - gape
+                // We have to separate M(i,j); otherwise the direction may not be recorded correctly.
+                // However, a CIGAR like "10M3I3D10M" allowed by local() is disallowed by global().
+                // Such a CIGAR may occur, in theory, if mismatch_penalty > 2*gap_ext_penalty + 2*gap_open_penalty/k.
+                // In practice, this should happen very rarely given a reasonable scoring system.
+                int h;
+                int m = eh_h[i];
+                int e = eh_e[i];
+                byte d; // direction
+                eh_h[i] = h1;
+                m += qp[tSym][i];
+                d = (byte)(m >= e? 0 : 1);
+                h = m >= e? m : e;
+                d = h >= f? d : 2;
+                h = h >= f? h : f;
+                if (h > col_max) {
+                    col_max = h;
+                    best_i = i;
                 }
+                h1 = h;
+                t = m - GAP_OPEN - GAP_EXT;
+                e -= GAP_EXT;
+                d |= (byte)(e > t? TracebackStore.LEFT_GAP : 0);
+                e  = e > t? e    : t;
+                eh_e[i] = e;
+                t = m - GAP_OPEN - GAP_EXT;
+                f -= GAP_EXT;
+                d |= (byte)(f > t? TracebackStore.UP_GAP : 0);
+                f  = f > t? f : t;
+                row_cells[i - beg] = d; // z[i,j] keeps h for the current cell and e/f for the next cell
+            }
+            directions.set_row(j, row_cells, end - beg);
+            if (col_max > similarity) {
+                similarity = col_max;
+                max_i = best_i + 1;
+                max_j = j + 1;
+            }
+            eh_h[end] = h1; eh_e[end] = NEG_INF;
+        }
+    }
 
-                eh[end].h = h1; eh[end].e = Integer.MIN_VALUE;
+    /**
+     * Fills the direction matrix along anti-diagonals with the difference
+     * recurrence of Suzuki and Kasahara (2018). Only the differences between
+     * adjacent cells are kept,
+     *   u(i,j) = H(i,j) - H(i-1,j),  v(i,j) = H(i,j) - H(i,j-1)
+     *   x(i,j) = E(i,j+1) - H(i,j),  y(i,j) = F(i+1,j) - H(i,j)
+     * which are bounded by the scoring scheme rather than by the lengths of
+     * the sequences, so all the cells of an anti-diagonal are computed in
+     * 8-bit lanes. With z(i,j) = H(i,j) - H(i-1,j-1), a = E(i,j) - H(i-1,j-1)
+     * and b = F(i,j) - H(i-1,j-1):
+     *   a = x(i,j-1) + u(i,j-1),  b = y(i-1,j) + v(i-1,j)
+     *   z = max{S(i,j), a, b}
+     *   u(i,j) = z - v(i-1,j),  v(i,j) = z - u(i,j-1)
+     *   x(i,j) = max{a, S(i,j) - gapo} - z - gape
+     *   y(i,j) = max{b, S(i,j) - gapo} - z - gape
+     * which is the recurrence of align_columns() shifted by H(i-1,j-1), so
+     * the directions are the same. The scores themselves are recovered in
+     * 32-bit lanes, H(i,j) = H(i,j-1) + v(i,j), to find the best cell.
+     * Row r of the direction matrix holds anti-diagonal r, from query
+     * position band_beg[r].
+     *
+     * @param query The numeric first sequence
+     * @param qLen The length of the first sequence
+     * @param target The numeric second sequence
+     * @param tLen The length of the second sequence
+     * @return false if the scoring scheme or the band do not suit 8-bit lanes,
+     *         or the differences left their range; align_columns() is needed then
+     */
+    private boolean align_antidiagonal(byte[] query, int qLen, byte[] target, int tLen) {
+        int i, j, r, t, st, en, prev_st = 0, h_up, best;
+        int band = (int)Math.min(BOUND, (long)qLen + tLen);
+        int min_score = 0, max_score = 0;
+        for (byte[] row : flattenMatch) {
+            for (byte score : row) {
+                min_score = Math.min(min_score, score);
+                max_score = Math.max(max_score, score);
             }
-        } else {
-            System.err.println("Sequences are too large for the aligner.");
-            System.exit(0);
         }
+        // z, u and v are kept in [-window, window], so that x, y, a and b fit
+        // in a byte as well, with -128 left for the cells outside the band
+        int window = Math.min(63, (128 + min_score - GAP_OPEN - GAP_EXT) / 2);
+        if (band < 1 || window < max_score || min_score - GAP_OPEN <= Byte.MIN_VALUE)
+            return false;
+        int lanes = BYTE_SPECIES.length();
+        int size = qLen + 1 + lanes; // slot i + 1 belongs to query position i, slot 0 to the top row
+        diff = Workspace.bytes(diff, 7, size);
+        int[] h = h_diag = Workspace.ints(h_diag, size + INT_SPECIES.length());
+        byte[] u = diff[0], x = diff[1];
+        byte[] v = diff[2], y = diff[3];
+        byte[] v_next = diff[4], y_next = diff[5], swap;
+        byte[] s = diff[6];
+        java.util.Arrays.fill(u, 0, size, (byte)0);
+        java.util.Arrays.fill(v, 0, size, (byte)0);
+        java.util.Arrays.fill(v_next, 0, size, (byte)0);
+        java.util.Arrays.fill(s, 0, size, (byte)0);
+        java.util.Arrays.fill(h, 0, size + INT_SPECIES.length(), 0);
+        java.util.Arrays.fill(x, 0, size, Byte.MIN_VALUE);
+        java.util.Arrays.fill(y, 0, size, Byte.MIN_VALUE);
+        java.util.Arrays.fill(y_next, 0, size, Byte.MIN_VALUE);
+        directions.ensure_capacity(qLen + tLen - 1, Math.min(qLen, band + 1));
+        row_cells = Workspace.bytes(row_cells, Math.min(qLen, band + 1));
+        band_beg = Workspace.ints(band_beg, qLen + tLen - 1);
+        band_len = Workspace.ints(band_len, qLen + tLen - 1);
+        ByteVector zero = ByteVector.zero(BYTE_SPECIES);
+        ByteVector gap_open = ByteVector.broadcast(BYTE_SPECIES, (byte)GAP_OPEN);
+        ByteVector gap_ext = ByteVector.broadcast(BYTE_SPECIES, (byte)GAP_EXT);
+        ByteVector low = zero, high = zero;
+        for (r = 0; r < qLen + tLen - 1; ++r) {
+            st = Math.max(Math.max(0, r - tLen + 1), Math.floorDiv(r - band + 1, 2));
+            en = Math.min(Math.min(qLen - 1, r), Math.floorDiv(r + band, 2));
+            band_beg[r] = st;
+            band_len[r] = Math.max(0, en - st + 1);
+            if (st > en)
+                continue; // the band has left the matrix
+            if (st > 0 && st - 1 < prev_st) { // H(st-1,j) lies below the band
+                v[st] = 0;
+                y[st] = Byte.MIN_VALUE;
+            }
+            for (i = st; i <= en; ++i)
+                s[i + 1] = flattenMatch[target[r - i]][query[i]];
+            for (t = st; t <= en; t += lanes) {
+                VectorMask<Byte> in_band = BYTE_SPECIES.indexInRange(t, en + 1);
+                ByteVector sc = ByteVector.fromArray(BYTE_SPECIES, s, t + 1);
+                ByteVector ul = ByteVector.fromArray(BYTE_SPECIES, u, t + 1);
+                ByteVector vu = ByteVector.fromArray(BYTE_SPECIES, v, t);
+                ByteVector a = ByteVector.fromArray(BYTE_SPECIES, x, t + 1).add(ul);
+                ByteVector b = ByteVector.fromArray(BYTE_SPECIES, y, t).add(vu);
+                ByteVector m = sc.max(a);
+                ByteVector z = m.max(b);
+                ByteVector open = sc.sub(gap_open);
+                ByteVector d = zero.blend((byte)1, sc.compare(VectorOperators.LT, a))
+                        .blend((byte)2, m.compare(VectorOperators.LT, b))
+                        .or(zero.blend((byte)TracebackStore.LEFT_GAP, a.compare(VectorOperators.GT, open)))
+                        .or(zero.blend((byte)TracebackStore.UP_GAP, b.compare(VectorOperators.GT, open)));
+                d.intoArray(row_cells, t - st, in_band);
+                ByteVector un = z.sub(vu), vn = z.sub(ul);
+                un.intoArray(u, t + 1, in_band);
+                vn.intoArray(v_next, t + 1, in_band);
+                a.max(open).sub(z).sub(gap_ext).intoArray(x, t + 1, in_band);
+                b.max(open).sub(z).sub(gap_ext).intoArray(y_next, t + 1, in_band);
+                low = low.lanewise(VectorOperators.MIN, un.min(vn), in_band);
+                high = high.lanewise(VectorOperators.MAX, un.max(vn).max(z), in_band);
+            }
+            directions.set_row(r, row_cells, band_len[r]);
+            // H(i,j) = H(i,j-1) + v(i,j), except on the upper edge of the band
+            // where H(i,j-1) is outside and H(i,j) = H(i-1,j) + u(i,j)
+            h_up = h[en];
+            int last = 2 * en - r == band && r > en ? en - 1 : en;
+            IntVector max = IntVector.broadcast(INT_SPECIES, Integer.MIN_VALUE);
+            for (t = st; t <= last; t += INT_SPECIES.length()) {
+                IntVector hn = IntVector.fromArray(INT_SPECIES, h, t + 1)
+                        .add(ByteVector.fromArray(BYTE_INT_SPECIES, v_next, t + 1).convertShape(VectorOperators.B2I, INT_SPECIES, 0));
+                VectorMask<Integer> in_band = INT_SPECIES.indexInRange(t, last + 1);
+                hn.intoArray(h, t + 1, in_band);
+                max = max.lanewise(VectorOperators.MAX, hn, in_band);
+            }
+            best = max.reduceLanes(VectorOperators.MAX);
+            if (last < en) {
+                h[en + 1] = h_up + u[en + 1];
+                best = Math.max(best, h[en + 1]);
+            }
+            if (best >= similarity) {
+                // the cell nearest to the start of the second sequence comes first
+                for (i = en; h[i + 1] != best; --i);
+                j = r - i;
+                if (best > similarity || j + 1 < max_j || (j + 1 == max_j && i + 1 < max_i)) {
+                    similarity = best;
+                    max_i = i + 1;
+                    max_j = j + 1;
+                }
+            }
+            swap = v; v = v_next; v_next = swap;
+            swap = y; y = y_next; y_next = swap;
+            prev_st = st;
+        }
+        return low.reduceLanes(VectorOperators.MIN) >= -window && high.reduceLanes(VectorOperators.MAX) <= window;
+    }
 
-        return (new Alignment((short)similarity, -1, max_j, -1, max_i));
-        /*System.out.println("m: " + m + " n: " + n);
-        System.out.println("Coordinates = "+ max_i + " " + max_j);
-        System.out.println(this.get_alignment());
-        System.out.println(this.get_cigar());
-        System.out.println("offset: "+ this.get_offset());
-        System.out.println(similarity_score+ "\n");*/
+    /**
+     * Gives the move that led to a cell of the alignment path.
+     *
+     * @param i The 1-based position in the first sequence
+     * @param j The 1-based position in the second sequence
+     * @param which The move taken from the next cell of the path, to follow gaps
+     * @return 0 for a match/mismatch, 1 for a deletion and 2 for an insertion
+     */
+    private int trace_move(int i, int j, int which) {
+        if (j == 0)
+            return 2;
+        if (i == 0)
+            return 0;
+        int row = antidiagonal ? i + j - 2 : j - 1;
+        int k = i - 1 - band_beg[row];
+        if (k < 0 || k >= band_len[row])
+            return 0;
+        return TracebackStore.move(directions.get(row, k), which);
     }
 
     /**
@@ -2360,8 +531,8 @@ public class SequenceAlignment {
      * @return the alignment string which may contains some gaps.
      */
     public String get_alignment() {
-        int i, j;
-        int range[] = new int[]{1,max_i, max_j};
+        int i, j, which = 0;
+        int range[] = new int[]{1, max_i, 1, max_j};
         StringBuilder subject = new StringBuilder();
         StringBuilder query = new StringBuilder();
         subject.setLength(0);
@@ -2373,34 +544,35 @@ public class SequenceAlignment {
         while (i > 0 && j > 0) {
             if (CLIPPING_STRIGENCY > 0 && i < range[0])
                 break;
-            if (direction[i][j] == 'I') {
+            which = trace_move(i, j, which);
+            if (which == 2) {
                 query.append( seq1.charAt(i-1) );
                 subject.append( '-' );
                 i = i - 1;
-                j = j + 1;
-            } else if (direction[i][j] == 'D') {
+            } else if (which == 1) {
                 query.append( '-' );
-                subject.append( seq2.charAt(j+i-2) );
+                subject.append( seq2.charAt(j-1) );
                 j = j - 1;
             } else {
                 query.append( seq1.charAt(i-1) );
-                subject.append( seq2.charAt(j+i-2) );
+                subject.append( seq2.charAt(j-1) );
                 i = i - 1;
+                j = j - 1;
             }
         }
         if (CLIPPING_STRIGENCY > 0) {
-            for (;i > 0 && j > 1; --i, --j) {
+            for (;i > 0 && j > 0; --i, --j) {
                 query.append( seq1.charAt(i-1) );
-                subject.append( seq2.charAt(j+i-2) );
+                subject.append( seq2.charAt(j-1) );
             }
         }
         for (;i > 0; --i) {
             query.append( seq1.charAt(i-1) );
             subject.append( '-' );
         }
-        for (;j > 1; --j) {
+        for (;j > 0; --j) {
             query.append( '-' );
-            subject.append( seq2.charAt(i+j-2) );
+            subject.append( seq2.charAt(j-1) );
         }
         return subject.reverse() + "\n" + query.reverse();
     }
@@ -2493,25 +665,29 @@ public class SequenceAlignment {
      *         in the first and second sequences aligned.
      */
     public int[] calculate_clip_range() {
-        int i, j, k, x, which, max_ending_here, max_so_far, tmp_start, tmp_stop;
-        int range[] = new int[4];
+        return calculate_clip_range(new int[4]);
+    }
+
+    /**
+     * @param range Receives [from1, to1, from2, to2]
+     * @return range
+     */
+    private int[] calculate_clip_range(int[] range) {
+        int i, j, x, which, max_ending_here, max_so_far, tmp_start, tmp_stop;
 
         x = i = max_i;
         j = max_j;
-        k = (j + BOUND + 1 < seq1.length()? j + BOUND + 1 : seq1.length()) - 1;
         which = 0;
         while (i > 0 && j > 0){
-            which = direction[j][(k - (j > BOUND? j - BOUND : 0))] >> (which<<1) & 3;
+            which = trace_move(i, j, which);
             if (which == 2){
                 score_array[x--] = insertion_penalty;
-                k = k - 1;
                 i = i - 1;
             } else if (which == 1){
                 j = j - 1;
             } else {
                 score_array[x--] = seq1.charAt(i-1) == seq2.charAt(j-1) ? 1 : mismatch_penalty;
                 j = j - 1;
-                k = k - 1;
                 i = i - 1;
             }
         }
@@ -2536,7 +712,6 @@ public class SequenceAlignment {
         }
         i = max_i;
         j = max_j;
-        k = (j + BOUND + 1 < seq1.length()? j + BOUND + 1 : seq1.length()) - 1;
         which = 0;
         while (i > 0 && j > 0) {
             if (i == range[1]) {
@@ -2545,17 +720,13 @@ public class SequenceAlignment {
             if (i == range[0]) {
                 range[2] = j;
             }
-            which = direction[j][(k - (j > BOUND? j - BOUND : 0))] >> (which<<1) & 3;
+            which = trace_move(i, j, which);
             if (which == 2){
-                score_array[x--] = insertion_penalty;
-                k = k - 1;
                 i = i - 1;
             } else if (which == 1){
                 j = j - 1;
             } else {
-                score_array[x--] = seq1.charAt(i-1) == seq2.charAt(j-1) ? 1 : mismatch_penalty;
                 j = j - 1;
-                k = k - 1;
                 i = i - 1;
             }
         }
@@ -2568,23 +739,34 @@ public class SequenceAlignment {
      * @return  The SAM cigar string of the alignment.
      */
     public String get_cigar() {
-        int i, j, move_counts, count, identicals = 0;
+        return get_packed_cigar().toString();
+    }
+
+    /**
+     * Calculates the cigar of the alignment, packed as in BAM, without
+     * making its string.
+     *
+     * @return The cigar of the alignment, which is overwritten by the next call
+     */
+    public Cigar get_packed_cigar() {
+        int i, j, move_counts, identicals = 0;
         int range[];
-        char curr_move, prev_move, operation;
+        char curr_move, prev_move;
         insertions = deletions = 0;
-        operation_stack.clear();
-        count_stack.clear();
-        cigar.setLength(0);
+        cigar.clear();
         if (CLIPPING_STRIGENCY > 0) {
-            range = calculate_clip_range();
+            range = calculate_clip_range(range_buffer);
             if (seq1.length() - range[1] > 0) {
-                operation_stack.push('S');
-                count_stack.push(seq1.length() - range[1]);
+                cigar.push('S', seq1.length() - range[1]);
             }
             prev_move = 'M';
             move_counts = 1;
         } else {
-            range = new int[]{1, max_i, 1, max_j + max_i - 1};
+            range = range_buffer;
+            range[0] = 1;
+            range[1] = max_i;
+            range[2] = 1;
+            range[3] = max_j;
             prev_move = 'M';
             move_counts = range[1] < seq1.length() ? seq1.length() - range[1] + 1 : 1;
         }
@@ -2601,18 +783,16 @@ public class SequenceAlignment {
         i = range[1] - 1;
         j = range[3] - 1;
 
-        int k = (j + BOUND + 1 < seq1.length()? j + BOUND + 1 : seq1.length()) - 1; // (i,k) points to the last cell
         int which = 0;
         boolean first_time = true;
 
         boolean DEBUG = true;
 
         while (i >= range[0]){
-            which = direction[j][(k - (j > BOUND? j - BOUND : 0))] >> (which<<1) & 3;
+            which = trace_move(i, j, which);
             //System.out.println(String.format("direction:%d, which:%d, i:%d, j:%d", direction[i][j], which, i, j));
             //System.out.flush();
             if (which == 2){
-                k = k - 1;
                 i = i - 1;
                 ++insertions;
                 curr_move = 'I';
@@ -2634,7 +814,6 @@ public class SequenceAlignment {
                     curr_move = 'M';
                 }
                 j = j - 1;
-                k = k - 1;
                 i = i - 1;
             }
 
@@ -2646,8 +825,7 @@ public class SequenceAlignment {
                     ++move_counts;
 
                 else {
-                    operation_stack.push(prev_move);
-                    count_stack.push(move_counts);
+                    cigar.push(prev_move, move_counts);
                     move_counts = 1;
                 }
                 prev_move = curr_move;
@@ -2655,30 +833,28 @@ public class SequenceAlignment {
 
         }
         offset = j - i;
+        begin_i = i;
+        begin_j = j;
         if (CLIPPING_STRIGENCY > 0) {
-            operation_stack.push(prev_move);
-            count_stack.push(move_counts);
+            cigar.push(prev_move, move_counts);
             if (i > 0) {
-                operation_stack.push('S');
-                count_stack.push(i);
+                cigar.push('S', i);
                 offset += i;
             }
         } else {
-            if (prev_move == 'M')
+            if (prev_move == 'M') {
                 move_counts += i;
-            operation_stack.push(prev_move);
-            count_stack.push(move_counts);
-        }
-        while (!operation_stack.isEmpty()) {
-            operation = operation_stack.pop();
-            count = count_stack.pop();
-            cigar.append(count).append(operation);
+                begin_i = 0;
+                begin_j = j - i;
+            }
+            cigar.push(prev_move, move_counts);
         }
+        cigar.reverse();
         for (; i > 0 && j > 0; --i, --j)
             if (seq1.charAt(i-1) == seq2.charAt(j-1))
                 identicals++;
         identity = ((double)identicals) / (seq1.length() + deletions);
-        return cigar.toString();
+        return cigar;
     }
 
     /**
@@ -2714,53 +890,4 @@ public class SequenceAlignment {
     public int get_deletions() {
         return deletions;
     }
-
-    /**
-     * Converts an ASCII scoring matrix into numeric successive 0-based values
-     */
-    private static void convertSymToNumeric() {
-        for (int i = 0; i < match.length; i++) {
-            for (int j = 0; j < match[i].length; j++) {
-                int b = match[i][j] > 0 ? i : 0;
-                if (lookup[b] == -1 && b != 0) {
-                    lookup[b] = lookup[256]++;
-                }
-            }
-        }
-    }
-
-    /**
-     * Converts an ASCII sequence into numeric successive 0-based values
-     * @param sequence ASCII sequence
-     * @return numeric sequence
-     */
-    private static byte[] convertSeqToNumeric(byte[] sequence) {
-        byte[] numericSeq = new byte[sequence.length];
-        for (int i = 0; i < sequence.length; i++) {
-            int b = sequence[i];
-            if (lookup[b] == -1) {
-                lookup[b] = lookup[256]++;
-            }
-            numericSeq[i] = (byte)lookup[b];
-        }
-        return numericSeq;
-    }
-    /**
-     * Generates a flattened scoring matrix
-     */
-    private static void flatten(int size) {
-        for (int i = 0; i < match.length; i++) {
-            int newi = lookup[i];
-            if (newi == -1) continue;
-            for (int j = 0; j < match[i].length; j++) {
-                int newj = lookup[j];
-                if (newj == -1) continue;
-                int score = match[i][j];
-                if (score < Byte.MIN_VALUE || score > Byte.MAX_VALUE) {
-                    throw new IllegalArgumentException("Scoring matrix values must fit into signed 8-bit integer");
-                }
-                flattenMatch[newi][newj] = (byte)score;
-            }
-        }
-    }
 }
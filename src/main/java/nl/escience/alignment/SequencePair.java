@@ -0,0 +1,32 @@
+package nl.escience.alignment;
+
+/**
+ * Two sequences to be aligned to each other
+ */
+public class SequencePair {
+    /**
+     * The first sequence, aligned from its start as the query
+     */
+    public final String seq1;
+    /**
+     * The second sequence, the target
+     */
+    public final String seq2;
+
+    public SequencePair(String seq1, String seq2) {
+        this.seq1 = seq1;
+        this.seq2 = seq2;
+    }
+
+    /**
+     * @return The number of cells of the similarity matrix of the pair
+     */
+    public long cells() {
+        return (long)seq1.length() * seq2.length();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("seq1=%s,seq2=%s", seq1, seq2);
+    }
+}
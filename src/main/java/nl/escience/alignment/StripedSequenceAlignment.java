@@ -0,0 +1,443 @@
+package nl.escience.alignment;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Pure-Java striped Smith-Waterman alignment (Farrar) on top of the Vector API.
+ * Mirrors the kernel of the native SSW library, so it can be used wherever
+ * LocalSequenceAlignment.alignNative is used, without the native library.
+ *
+ * The vector species are the preferred ones of the running platform, so the
+ * same class files use 128, 256 or 512-bit registers depending on the host.
+ *
+ * Like the score_size of SSW, the alignment starts in the narrowest lanes that
+ * can hold its scores and is repeated with wider lanes when they saturate.
+ * Since the scores are not floored at zero, they can go as low as the lowest
+ * substitution score times the length of the shorter sequence; that bound
+ * decides the narrowest usable width, while the highest score reached is
+ * checked after every column. So the 8-bit lanes are only tried when the
+ * shorter sequence is very short: up to 26 symbols with NUCC.1 (-4, gaps
+ * 20 and 3) and up to 28 with BLOSUM62 (-4, gaps 11 and 1). Ordinary reads
+ * of 100 bp or more start in 16-bit lanes, which hold sequences of up to
+ * about 8000 symbols, and 32-bit lanes are used beyond that.
+ *
+ * The striped loop is shared by all widths; only the column kernel is
+ * written out per width, in a subclass of Lanes.
+ */
+public class StripedSequenceAlignment {
+
+    /**
+     * Vector species picked at runtime, for each score width
+     */
+    public static final VectorSpecies<Byte> BYTE_SPECIES = ByteVector.SPECIES_PREFERRED;
+    public static final VectorSpecies<Short> SHORT_SPECIES = ShortVector.SPECIES_PREFERRED;
+    public static final VectorSpecies<Integer> INT_SPECIES = IntVector.SPECIES_PREFERRED;
+
+    private StripedSequenceAlignment() {
+    }
+
+    /**
+     * Does striped Smith-Waterman alignment of two numeric sequences, in the
+     * narrowest score width that gives the exact result.
+     *
+     * @param read the query sequence; the query sequence needs to be numbers
+     * @param flattenedMatch the substitution matrix; needs to be corresponding to the read sequence
+     * @param n the square root of the number of elements in flattenedMatch
+     * @param ref the target sequence; needs to be numbers corresponding to flattenedMatch
+     * @param gapOpen the absolute value of gap open penalty.
+     * @param gapExtend the absolute value of gap extension penalty.
+     * @return Smith-Waterman alignment
+     */
+    public static Alignment align(byte[] read, byte[] flattenedMatch, int n, byte[] ref, int gapOpen, int gapExtend) {
+        int i, min_score = 0, max_score = 0;
+        for (i = 0; i < n * n; i++) {
+            min_score = Math.min(min_score, flattenedMatch[i]);
+            max_score = Math.max(max_score, flattenedMatch[i]);
+        }
+        // lowest reachable score, and the room needed below it for one subtraction
+        long lowest = (long)min_score * Math.min(read.length, ref.length);
+        int margin = Math.max(gapOpen + gapExtend, -min_score);
+        Alignment alignment = null;
+        if (lowest > Byte.MIN_VALUE + margin)
+            alignment = align_lanes(new ByteLanes(n, read.length), read, flattenedMatch, n, ref, gapOpen, gapExtend,
+                    Byte.MIN_VALUE + margin, Byte.MAX_VALUE - max_score);
+        if (alignment == null && lowest > Short.MIN_VALUE + margin)
+            alignment = align_lanes(new ShortLanes(n, read.length), read, flattenedMatch, n, ref, gapOpen, gapExtend,
+                    Short.MIN_VALUE + margin, Short.MAX_VALUE - max_score);
+        if (alignment == null)
+            alignment = align_lanes(new IntLanes(n, read.length), read, flattenedMatch, n, ref, gapOpen, gapExtend,
+                    Integer.MIN_VALUE / 2, Long.MAX_VALUE);
+        return alignment;
+    }
+
+    /**
+     * In the striped query profile of the read, segment j of symbol nt
+     * starts at (nt * segLen + j) * lanes.
+     *
+     * @return the length of a segment
+     */
+    private static int profile_segments(int readLen, int lanes) {
+        return (readLen + lanes - 1) / lanes;
+    }
+
+    /**
+     * @return the score of lane segNum of segment i of symbol nt in the profile
+     */
+    private static int profile_score(byte[] read, byte[] flattenedMatch, int n, int nt, int i, int segNum, int segLen) {
+        int j = i + segNum * segLen;
+        return j >= read.length ? 0 : flattenedMatch[nt * n + read[j]];
+    }
+
+    /**
+     * @return the 1-based ending position on the read of the best score in the
+     * stored column, converted from the striped layout
+     */
+    private static int end_read(int[] column, int best, int lanes, int segLen, int readLen) {
+        int i, temp, end = readLen - 1;
+        for (i = 0; i < column.length; i++) {
+            if (column[i] == best) {
+                temp = i / lanes + i % lanes * segLen;
+                if (temp < end)
+                    end = temp;
+            }
+        }
+        return end + 1;
+    }
+
+    /**
+     * Striped alignment in the lanes of one score width.
+     *
+     * @param buffers the buffers and column kernel of the width
+     * @param floor value used as minus infinity; subtractions are clamped to it
+     * @param limit scores from which the next addition could overflow
+     * @return the alignment, or null when the scores reached the limit
+     */
+    private static Alignment align_lanes(Lanes buffers, byte[] read, byte[] flattenedMatch, int n, byte[] ref,
+                                         int gapOpen, int gapExtend, int floor, long limit) {
+        int lanes = buffers.lanes, segLen = buffers.segLen, stride = buffers.stride;
+        int i, j, k, t, end_ref = 0;
+        long temp, max = Long.MIN_VALUE;
+        for (t = 0, i = 0; i < n; i++)
+            for (j = 0; j < segLen; j++)
+                for (k = 0; k < lanes; k++)
+                    buffers.set_profile(t++, profile_score(read, flattenedMatch, n, i, j, k, segLen));
+        buffers.clear(floor);
+
+        for (i = 0; i < ref.length; i++) {
+            temp = buffers.column(ref[i] * stride, floor, gapOpen + gapExtend, gapExtend);
+            if (temp >= limit)
+                return null;
+            if (temp > max) {
+                max = temp;
+                end_ref = i;
+                buffers.save();
+            }
+        }
+
+        int[] column = new int[stride];
+        for (i = 0; i < stride; i++)
+            column[i] = buffers.saved(i);
+        return new Alignment((int)max, -1, end_ref + 1, -1, end_read(column, (int)max, lanes, segLen, read.length));
+    }
+
+    /**
+     * The buffers of a striped alignment in lanes of one score width, and the
+     * kernel filling its columns. The kernel is written out for each width,
+     * as the Vector API only compiles into vector instructions for a constant
+     * species.
+     */
+    private static abstract class Lanes {
+        final int lanes, segLen, stride;
+
+        Lanes(int lanes, int readLen) {
+            this.lanes = lanes;
+            segLen = profile_segments(readLen, lanes);
+            stride = segLen * lanes;
+        }
+
+        /**
+         * Sets lane index of the striped query profile.
+         */
+        abstract void set_profile(int index, int score);
+
+        /**
+         * Sets the E values and the best scores to floor.
+         */
+        abstract void clear(int floor);
+
+        /**
+         * Fills the next column, with the lazy-F loop.
+         *
+         * @param p the offset of the profile of the symbol of the column
+         * @return the best score so far when it grew in this column,
+         *         otherwise Long.MIN_VALUE
+         */
+        abstract long column(int p, int floor, int gapOE, int gapE);
+
+        /**
+         * Keeps the column just filled as the one of the best score.
+         */
+        abstract void save();
+
+        /**
+         * @return lane index of the kept column
+         */
+        abstract int saved(int index);
+    }
+
+    private static final class ByteLanes extends Lanes {
+        private final byte[] profile, hMax, eArray, maxScore;
+        private byte[] hStore, hLoad;
+
+        ByteLanes(int n, int readLen) {
+            super(BYTE_SPECIES.length(), readLen);
+            profile = new byte[n * stride];
+            hStore = new byte[stride];
+            hLoad = new byte[stride];
+            hMax = new byte[stride];
+            eArray = new byte[stride];
+            maxScore = new byte[lanes];
+        }
+
+        void set_profile(int index, int score) {
+            profile[index] = (byte)score;
+        }
+
+        void clear(int floor) {
+            java.util.Arrays.fill(eArray, (byte)floor);
+            java.util.Arrays.fill(maxScore, (byte)floor);
+        }
+
+        long column(int p, int floor, int gapOE, int gapE) {
+            int j, k, t;
+            byte[] profile = this.profile, eArray = this.eArray, hStore = hLoad, hLoad = this.hStore;
+            ByteVector vNeg = ByteVector.broadcast(BYTE_SPECIES, (byte)floor);
+            ByteVector vGapOE = ByteVector.broadcast(BYTE_SPECIES, (byte)gapOE);
+            ByteVector vGapE = ByteVector.broadcast(BYTE_SPECIES, (byte)gapE);
+            ByteVector vF = vNeg, vMaxColumn = vNeg, vE;
+            // shift the last segment of the previous column one lane up, inserting 0
+            ByteVector vH = ByteVector.fromArray(BYTE_SPECIES, hLoad, stride - lanes).unslice(1);
+            this.hStore = hStore;
+            this.hLoad = hLoad;
+
+            for (j = 0; j < segLen; j++) {
+                t = j * lanes;
+                vH = vH.add(ByteVector.fromArray(BYTE_SPECIES, profile, p + t));
+                vE = ByteVector.fromArray(BYTE_SPECIES, eArray, t);
+                vH = vH.max(vE).max(vF);
+                vMaxColumn = vMaxColumn.max(vH);
+                vH.intoArray(hStore, t);
+
+                vH = vH.sub(vGapOE).max(vNeg);
+                vE = vE.sub(vGapE).max(vNeg).max(vH);
+                vE.intoArray(eArray, t);
+                vF = vF.sub(vGapE).max(vNeg).max(vH);
+
+                vH = ByteVector.fromArray(BYTE_SPECIES, hLoad, t);
+            }
+
+            // Lazy-F loop
+            lazy_f:
+            for (k = 0; k < lanes; k++) {
+                vF = vF.unslice(1);
+                for (j = 0; j < segLen; j++) {
+                    t = j * lanes;
+                    vH = ByteVector.fromArray(BYTE_SPECIES, hStore, t).max(vF);
+                    vMaxColumn = vMaxColumn.max(vH);
+                    vH.intoArray(hStore, t);
+                    vH = vH.sub(vGapOE).max(vNeg);
+                    vF = vF.sub(vGapE).max(vNeg);
+                    if (!vF.compare(VectorOperators.GT, vH).anyTrue())
+                        break lazy_f;
+                }
+            }
+
+            ByteVector vMaxScore = ByteVector.fromArray(BYTE_SPECIES, maxScore, 0);
+            vMaxColumn = vMaxColumn.max(vMaxScore);
+            if (vMaxColumn.eq(vMaxScore).allTrue())
+                return Long.MIN_VALUE;
+            vMaxColumn.intoArray(maxScore, 0);
+            return vMaxColumn.reduceLanes(VectorOperators.MAX);
+        }
+
+        void save() {
+            System.arraycopy(hStore, 0, hMax, 0, stride);
+        }
+
+        int saved(int index) {
+            return hMax[index];
+        }
+    }
+
+    private static final class ShortLanes extends Lanes {
+        private final short[] profile, hMax, eArray, maxScore;
+        private short[] hStore, hLoad;
+
+        ShortLanes(int n, int readLen) {
+            super(SHORT_SPECIES.length(), readLen);
+            profile = new short[n * stride];
+            hStore = new short[stride];
+            hLoad = new short[stride];
+            hMax = new short[stride];
+            eArray = new short[stride];
+            maxScore = new short[lanes];
+        }
+
+        void set_profile(int index, int score) {
+            profile[index] = (short)score;
+        }
+
+        void clear(int floor) {
+            java.util.Arrays.fill(eArray, (short)floor);
+            java.util.Arrays.fill(maxScore, (short)floor);
+        }
+
+        long column(int p, int floor, int gapOE, int gapE) {
+            int j, k, t;
+            short[] profile = this.profile, eArray = this.eArray, hStore = hLoad, hLoad = this.hStore;
+            ShortVector vNeg = ShortVector.broadcast(SHORT_SPECIES, (short)floor);
+            ShortVector vGapOE = ShortVector.broadcast(SHORT_SPECIES, (short)gapOE);
+            ShortVector vGapE = ShortVector.broadcast(SHORT_SPECIES, (short)gapE);
+            ShortVector vF = vNeg, vMaxColumn = vNeg, vE;
+            // shift the last segment of the previous column one lane up, inserting 0
+            ShortVector vH = ShortVector.fromArray(SHORT_SPECIES, hLoad, stride - lanes).unslice(1);
+            this.hStore = hStore;
+            this.hLoad = hLoad;
+
+            for (j = 0; j < segLen; j++) {
+                t = j * lanes;
+                vH = vH.add(ShortVector.fromArray(SHORT_SPECIES, profile, p + t));
+                vE = ShortVector.fromArray(SHORT_SPECIES, eArray, t);
+                vH = vH.max(vE).max(vF);
+                vMaxColumn = vMaxColumn.max(vH);
+                vH.intoArray(hStore, t);
+
+                vH = vH.sub(vGapOE).max(vNeg);
+                vE = vE.sub(vGapE).max(vNeg).max(vH);
+                vE.intoArray(eArray, t);
+                vF = vF.sub(vGapE).max(vNeg).max(vH);
+
+                vH = ShortVector.fromArray(SHORT_SPECIES, hLoad, t);
+            }
+
+            // Lazy-F loop
+            lazy_f:
+            for (k = 0; k < lanes; k++) {
+                vF = vF.unslice(1);
+                for (j = 0; j < segLen; j++) {
+                    t = j * lanes;
+                    vH = ShortVector.fromArray(SHORT_SPECIES, hStore, t).max(vF);
+                    vMaxColumn = vMaxColumn.max(vH);
+                    vH.intoArray(hStore, t);
+                    vH = vH.sub(vGapOE).max(vNeg);
+                    vF = vF.sub(vGapE).max(vNeg);
+                    if (!vF.compare(VectorOperators.GT, vH).anyTrue())
+                        break lazy_f;
+                }
+            }
+
+            ShortVector vMaxScore = ShortVector.fromArray(SHORT_SPECIES, maxScore, 0);
+            vMaxColumn = vMaxColumn.max(vMaxScore);
+            if (vMaxColumn.eq(vMaxScore).allTrue())
+                return Long.MIN_VALUE;
+            vMaxColumn.intoArray(maxScore, 0);
+            return vMaxColumn.reduceLanes(VectorOperators.MAX);
+        }
+
+        void save() {
+            System.arraycopy(hStore, 0, hMax, 0, stride);
+        }
+
+        int saved(int index) {
+            return hMax[index];
+        }
+    }
+
+    private static final class IntLanes extends Lanes {
+        private final int[] profile, hMax, eArray, maxScore;
+        private int[] hStore, hLoad;
+
+        IntLanes(int n, int readLen) {
+            super(INT_SPECIES.length(), readLen);
+            profile = new int[n * stride];
+            hStore = new int[stride];
+            hLoad = new int[stride];
+            hMax = new int[stride];
+            eArray = new int[stride];
+            maxScore = new int[lanes];
+        }
+
+        void set_profile(int index, int score) {
+            profile[index] = score;
+        }
+
+        void clear(int floor) {
+            java.util.Arrays.fill(eArray, floor);
+            java.util.Arrays.fill(maxScore, floor);
+        }
+
+        long column(int p, int floor, int gapOE, int gapE) {
+            int j, k, t;
+            int[] profile = this.profile, eArray = this.eArray, hStore = hLoad, hLoad = this.hStore;
+            IntVector vNeg = IntVector.broadcast(INT_SPECIES, floor);
+            IntVector vGapOE = IntVector.broadcast(INT_SPECIES, gapOE);
+            IntVector vGapE = IntVector.broadcast(INT_SPECIES, gapE);
+            IntVector vF = vNeg, vMaxColumn = vNeg, vE;
+            // shift the last segment of the previous column one lane up, inserting 0
+            IntVector vH = IntVector.fromArray(INT_SPECIES, hLoad, stride - lanes).unslice(1);
+            this.hStore = hStore;
+            this.hLoad = hLoad;
+
+            for (j = 0; j < segLen; j++) {
+                t = j * lanes;
+                vH = vH.add(IntVector.fromArray(INT_SPECIES, profile, p + t));
+                vE = IntVector.fromArray(INT_SPECIES, eArray, t);
+                vH = vH.max(vE).max(vF);
+                vMaxColumn = vMaxColumn.max(vH);
+                vH.intoArray(hStore, t);
+
+                vH = vH.sub(vGapOE).max(vNeg);
+                vE = vE.sub(vGapE).max(vNeg).max(vH);
+                vE.intoArray(eArray, t);
+                vF = vF.sub(vGapE).max(vNeg).max(vH);
+
+                vH = IntVector.fromArray(INT_SPECIES, hLoad, t);
+            }
+
+            // Lazy-F loop
+            lazy_f:
+            for (k = 0; k < lanes; k++) {
+                vF = vF.unslice(1);
+                for (j = 0; j < segLen; j++) {
+                    t = j * lanes;
+                    vH = IntVector.fromArray(INT_SPECIES, hStore, t).max(vF);
+                    vMaxColumn = vMaxColumn.max(vH);
+                    vH.intoArray(hStore, t);
+                    vH = vH.sub(vGapOE).max(vNeg);
+                    vF = vF.sub(vGapE).max(vNeg);
+                    if (!vF.compare(VectorOperators.GT, vH).anyTrue())
+                        break lazy_f;
+                }
+            }
+
+            IntVector vMaxScore = IntVector.fromArray(INT_SPECIES, maxScore, 0);
+            vMaxColumn = vMaxColumn.max(vMaxScore);
+            if (vMaxColumn.eq(vMaxScore).allTrue())
+                return Long.MIN_VALUE;
+            vMaxColumn.intoArray(maxScore, 0);
+            return vMaxColumn.reduceLanes(VectorOperators.MAX);
+        }
+
+        void save() {
+            System.arraycopy(hStore, 0, hMax, 0, stride);
+        }
+
+        int saved(int index) {
+            return hMax[index];
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package nl.escience.alignment;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The directions of a traceback, in one flat memory segment shared by the
+ * traceback engines of all the aligners. Outside the Java heap, it lets the
+ * alignment of sequences of tens of thousands of characters neither need a
+ * giant heap nor slow down the garbage collector; the aligners keep one on
+ * the heap for the pairs they are sized for.
+ *
+ * Every cell takes 4 bits: the move that led to it in the lower 2 bits
+ * (MATCH, DELETION or INSERTION), then LEFT_GAP and UP_GAP, whether the gap
+ * to its left and the gap above it are extended rather than opened. Two
+ * cells of a row share a byte, the even columns in the lower half, so
+ * blocks of an even number of columns starting at an even column fill
+ * bytes of their own and can be filled by different threads.
+ *
+ * The segment grows like the arrays of Workspace. Outside the heap it
+ * belongs to an arena of the store and its memory is freed by close(). A
+ * store may be backed by a scratch file, which is mapped instead of
+ * allocating memory and deleted on close. A store is used by one aligner
+ * at a time.
+ *
+ * The memory of a store that is not file-backed counts against the limit of
+ * direct memory, -XX:MaxDirectMemorySize, which is the heap size by default.
+ */
+public final class TracebackStore implements AutoCloseable {
+
+    static final int MATCH = 0;
+    static final int DELETION = 1;
+    static final int INSERTION = 2;
+    static final int LEFT_GAP = 1 << 2;
+    static final int UP_GAP = 1 << 3;
+
+    private final Path directory;
+    private final boolean heap;
+    private Path file;
+    private Arena arena;
+    private MemorySegment cells;
+    private long stride;
+
+    /**
+     * Initializes a store in memory outside the heap.
+     */
+    public TracebackStore() {
+        this(null, false);
+    }
+
+    /**
+     * Initializes a store backed by a scratch file.
+     *
+     * @param directory The directory of the scratch file, for instance on a
+     *                  local disk with more room than the memory; null keeps
+     *                  the store in memory
+     */
+    public TracebackStore(Path directory) {
+        this(directory, false);
+    }
+
+    private TracebackStore(Path directory, boolean heap) {
+        this.directory = directory;
+        this.heap = heap;
+        cells = MemorySegment.NULL;
+    }
+
+    /**
+     * @return A store on the Java heap, as the aligners keep for the pairs they are sized for
+     */
+    static TracebackStore on_heap() {
+        return new TracebackStore(null, true);
+    }
+
+    /**
+     * Makes room for the cells of a matrix, rows and columns counted from
+     * 0. The cells are not cleared.
+     *
+     * @param rows The number of rows
+     * @param cols The number of columns
+     */
+    void ensure_capacity(int rows, int cols) {
+        long needed;
+        stride = ((long)cols + 1) / 2;
+        needed = Math.max(1, stride * rows);
+        if (cells.byteSize() >= needed)
+            return;
+        needed = Math.max(needed, cells.byteSize() + (cells.byteSize() >> 1));
+        release();
+        if (heap) {
+            if (stride * rows > Integer.MAX_VALUE - 8)
+                throw new IllegalArgumentException("The traceback does not fit in an array; use an aligner with a TracebackStore");
+            cells = MemorySegment.ofArray(new byte[(int)Math.min(needed, Integer.MAX_VALUE - 8)]);
+            return;
+        }
+        arena = Arena.ofShared();
+        if (directory == null) {
+            cells = arena.allocate(needed);
+        } else {
+            try {
+                file = Files.createTempFile(directory, "traceback", ".bin");
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                    cells = channel.map(FileChannel.MapMode.READ_WRITE, 0, needed, arena);
+                }
+            } catch (IOException e) {
+                release();
+                throw new UncheckedIOException("Cannot map the traceback file", e);
+            }
+        }
+    }
+
+    /**
+     * Sets the directions of a cell. Cells sharing a byte must be set by the
+     * same thread.
+     *
+     * @param i The row of the cell
+     * @param j The column of the cell
+     * @param cell The move, LEFT_GAP and UP_GAP
+     */
+    void set(int i, int j, int cell) {
+        long at = i * stride + (j >> 1);
+        byte b = cells.get(ValueLayout.JAVA_BYTE, at);
+        if ((j & 1) == 0)
+            b = (byte)((b & 0xf0) | cell);
+        else
+            b = (byte)((b & 0x0f) | cell << 4);
+        cells.set(ValueLayout.JAVA_BYTE, at, b);
+    }
+
+    /**
+     * Sets the directions of the first cells of a row, two by two.
+     *
+     * @param i The row
+     * @param row The directions of the cells, one per byte
+     * @param length The number of cells
+     */
+    void set_row(int i, byte[] row, int length) {
+        long at = i * stride;
+        int j;
+        for (j = 0; j + 1 < length; j += 2)
+            cells.set(ValueLayout.JAVA_BYTE, at + (j >> 1), (byte)(row[j] | row[j + 1] << 4));
+        if (j < length)
+            cells.set(ValueLayout.JAVA_BYTE, at + (j >> 1), row[j]);
+    }
+
+    /**
+     * @param i The row of the cell
+     * @param j The column of the cell
+     * @return The move, LEFT_GAP and UP_GAP of the cell
+     */
+    int get(int i, int j) {
+        return cells.get(ValueLayout.JAVA_BYTE, i * stride + (j >> 1)) >> ((j & 1) << 2) & 0xf;
+    }
+
+    /**
+     * Follows the path through a cell.
+     *
+     * @param cell The directions of the cell
+     * @param which The move taken from the next cell of the path, to follow gaps
+     * @return The move that led to the cell along the path: MATCH, DELETION or INSERTION
+     */
+    static int move(int cell, int which) {
+        if (which == MATCH)
+            return cell & 3;
+        return (cell >> 2) & which;
+    }
+
+    /**
+     * @return The number of bytes held by the store
+     */
+    public long byte_size() {
+        return cells.byteSize();
+    }
+
+    /**
+     * Frees the memory of the store, and deletes its scratch file. The store
+     * grows again if it is used afterwards.
+     */
+    @Override
+    public void close() {
+        release();
+    }
+
+    private void release() {
+        if (arena != null)
+            arena.close();
+        arena = null;
+        cells = MemorySegment.NULL;
+        if (file != null) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot delete the traceback file", e);
+            } finally {
+                file = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,557 @@
+package nl.escience.alignment;
+
+/**
+ * Gap-affine wavefront alignment (Marco-Sola et al., 2021) for highly similar
+ * sequences. Its cost grows with the square of the penalty of the alignment
+ * rather than with the lengths of the sequences, so it is the fastest for
+ * pairs with only a few differences per thousand characters.
+ *
+ * Alignments are pseudo-global as in LocalSequenceAlignment: they start on the
+ * first row or column of the similarity matrix and end on its best cell.
+ * Unlike there, an insertion may follow a deletion directly, which only pays
+ * off when -mismatch is more than 2 gap_ext (or equal to it with no gap
+ * opening penalty); otherwise both find the same score. The scores are mapped onto penalties
+ * (Eizenga and Paten, 2022): with a match score a and a mismatch score b,
+ *   mismatch = 2(a - b), gap opening = 2 gap_open, gap extension = 2 gap_ext + a
+ * and a for every character left out at either end of the alignment, so that
+ * a path with penalty P from the start to the end of both sequences has the
+ * score (a (m + n) - P) / 2. Characters are compared by identity, which is
+ * how NUCC.1 scores A, C, G and T.
+ *
+ * Wavefront s holds, for every diagonal k = j - i, the furthest position j
+ * reached with penalty s: in mat_wf by a match/mismatch, in del_wf by a gap in
+ * the first sequence and in ins_wf by a gap in the second sequence.
+ * The wavefronts and the sequences are kept from one alignment to the next
+ * and only grown when a pair needs more of them, as with Workspace.
+ */
+public class WavefrontSequenceAlignment implements Aligner {
+
+    /**
+     * Offset of the diagonals that are not reached
+     */
+    private static final int NONE = Integer.MIN_VALUE / 2;
+
+    private final int MATCH;
+    private final int MISMATCH;
+    private final int GAP_OPEN;
+    private final int GAP_EXT;
+    private final int SKIP;
+
+    private String seq1;
+    private String seq2;
+    private byte[] query;
+    private byte[] target;
+    private int n;
+    private int m;
+    private int[][] mat_wf;
+    private int[][] del_wf;
+    private int[][] ins_wf;
+    private int[] lo;
+    private int[] hi;
+    private int best;
+    private int best_s;
+    private int similarity;
+    private int max_i;
+    private int max_j;
+    private int begin_i;
+    private int begin_j;
+    private byte[] moves;
+    private int move_count;
+    private Cigar cigar;
+
+    /**
+     * Initializes the alignment object with the NUCC.1 scores of A, C, G and T.
+     *
+     * @param gap_open The gap opening penalty
+     * @param gap_ext The gap extension penalty
+     */
+    public WavefrontSequenceAlignment(int gap_open, int gap_ext) {
+        this(5, -4, gap_open, gap_ext);
+    }
+
+    /**
+     * Initializes the alignment object.
+     *
+     * @param match The score of two identical characters
+     * @param mismatch The score of two different characters
+     * @param gap_open The gap opening penalty
+     * @param gap_ext The gap extension penalty
+     */
+    public WavefrontSequenceAlignment(int match, int mismatch, int gap_open, int gap_ext) {
+        if (match <= 0 || mismatch >= match)
+            throw new IllegalArgumentException("The match score should be positive and larger than the mismatch score");
+        MATCH = match;
+        MISMATCH = 2 * (match - mismatch);
+        GAP_OPEN = 2 * gap_open;
+        GAP_EXT = 2 * gap_ext + match;
+        SKIP = match;
+        cigar = new Cigar();
+    }
+
+    /**
+     * Finds the best alignment of the two input sequences and its path.
+     *
+     * @param s1 The String containing the first sequence
+     * @param s2 The String containing the second sequence
+     * @return The score and the 1-based ends of the alignment, with its 0-based beginnings
+     */
+    public Alignment align(String s1, String s2) {
+        int s;
+        seq1 = s1;
+        seq2 = s2;
+        query = Workspace.load(query, s1);
+        target = Workspace.load(target, s2);
+        n = s1.length();
+        m = s2.length();
+        mat_wf = Workspace.rows(mat_wf, 64);
+        del_wf = Workspace.rows(del_wf, 64);
+        ins_wf = Workspace.rows(ins_wf, 64);
+        lo = Workspace.ints(lo, 64);
+        hi = Workspace.ints(hi, 64);
+        best = Integer.MAX_VALUE;
+        // any end reached with penalty s costs at least s, so the search
+        // stops once the best end found is no dearer than s
+        for (s = 0; s < best; ++s) {
+            if (s == lo.length) {
+                mat_wf = Workspace.rows(mat_wf, s + 1);
+                del_wf = Workspace.rows(del_wf, s + 1);
+                ins_wf = Workspace.rows(ins_wf, s + 1);
+                lo = java.util.Arrays.copyOf(lo, Workspace.grown(s, s + 1));
+                hi = java.util.Arrays.copyOf(hi, Workspace.grown(s, s + 1));
+            }
+            next(s);
+        }
+        similarity = (MATCH * (n + m) - best) / 2;
+        trace_back();
+        return new Alignment(similarity, begin_j, max_j, begin_i, max_i);
+    }
+
+    /**
+     * Aligns the two input sequences and traces the alignment back at once,
+     * so the result holds its beginning positions, its cigar and its edit
+     * distance, and the aligner can go on with the next pair. The positions
+     * are those of the part covered by the cigar, after soft-clipping.
+     *
+     * @param s1 The String containing the first sequence
+     * @param s2 The String containing the second sequence
+     * @return The traced back best alignment
+     */
+    public Alignment align_traced(String s1, String s2) {
+        Alignment alignment = align(s1, s2);
+        Cigar packed = get_packed_cigar();
+        // the cigar starts with the insertions before the alignment, if any
+        if (begin_j == 0)
+            return Alignment.traced(alignment.score, -1, 0, 0, false, packed, s1, s2);
+        return Alignment.traced(alignment.score, -1, begin_j, begin_i, false, packed, s1, s2);
+    }
+
+    /**
+     * Computes wavefront s from the earlier ones and updates the best end.
+     */
+    private void next(int s) {
+        int k, from, to, bound, del, ins, t, mat, p;
+        int so = s - GAP_OPEN - GAP_EXT, se = s - GAP_EXT, sx = s - MISMATCH;
+        from = Integer.MAX_VALUE;
+        to = Integer.MIN_VALUE;
+        if (so >= 0 && lo[so] <= hi[so]) {
+            from = Math.min(from, lo[so] - 1);
+            to = Math.max(to, hi[so] + 1);
+        }
+        if (se >= 0 && lo[se] <= hi[se]) {
+            from = Math.min(from, lo[se] - 1);
+            to = Math.max(to, hi[se] + 1);
+        }
+        if (sx >= 0 && lo[sx] <= hi[sx]) {
+            from = Math.min(from, lo[sx]);
+            to = Math.max(to, hi[sx]);
+        }
+        // the alignment starts on the diagonals of the seeds, with a match
+        // in wavefront s or a mismatch in wavefront s + MISMATCH
+        for (t = s; t >= 0 && t >= sx; t -= MISMATCH) {
+            if (t % SKIP != 0)
+                continue;
+            if (t / SKIP <= n) {
+                from = Math.min(from, -t / SKIP);
+                to = Math.max(to, -t / SKIP);
+            }
+            if (t / SKIP <= m) {
+                from = Math.min(from, t / SKIP);
+                to = Math.max(to, t / SKIP);
+            }
+        }
+        from = Math.max(from, -n);
+        to = Math.min(to, m);
+        if (best != Integer.MAX_VALUE) {
+            // the lengths left on diagonal k differ by |n - m + k|, which
+            // costs at least SKIP per character
+            bound = (best - s) / SKIP;
+            from = Math.max(from, m - n - bound);
+            to = Math.min(to, m - n + bound);
+        }
+        lo[s] = from;
+        hi[s] = to;
+        if (from > to)
+            return;
+        int[] mats = mat_wf[s] = Workspace.ints(mat_wf[s], to - from + 1);
+        int[] dels = del_wf[s] = Workspace.ints(del_wf[s], to - from + 1);
+        int[] inss = ins_wf[s] = Workspace.ints(ins_wf[s], to - from + 1);
+        // the earlier wavefronts are looked up by row, with their first diagonals
+        int[] mo = row(mat_wf, so), dop = row(del_wf, so), io = row(ins_wf, so);
+        int[] de = row(del_wf, se), ie = row(ins_wf, se);
+        int[] mx = row(mat_wf, sx), dx = row(del_wf, sx), ix = row(ins_wf, sx);
+        int lo_o = so >= 0 ? lo[so] : 0, lo_e = se >= 0 ? lo[se] : 0, lo_x = sx >= 0 ? lo[sx] : 0;
+        int hi_o = so >= 0 ? hi[so] : -1, hi_e = se >= 0 ? hi[se] : -1, hi_x = sx >= 0 ? hi[sx] : -1;
+        int end = best, end_i = max_i, end_j = max_j;
+        int seed_s = s % SKIP == 0 ? s / SKIP : -1, seed_x = sx >= 0 && sx % SKIP == 0 ? sx / SKIP : -1;
+        for (k = from; k <= to; ++k) {
+            // a gap in the second sequence moves down from diagonal k + 1,
+            // a gap in the first sequence right from diagonal k - 1
+            ins = Math.max(Math.max(at(mo, lo_o, hi_o, k + 1), at(dop, lo_o, hi_o, k + 1)), Math.max(at(io, lo_o, hi_o, k + 1), at(ie, lo_e, hi_e, k + 1)));
+            if (ins - k > n)
+                ins = NONE;
+            del = Math.max(Math.max(at(mo, lo_o, hi_o, k - 1), at(dop, lo_o, hi_o, k - 1)), Math.max(at(io, lo_o, hi_o, k - 1), at(de, lo_e, hi_e, k - 1))) + 1;
+            if (del > m)
+                del = NONE;
+            inss[k - from] = ins;
+            dels[k - from] = del;
+            // the run of matches/mismatches starts with a mismatch after the
+            // furthest cell of wavefront s - MISMATCH, or with a match after
+            // a gap or after the start of the alignment
+            mat = Math.max(Math.max(at(mx, lo_x, hi_x, k), at(dx, lo_x, hi_x, k)), at(ix, lo_x, hi_x, k));
+            if (seed_x >= 0)
+                mat = Math.max(mat, seed_at(seed_x, k));
+            ++mat;
+            if (mat > m || mat - k > n || mat - k <= 0)
+                mat = NONE;
+            if (matches(del, k))
+                mat = Math.max(mat, del + 1);
+            if (matches(ins, k))
+                mat = Math.max(mat, ins + 1);
+            if (seed_s >= 0 && matches(p = seed_at(seed_s, k), k))
+                mat = Math.max(mat, p + 1);
+            mat = extend(mat, k);
+            mats[k - from] = mat;
+            p = Math.max(mat, Math.max(del, ins));
+            if (p > 0 && p - k > 0) {
+                t = s + SKIP * (n + m - (p - k) - p);
+                // ties go to the first cell in row-major order
+                if (t < end || (t == end && (p - k < end_i || (p - k == end_i && p < end_j)))) {
+                    end = t;
+                    end_i = p - k;
+                    end_j = p;
+                }
+            }
+        }
+        if (end != best || end_i != max_i || end_j != max_j) {
+            best = end;
+            best_s = s;
+            max_i = end_i;
+            max_j = end_j;
+        }
+        // diagonals left unreached at either end would only widen the
+        // wavefronts that follow
+        for (k = from; k <= to && Math.max(mats[k - from], Math.max(dels[k - from], inss[k - from])) < 0; ++k);
+        for (p = to; p >= k && Math.max(mats[p - from], Math.max(dels[p - from], inss[p - from])) < 0; --p);
+        if (k > from) {
+            System.arraycopy(mats, k - from, mats, 0, p - k + 1);
+            System.arraycopy(dels, k - from, dels, 0, p - k + 1);
+            System.arraycopy(inss, k - from, inss, 0, p - k + 1);
+        }
+        if (k > from || p < to) {
+            lo[s] = k;
+            hi[s] = p;
+        }
+    }
+
+    /**
+     * @return Row s of a wavefront, null if s is negative
+     */
+    private int[] row(int[][] wavefront, int s) {
+        return s >= 0 ? wavefront[s] : null;
+    }
+
+    /**
+     * @return The offset on diagonal k of a wavefront row of diagonals
+     *         from..to, NONE if it is not reached
+     */
+    private static int at(int[] row, int from, int to, int k) {
+        if (row == null || k < from || k > to)
+            return NONE;
+        return row[k - from];
+    }
+
+    /**
+     * @return The furthest offset on diagonal k of a wavefront, NONE if it is not reached
+     */
+    private int offset(int[][] wavefront, int s, int k) {
+        if (s < 0 || k < lo[s] || k > hi[s])
+            return NONE;
+        return wavefront[s][k - lo[s]];
+    }
+
+    /**
+     * @return The offset of the start of the alignment on diagonal k with
+     *         penalty s, on the first row or column; NONE if there is none
+     */
+    private int seed(int s, int k) {
+        if (s % SKIP != 0)
+            return NONE;
+        return seed_at(s / SKIP, k);
+    }
+
+    /**
+     * @return The offset of the start of the alignment on diagonal k after
+     *         leaving out t characters, NONE if there is none
+     */
+    private int seed_at(int t, int k) {
+        if (k == -t && t <= n)
+            return 0;
+        if (k == t && t <= m)
+            return t;
+        return NONE;
+    }
+
+    /**
+     * @return The furthest offset on diagonal k with penalty s a gap can be opened from
+     */
+    private int open(int s, int k) {
+        return Math.max(offset(mat_wf, s, k), Math.max(offset(del_wf, s, k), offset(ins_wf, s, k)));
+    }
+
+    /**
+     * @return The furthest offset on diagonal k with penalty s, in any state
+     */
+    private int furthest(int s, int k) {
+        return Math.max(Math.max(offset(mat_wf, s, k), seed(s, k)), Math.max(offset(del_wf, s, k), offset(ins_wf, s, k)));
+    }
+
+    /**
+     * @return Whether the cell after offset p on diagonal k is a match
+     */
+    private boolean matches(int p, int k) {
+        return p >= 0 && p - k >= 0 && p < m && p - k < n && query[p - k] == target[p];
+    }
+
+    /**
+     * @return The offset after the run of matches following offset p on diagonal k
+     */
+    private int extend(int p, int k) {
+        if (p < 0)
+            return p;
+        while (p < m && p - k < n && query[p - k] == target[p])
+            ++p;
+        return p;
+    }
+
+    /**
+     * Finds where the run of matches/mismatches with penalty s on diagonal k
+     * starts: a mismatch after the furthest cell with penalty s - MISMATCH, or
+     * a match after a gap or after the start of the alignment with penalty s.
+     *
+     * @return The offset of the first cell of the run, NONE if there is none
+     */
+    private int run_start(int s, int k) {
+        int p, start = furthest(s - MISMATCH, k) + 1;
+        if (start > m || start - k > n || start - k <= 0)
+            start = NONE;
+        p = offset(del_wf, s, k);
+        if (matches(p, k))
+            start = Math.max(start, p + 1);
+        p = offset(ins_wf, s, k);
+        if (matches(p, k))
+            start = Math.max(start, p + 1);
+        p = seed(s, k);
+        if (matches(p, k))
+            start = Math.max(start, p + 1);
+        return start;
+    }
+
+    /**
+     * Follows the wavefronts back from the best end to the start of the
+     * alignment, with the codes of the CIGAR string. Ties are broken as in the direction matrixes of the
+     * aligners: match/mismatch first, then a gap in the first
+     * sequence, then a gap in the second sequence; gaps are opened after a
+     * match/mismatch rather than extended, and extended rather than opened
+     * after another gap.
+     */
+    private void trace_back() {
+        int s = best_s, k = max_j - max_i, p = max_j, c, so, se;
+        char state;
+        moves = Workspace.bytes(moves, 16);
+        move_count = 0;
+        if (offset(mat_wf, s, k) == p)
+            state = 'M';
+        else if (offset(del_wf, s, k) == p)
+            state = 'D';
+        else
+            state = 'I';
+        while (true) {
+            if (state == 'M') {
+                c = run_start(s, k);
+                for (; p > c; --p)
+                    add_move('=');
+                if (query[c - k - 1] != target[c - 1]) {
+                    add_move('X');
+                    s -= MISMATCH;
+                    p = c - 1;
+                    if (offset(mat_wf, s, k) == p)
+                        state = 'M';
+                    else if (offset(del_wf, s, k) == p)
+                        state = 'D';
+                    else if (offset(ins_wf, s, k) == p)
+                        state = 'I';
+                    else
+                        break;
+                } else {
+                    add_move('=');
+                    p = c - 1;
+                    if (offset(del_wf, s, k) == p)
+                        state = 'D';
+                    else if (offset(ins_wf, s, k) == p)
+                        state = 'I';
+                    else
+                        break;
+                }
+            } else if (state == 'D') {
+                add_move('D');
+                so = s - GAP_OPEN - GAP_EXT;
+                se = s - GAP_EXT;
+                --k;
+                --p;
+                if (offset(mat_wf, so, k) == p) {
+                    s = so;
+                    state = 'M';
+                } else if (offset(del_wf, se, k) == p) {
+                    s = se;
+                } else {
+                    s = so;
+                    state = 'I';
+                }
+            } else {
+                add_move('I');
+                so = s - GAP_OPEN - GAP_EXT;
+                se = s - GAP_EXT;
+                ++k;
+                if (offset(mat_wf, so, k) == p) {
+                    s = so;
+                    state = 'M';
+                } else if (offset(ins_wf, se, k) == p) {
+                    s = se;
+                } else {
+                    s = so;
+                    state = 'D';
+                }
+            }
+        }
+        begin_i = p - k;
+        begin_j = p;
+        left_align();
+    }
+
+    /**
+     * Puts the moves in forward order and shifts every gap to the left as
+     * long as the score stays the same. This is where the direction matrixes
+     * put it, as going backwards they prefer a match/mismatch to a gap.
+     */
+    private void left_align() {
+        int x, y, len, i = begin_i, j = begin_j;
+        byte gap, swap;
+        boolean same;
+        for (x = 0, y = move_count - 1; x < y; ++x, --y) {
+            swap = moves[x];
+            moves[x] = moves[y];
+            moves[y] = swap;
+        }
+        // (i, j) is the cell before move x
+        for (x = 0; x < move_count; x = y) {
+            gap = moves[x];
+            for (y = x + 1; y < move_count && moves[y] == gap; ++y);
+            len = y - x;
+            if (gap == 'I' || gap == 'D') {
+                // the gap must stay behind a match/mismatch
+                while (x > 1 && moves[x - 2] != 'I' && moves[x - 2] != 'D') {
+                    if (gap == 'D')
+                        same = query[i - 1] == target[j - 1 + len];
+                    else
+                        same = query[i - 1 + len] == target[j - 1];
+                    if (same != (moves[x - 1] == '='))
+                        break;
+                    moves[x - 1] = gap;
+                    moves[x - 1 + len] = (byte)(same ? '=' : 'X');
+                    --x;
+                    --i;
+                    --j;
+                }
+            }
+            for (; x < y; ++x) {
+                if (moves[x] != 'D')
+                    ++i;
+                if (moves[x] != 'I')
+                    ++j;
+            }
+        }
+    }
+
+    private void add_move(char move) {
+        if (move_count == moves.length)
+            moves = java.util.Arrays.copyOf(moves, 2 * move_count);
+        moves[move_count++] = (byte)move;
+    }
+
+    /**
+     * Gives the CIGAR string of the alignment, the same way as
+     * LocalSequenceAlignment.get_cigar(true) without soft-clipping: the first
+     * sequence is covered from its start, with insertions before the
+     * alignment if it starts on the first column.
+     * Call align() before this function.
+     *
+     * @return The CIGAR string of the alignment
+     */
+    public String get_cigar() {
+        return get_packed_cigar().toString();
+    }
+
+    /**
+     * Gives the CIGAR of the alignment, packed as in BAM, without making
+     * its string.
+     * Call align() before this function.
+     *
+     * @return The CIGAR of the alignment, which is overwritten by the next call
+     */
+    public Cigar get_packed_cigar() {
+        int x, count;
+        byte move;
+        cigar.clear();
+        move = 'I';
+        count = begin_j == 0 ? begin_i : 0;
+        for (x = 0; x < move_count; ++x) {
+            if (moves[x] != move) {
+                if (count > 0)
+                    cigar.push((char)move, count);
+                move = moves[x];
+                count = 0;
+            }
+            ++count;
+        }
+        cigar.push((char)move, count);
+        return cigar;
+    }
+
+    /**
+     * Calculates offset as the number of gaps at start of the first sequence
+     * after alignment, as LocalSequenceAlignment.get_offset() does.
+     *
+     * @return The offset as the number of gaps at start of the first sequence
+     * after alignment.
+     */
+    public int get_offset() {
+        return begin_i > 0 ? 0 : begin_j;
+    }
+
+    /**
+     * @return The similarity score of the alignment
+     */
+    public int get_similarity() {
+        return similarity;
+    }
+}
@@ -0,0 +1,154 @@
+package nl.escience.alignment;
+
+/**
+ * Grows the arrays an aligner keeps from one alignment to the next.
+ * An array is only replaced when it is too small, and then by one at least
+ * half as large again, so it soon fits the largest pair of sequences seen
+ * and no more memory is allocated. Replaced arrays do not keep their
+ * contents; the aligners initialize the cells they read.
+ *
+ * An aligner is used by one thread at a time, as in ParallelSequenceAlignment
+ * and AlignmentPipeline, so its arrays are the workspace of that thread and
+ * follow the sizes of the sequences it aligns rather than MAX_LENGTH.
+ */
+final class Workspace {
+
+    private Workspace() {
+    }
+
+    /**
+     * @param length The current length of the array
+     * @param needed The length needed
+     * @return The length of the replacing array
+     */
+    static int grown(int length, int needed) {
+        return (int)Math.min(Integer.MAX_VALUE - 8, Math.max(needed, length + (long)(length >> 1)));
+    }
+
+    /**
+     * @param a The array, or null
+     * @param n The length needed
+     * @return a if it has at least n cells, otherwise a larger array
+     */
+    static int[] ints(int[] a, int n) {
+        return a != null && a.length >= n ? a : new int[grown(a == null ? 0 : a.length, n)];
+    }
+
+    /**
+     * @param a The array, or null
+     * @param n The length needed
+     * @return a if it has at least n cells, otherwise a larger array
+     */
+    static byte[] bytes(byte[] a, int n) {
+        return a != null && a.length >= n ? a : new byte[grown(a == null ? 0 : a.length, n)];
+    }
+
+    /**
+     * Copies a sequence into a byte buffer, one byte per character.
+     *
+     * @param into The buffer, or null
+     * @param s The sequence
+     * @return into if it has room for s, otherwise a larger buffer
+     */
+    static byte[] load(byte[] into, String s) {
+        into = bytes(into, s.length());
+        for (int k = 0; k < s.length(); ++k)
+            into[k] = (byte)s.charAt(k);
+        return into;
+    }
+
+    /**
+     * Replaces the contents of a sequence buffer by a slice of bytes, one
+     * character per byte.
+     *
+     * @param into The buffer
+     * @param a The bytes
+     * @param offset The first byte of the slice
+     * @param length The number of bytes of the slice
+     * @return into
+     */
+    static StringBuilder load(StringBuilder into, byte[] a, int offset, int length) {
+        java.util.Objects.checkFromIndexSize(offset, length, a.length);
+        into.setLength(0);
+        for (int k = 0; k < length; ++k)
+            into.append((char)(a[offset + k] & 0xFF));
+        return into;
+    }
+
+    /**
+     * Replaces the contents of a sequence buffer by the remaining bytes of
+     * a buffer, one character per byte, without moving its position.
+     *
+     * @param into The buffer
+     * @param a The bytes, from its position to its limit
+     * @return into
+     */
+    static StringBuilder load(StringBuilder into, java.nio.ByteBuffer a) {
+        into.setLength(0);
+        for (int k = a.position(); k < a.limit(); ++k)
+            into.append((char)(a.get(k) & 0xFF));
+        return into;
+    }
+
+    /**
+     * Grows the number of rows of a matrix, keeping the rows it has. The
+     * new rows are null and are grown with bytes(byte[], int).
+     *
+     * @param a The matrix, or null
+     * @param rows The number of rows needed
+     * @return a if it has at least the rows needed, otherwise a larger matrix
+     */
+    static byte[][] rows(byte[][] a, int rows) {
+        if (a == null || a.length < rows) {
+            byte[][] b = new byte[grown(a == null ? 0 : a.length, rows)][];
+            if (a != null)
+                System.arraycopy(a, 0, b, 0, a.length);
+            a = b;
+        }
+        return a;
+    }
+
+    /**
+     * @param a The matrix, or null
+     * @param rows The number of rows needed
+     * @param cols The number of columns needed in each of them
+     * @return a matrix with at least rows x cols cells, reusing those of a
+     */
+    static byte[][] bytes(byte[][] a, int rows, int cols) {
+        a = rows(a, rows);
+        for (int i = 0; i < rows; ++i)
+            a[i] = bytes(a[i], cols);
+        return a;
+    }
+
+    /**
+     * Grows the number of rows of a matrix, keeping the rows it has. The
+     * new rows are null and are grown with ints(int[], int).
+     *
+     * @param a The matrix, or null
+     * @param rows The number of rows needed
+     * @return a if it has at least the rows needed, otherwise a larger matrix
+     */
+    static int[][] rows(int[][] a, int rows) {
+        if (a == null || a.length < rows) {
+            int[][] b = new int[grown(a == null ? 0 : a.length, rows)][];
+            if (a != null)
+                System.arraycopy(a, 0, b, 0, a.length);
+            a = b;
+        }
+        return a;
+    }
+
+    /**
+     * @param a The matrix, or null
+     * @param rows The number of rows needed
+     * @param cols The number of columns needed in each of them
+     * @return a matrix with at least rows x cols cells, reusing those of a
+     */
+    static int[][] ints(int[][] a, int rows, int cols) {
+        a = rows(a, rows);
+        for (int i = 0; i < rows; ++i)
+            a[i] = ints(a[i], cols);
+        return a;
+    }
+}
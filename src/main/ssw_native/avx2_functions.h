@@ -38,6 +38,8 @@
 
 #define VEC_MOVEMASK(v) _mm256_movemask_epi8(v)
 
+#define VEC_ANY_GT(v1, v2) _mm256_movemask_epi8(_mm256_cmpgt_epi16(v1, v2))  // nonzero if any lane of v1 is greater
+
 #define max_of_vec(m, vm) (vm) = _mm256_max_epi16((vm), _mm256_permute2x128_si256((vm), (vm), 0x81));\
                     (vm) = _mm256_max_epi16((vm), _mm256_srli_si256((vm), 8)); \
 					(vm) = _mm256_max_epi16((vm), _mm256_srli_si256((vm), 4)); \
@@ -0,0 +1,52 @@
+#ifndef AVX512_FUNCTIONS_H
+#define AVX512_FUNCTIONS_H
+
+#include <immintrin.h>
+
+#define VEC_TYPE __m512i
+
+#define VEC_SIZE_IN_BITS 16
+
+#define VEC_ALL_ONES 0xFFFFFFFFFFFFFFFFULL
+
+#define VEC_SET1(val)  _mm512_set1_epi16(val)
+
+// shifts the whole register: each 128-bit lane takes the top bytes of the lane below it
+#define VEC_SLL(v, count) _mm512_alignr_epi8(v, _mm512_alignr_epi32(v, _mm512_setzero_si512(), 12), 16-count)
+
+#define VEC_SLL_ELE(v, count) _mm512_slli_epi16(v, count)
+
+#define VEC_LOAD(addr) _mm512_load_si512((void*)(addr))
+
+#define VEC_STORE(addr, v) _mm512_store_si512((void*)(addr), v)
+
+#define VEC_ADDS(v1, v2)  _mm512_adds_epi16(v1, v2)
+
+#define VEC_SUBS(v1, v2) _mm512_subs_epi16(v1, v2)  // v1 - v2
+
+
+#define VEC_MAX(v1, v2) _mm512_max_epi16(v1, v2)
+
+
+#define VEC_CMPEQ(v1, v2) _mm512_movm_epi16(_mm512_cmpeq_epi16_mask(v1, v2))
+
+#define VEC_CMPGT(v1, v2) _mm512_movm_epi16(_mm512_cmpgt_epi16_mask(v1, v2))
+
+#define VEC_AND(v1, v2) _mm512_and_si512 (v1, v2)
+
+#define VEC_OR(v1, v2) _mm512_or_si512 (v1, v2)
+
+
+#define VEC_MOVEMASK(v) _mm512_movepi8_mask(v)
+
+#define VEC_ANY_GT(v1, v2) _mm512_cmpgt_epi16_mask(v1, v2)  // nonzero if any lane of v1 is greater
+
+#define max_of_vec(m, vm) (vm) = _mm512_max_epi16((vm), _mm512_shuffle_i64x2((vm), (vm), _MM_SHUFFLE(1,0,3,2)));\
+                    (vm) = _mm512_max_epi16((vm), _mm512_shuffle_i64x2((vm), (vm), _MM_SHUFFLE(2,3,0,1)));\
+                    (vm) = _mm512_max_epi16((vm), _mm512_bsrli_epi128((vm), 8)); \
+					(vm) = _mm512_max_epi16((vm), _mm512_bsrli_epi128((vm), 4)); \
+					(vm) = _mm512_max_epi16((vm), _mm512_bsrli_epi128((vm), 2)); \
+					(m) = _mm_extract_epi16(_mm512_castsi512_si128(vm), 0)
+
+
+#endif
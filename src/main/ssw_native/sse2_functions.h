@@ -43,6 +43,8 @@
 
 #define VEC_MOVEMASK(v) _mm_movemask_epi8(v)
 
+#define VEC_ANY_GT(v1, v2) _mm_movemask_epi8(_mm_cmpgt_epi16(v1, v2))  // nonzero if any lane of v1 is greater
+
 #define max_of_vec(m, vm) (vm) = _mm_max_epi16((vm), _mm_srli_si128((vm), 8)); \
 					(vm) = _mm_max_epi16((vm), _mm_srli_si128((vm), 4)); \
 					(vm) = _mm_max_epi16((vm), _mm_srli_si128((vm), 2)); \
@@ -67,21 +67,7 @@
 #include <math.h>
 #include <limits.h>
 #include "ssw.h"
-
-#ifdef __ARM_NEON // (M1)
-#include "sse2neon.h"
-#else // x86 (Intel)
-#include <emmintrin.h>
-#endif
-
-
-#ifdef __GNUC__
-#define LIKELY(x) __builtin_expect((x),1)
-#define UNLIKELY(x) __builtin_expect((x),0)
-#else
-#define LIKELY(x) (x)
-#define UNLIKELY(x) (x)
-#endif
+#include "ssw_dispatch.h"
 
 /* Convert the coordinate in the scoring matrix into the coordinate in one line of the band. */
 #define set_u(u, w, i, j) { int x=(i)-(w); x=x>0?x:0; (u)=(j)-x+1; }
@@ -96,20 +82,14 @@
  */
 #define kroundup32(x) (--(x), (x)|=(x)>>1, (x)|=(x)>>2, (x)|=(x)>>4, (x)|=(x)>>8, (x)|=(x)>>16, ++(x))
 
-typedef struct {
-	int16_t score;
-	int32_t ref;	 //0-based position
-	int32_t read;    //alignment ending position on read, 0-based
-} alignment_end;
-
 typedef struct {
 	uint32_t* seq;
 	int32_t length;
 } cigar;
 
 struct _profile{
-	__m128i* profile_byte;	// 0: none
-	__m128i* profile_word;	// 0: none
+	void* profile_word;	// query profile laid out for the kernel
+	const ssw_kernel* kernel;
 	const int8_t* read;
 	const int8_t* mat;
 	int32_t readLen;
@@ -155,193 +135,288 @@ const uint8_t encoded_ops[] = {
 
 
 
-static __m128i* qP_word (const int8_t* read_num,
-				  const int8_t* mat,
-				  const int32_t readLen,
-				  const int32_t n) {
+/* The kernels, widest first. The lazy-F loop costs about as much per column
+   whatever the width, since the F chain from the top row crosses every lane,
+   so wider lanes only pay off for long reads: AVX2 overtakes SSE2 from about
+   256 bases, and AVX-512 was slower than AVX2 at every length measured. It is
+   only used when SSW_KERNEL names it. */
+static const ssw_kernel kernels[] = {
+#ifndef __ARM_NEON // x86 (Intel)
+	{"avx512", INT32_MAX, qP_word_avx512, sw_word_avx512},
+	{"avx2", 256, qP_word_avx2, sw_word_avx2},
+#endif
+	{"sse2", 0, qP_word_sse2, sw_word_sse2}
+};
 
-	int32_t segLen = (readLen + 7) / 8;
-	__m128i* vProfile = (__m128i*)malloc(n * segLen * sizeof(__m128i));
-	int16_t* t = (int16_t*)vProfile;
-	int32_t nt, i, j;
-	int32_t segNum;
+#define KERNELS ((int32_t)(sizeof(kernels) / sizeof(kernels[0])))
 
-	/* Generate query profile rearrange query sequence & calculate the weight of match/mismatch */
-	for (nt = 0; LIKELY(nt < n); nt ++) {
-		for (i = 0; i < segLen; i ++) {
-			j = i;
-			for (segNum = 0; LIKELY(segNum < 8) ; segNum ++) {
-				*t++ = j>= readLen ? 0 : mat[nt * n + read_num[j]];
-				j += segLen;
-			}
-		}
-	}
-	return vProfile;
+static int kernel_supported (const ssw_kernel* k) {
+#ifndef __ARM_NEON // x86 (Intel)
+	__builtin_cpu_init();
+	if (!strcmp(k->name, "avx512")) return __builtin_cpu_supports("avx512bw") != 0;
+	if (!strcmp(k->name, "avx2")) return __builtin_cpu_supports("avx2") != 0;
+#endif
+	return 1;
 }
 
-static alignment_end* sw_sse2_word (const int8_t* ref,
-							 int32_t refLen,
-							 int32_t readLen,
-							 const uint8_t weight_gapO, /* will be used as - */
-							 const uint8_t weight_gapE, /* will be used as - */
-							 const __m128i* vProfile) {
-
-
-#define max8(m, vm) (vm) = _mm_max_epi16((vm), _mm_srli_si128((vm), 8)); \
-					(vm) = _mm_max_epi16((vm), _mm_srli_si128((vm), 4)); \
-					(vm) = _mm_max_epi16((vm), _mm_srli_si128((vm), 2)); \
-					(m) = _mm_extract_epi16((vm), 0)
-
-	int16_t max = SHRT_MIN;		                     /* the max alignment score */
-	int32_t end_read = readLen - 1;
-	int32_t end_ref = 0; /* 1_based best alignment ending point; Initialized as isn't aligned - 0. */
-	int32_t segLen = (readLen + 7) / 8; /* number of segment */
-
-	/* array to record the largest score of each reference position */
-	int16_t* maxColumn = (int16_t*) calloc(refLen, 2);
-
+/* Index of the kernel named by the environment variable SSW_KERNEL if the CPU
+   runs it, otherwise -1; then whether the CPU runs each kernel. Found once. */
+static int32_t forced = -2;
+static int8_t supported[KERNELS];
+
+static void kernel_probe (void) {
+	int32_t i, f = -1;
+	const char* name = getenv("SSW_KERNEL");
+	if (LIKELY(__atomic_load_n(&forced, __ATOMIC_ACQUIRE) != -2)) return;
+	for (i = 0; i < KERNELS; ++i) {
+		supported[i] = kernel_supported(&kernels[i]);
+		if (name && supported[i] && !strcmp(kernels[i].name, name)) f = i;
+	}
+	__atomic_store_n(&forced, f, __ATOMIC_RELEASE);
+}
 
-	/* Define 16 byte 0 vector. */
-	__m128i vNeg = _mm_set1_epi16(SHRT_MIN);
+/* The kernel for a read: the widest one the CPU runs that pays off at the
+   length of the read. */
+static const ssw_kernel* kernel_select (int32_t readLen) {
+	int32_t i;
+	kernel_probe();
+	if (forced >= 0) return &kernels[forced];
+	for (i = 0; i < KERNELS - 1; ++i)
+		if (supported[i] && readLen >= kernels[i].min_readLen) break;
+	return &kernels[i];
+}
 
-	__m128i* pvHStore = (__m128i*) calloc(segLen, sizeof(__m128i));
-	__m128i* pvHLoad = (__m128i*) calloc(segLen, sizeof(__m128i));
-	__m128i* pvE = (__m128i*) calloc(segLen, sizeof(__m128i));
-	int itr;
-	for (itr = 0; itr < segLen; itr++){
-	    pvE[itr] = vNeg;
+/* Push an operation on a cigar built from the end of the alignment, merging it with the last one pushed. */
+static int32_t cigar_push (cigar* c, int32_t* s, uint32_t op) {
+	if (c->length > 0 && (c->seq[c->length - 1] & 0xf) == op) {
+		c->seq[c->length - 1] += 1u << BAM_CIGAR_SHIFT;
+		return 1;
 	}
-	__m128i* pvHmax = (__m128i*) calloc(segLen, sizeof(__m128i));
-
-	int32_t i, j, k;
-	/* 16 byte insertion begin vector */
-	__m128i vGapOE = _mm_set1_epi16(weight_gapO+weight_gapE);
-
-	/* 16 byte insertion extension vector */
-	__m128i vGapE = _mm_set1_epi16(weight_gapE);
-
-	__m128i vMaxScore = vNeg; /* Trace the highest score of the whole SW matrix. */
-	__m128i vMaxMark = vNeg; /* Trace the highest score till the previous column. */
-	__m128i vTemp;
-	int32_t begin = 0, end = refLen, step = 1;
-
-	/* outer loop to process the reference sequence */
-
-	for (i = begin; LIKELY(i != end); i += step) {
-		int32_t cmp;
-		__m128i e, vF = vNeg; /* Initialize F value to 0.
-							   Any errors to vH values will be corrected in the Lazy_F loop.*/
-		__m128i vH = pvHStore[segLen - 1];
-		vH = _mm_slli_si128 (vH, 2); /* Shift the 128-bit value in vH left by 2 byte. */
-
-		/* Swap the 2 H buffers. */
-		__m128i* pv = pvHLoad;
-
-		__m128i vMaxColumn = vNeg; /* vMaxColumn is used to record the max values of column i. */
-
-		const __m128i* vP = vProfile + ref[i] * segLen; /* Right part of the vProfile */
-		pvHLoad = pvHStore;
-		pvHStore = pv;
-
-		/* inner loop to process the query sequence */
-		for (j = 0; LIKELY(j < segLen); j ++) {
-			//vH = _mm_adds_epi16(vH, _mm_load_si128(vP + j));
-			vH = _mm_adds_epi16(vH, _mm_load_si128(vP + j));
-
-			/* Get max from vH, vE and vF. */
-			e = _mm_load_si128(pvE + j);
-			vH = _mm_max_epi16(vH, e);
-			vH = _mm_max_epi16(vH, vF);
-			vMaxColumn = _mm_max_epi16(vMaxColumn, vH);
-
-			/* Save vH values. */
-			_mm_store_si128(pvHStore + j, vH);
-
-			/* Update vE value. */
-			//vH = _mm_subs_epu16(vH, vGapOE); /* saturation arithmetic, result >= 0 */
-			vH = _mm_subs_epi16(vH, vGapOE); /* saturation arithmetic, result >= 0 */
-			//e = _mm_subs_epu16(e, vGapE);
-			e = _mm_subs_epi16(e, vGapE);
-			e = _mm_max_epi16(e, vH);
-			_mm_store_si128(pvE + j, e);
-
-			/* Update vF value. */
-			//vF = _mm_subs_epu16(vF, vGapE);
-			vF = _mm_subs_epi16(vF, vGapE);
-			vF = _mm_max_epi16(vF, vH);
-
-			/* Load the next vH. */
-			vH = _mm_load_si128(pvHLoad + j);
-		}
+	if (c->length == *s) {
+		uint32_t* seq = (uint32_t*)realloc(c->seq, 2 * *s * sizeof(uint32_t));
+		if (seq == 0) return 0;
+		c->seq = seq;
+		*s *= 2;
+	}
+	c->seq[c->length++] = 1u << BAM_CIGAR_SHIFT | op;
+	return 1;
+}
 
-		/* Lazy_F loop: has been revised to disallow adjecent insertion and then deletion, so don't update E(i, j), learn from SWPS3 */
-		for (k = 0; LIKELY(k < 8); ++k) {
-			vF = _mm_slli_si128 (vF, 2);
-			for (j = 0; LIKELY(j < segLen); ++j) {
-				vH = _mm_load_si128(pvHStore + j);
-				vH = _mm_max_epi16(vH, vF);
-				vMaxColumn = _mm_max_epi16(vMaxColumn, vH); //newly added line
-				_mm_store_si128(pvHStore + j, vH);
-				//vH = _mm_subs_epu16(vH, vGapOE);
-				vH = _mm_subs_epi16(vH, vGapOE);
-				//vF = _mm_subs_epu16(vF, vGapE);
-				vF = _mm_subs_epi16(vF, vGapE);
-				if (UNLIKELY(! _mm_movemask_epi8(_mm_cmpgt_epi16(vF, vH)))) goto end;
+/* Trace back the alignment ending at read[readLen - 1] and ref[refLen - 1] with the given score, and find where it
+   begins. The kernel starts alignments anywhere on the first row or column of the matrix without flooring the scores
+   at 0, and an insertion at the top of a column costs only its extensions, so the matrix is filled again with the same
+   rules and the path is followed until it leaves the matrix. Only a band around the diagonal of the end is filled; the
+   band is doubled until the end reaches the score. Returns 0 if it never does. */
+static cigar* banded_sw (const int8_t* ref,
+						 const int8_t* read,
+						 int32_t refLen,
+						 int32_t readLen,
+						 int32_t score,
+						 const uint32_t weight_gapO,  /* will be used as - */
+						 const uint32_t weight_gapE,  /* will be used as - */
+						 const int8_t* mat,
+						 int32_t n,
+						 int32_t* ref_begin,
+						 int32_t* read_begin) {
+
+	/* direction of a cell: bits 0-1 where H comes from (0 diagonal, 1 E, 2 F), bit 2 E is opened, bit 3 F is opened,
+	   bit 4 F is the insertion at the top of the column */
+	const int32_t gapOE = weight_gapO + weight_gapE, gapE = weight_gapE, neg = INT32_MIN / 2;
+	const int32_t diagonal = refLen - readLen;
+	int32_t band_width = 8, width, i, j, u, lo, hi, e, f, h, d, end = neg, s = 16, state;
+	int32_t *h_b = 0, *h_c = 0, *f_b = 0, *f_c = 0, *swap;
+	uint8_t *direction = 0, dir;
+	cigar* result;
+
+	for (;;) {
+		width = 2 * band_width + 1;
+		free(h_b); free(h_c); free(f_b); free(f_c); free(direction);
+		h_b = (int32_t*)malloc(width * sizeof(int32_t));
+		h_c = (int32_t*)malloc(width * sizeof(int32_t));
+		f_b = (int32_t*)malloc(width * sizeof(int32_t));
+		f_c = (int32_t*)malloc(width * sizeof(int32_t));
+		direction = (uint8_t*)malloc((size_t)readLen * width);
+		if (!h_b || !h_c || !f_b || !f_c || !direction) goto fail;
+		for (u = 0; u < width; ++u) h_b[u] = f_b[u] = neg;
+		for (i = 0; LIKELY(i < readLen); ++i) {
+			/* cell (i, j) of the band is u = j - (i + diagonal - band_width) */
+			lo = i + diagonal - band_width;
+			hi = i + diagonal + band_width;
+			for (u = 0; u < width; ++u) h_c[u] = f_c[u] = neg;
+			e = neg;
+			for (j = lo > 0 ? lo : 0; LIKELY(j <= hi && j < refLen); ++j) {
+				u = j - lo;
+				dir = 0;
+				d = (i == 0 || j == 0 ? 0 : h_b[u]) + mat[ref[j] * n + read[i]];
+				if (u > 0 && j > 0) {
+					if (h_c[u - 1] - gapOE >= e - gapE) {
+						e = h_c[u - 1] - gapOE;
+						dir |= 4;
+					} else e -= gapE;
+				} else e = neg;
+				if (i == 0) {
+					f = 0;
+					dir |= 16;
+				} else if (u + 1 < width) {
+					if (h_b[u + 1] - gapOE >= f_b[u + 1] - gapE) {
+						f = h_b[u + 1] - gapOE;
+						dir |= 8;
+					} else f = f_b[u + 1] - gapE;
+				} else f = neg;
+				h = d;
+				if (e > h) { h = e; dir = (dir & ~3) | 1; }
+				if (f > h) { h = f; dir = (dir & ~3) | 2; }
+				h_c[u] = h;
+				f_c[u] = f;
+				direction[(size_t)i * width + u] = dir;
 			}
+			swap = h_b; h_b = h_c; h_c = swap;
+			swap = f_b; f_b = f_c; f_c = swap;
 		}
+		end = h_b[band_width];
+		if (end >= score) break;
+		if (band_width >= readLen && band_width >= refLen) goto fail;
+		band_width *= 2;
+	}
 
-end:
-		vMaxScore = _mm_max_epi16(vMaxScore, vMaxColumn);
-		vTemp = _mm_cmpeq_epi16(vMaxMark, vMaxScore);
-		cmp = _mm_movemask_epi8(vTemp);
-		if (cmp != 0xffff) {
-			int16_t temp;
-			vMaxMark = vMaxScore;
-			max8(temp, vMaxScore);
-			vMaxScore = vMaxMark;
-
-			if (LIKELY(temp > max)) {
-				max = temp;
-				end_ref = i;
-				for (j = 0; LIKELY(j < segLen); ++j) pvHmax[j] = pvHStore[j];
+	result = (cigar*)malloc(sizeof(cigar));
+	if (result == 0) goto fail;
+	result->seq = (uint32_t*)malloc(s * sizeof(uint32_t));
+	result->length = 0;
+	if (result->seq == 0) {
+		free(result);
+		goto fail;
+	}
+	i = readLen - 1;
+	j = refLen - 1;
+	state = 0;
+	while (i >= 0 && j >= 0) {
+		dir = direction[(size_t)i * width + (j - (i + diagonal - band_width))];
+		if (state == 0 && (dir & 3) != 0) {
+			state = dir & 3;
+			continue;
+		}
+		if (state == 0) {
+			if (!cigar_push(result, &s, read[i] == ref[j] ? encoded_ops['='] : encoded_ops['X'])) break;
+			--i;
+			--j;
+		} else if (state == 1) {
+			if (!cigar_push(result, &s, encoded_ops['D'])) break;
+			if (dir & 4) state = 0;
+			--j;
+		} else {
+			if (!cigar_push(result, &s, encoded_ops['I'])) break;
+			if (dir & 16) {
+				--i;
+				break;
 			}
+			if (dir & 8) state = 0;
+			--i;
 		}
-
-		/* Record the max score of current column. */
-		max8(maxColumn[i], vMaxColumn);
 	}
+	if (i >= 0 && j >= 0) {
+		/* out of memory in cigar_push */
+		free(result->seq);
+		free(result);
+		goto fail;
+	}
+	for (u = 0; u < result->length / 2; ++u) {
+		uint32_t op = result->seq[u];
+		result->seq[u] = result->seq[result->length - 1 - u];
+		result->seq[result->length - 1 - u] = op;
+	}
+	*read_begin = i + 1;
+	*ref_begin = j + 1;
+	free(h_b); free(h_c); free(f_b); free(f_c); free(direction);
+	return result;
+
+fail:
+	free(h_b); free(h_c); free(f_b); free(f_c); free(direction);
+	return 0;
+}
 
-	/* Trace the alignment ending position on read. */
-	int16_t *t = (int16_t*)pvHmax;
-	int32_t column_len = segLen * 8;
-	for (i = 0; LIKELY(i < column_len); ++i, ++t) {
-		int32_t temp;
-		if (*t == max) {
-			temp = i / 8 + i % 8 * segLen;
-			if (temp < end_read) end_read = temp;
+/* The scores and ending positions of the kernels, in 32-bit scalars, for the pairs whose best score saturates the 16-bit
+   lanes. The matrix is filled column by column with the rules of banded_sw, and the ends are picked as the kernels pick
+   them: the first column reaching the best score and the first row of that column holding it. Returns 0 if out of
+   memory. */
+static alignment_end* sw_dword (const int8_t* ref,
+								int32_t refLen,
+								const int8_t* read,
+								int32_t readLen,
+								const int32_t weight_gapO,  /* will be used as - */
+								const int32_t weight_gapE,  /* will be used as - */
+								const int8_t* mat,
+								int32_t n,
+								int32_t maskLen) {
+
+	const int32_t gapOE = weight_gapO + weight_gapE, gapE = weight_gapE, neg = INT32_MIN / 2;
+	int32_t i, j, d, e, f, h, diagonal, max = neg, column, end_ref = 0, end_read = readLen - 1;
+	int32_t* hs = (int32_t*)malloc((size_t)readLen * sizeof(int32_t));
+	int32_t* es = (int32_t*)malloc((size_t)readLen * sizeof(int32_t));
+	int32_t* maxColumn = (int32_t*)malloc((size_t)(refLen > 0 ? refLen : 1) * sizeof(int32_t));
+	alignment_end* bests = (alignment_end*)calloc(2, sizeof(alignment_end));
+	if (!hs || !es || !maxColumn || !bests) {
+		free(hs); free(es); free(maxColumn); free(bests);
+		return 0;
+	}
+	for (j = 0; j < readLen; ++j) {
+		hs[j] = 0;
+		es[j] = neg;
+	}
+	for (i = 0; LIKELY(i < refLen); ++i) {
+		const int8_t* column_mat = mat + ref[i] * n;
+		diagonal = 0;
+		f = 0;
+		column = neg;
+		for (j = 0; LIKELY(j < readLen); ++j) {
+			d = diagonal + column_mat[read[j]];
+			diagonal = hs[j];
+			e = es[j];
+			h = d > e ? d : e;
+			h = h > f ? h : f;
+			hs[j] = h;
+			es[j] = e - gapE > h - gapOE ? e - gapE : h - gapOE;
+			f = f - gapE > h - gapOE ? f - gapE : h - gapOE;
+			if (h > column) column = h;
+		}
+		maxColumn[i] = column;
+		if (column > max) {
+			max = column;
+			end_ref = i;
+			for (j = 0; hs[j] != max; ++j);
+			end_read = j;
 		}
 	}
 
-	free(pvHmax);
-	free(pvE);
-	free(pvHLoad);
-	free(pvHStore);
+	bests[0].score = max;
+	bests[0].ref = end_ref + 1;
+	bests[0].read = end_read + 1;
 
-	alignment_end* best = (alignment_end*) calloc(1, sizeof(alignment_end));
-	best->score = max;
-	best->ref = end_ref+1;
-	best->read = end_read+1;
+	/* Find the suboptimal score in the columns more than maskLen away from the best one; ref stays 0 if there is none. */
+	bests[1].score = neg;
+	for (i = 0; maskLen >= 0 && LIKELY(i < refLen); ++i) {
+		if (i >= end_ref - maskLen && i <= end_ref + maskLen) {
+			i = end_ref + maskLen;
+			continue;
+		}
+		if (bests[1].ref == 0 || maxColumn[i] > bests[1].score) {
+			bests[1].score = maxColumn[i];
+			bests[1].ref = i + 1;
+		}
+	}
 
-	free(maxColumn);
-	return best;
+	free(hs); free(es); free(maxColumn);
+	return bests;
 }
 
-
+const char* ssw_kernel_name (int32_t readLen) {
+	return kernel_select(readLen)->name;
+}
 
 s_profile* ssw_init (const int8_t* read, const int32_t readLen, const int8_t* mat, const int32_t n) {
 	s_profile* p = (s_profile*)calloc(1, sizeof(struct _profile));
-	p->profile_word = 0;
-    p->profile_word = qP_word (read, mat, readLen, n);
+	p->kernel = kernel_select(readLen);
+	p->profile_word = p->kernel->qP_word (read, mat, readLen, n);
 	p->read = read;
 	p->mat = mat;
 	p->readLen = readLen;
@@ -358,26 +433,110 @@ s_align* ssw_align (const s_profile* prof,
 					const int8_t* ref,
 				  	int32_t refLen,
 				  	const int8_t weight_gapO,
-				  	const int8_t weight_gapE) {
-
-	alignment_end* best = 0;
-	int32_t readLen = prof->readLen;
+				  	const int8_t weight_gapE,
+				  	const uint8_t flag,
+				  	const int32_t filters,
+				  	const int32_t filterd,
+				  	const int32_t maskLen) {
+
+	alignment_end* bests = 0;
+	cigar* path;
+	int32_t readLen = prof->readLen, cigar_wanted;
 	s_align* r = (s_align*)calloc(1, sizeof(s_align));
 	r->ref_begin = -1;
 	r->read_begin = -1;
 	// Find the alignment scores and ending positions
-	best = sw_sse2_word(ref, refLen, readLen, weight_gapO, weight_gapE, prof->profile_word);
-
-	r->score = best->score;
-	r->ref_end = best->ref; // 0_based, always count from the input seq begin
-	r->read_end = best->read;   // 0_based, count from the alignment begin (aligned length of the read)
+	bests = prof->kernel->sw_word(ref, refLen, readLen, weight_gapO, weight_gapE, prof->profile_word, maskLen);
+	if (bests[0].score == INT16_MAX) {
+		/* the 16-bit lanes saturated, so the score and the ends are those of the first cell reaching INT16_MAX */
+		alignment_end* wide = sw_dword(ref, refLen, prof->read, readLen, (uint8_t)weight_gapO, (uint8_t)weight_gapE,
+									   prof->mat, prof->n, maskLen);
+		free(bests);
+		if (wide == 0) return r;
+		bests = wide;
+	}
 
-	free(best);
+	r->score = bests[0].score;
+	r->ref_end = bests[0].ref; // exclusive, the length of ref up to the end of the alignment
+	r->read_end = bests[0].read;   // exclusive, the length of the read up to the end of the alignment
+	r->score2 = bests[1].ref > 0 ? bests[1].score : -1;
+	r->ref_end2 = bests[1].ref > 0 ? bests[1].ref : -1;
+
+	free(bests);
+	if (flag == 0 || (flag == 2 && r->score < filters) || refLen == 0 || r->read_end < 1) return r;
+
+	// Find the beginning positions and the cigar of the best alignment.
+	path = banded_sw(ref, prof->read, r->ref_end, r->read_end, r->score, weight_gapO, weight_gapE, prof->mat, prof->n,
+					 &r->ref_begin, &r->read_begin);
+	if (path == 0) return r;
+	cigar_wanted = (flag & 1) || ((flag & 6) && ((flag & 2) == 0 || r->score >= filters) &&
+			((flag & 4) == 0 || (r->ref_end - r->ref_begin <= filterd && r->read_end - r->read_begin <= filterd)));
+	if (cigar_wanted) {
+		r->cigar = path->seq;
+		r->cigarLen = path->length;
+	} else free(path->seq);
+	free(path);
 
 	return r;
 }
 
 void align_destroy (s_align* a) {
+	free(a->cigar);
 	free(a);
 }
 
+void ssw_align_batch (const int8_t* reads,
+					  const int32_t* read_offsets,
+					  const int8_t* refs,
+					  const int32_t* ref_offsets,
+					  int32_t count,
+					  const int8_t* mat,
+					  const int32_t n,
+					  const int8_t weight_gapO,
+					  const int8_t weight_gapE,
+					  const uint8_t flag,
+					  const int32_t filters,
+					  const int32_t filterd,
+					  const int32_t maskLen,
+					  int32_t threads,
+					  int32_t* results,
+					  const int32_t* cigar_offsets,
+					  uint32_t* cigars) {
+
+#ifdef _OPENMP
+#pragma omp parallel num_threads(threads > 0 ? threads : 1)
+#else
+	(void)threads;
+#endif
+	{
+		s_profile* prof = 0;
+		int32_t begin = -1, end = -1, k;
+		/* chunks of consecutive pairs, so the pairs of one read mostly go to one thread */
+#ifdef _OPENMP
+#pragma omp for schedule(dynamic, 64)
+#endif
+		for (k = 0; k < count; ++k) {
+			int32_t* r = results + (int64_t)k * SSW_BATCH_FIELDS;
+			s_align* a;
+			if (prof == 0 || begin != read_offsets[k] || end != read_offsets[k + 1]) {
+				if (prof) init_destroy(prof);
+				begin = read_offsets[k];
+				end = read_offsets[k + 1];
+				prof = ssw_init(reads + begin, end - begin, mat, n);
+			}
+			a = ssw_align(prof, refs + ref_offsets[k], ref_offsets[k + 1] - ref_offsets[k], weight_gapO, weight_gapE,
+						  flag, filters, filterd, maskLen);
+			r[0] = a->score;
+			r[1] = a->ref_begin;
+			r[2] = a->ref_end;
+			r[3] = a->read_begin;
+			r[4] = a->read_end;
+			r[5] = a->score2;
+			r[6] = cigars ? a->cigarLen : 0;
+			if (cigars && a->cigarLen > 0)
+				memcpy(cigars + cigar_offsets[k], a->cigar, a->cigarLen * sizeof(uint32_t));
+			align_destroy(a);
+		}
+		if (prof) init_destroy(prof);
+	}
+}
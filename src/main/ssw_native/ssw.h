@@ -39,19 +39,28 @@ typedef struct _profile s_profile;
 
 /*!	@typedef	structure of the alignment result
     @field	score	the best alignment score
+    @field	score2	sub-optimal alignment score; -1 when it is not available
     @field	ref_begin	0-based best alignment beginning position on reference;	ref_begin1 = -1 when the best alignment beginning
 						position is not available
-    @field	ref_end 	0-based best alignment ending position on reference
+    @field	ref_end 	exclusive best alignment ending position on reference: the 0-based position after the last aligned base
     @field	read_begin	0-based best alignment beginning position on read; read_begin1 = -1 when the best alignment beginning
 						position is not available
-    @field	read_end	0-based best alignment ending position on read
+    @field	read_end	exclusive best alignment ending position on read: the 0-based position after the last aligned base
+    @field	ref_end2	exclusive sub-optimal alignment ending position on reference; -1 when it is not available
+    @field	cigar	best alignment cigar; stored the same as that in BAM format, high 28 bits: length, low 4 bits: M/I/D/=/X
+					(M = 0, I = 1, D = 2, = = 7, X = 8); 0 when it is not available
+    @field	cigarLen	length of the cigar string; cigarLen = 0 when the best alignment path is not available
 */
 typedef struct {
-	int16_t score;
+	int32_t score;
+	int32_t score2;
 	int32_t ref_begin;
 	int32_t ref_end;
 	int32_t	read_begin;
 	int32_t read_end;
+	int32_t ref_end2;
+	uint32_t* cigar;
+	int32_t cigarLen;
 } s_align;
 
 
@@ -88,19 +97,104 @@ void init_destroy (s_profile* p);
 	@param	refLen	length of the target sequence
 	@param	weight_gapO	the absolute value of gap open penalty
 	@param	weight_gapE	the absolute value of gap extension penalty
+	@param	flag	bitwise FLAG; (from high to low) bit 5: when setted as 1, function ssw_align will return the best alignment
+					beginning position; bit 6: when setted as 1, if (ref_end - ref_begin <= filterd && read_end - read_begin
+					<= filterd), (whatever bit 5 is setted) the function will return the best alignment beginning position and
+					cigar; bit 7: when setted as 1, if the best alignment score >= filters, (whatever bit 5 is setted) the function
+					will return the best alignment beginning position and cigar; bit 8: when setted as 1, (whatever bit 5, 6 or 7 is
+					setted) the function will always return the best alignment beginning position and cigar. When flag == 0, only
+					the optimal and sub-optimal scores and the optimal alignment ending position will be returned.
+	@param	filters	score filter: when bit 7 of flag is setted as 1 and bit 8 is setted as 0, filters will be used (Please check the
+					decription of the flag parameter for detailed usage.)
+	@param	filterd	distance filter: when bit 6 of flag is setted as 1 and bit 8 is setted as 0, filterd will be used (Please check
+					the decription of the flag parameter for detailed usage.)
+	@param	maskLen	The distance between the optimal and suboptimal alignment ending position > maskLen. We suggest to use
+					readLen/2, if you don't have special concerns. When maskLen < 0, the suboptimal alignment information is not
+					returned. Detailed description of maskLen: After locating the optimal alignment ending position, the
+					suboptimal alignment score can be heuristically found by checking the second largest score in the array that
+					contains the maximal score of each column of the SW matrix. In order to avoid picking the scores that belong
+					to the alignments sharing the partial best alignment, SSW C library masks the reference loci nearby (mask
+					length = maskLen) the best alignment ending position and locates the second largest score from the unmasked
+					elements.
 	@return	pointer to the alignment result structure
+	@note	Whatever the parameter flag is setted, this function will at least return the optimal and sub-optimal alignment
+			score, and the optimal alignment ending positions on target and query sequences. If both bit 6 and 7 of the flag
+			are setted while bit 8 is not, the function will return cigar only when both criteria are fulfilled. The
+			beginning positions and the cigar are found by one banded traceback from the ending positions, so asking for the
+			beginning positions costs as much as asking for the cigar. The cigar tells matches and mismatches apart as = and
+			X; an alignment starting with an insertion at the top of a column starts with I. The prof->read passed to
+			ssw_init must still be valid when either is asked for.
 */
 s_align* ssw_align (const s_profile* prof,
 					const int8_t* ref,
 					int32_t refLen,
 					const int8_t weight_gapO,
-					const int8_t weight_gapE);
+					const int8_t weight_gapE,
+					const uint8_t flag,
+					const int32_t filters,
+					const int32_t filterd,
+					const int32_t maskLen);
 
-/*!	@function	Release the memory allocated by function ssw_align.
+/*!	@function	Release the memory allocated by function ssw_align, with its cigar.
 	@param	a	pointer to the alignment result structure
 */
 void align_destroy (s_align* a);
 
+/*!	@function	Name the kernel ssw_init picks for a read.
+	@param	readLen	length of the query sequence
+	@return	the instruction set of the kernel: "avx512", "avx2" or "sse2"
+	@note	The kernel is the widest one the CPU runs that is faster at the length of the read. The environment
+			variable SSW_KERNEL can name another one the CPU runs, for instance to compare them.
+*/
+const char* ssw_kernel_name (int32_t readLen);
+
+/*!	@abstract	number of int32_t written by ssw_align_batch for each pair	*/
+#define SSW_BATCH_FIELDS 7
+
+/*!	@abstract	number of cigar operations ssw_align_batch may write for a pair with a read of readLen and a target of refLen;
+				every operation but D uses a character of the read, and no two D are adjacent	*/
+#define SSW_BATCH_CIGAR(readLen, refLen) ((readLen) + (refLen) < 2 * (readLen) + 1 ? (readLen) + (refLen) : 2 * (readLen) + 1)
+
+/*!	@function	Align many pairs in one call.
+	@param	reads	the query sequences, as numbers, one after the other
+	@param	read_offsets	count + 1 offsets in reads; read k is from read_offsets[k] to read_offsets[k + 1]
+	@param	refs	the target sequences, as numbers, one after the other
+	@param	ref_offsets	count + 1 offsets in refs; target k is from ref_offsets[k] to ref_offsets[k + 1]
+	@param	count	number of pairs
+	@param	mat	pointer to the substitution matrix, as for ssw_init
+	@param	n	the square root of the number of elements in mat
+	@param	weight_gapO	the absolute value of gap open penalty
+	@param	weight_gapE	the absolute value of gap extension penalty
+	@param	flag	bitwise FLAG, as for ssw_align
+	@param	filters	score filter, as for ssw_align
+	@param	filterd	distance filter, as for ssw_align
+	@param	maskLen	mask length of the sub-optimal alignment, as for ssw_align
+	@param	threads	number of threads; only used when the library is built with OpenMP
+	@param	results	count * SSW_BATCH_FIELDS values: score, ref_begin, ref_end, read_begin, read_end, score2 and cigarLen of
+				each pair, as in s_align
+	@param	cigar_offsets	count offsets in cigars; the cigar of pair k is written from cigar_offsets[k], which must leave room
+				for SSW_BATCH_CIGAR of the lengths of the pair; 0 when no cigar is asked for
+	@param	cigars	the cigars of the pairs; 0 when no cigar is asked for
+	@note	Consecutive pairs with the same read offsets share the query profile of the read.
+*/
+void ssw_align_batch (const int8_t* reads,
+					  const int32_t* read_offsets,
+					  const int8_t* refs,
+					  const int32_t* ref_offsets,
+					  int32_t count,
+					  const int8_t* mat,
+					  const int32_t n,
+					  const int8_t weight_gapO,
+					  const int8_t weight_gapE,
+					  const uint8_t flag,
+					  const int32_t filters,
+					  const int32_t filterd,
+					  const int32_t maskLen,
+					  int32_t threads,
+					  int32_t* results,
+					  const int32_t* cigar_offsets,
+					  uint32_t* cigars);
+
 
 
 #ifdef __cplusplus
@@ -0,0 +1,12 @@
+/*
+ *  ssw_avx2.c
+ *
+ *  The striped kernel of ssw_kernel.h for AVX2.
+ *
+ */
+
+#include "avx2_functions.h"
+
+#define KERNEL(name) name##_avx2
+
+#include "ssw_kernel.h"
@@ -0,0 +1,12 @@
+/*
+ *  ssw_avx512.c
+ *
+ *  The striped kernel of ssw_kernel.h for AVX-512 (AVX512BW).
+ *
+ */
+
+#include "avx512_functions.h"
+
+#define KERNEL(name) name##_avx512
+
+#include "ssw_kernel.h"
@@ -0,0 +1,61 @@
+/*
+ *  ssw_dispatch.h
+ *
+ *  Declarations shared by ssw.c and the striped kernels it picks from at
+ *  run time, one per instruction set. Not part of the library interface.
+ *
+ */
+
+#ifndef SSW_DISPATCH_H
+#define SSW_DISPATCH_H
+
+#include <stdint.h>
+
+#ifdef __GNUC__
+#define LIKELY(x) __builtin_expect((x),1)
+#define UNLIKELY(x) __builtin_expect((x),0)
+#else
+#define LIKELY(x) (x)
+#define UNLIKELY(x) (x)
+#endif
+
+typedef struct {
+	int32_t score;
+	int32_t ref;	 //exclusive ending position on ref; 0 when there is no alignment
+	int32_t read;    //exclusive ending position on read
+} alignment_end;
+
+/*!	@typedef	structure of a kernel
+    @field	name	the instruction set of the kernel
+    @field	min_readLen	the shortest read the kernel is picked for, unless SSW_KERNEL names it
+    @field	qP_word	builds the striped query profile of a read, in 16-bit lanes
+    @field	sw_word	aligns a reference against a query profile of the same kernel; returns the best and the
+					suboptimal alignment ends
+*/
+typedef struct {
+	const char* name;
+	int32_t min_readLen;
+	void* (*qP_word) (const int8_t* read_num, const int8_t* mat, const int32_t readLen, const int32_t n);
+	alignment_end* (*sw_word) (const int8_t* ref, int32_t refLen, int32_t readLen,
+							   const uint8_t weight_gapO, const uint8_t weight_gapE, const void* vProfile,
+							   int32_t maskLen);
+} ssw_kernel;
+
+void* qP_word_sse2 (const int8_t* read_num, const int8_t* mat, const int32_t readLen, const int32_t n);
+alignment_end* sw_word_sse2 (const int8_t* ref, int32_t refLen, int32_t readLen,
+							 const uint8_t weight_gapO, const uint8_t weight_gapE, const void* vProfile,
+							 int32_t maskLen);
+
+#ifndef __ARM_NEON // x86 (Intel)
+void* qP_word_avx2 (const int8_t* read_num, const int8_t* mat, const int32_t readLen, const int32_t n);
+alignment_end* sw_word_avx2 (const int8_t* ref, int32_t refLen, int32_t readLen,
+							 const uint8_t weight_gapO, const uint8_t weight_gapE, const void* vProfile,
+							 int32_t maskLen);
+
+void* qP_word_avx512 (const int8_t* read_num, const int8_t* mat, const int32_t readLen, const int32_t n);
+alignment_end* sw_word_avx512 (const int8_t* ref, int32_t refLen, int32_t readLen,
+							   const uint8_t weight_gapO, const uint8_t weight_gapE, const void* vProfile,
+							   int32_t maskLen);
+#endif
+
+#endif	// SSW_DISPATCH_H
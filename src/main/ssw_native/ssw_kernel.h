@@ -0,0 +1,208 @@
+/*
+ *  ssw_kernel.h
+ *
+ *  The striped Smith-Waterman kernel of ssw.c, written with the VEC_ macros
+ *  of sse2_functions.h, avx2_functions.h and avx512_functions.h so that the
+ *  same code is compiled for each instruction set. A kernel source includes
+ *  one of those headers, defines KERNEL(name) to suffix the names with the
+ *  instruction set, and includes this file. The number of 16-bit lanes, and
+ *  so the layout of the query profile, follows the width of VEC_TYPE.
+ *
+ */
+
+#include <stdlib.h>
+#include <string.h>
+#include <limits.h>
+#include "ssw_dispatch.h"
+
+#define LANES ((int32_t)(sizeof(VEC_TYPE) / sizeof(int16_t)))
+
+/* Allocate count zeroed vectors, aligned for VEC_LOAD and VEC_STORE. */
+static VEC_TYPE* KERNEL(vec_calloc) (int32_t count) {
+	size_t size = (count > 0 ? count : 1) * sizeof(VEC_TYPE);
+	VEC_TYPE* v = (VEC_TYPE*)aligned_alloc(sizeof(VEC_TYPE), size);
+	memset(v, 0, size);
+	return v;
+}
+
+void* KERNEL(qP_word) (const int8_t* read_num,
+					   const int8_t* mat,
+					   const int32_t readLen,
+					   const int32_t n) {
+
+	int32_t segLen = (readLen + LANES - 1) / LANES;
+	VEC_TYPE* vProfile = KERNEL(vec_calloc)(n * segLen);
+	int16_t* t = (int16_t*)vProfile;
+	int32_t nt, i, j;
+	int32_t segNum;
+
+	/* Generate query profile rearrange query sequence & calculate the weight of match/mismatch. The rows past the end of
+	   the read score very low, so that they never hold the max of a column, whatever the number of lanes. */
+	for (nt = 0; LIKELY(nt < n); nt ++) {
+		for (i = 0; i < segLen; i ++) {
+			j = i;
+			for (segNum = 0; LIKELY(segNum < LANES) ; segNum ++) {
+				*t++ = j>= readLen ? SHRT_MIN / 2 : mat[nt * n + read_num[j]];
+				j += segLen;
+			}
+		}
+	}
+	return vProfile;
+}
+
+alignment_end* KERNEL(sw_word) (const int8_t* ref,
+								int32_t refLen,
+								int32_t readLen,
+								const uint8_t weight_gapO, /* will be used as - */
+								const uint8_t weight_gapE, /* will be used as - */
+								const void* profile,
+								int32_t maskLen) {
+
+	const VEC_TYPE* vProfile = (const VEC_TYPE*)profile;
+	int16_t max = SHRT_MIN;		                     /* the max alignment score */
+	int32_t end_read = readLen - 1;
+	int32_t end_ref = 0; /* 1_based best alignment ending point; Initialized as isn't aligned - 0. */
+	int32_t segLen = (readLen + LANES - 1) / LANES; /* number of segment */
+
+	/* array to record the largest score of each reference position */
+	int16_t* maxColumn = (int16_t*) calloc(refLen, 2);
+
+
+	/* Define a vector of minus infinity. */
+	VEC_TYPE vNeg = VEC_SET1(SHRT_MIN);
+
+	VEC_TYPE* pvHStore = KERNEL(vec_calloc)(segLen);
+	VEC_TYPE* pvHLoad = KERNEL(vec_calloc)(segLen);
+	VEC_TYPE* pvE = KERNEL(vec_calloc)(segLen);
+	int itr;
+	for (itr = 0; itr < segLen; itr++){
+	    pvE[itr] = vNeg;
+	}
+	VEC_TYPE* pvHmax = KERNEL(vec_calloc)(segLen);
+
+	int32_t i, j, k;
+	/* insertion begin vector */
+	VEC_TYPE vGapOE = VEC_SET1(weight_gapO+weight_gapE);
+
+	/* insertion extension vector */
+	VEC_TYPE vGapE = VEC_SET1(weight_gapE);
+
+	VEC_TYPE vMaxScore = vNeg; /* Trace the highest score of the whole SW matrix. */
+	VEC_TYPE vMaxMark = vNeg; /* Trace the highest score till the previous column. */
+	VEC_TYPE vTemp;
+
+	/* outer loop to process the reference sequence */
+
+	for (i = 0; LIKELY(i < refLen); ++i) {
+		VEC_TYPE e, vF = vNeg; /* Initialize F value to 0.
+							   Any errors to vH values will be corrected in the Lazy_F loop.*/
+		VEC_TYPE vH = pvHStore[segLen - 1];
+		vH = VEC_SLL(vH, 2); /* Shift the value in vH left by 2 byte. */
+
+		/* Swap the 2 H buffers. */
+		VEC_TYPE* pv = pvHLoad;
+
+		VEC_TYPE vMaxColumn = vNeg; /* vMaxColumn is used to record the max values of column i. */
+
+		const VEC_TYPE* vP = vProfile + ref[i] * segLen; /* Right part of the vProfile */
+		pvHLoad = pvHStore;
+		pvHStore = pv;
+
+		/* inner loop to process the query sequence */
+		for (j = 0; LIKELY(j < segLen); j ++) {
+			vH = VEC_ADDS(vH, VEC_LOAD(vP + j));
+
+			/* Get max from vH, vE and vF. */
+			e = VEC_LOAD(pvE + j);
+			vH = VEC_MAX(vH, e);
+			vH = VEC_MAX(vH, vF);
+			vMaxColumn = VEC_MAX(vMaxColumn, vH);
+
+			/* Save vH values. */
+			VEC_STORE(pvHStore + j, vH);
+
+			/* Update vE value. */
+			vH = VEC_SUBS(vH, vGapOE); /* saturation arithmetic */
+			e = VEC_SUBS(e, vGapE);
+			e = VEC_MAX(e, vH);
+			VEC_STORE(pvE + j, e);
+
+			/* Update vF value. */
+			vF = VEC_SUBS(vF, vGapE);
+			vF = VEC_MAX(vF, vH);
+
+			/* Load the next vH. */
+			vH = VEC_LOAD(pvHLoad + j);
+		}
+
+		/* Lazy_F loop: has been revised to disallow adjecent insertion and then deletion, so don't update E(i, j), learn from SWPS3 */
+		for (k = 0; LIKELY(k < LANES); ++k) {
+			vF = VEC_SLL(vF, 2);
+			for (j = 0; LIKELY(j < segLen); ++j) {
+				vH = VEC_LOAD(pvHStore + j);
+				vH = VEC_MAX(vH, vF);
+				vMaxColumn = VEC_MAX(vMaxColumn, vH); //newly added line
+				VEC_STORE(pvHStore + j, vH);
+				vH = VEC_SUBS(vH, vGapOE);
+				vF = VEC_SUBS(vF, vGapE);
+				if (UNLIKELY(! VEC_ANY_GT(vF, vH))) goto end;
+			}
+		}
+
+end:
+		vMaxScore = VEC_MAX(vMaxScore, vMaxColumn);
+		vTemp = VEC_CMPEQ(vMaxMark, vMaxScore);
+		if (VEC_MOVEMASK(vTemp) != VEC_ALL_ONES) {
+			int16_t temp;
+			vMaxMark = vMaxScore;
+			max_of_vec(temp, vMaxScore);
+			vMaxScore = vMaxMark;
+
+			if (LIKELY(temp > max)) {
+				max = temp;
+				end_ref = i;
+				for (j = 0; LIKELY(j < segLen); ++j) pvHmax[j] = pvHStore[j];
+			}
+		}
+
+		/* Record the max score of current column. */
+		max_of_vec(maxColumn[i], vMaxColumn);
+	}
+
+	/* Trace the alignment ending position on read. */
+	int16_t *t = (int16_t*)pvHmax;
+	int32_t column_len = segLen * LANES;
+	for (i = 0; LIKELY(i < column_len); ++i, ++t) {
+		int32_t temp;
+		if (*t == max) {
+			temp = i / LANES + i % LANES * segLen;
+			if (temp < end_read) end_read = temp;
+		}
+	}
+
+	free(pvHmax);
+	free(pvE);
+	free(pvHLoad);
+	free(pvHStore);
+
+	alignment_end* bests = (alignment_end*) calloc(2, sizeof(alignment_end));
+	bests[0].score = max;
+	bests[0].ref = end_ref+1;
+	bests[0].read = end_read+1;
+
+	/* Find the suboptimal score in the columns more than maskLen away from the best one; ref stays 0 if there is none. */
+	bests[1].score = SHRT_MIN;
+	for (i = 0; maskLen >= 0 && LIKELY(i < refLen); ++i) {
+		if (i >= end_ref - maskLen && i <= end_ref + maskLen) {
+			i = end_ref + maskLen;
+			continue;
+		}
+		if (bests[1].ref == 0 || maxColumn[i] > bests[1].score) {
+			bests[1].score = maxColumn[i];
+			bests[1].ref = i+1;
+		}
+	}
+
+	free(maxColumn);
+	return bests;
+}
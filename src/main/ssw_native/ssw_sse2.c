@@ -0,0 +1,12 @@
+/*
+ *  ssw_sse2.c
+ *
+ *  The striped kernel of ssw_kernel.h for SSE2, the baseline of x86-64 (and NEON through sse2neon).
+ *
+ */
+
+#include "sse2_functions.h"
+
+#define KERNEL(name) name##_sse2
+
+#include "ssw_kernel.h"
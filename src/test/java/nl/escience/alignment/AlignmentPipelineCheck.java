@@ -0,0 +1,61 @@
+package nl.escience.alignment;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+/**
+ * Checks that AlignmentPipeline pairs the records of two files when a blank
+ * line is in one of them only: the output has to be that of the files
+ * without blank lines.
+ *
+ * Usage: AlignmentPipelineCheck
+ */
+public class AlignmentPipelineCheck {
+
+    public static void main(String[] args) throws IOException {
+        String file1 = ">a1\nACGTACGTAC\n>b1\nGGGTTTAAAC\n>c1\nTTTTGGGGCC\n";
+        String file2 = ">a2\nACGTTCGTAC\n>b2\nGGGTTAAAC\n>c2\nTTTAGGGGCC\n";
+        String expected = run(file1, file2);
+        int wrong = 0;
+        // the lines before which a blank line is put
+        for (int line = 0; line <= 6; line++) {
+            for (boolean first : new boolean[]{true, false}) {
+                String result;
+                try {
+                    result = first ? run(blank(file1, line), file2) : run(file1, blank(file2, line));
+                } catch (IOException e) {
+                    result = e.toString();
+                }
+                if (!result.equals(expected)) {
+                    if (wrong++ < 3)
+                        System.err.println("blank line " + line + " in file " + (first ? 1 : 2) + ":\n" + result);
+                }
+            }
+        }
+        System.out.println(wrong + " wrong");
+        if (wrong > 0)
+            System.exit(1);
+    }
+
+    /**
+     * @return The file with a blank line before one of its lines
+     */
+    private static String blank(String file, int line) {
+        int at = 0;
+        for (int k = 0; k < line; k++)
+            at = file.indexOf('\n', at) + 1;
+        return file.substring(0, at) + "\n" + file.substring(at);
+    }
+
+    private static String run(String file1, String file2) throws IOException {
+        ScoringScheme scheme = new ScoringScheme(20, 3, 'N');
+        AlignmentPipeline<LocalSequenceAlignment> pipeline = new AlignmentPipeline<>(
+                () -> new LocalSequenceAlignment(scheme, 1000, 0, false),
+                (aligner, alignment) -> alignment.toString(), 2, 4);
+        StringWriter out = new StringWriter();
+        pipeline.run(new BufferedReader(new StringReader(file1)), new BufferedReader(new StringReader(file2)), out);
+        return out.toString();
+    }
+}
@@ -0,0 +1,53 @@
+package nl.escience.alignment;
+
+import java.util.Random;
+
+/**
+ * Stress run of batch_align over random ACGT pairs, long enough for the
+ * batch kernels to be compiled by C2. Every pair of the first and the last
+ * round is checked against align().
+ *
+ * Usage: BatchSequenceAlignmentStress [rounds]
+ */
+public class BatchSequenceAlignmentStress {
+
+    public static int ROUNDS = 300;
+    public static int PAIRS = 200;
+    public static int MAX_READ = 120;
+    public static int MAX_REF = 200;
+
+    public static void main(String[] args) {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : ROUNDS;
+        LocalSequenceAlignment aligner = new LocalSequenceAlignment(20, 3, 1000, 0, 'N');
+        Random random = new Random(1);
+        byte[][] reads = new byte[PAIRS][];
+        byte[][] refs = new byte[PAIRS][];
+        long total = 0;
+        int round, k, wrong = 0;
+        for (round = 0; round < rounds; round++) {
+            for (k = 0; k < PAIRS; k++) {
+                reads[k] = random_sequence(random, 1 + random.nextInt(MAX_READ));
+                refs[k] = random_sequence(random, 1 + random.nextInt(MAX_REF));
+            }
+            Alignment[] batch = aligner.batch_align(reads, refs);
+            for (k = 0; k < PAIRS; k++) {
+                total += batch[k].score;
+                if ((round == 0 || round == rounds - 1) &&
+                        !batch[k].toString().equals(aligner.align(new String(reads[k]), new String(refs[k])).toString())) {
+                    System.err.println("round " + round + ", pair " + k + ": " + batch[k]);
+                    wrong++;
+                }
+            }
+        }
+        System.out.println("total score " + total + ", " + wrong + " wrong");
+        if (wrong > 0)
+            System.exit(1);
+    }
+
+    private static byte[] random_sequence(Random random, int length) {
+        byte[] sequence = new byte[length];
+        for (int i = 0; i < length; i++)
+            sequence[i] = (byte)"ACGT".charAt(random.nextInt(4));
+        return sequence;
+    }
+}
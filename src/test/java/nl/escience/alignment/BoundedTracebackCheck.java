@@ -0,0 +1,141 @@
+package nl.escience.alignment;
+
+import java.util.Random;
+
+/**
+ * Checks the traceback of BoundedLocalSequenceAlignment, with a static and
+ * an adaptive band, on reads aligned against padded windows of their
+ * reference: the traced path has to rescore to the reported score, the
+ * cigar has to stay within both sequences, and the gapped sequences of
+ * get_alignment() have to spell the cigar.
+ *
+ * Usage: BoundedTracebackCheck [pairs]
+ */
+public class BoundedTracebackCheck {
+
+    public static int PAIRS = 300;
+    public static int GAP_OPEN = 20;
+    public static int GAP_EXT = 3;
+    public static int BAND = 5;
+
+    public static void main(String[] args) {
+        int pairs = args.length > 0 ? Integer.parseInt(args[0]) : PAIRS;
+        ScoringScheme scheme = new ScoringScheme(GAP_OPEN, GAP_EXT, 'N');
+        int wrong = 0;
+        for (boolean adaptive : new boolean[]{false, true})
+            for (int zdrop : new int[]{0, 100})
+                for (int clip = 0; clip <= 3; clip++)
+                    wrong += check(new BoundedLocalSequenceAlignment(scheme, 2000, BAND, clip, zdrop, adaptive),
+                            scheme, pairs, "adaptive=" + adaptive + ",zdrop=" + zdrop + ",clip=" + clip);
+        System.out.println(wrong + " wrong");
+        if (wrong > 0)
+            System.exit(1);
+    }
+
+    private static int check(BoundedLocalSequenceAlignment aligner, ScoringScheme scheme, int pairs, String setting) {
+        Random random = new Random(7);
+        int k, wrong = 0;
+        for (k = 0; k < pairs; k++) {
+            String ref = random_sequence(random, 200);
+            String read = mutate(random, ref.substring(20, 170));
+            String window = ref.substring(10, 190);
+            String error = null;
+            try {
+                Alignment aligned = aligner.align_traced(read, window);
+                Alignment path = aligner.trace_path();
+                if (aligned.ref_end < 0 || aligned.ref_end > window.length() || aligned.read_end > read.length() ||
+                        aligned.ref_begin < 0 || aligned.read_begin < 0)
+                    error = "out of the sequences: " + aligned;
+                else if (rescore(path, read, window, scheme) != aligned.score)
+                    error = "path scores " + rescore(path, read, window, scheme) + ": " + path;
+                else
+                    error = check_gapped(aligner.get_alignment(), aligned, read, window);
+            } catch (RuntimeException e) {
+                error = e.toString();
+            }
+            if (error != null) {
+                if (wrong++ < 3)
+                    System.err.println(setting + ", pair " + k + ": " + error);
+            }
+        }
+        return wrong;
+    }
+
+    /**
+     * @return The score of the cigar of an alignment, from its beginning positions
+     */
+    private static int rescore(Alignment alignment, String read, String ref, ScoringScheme scheme) {
+        int i = alignment.read_begin, j = alignment.ref_begin, k, l, op, score = 0;
+        for (k = 0; k < alignment.get_cigar_size(); k++) {
+            op = alignment.get_cigar_op(k);
+            l = op >>> 4;
+            switch (Cigar.OPERATIONS.charAt(op & 0xf)) {
+                case 'M':
+                    for (; l > 0; l--)
+                        score += scheme.get_score(read.charAt(i++), ref.charAt(j++));
+                    break;
+                case 'I':
+                    score -= scheme.get_gap_open() + l * scheme.get_gap_ext();
+                    i += l;
+                    break;
+                case 'D':
+                    score -= scheme.get_gap_open() + l * scheme.get_gap_ext();
+                    j += l;
+                    break;
+                default:
+                    throw new IllegalStateException("Unexpected operation in the path: " + alignment.get_cigar());
+            }
+        }
+        return score;
+    }
+
+    /**
+     * @return Why the gapped sequences do not spell the aligned part of the
+     *         cigar, or null if they do
+     */
+    private static String check_gapped(String gapped, Alignment alignment, String read, String ref) {
+        String[] rows = gapped.split("\n", -1);
+        StringBuilder spelled = new StringBuilder(), aligned = new StringBuilder();
+        int k;
+        if (rows.length != 2 || rows[0].length() != rows[1].length())
+            return "gapped sequences of different lengths: " + gapped;
+        for (k = 0; k < rows[0].length(); k++)
+            spelled.append(rows[1].charAt(k) == '-' ? 'D' : rows[0].charAt(k) == '-' ? 'I' : 'M');
+        for (k = 0; k < alignment.get_cigar_size(); k++)
+            if (Cigar.OPERATIONS.charAt(alignment.get_cigar_op(k) & 0xf) != 'S')
+                for (int l = alignment.get_cigar_op(k) >>> 4; l > 0; l--)
+                    aligned.append(Cigar.OPERATIONS.charAt(alignment.get_cigar_op(k) & 0xf));
+        if (!spelled.toString().equals(aligned.toString()))
+            return "gapped sequences do not spell " + alignment.get_cigar() + ":\n" + gapped;
+        if (!rows[0].replace("-", "").equals(ref.substring(alignment.ref_begin, alignment.ref_end)) ||
+                !rows[1].replace("-", "").equals(read.substring(alignment.read_begin, alignment.read_end)))
+            return "gapped sequences are not the aligned parts: " + alignment + "\n" + gapped;
+        return null;
+    }
+
+    private static String random_sequence(Random random, int length) {
+        StringBuilder sequence = new StringBuilder(length);
+        for (int i = 0; i < length; i++)
+            sequence.append("ACGT".charAt(random.nextInt(4)));
+        return sequence.toString();
+    }
+
+    /**
+     * @return The sequence with about 3% substitutions, 3% deletions and 3% insertions
+     */
+    private static String mutate(Random random, String sequence) {
+        StringBuilder mutated = new StringBuilder(sequence.length() + 16);
+        for (char c : sequence.toCharArray()) {
+            int x = random.nextInt(100);
+            if (x < 3)
+                continue;
+            if (x < 6)
+                mutated.append("ACGT".charAt(random.nextInt(4)));
+            else if (x < 9)
+                mutated.append(c).append("ACGT".charAt(random.nextInt(4)));
+            else
+                mutated.append(c);
+        }
+        return mutated.toString();
+    }
+}